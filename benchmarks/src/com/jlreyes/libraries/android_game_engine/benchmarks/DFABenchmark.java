@@ -0,0 +1,95 @@
+package com.jlreyes.libraries.android_game_engine.benchmarks;
+
+import com.jlreyes.libraries.android_game_engine.datastructures.CompiledDFA;
+import com.jlreyes.libraries.android_game_engine.datastructures.DFA;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steps a DFA with the given number of states and a fixed alphabet through
+ * a sequence of letters. Either the {@link DFA} as it is built, stepping
+ * through its maps, or the {@link CompiledDFA} scenes step by letter id.
+ *
+ * @author jlreyes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DFABenchmark {
+    public static final int NUM_LETTERS = 8;
+    /* A power of two */
+    public static final int SEQUENCE_LENGTH = 1024;
+
+    @Param({"4", "64"})
+    public int states;
+
+    private DFA<Integer, Integer> mDFA;
+    private CompiledDFA<Integer, Integer> mCompiledDFA;
+    private Integer[] mLetters;
+    private int[] mLetterIds;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        HashSet<Integer> stateSet = new HashSet<Integer>();
+        HashSet<Integer> alphabet = new HashSet<Integer>();
+        HashMap<Integer, HashMap<Integer, Integer>> transitions =
+                new HashMap<Integer, HashMap<Integer, Integer>>();
+        for (int letter = 0; letter < NUM_LETTERS; letter++) alphabet.add(letter);
+        for (int state = 0; state < states; state++) {
+            stateSet.add(state);
+            HashMap<Integer, Integer> letterTransitions = new HashMap<Integer, Integer>();
+            /* Leave the last letter out, a self loop */
+            for (int letter = 0; letter < NUM_LETTERS - 1; letter++)
+                letterTransitions.put(letter, (state * 7 + letter * 3 + 1) % states);
+            transitions.put(state, letterTransitions);
+        }
+        this.mDFA = new DFA<Integer, Integer>(stateSet, alphabet, transitions, 0,
+                                              new HashSet<Integer>());
+        this.mCompiledDFA = mDFA.compile();
+        /* The same letters every run */
+        Random random = new Random(42);
+        this.mLetters = new Integer[SEQUENCE_LENGTH];
+        this.mLetterIds = new int[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            mLetters[i] = random.nextInt(NUM_LETTERS);
+            mLetterIds[i] = mCompiledDFA.getLetterId(mLetters[i]);
+        }
+        this.mNext = 0;
+    }
+
+    private int next() {
+        int next = mNext;
+        mNext = (next + 1) & (SEQUENCE_LENGTH - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int step() {
+        mDFA.step(mLetters[next()]);
+        return mDFA.getCurrentState();
+    }
+
+    @Benchmark
+    public int compiledStep() {
+        mCompiledDFA.step(mLetterIds[next()]);
+        return mCompiledDFA.getCurrentStateId();
+    }
+}
@@ -0,0 +1,207 @@
+package com.jlreyes.libraries.android_game_engine.benchmarks;
+
+import com.jlreyes.libraries.android_game_engine.datastructures.DFA;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+import com.jlreyes.libraries.android_game_engine.rendering.HeadlessTarget;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
+import com.jlreyes.libraries.android_game_engine.scenes.Layer;
+import com.jlreyes.libraries.android_game_engine.scenes.Scene;
+import com.jlreyes.libraries.android_game_engine.scenes.SceneController;
+import com.jlreyes.libraries.android_game_engine.scenes.SceneLoader;
+import com.jlreyes.libraries.android_game_engine.sprites.sprites.GameCamera;
+import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
+import com.jlreyes.libraries.android_game_engine.sprites.sprites.RectSprite;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
+import com.jlreyes.libraries.android_game_engine.utils.ManualClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One logic step of a layer with the given number of moving sprites, as
+ * the logic manager runs it: {@link Layer#onUpdateStart()},
+ * {@link Layer#update(long, Scene.SceneState)} and
+ * {@link Layer#onUpdateFinish(ArrayList, Thread)}. Runs on a headless
+ * scheduler that is never started, so nothing else is running and sprites
+ * have no texture. Sprites are spread past the camera, so some of them are
+ * culled. Run with a profiler, like -prof stack, to see where the step goes.
+ *
+ * @author jlreyes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayerBenchmark {
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 480;
+    /* Sprites are placed and move within +-FIELD, the camera sees +-1 */
+    public static final float FIELD = 2.0f;
+    public static final float SPRITE_SIZE = 0.05f;
+    /* The logic manager's step */
+    public static final long TIMESTEP = 10l;
+
+    /**
+     * A sprite drifting right and spinning, wrapping around the field.
+     */
+    public static class DriftSprite extends RectSprite {
+        private float mSpeed;
+
+        public DriftSprite(Layer layer, float x, float y, float speed) {
+            super("DriftSprite", layer, (Texture) null, true, x, y,
+                  DEFAULT_SCALE, DEFAULT_ANGLE, SPRITE_SIZE, SPRITE_SIZE);
+            this.mSpeed = speed;
+        }
+
+        @Override
+        public void update(long deltaTime) {
+            float x = getXLocation() + mSpeed * deltaTime;
+            if (x > FIELD) x -= 2.0f * FIELD;
+            setXLocation(x);
+            rotateBy(mSpeed * deltaTime * 360.0f);
+        }
+
+        @Override
+        public boolean isTouching(float x, float y) {
+            return false;
+        }
+
+        @Override
+        public boolean onTouchDown(InputEvent e) {
+            return false;
+        }
+
+        @Override
+        public void onTouchCancel(InputEvent e) {}
+
+        @Override
+        public boolean onTouchUp(InputEvent e) {
+            return false;
+        }
+    }
+
+    public static class SpriteLayer extends Layer {
+        private int mNumSprites;
+
+        public SpriteLayer(Scene scene, int numSprites) {
+            super("Sprites", scene);
+            this.mNumSprites = numSprites;
+        }
+
+        @Override
+        public void load(SceneLoader.PercentDone percentDone) {
+            super.load(percentDone);
+            /* Spread evenly over a grid, so every run places them the same */
+            int side = (int) Math.ceil(Math.sqrt(mNumSprites));
+            float step = 2.0f * FIELD / side;
+            for (int i = 0; i < mNumSprites; i++) {
+                float x = -FIELD + step * (i % side);
+                float y = -FIELD + step * (i / side);
+                addSprite(new DriftSprite(this, x, y, 0.0001f * (1 + i % 7)));
+            }
+        }
+
+        @Override
+        public GameCamera createCamera() {
+            return new LayerCamera("Camera", this, 2.0f);
+        }
+
+        @Override
+        public void updateOnState(long deltaTime, Scene.SceneState state) {}
+    }
+
+    public static class SpriteScene extends Scene {
+        private int mNumSprites;
+
+        public SpriteScene(Scheduler scheduler, int numSprites) {
+            super(scheduler);
+            this.mNumSprites = numSprites;
+        }
+
+        @Override
+        protected Layer[] createLayers() {
+            return new Layer[]{new SpriteLayer(this, mNumSprites)};
+        }
+
+        @Override
+        protected DFA<SceneState, SceneEvent> loadEventDFA() {
+            HashSet<SceneState> states = new HashSet<SceneState>();
+            SceneState state = new SceneState();
+            states.add(state);
+            return new DFA<SceneState, SceneEvent>(states,
+                                                   new HashSet<SceneEvent>(),
+                                                   new HashMap<SceneState, HashMap<SceneEvent, SceneState>>(),
+                                                   state,
+                                                   new HashSet<SceneState>());
+        }
+
+        @Override
+        public String getName() {
+            return "LayerBenchmark";
+        }
+    }
+
+    @Param({"1000", "10000", "100000"})
+    public int sprites;
+    /* Whether the layer's sprites are updated in parallel, see
+     * Layer#setIndependent(boolean) */
+    @Param({"false", "true"})
+    public boolean independent;
+
+    private Scheduler mScheduler;
+    private Scene mScene;
+    private Layer mLayer;
+    private Scene.SceneState mState;
+    private ArrayList<Renderable> mRenderables;
+    private Thread mRenderThread;
+
+    @Setup
+    public void setUp() {
+        /* The scheduler asks for a start scene, though it never loads it */
+        if (SceneController.START_SCENE == null)
+            SceneController.START_SCENE = new SceneController.SceneInfo(SpriteScene.class);
+        this.mScheduler = new Scheduler("Benchmark Scheduler",
+                                        new HeadlessTarget(WIDTH, HEIGHT),
+                                        new ManualClock());
+        this.mScene = new SpriteScene(mScheduler, sprites);
+        mScene.load(null);
+        this.mLayer = mScene.getLayers()[0];
+        mLayer.setIndependent(independent);
+        this.mState = mScene.getCurrentState();
+        this.mRenderables = new ArrayList<Renderable>(sprites + 1);
+        this.mRenderThread = mScheduler.getRenderTarget().getRenderThread();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mScene.unload();
+        mScheduler.getWorkerPool().kill();
+    }
+
+    @Benchmark
+    public int step() {
+        mLayer.onUpdateStart();
+        mLayer.update(TIMESTEP, mState);
+        mLayer.onUpdateFinish(mRenderables, mRenderThread);
+        int numRenderables = mRenderables.size();
+        mRenderables.clear();
+        return numRenderables;
+    }
+}
@@ -0,0 +1,83 @@
+package com.jlreyes.libraries.android_game_engine.benchmarks;
+
+import com.jlreyes.libraries.android_game_engine.datastructures.MinAllocHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link MinAllocHashSet} holding the given number of elements. Keys are
+ * boxed in setUp, so only the set is timed.
+ *
+ * @author jlreyes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinAllocHashSetBenchmark {
+    /* A power of two */
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    private MinAllocHashSet<Integer> mSet;
+    /* The first half is in the set, the second half isn't */
+    private Integer[] mKeys;
+    private int mMask;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        this.mSet = new MinAllocHashSet<Integer>();
+        this.mKeys = new Integer[size * 2];
+        /* Spread out, and never negative */
+        for (int i = 0; i < size * 2; i++) mKeys[i] = i * 7919;
+        for (int i = 0; i < size; i++) mSet.add(mKeys[i]);
+        this.mMask = size - 1;
+        this.mNext = 0;
+    }
+
+    /**
+     * Removes an element and adds it back.
+     */
+    @Benchmark
+    public int addRemove() {
+        Integer key = mKeys[mNext];
+        mNext = (mNext + 1) & mMask;
+        mSet.remove(key);
+        mSet.add(key);
+        return mSet.size();
+    }
+
+    /**
+     * Looks up an element, every other one missing.
+     */
+    @Benchmark
+    public boolean contains() {
+        Integer key = mKeys[mNext];
+        mNext = (mNext + 1) & (mMask * 2 + 1);
+        return mSet.contains(key);
+    }
+
+    /**
+     * Walks the whole set.
+     */
+    @Benchmark
+    public long iterate() {
+        long sum = 0l;
+        for (Integer key : mSet) sum += key;
+        return sum;
+    }
+}
@@ -0,0 +1,88 @@
+package com.jlreyes.libraries.android_game_engine.benchmarks;
+
+import com.jlreyes.libraries.android_game_engine.threading.SyncWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threads handing elements of one {@link SyncWrapper} on, the way the logic
+ * thread gets a render info, passes it to the renderer and the renderer
+ * releases it. Every thread does all three, so with more threads they fight
+ * over the wrapper's lock.
+ *
+ * @author jlreyes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncWrapperBenchmark {
+    /**
+     * The wrapper every thread shares.
+     */
+    @State(Scope.Benchmark)
+    public static class Shared {
+        private SyncWrapper<Object> mSyncWrapper;
+
+        @Setup
+        public void setUp(BenchmarkParams params) {
+            /* No scheduler needed, we never get with a release function */
+            this.mSyncWrapper = new SyncWrapper<Object>(null);
+            /* One to spare, like the logic manager's render infos */
+            for (int i = 0; i < params.getThreads() + 1; i++) mSyncWrapper.add(new Object());
+        }
+    }
+
+    /**
+     * Never started, stands in for the renderer of the thread passing to it.
+     */
+    @State(Scope.Thread)
+    public static class Consumer {
+        private Thread mThread;
+
+        @Setup
+        public void setUp(ThreadParams params) {
+            this.mThread = new Thread("SyncWrapper Consumer " + params.getThreadIndex());
+        }
+    }
+
+    private static Object GetPassRelease(Shared shared, Consumer consumer) {
+        SyncWrapper<Object> syncWrapper = shared.mSyncWrapper;
+        Object elem = syncWrapper.get();
+        syncWrapper.pass(elem, consumer.mThread);
+        syncWrapper.release(consumer.mThread);
+        return elem;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object getPassRelease1(Shared shared, Consumer consumer) {
+        return GetPassRelease(shared, consumer);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Object getPassRelease2(Shared shared, Consumer consumer) {
+        return GetPassRelease(shared, consumer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object getPassRelease4(Shared shared, Consumer consumer) {
+        return GetPassRelease(shared, consumer);
+    }
+}
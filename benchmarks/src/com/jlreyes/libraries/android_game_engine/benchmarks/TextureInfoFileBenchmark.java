@@ -0,0 +1,95 @@
+package com.jlreyes.libraries.android_game_engine.benchmarks;
+
+import com.jlreyes.libraries.android_game_engine.io.storage.filetypes.TextureInfoFile;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureState;
+import com.jlreyes.libraries.android_game_engine.utils.math.IntGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes or reads a {@link TextureInfoFile} of a texture with the given
+ * number of frames, split over a few states, in memory instead of external
+ * storage. Frames are laid out PART_SIZE by PART_SIZE to a part.
+ *
+ * @author jlreyes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextureInfoFileBenchmark {
+    public static final int NUM_STATES = 4;
+    public static final int PART_SIZE = 16;
+    public static final int FRAME_SIZE = 64;
+    public static final long LAST_MODIFIED = 1l;
+
+    @Param({"64", "1024", "16384"})
+    public int frames;
+
+    private TextureInfoFile mFile;
+    private Texture.TexturePart[] mTexParts;
+    private ByteArrayOutputStream mBytes;
+    private BufferedOutputStream mOut;
+    /* The encoded file, header included */
+    private byte[] mEncoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        TextureState[] states = new TextureState[NUM_STATES];
+        for (int i = 0; i < NUM_STATES; i++) {
+            int[] timings = new int[frames / NUM_STATES];
+            for (int j = 0; j < timings.length; j++) timings[j] = 100;
+            states[i] = new TextureState("state" + i, 0, timings, FRAME_SIZE, FRAME_SIZE);
+        }
+        TextureState.Frame[] allFrames = TextureState.AllFrames(states);
+        int framesPerPart = PART_SIZE * PART_SIZE;
+        int numParts = (allFrames.length + framesPerPart - 1) / framesPerPart;
+        this.mTexParts = new Texture.TexturePart[numParts];
+        for (int i = 0; i < numParts; i++) {
+            IntGrid grid = new IntGrid(PART_SIZE, PART_SIZE);
+            for (int j = 0; j < framesPerPart; j++) {
+                int frame = i * framesPerPart + j;
+                /* The last part's leftover cells stay empty */
+                if (frame < allFrames.length) grid.set(j / PART_SIZE, j % PART_SIZE, frame);
+            }
+            mTexParts[i] = new Texture.TexturePart(grid, allFrames, FRAME_SIZE, FRAME_SIZE);
+        }
+        this.mFile = new TextureInfoFile("TextureInfoFileBenchmark", LAST_MODIFIED,
+                                         states, FRAME_SIZE, FRAME_SIZE);
+        this.mBytes = new ByteArrayOutputStream();
+        this.mOut = new BufferedOutputStream(mBytes);
+        mFile.write(mOut, LAST_MODIFIED, mTexParts);
+        this.mEncoded = mBytes.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        mBytes.reset();
+        mFile.write(mOut, LAST_MODIFIED, mTexParts);
+        return mBytes.size();
+    }
+
+    @Benchmark
+    public Texture.TexturePart[] decode() throws Exception {
+        mFile.load(new ByteArrayInputStream(mEncoded));
+        return mFile.getTexParts();
+    }
+}
@@ -0,0 +1,66 @@
+package com.jlreyes.libraries.android_game_engine.benchmarks;
+
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureLoader;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs the given number of frames, split over a few states, into texture
+ * parts with {@link TextureLoader#CreateTextureParts}, as is done the first
+ * time a texture is loaded.
+ *
+ * @author jlreyes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TexturePackingBenchmark {
+    public static final int NUM_STATES = 4;
+    public static final int FRAME_SIZE = 64;
+
+    @Param({"16", "256", "4096"})
+    public int frames;
+
+    private TexController.TexInfo mTexInfo;
+    private TextureState[] mStates;
+
+    @Setup
+    public void setUp() {
+        int[] resolution = new int[]{FRAME_SIZE, FRAME_SIZE};
+        TexController.TexStateInfo[] stateInfos = new TexController.TexStateInfo[NUM_STATES];
+        for (int i = 0; i < NUM_STATES; i++) {
+            int[] frameTimes = new int[frames / NUM_STATES];
+            for (int j = 0; j < frameTimes.length; j++) frameTimes[j] = 100;
+            stateInfos[i] = new TexController.TexStateInfo("state" + i, frameTimes, 0, 0, 0);
+        }
+        this.mTexInfo = new TexController.TexInfo("TexturePackingBenchmark", 1l,
+                                                  resolution, resolution, resolution,
+                                                  stateInfos);
+        this.mStates = new TextureState[NUM_STATES];
+        for (int i = 0; i < NUM_STATES; i++)
+            mStates[i] = new TextureState(stateInfos[i], FRAME_SIZE, FRAME_SIZE);
+    }
+
+    @Benchmark
+    public Texture.TexturePart[] createTextureParts() {
+        return TextureLoader.CreateTextureParts(mTexInfo, mStates, mTexInfo.NumFrames,
+                                                FRAME_SIZE, FRAME_SIZE);
+    }
+}
@@ -0,0 +1,88 @@
+package com.jlreyes.libraries.android_game_engine.benchmarks;
+
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.RecordingGL;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Rectangle;
+import com.jlreyes.libraries.android_game_engine.utils.math.Affine2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The transforms done for every renderable drawn: building its model
+ * transform, and that plus combining it with the view projection and
+ * handing it to the shader, into a {@link RecordingGL}. The renderable is
+ * moved, turned and scaled every run so nothing is skipped.
+ *
+ * @author jlreyes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+    /**
+     * Lets us at the renderable's transform methods.
+     */
+    private static class TransformRectangle extends Rectangle {
+        private TransformRectangle() {
+            super(1.0f, 1.0f);
+        }
+
+        private void transform(Affine2D model) {
+            updateModelTransform(model);
+        }
+
+        private void transform(RenderState state) {
+            uniformMVP(state);
+        }
+    }
+
+    private TransformRectangle mRectangle;
+    private RenderState mRenderState;
+    private Affine2D mModel;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        this.mRectangle = new TransformRectangle();
+        this.mRenderState = new RenderState(new RecordingGL());
+        /* A camera looking at the middle of a wide screen */
+        mRenderState.getViewProjection().setTransform(0.5f, -0.25f, 0.0f, 0.6f, 1.0f);
+        this.mModel = new Affine2D();
+        this.mNext = 0;
+    }
+
+    private void move() {
+        int next = mNext;
+        mNext = (next + 1) & 255;
+        mRectangle.translate(next * 0.01f, -next * 0.01f);
+        mRectangle.rotate(next * 1.4f);
+        mRectangle.scale(1.0f + next * 0.001f, 1.0f);
+    }
+
+    @Benchmark
+    public float modelTransform() {
+        move();
+        mRectangle.transform(mModel);
+        return mModel.getTx();
+    }
+
+    @Benchmark
+    public float uniformMVP() {
+        move();
+        mRectangle.transform(mRenderState);
+        return mRenderState.getModelTransform().getTx();
+    }
+}
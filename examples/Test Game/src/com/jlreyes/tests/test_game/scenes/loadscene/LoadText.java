@@ -1,6 +1,6 @@
 package com.jlreyes.tests.test_game.scenes.loadscene;
 
-import android.view.MotionEvent;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
 import com.jlreyes.libraries.android_game_engine.scenes.Scene;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.RectSprite;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
@@ -20,16 +20,16 @@ public class LoadText extends RectSprite {
     public void update(long deltaTime) {}
 
     @Override
-    public boolean onTouchDown(MotionEvent e) {
+    public boolean onTouchDown(InputEvent e) {
         return false;
     }
 
     @Override
-    public void onTouchCancel(MotionEvent e) {
+    public void onTouchCancel(InputEvent e) {
     }
 
     @Override
-    public boolean onTouchUp(MotionEvent e) {
+    public boolean onTouchUp(InputEvent e) {
         return false;
     }
 }
@@ -1,6 +1,6 @@
 package com.jlreyes.tests.test_game.scenes.startscene;
 
-import android.view.MotionEvent;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
 import com.jlreyes.libraries.android_game_engine.scenes.Layer;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.RectSprite;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
@@ -33,17 +33,17 @@ public class Button extends RectSprite {
     }
 
     @Override
-    public boolean onTouchDown(MotionEvent e) {
+    public boolean onTouchDown(InputEvent e) {
         this.setScale(2);
         return true;
     }
 
-    public void onTouchCancel(MotionEvent e) {
+    public void onTouchCancel(InputEvent e) {
         this.setScale(1);
     }
 
     @Override
-    public boolean onTouchUp(MotionEvent e) {
+    public boolean onTouchUp(InputEvent e) {
         this.setScale(1);
         this.mOnTap.run();
         return true;
@@ -1,6 +1,6 @@
 package com.jlreyes.tests.test_game.scenes.startscene;
 
-import android.view.MotionEvent;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
 import com.jlreyes.libraries.android_game_engine.scenes.Layer;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.RectSprite;
 import com.jlreyes.tests.test_game.Textures;
@@ -20,16 +20,16 @@ public class MainCharacter extends RectSprite {
     }
 
     @Override
-    public boolean onTouchDown(MotionEvent e) {
+    public boolean onTouchDown(InputEvent e) {
         return true;
     }
 
     @Override
-    public void onTouchCancel(MotionEvent e) {
+    public void onTouchCancel(InputEvent e) {
     }
 
     @Override
-    public boolean onTouchUp(MotionEvent e) {
+    public boolean onTouchUp(InputEvent e) {
         ((MainLayer) this.getLayer()).onMainCharacterTap();
         return true;
     }
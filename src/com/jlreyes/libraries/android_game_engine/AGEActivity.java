@@ -7,6 +7,7 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.Window;
 import android.view.WindowManager;
+import com.jlreyes.libraries.android_game_engine.profiling.StartupTimings;
 import com.jlreyes.libraries.android_game_engine.scenes.SceneController;
 import com.jlreyes.libraries.android_game_engine.texinit.TextureInitActivity;
 import com.jlreyes.libraries.android_game_engine.threading.GameThread;
@@ -49,6 +50,7 @@ public abstract class AGEActivity extends Activity {
         }
 
         this.onCreateCalled = true;
+        StartupTimings.Reset();
 
 
         /* Set up window */
@@ -0,0 +1,170 @@
+package com.jlreyes.libraries.android_game_engine.datastructures;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link DFA} compiled down to dense integer ids. States and letters are
+ * numbered from 0 and transitions live in a flat table indexed by
+ * state * alphabetSize + letter, so a step is a single array read no matter
+ * how many states there are. Missing transitions are self-loops, as in
+ * {@link DFA#step(Object)}.
+ *
+ * Look up letter ids once with {@link #getLetterId(Object)} and step with
+ * {@link #step(int)} in the game loop. Built with {@link DFA#compile()}.
+ *
+ * @author jlreyes
+ */
+public class CompiledDFA<State, Letter> {
+    /**
+     * Id of letters not in the alphabet. Stepping with it is a self-loop.
+     */
+    public static final int NO_LETTER = -1;
+
+    private Object[] mStates;
+    private Object[] mLetters;
+    private HashMap<State, Integer> mStateIds;
+    private HashMap<Letter, Integer> mLetterIds;
+    private int[] mTransitions;
+    private boolean[] mAccepting;
+    private int mStartState;
+
+    private int mCurrentState;
+
+    CompiledDFA(DFA<State, Letter> dfa) {
+        this.mStateIds = new HashMap<State, Integer>();
+        this.mLetterIds = new HashMap<Letter, Integer>();
+        /* Number every state and letter, including ones only mentioned by
+         * a transition or the start state */
+        addState(dfa.getStartState());
+        for (State state : dfa.getStates()) addState(state);
+        for (Letter letter : dfa.getAlphabet()) addLetter(letter);
+        for (Map.Entry<State, HashMap<Letter, State>> entry :
+                dfa.getTransitions().entrySet()) {
+            addState(entry.getKey());
+            for (Map.Entry<Letter, State> transition : entry.getValue().entrySet()) {
+                addLetter(transition.getKey());
+                if (transition.getValue() != null) addState(transition.getValue());
+            }
+        }
+        int numStates = mStateIds.size();
+        int numLetters = mLetterIds.size();
+        this.mStates = new Object[numStates];
+        for (Map.Entry<State, Integer> entry : mStateIds.entrySet())
+            mStates[entry.getValue()] = entry.getKey();
+        this.mLetters = new Object[numLetters];
+        for (Map.Entry<Letter, Integer> entry : mLetterIds.entrySet())
+            mLetters[entry.getValue()] = entry.getKey();
+        /* Transition table, self-loops unless defined */
+        this.mTransitions = new int[numStates * numLetters];
+        for (int s = 0; s < numStates; s++)
+            for (int l = 0; l < numLetters; l++)
+                mTransitions[s * numLetters + l] = s;
+        for (Map.Entry<State, HashMap<Letter, State>> entry :
+                dfa.getTransitions().entrySet()) {
+            int from = mStateIds.get(entry.getKey());
+            for (Map.Entry<Letter, State> transition : entry.getValue().entrySet()) {
+                if (transition.getValue() == null) continue;
+                int letter = mLetterIds.get(transition.getKey());
+                mTransitions[from * numLetters + letter] =
+                        mStateIds.get(transition.getValue());
+            }
+        }
+        this.mAccepting = new boolean[numStates];
+        for (State state : dfa.getAcceptStates()) {
+            Integer id = mStateIds.get(state);
+            if (id != null) mAccepting[id] = true;
+        }
+        this.mStartState = mStateIds.get(dfa.getStartState());
+        /* Start wherever the source DFA currently is */
+        this.mCurrentState = mStateIds.get(dfa.getCurrentState());
+    }
+
+    private void addState(State state) {
+        if (state == null)
+            throw new RuntimeException("A DFA cannot have a null state.");
+        if (mStateIds.containsKey(state) == false)
+            mStateIds.put(state, mStateIds.size());
+    }
+
+    private void addLetter(Letter letter) {
+        if (letter == null)
+            throw new RuntimeException("A DFA cannot have a null letter.");
+        if (mLetterIds.containsKey(letter) == false)
+            mLetterIds.put(letter, mLetterIds.size());
+    }
+
+    /**
+     * Steps the DFA using the letter with the given id. {@link #NO_LETTER}
+     * does a self-loop.
+     */
+    public void step(int letter) {
+        if (letter < 0 || letter >= mLetters.length) return;
+        mCurrentState = mTransitions[mCurrentState * mLetters.length + letter];
+    }
+
+    /**
+     * Same as step(getLetterId(letter)). Does a hash lookup, prefer
+     * {@link #step(int)} with a stored id.
+     */
+    public void step(Letter letter) {
+        step(getLetterId(letter));
+    }
+
+    /**
+     * Returns the id of the given letter, or {@link #NO_LETTER} if it is not
+     * in the alphabet (or is null).
+     */
+    public int getLetterId(Letter letter) {
+        if (letter == null) return NO_LETTER;
+        Integer id = mLetterIds.get(letter);
+        return id == null ? NO_LETTER : id;
+    }
+
+    /**
+     * Returns the id of the given state, or -1 if it is not a state of this
+     * DFA.
+     */
+    public int getStateId(State state) {
+        Integer id = mStateIds.get(state);
+        return id == null ? -1 : id;
+    }
+
+    public void reset() {
+        mCurrentState = mStartState;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    @SuppressWarnings("unchecked")
+    public State getCurrentState() {
+        return (State) mStates[mCurrentState];
+    }
+
+    public int getCurrentStateId() {
+        return mCurrentState;
+    }
+
+    @SuppressWarnings("unchecked")
+    public State getState(int id) {
+        return (State) mStates[id];
+    }
+
+    @SuppressWarnings("unchecked")
+    public Letter getLetter(int id) {
+        return (Letter) mLetters[id];
+    }
+
+    public boolean isAccepting() {
+        return mAccepting[mCurrentState];
+    }
+
+    public int getNumStates() {
+        return mStates.length;
+    }
+
+    public int getNumLetters() {
+        return mLetters.length;
+    }
+}
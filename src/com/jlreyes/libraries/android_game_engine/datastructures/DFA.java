@@ -58,6 +58,15 @@ public class DFA<State, Letter> {
         mCurrentState = nextState;
     }
 
+    /**
+     * Compiles this DFA into a {@link CompiledDFA} with integer states and
+     * letters, starting at this DFA's current state. Later changes to the
+     * sets and maps this DFA was built from do not affect the result.
+     */
+    public CompiledDFA<State, Letter> compile() {
+        return new CompiledDFA<State, Letter>(this);
+    }
+
     /*
      * Getters and Setters
      */
@@ -80,4 +89,8 @@ public class DFA<State, Letter> {
     public HashSet<State> getStates() {
         return mStates;
     }
+
+    public HashMap<State, HashMap<Letter, State>> getTransitions() {
+        return mTransitions;
+    }
 }
@@ -3,28 +3,25 @@ package com.jlreyes.libraries.android_game_engine.io;
 import android.content.Context;
 import android.graphics.PixelFormat;
 import android.opengl.GLSurfaceView;
+import android.os.Build;
 import android.util.Log;
 import android.view.MotionEvent;
 import com.jlreyes.libraries.android_game_engine.rendering.GameRenderer;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderInfo;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderTarget;
+import com.jlreyes.libraries.android_game_engine.utils.ThreadUtils;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * GLSurfaceView handling input and holding the renderer.
  *
  * @author jlreyes
  */
-public class GameView extends GLSurfaceView {
+public class GameView extends GLSurfaceView implements RenderTarget {
     private GameRenderer mGameRenderer;
-
-
-    /**
-     * Set containing all Runnables not yet run on the renderer thread.
-     */
-    private HashSet<Runnable> mRendererEvents;
-    private ArrayList<MotionEvent> mInputEvents;
-    private ArrayList<MotionEvent> mInputEventsMedium;
+    private InputQueue mInputQueue;
 
     /**
      * Minimum amount of time to wait between MotionEvents before processing
@@ -37,12 +34,14 @@ public class GameView extends GLSurfaceView {
         super(context);
         setEGLContextClientVersion(2); // Set OpenGL version
         setEGLConfigChooser(8, 8, 8, 8, 0, 0); // ARGB_8888
+        /* Keep our textures over a pause when the device lets us. Whether it
+         * did is told by the renderer's context generation. */
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
+            setPreserveEGLContextOnPause(true);
         getHolder().setFormat(PixelFormat.RGBA_8888); // ARGB_8888
 
         this.mGameRenderer = new GameRenderer();
-        this.mRendererEvents = new HashSet<Runnable>();
-        this.mInputEvents = new ArrayList<MotionEvent>();
-        this.mInputEventsMedium = new ArrayList<MotionEvent>();
+        this.mInputQueue = new InputQueue();
         setRenderer(mGameRenderer);
     }
 
@@ -52,19 +51,76 @@ public class GameView extends GLSurfaceView {
     public void onDestroy() {}
 
     /**
-     * Called on touch
+     * Returns once the renderer thread has paused.
      */
-    public boolean onTouchEvent(final MotionEvent event) {        /* Add event to input queue. */
-        synchronized (mInputEvents) {
-            mInputEvents.add(event);
+    @Override
+    public void onPause() {
+        super.onPause();
+        mGameRenderer.onPause();
+    }
+
+    /**
+     * Called on touch. Android recycles the given event, so we copy it into
+     * the input queue, one sample per pointer. Batched move samples are
+     * queued oldest first, followed by the current one.
+     */
+    public boolean onTouchEvent(final MotionEvent event) {
+        int action = event.getActionMasked();
+        switch (action) {
+            case MotionEvent.ACTION_MOVE: {
+                int numPointers = event.getPointerCount();
+                int historySize = event.getHistorySize();
+                for (int h = 0; h < historySize; h++) {
+                    long time = event.getHistoricalEventTime(h);
+                    for (int p = 0; p < numPointers; p++)
+                        mInputQueue.offer(InputEvent.ACTION_MOVE,
+                                          event.getPointerId(p),
+                                          event.getHistoricalX(p, h),
+                                          event.getHistoricalY(p, h),
+                                          time);
+                }
+                queueAllPointers(event, InputEvent.ACTION_MOVE);
+                break;
+            }
+            case MotionEvent.ACTION_CANCEL: {
+                queueAllPointers(event, InputEvent.ACTION_CANCEL);
+                break;
+            }
+            default: {
+                int index = event.getActionIndex();
+                mInputQueue.offer(action,
+                                  event.getPointerId(index),
+                                  event.getX(index),
+                                  event.getY(index),
+                                  event.getEventTime());
+            }
         }
         return true;
     }
 
+    /**
+     * Queues the current sample of every pointer in the given event with the
+     * given action.
+     */
+    private void queueAllPointers(MotionEvent event, int action) {
+        int numPointers = event.getPointerCount();
+        long time = event.getEventTime();
+        for (int p = 0; p < numPointers; p++)
+            mInputQueue.offer(action,
+                              event.getPointerId(p),
+                              event.getX(p),
+                              event.getY(p),
+                              time);
+    }
+
 
+    /**
+     * Runs the given runnable on the renderer thread. Exceptions are logged
+     * instead of killing the renderer. If the renderer has no surface yet,
+     * openGL calls in r will fail, see {@link #runAndWait(Runnable)}.
+     */
     @Override
     public void queueEvent(final Runnable r) {
-        mRendererEvents.add(r);
         Runnable container = new Runnable() {
             public void run() {
                 try {
@@ -73,26 +129,31 @@ public class GameView extends GLSurfaceView {
                     Log.w("GameView", "Error running runnable passed to the" +
                                       " render thread.", e);
                 }
-                GameView.this.setEventFinished(r);
             }
         };
         super.queueEvent(container);
     }
 
     /**
-     * Called by each container runnable after it has finished
-     * executing the on render thread.
+     * Runs the given runnable on the renderer thread once it has a surface
+     * and returns when it has run. Blocks without polling, so it is safe to
+     * call while the surface is still being created. Not from the renderer
+     * thread. Throws if the calling thread is interrupted first, in which
+     * case r may still run later.
      */
-    private void setEventFinished(Runnable r) {
-        mRendererEvents.remove(r);
-    }
-
-    /**
-     * Returns true iff the given runnable is not in our set of events
-     * being executed on the renderer thread.
-     */
-    public boolean eventFinished(Runnable r) {
-        return mRendererEvents.contains(r) == false;
+    public void runAndWait(final Runnable r) {
+        mGameRenderer.awaitSurface();
+        final CountDownLatch done = new CountDownLatch(1);
+        queueEvent(new Runnable() {
+            public void run() {
+                try {
+                    r.run();
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        ThreadUtils.Await(done);
     }
 
     /*
@@ -103,19 +164,34 @@ public class GameView extends GLSurfaceView {
     }
 
     /**
-     * Thread Safe. To prevent allocation, we copy over elements from
-     * mInputEvents to mInputEventsMedium and return that.
+     * Logic thread only. Returns every input event received since the last
+     * call. The returned list and its events are reused by the next call.
      */
-    public ArrayList<MotionEvent> getInputEvents() {
-        synchronized (mInputEvents) {
-            mInputEventsMedium.clear();
-				/* To prevent toArray */
-            int length = mInputEvents.size();
-            for (int i = 0; i < length; i++)
-                mInputEventsMedium.add(mInputEvents.get(i));
-            mInputEvents.clear();
-            return mInputEventsMedium;
-        }
+    public ArrayList<InputEvent> getInputEvents() {
+        return mInputQueue.drain();
+    }
+
+    public InputQueue getInputQueue() {
+        return mInputQueue;
+    }
+
+    /*
+     * Render target, handed on to the renderer
+     */
+    public void update(RenderInfo renderInfo) {
+        mGameRenderer.update(renderInfo);
+    }
+
+    public Thread getRenderThread() {
+        return mGameRenderer.getThread();
+    }
+
+    public int getContextGeneration() {
+        return mGameRenderer.getContextGeneration();
+    }
+
+    public void awaitSurface() {
+        mGameRenderer.awaitSurface();
     }
 
 }
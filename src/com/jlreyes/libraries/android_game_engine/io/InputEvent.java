@@ -0,0 +1,81 @@
+package com.jlreyes.libraries.android_game_engine.io;
+
+/**
+ * Engine-owned record of a single touch sample for a single pointer.
+ * Records are pre-allocated and reused by {@link InputQueue}, so they are
+ * only valid until the next time the queue is drained. Copy out anything
+ * that needs to outlive the current logic step.
+ *
+ * @author jlreyes
+ */
+public class InputEvent {
+    /* Same values as the matching MotionEvent actions */
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+    public static final int ACTION_POINTER_DOWN = 5;
+    public static final int ACTION_POINTER_UP = 6;
+
+    private int mAction;
+    private int mPointerId;
+    private float mX;
+    private float mY;
+    private long mTime;
+
+    InputEvent() {}
+
+    void set(int action, int pointerId, float x, float y, long time) {
+        this.mAction = action;
+        this.mPointerId = pointerId;
+        this.mX = x;
+        this.mY = y;
+        this.mTime = time;
+    }
+
+    void set(InputEvent event) {
+        set(event.mAction, event.mPointerId, event.mX, event.mY, event.mTime);
+    }
+
+    /*
+     * Getters and Setters
+     */
+
+    /**
+     * Returns one of the ACTION_ constants. Unlike MotionEvent, the pointer
+     * index is never packed into the action.
+     */
+    public int getAction() {
+        return mAction;
+    }
+
+    public int getPointerId() {
+        return mPointerId;
+    }
+
+    /**
+     * Returns the x coordinate of this sample, in screen pixels.
+     */
+    public float getX() {
+        return mX;
+    }
+
+    /**
+     * Returns the y coordinate of this sample, in screen pixels.
+     */
+    public float getY() {
+        return mY;
+    }
+
+    /**
+     * Returns the time of this sample, in the uptimeMillis time base.
+     */
+    public long getTime() {
+        return mTime;
+    }
+
+    public String toString() {
+        return "InputEvent[action=" + mAction + ", pointerId=" + mPointerId +
+               ", x=" + mX + ", y=" + mY + ", time=" + mTime + "]";
+    }
+}
@@ -0,0 +1,117 @@
+package com.jlreyes.libraries.android_game_engine.io;
+
+import java.util.ArrayList;
+
+/**
+ * Lock free ring buffer of pre-allocated {@link InputEvent}s. Exactly one
+ * thread (the UI thread) may offer events and exactly one thread (the logic
+ * thread) may drain them.
+ *
+ * When the ring is nearly full, move events are dropped so there is always
+ * room left for downs, ups, and cancels. A dropped move is harmless since the
+ * next one supersedes it.
+ *
+ * @author jlreyes
+ */
+public class InputQueue {
+    public static final int DEFAULT_CAPACITY = 512;
+    /**
+     * Number of slots only non-move events may use.
+     */
+    private static final int RESERVED_SLOTS = 32;
+
+    private final InputEvent[] mSlots;
+    private final int mMask;
+    /**
+     * Index of the next slot to read. Only written by the consumer.
+     */
+    private volatile long mHead;
+    /**
+     * Index of the next slot to write. Only written by the producer.
+     */
+    private volatile long mTail;
+    private volatile int mNumDropped;
+
+    /* Consumer side copies, handed out by drain() */
+    private final InputEvent[] mDrainedEvents;
+    private final ArrayList<InputEvent> mDrained;
+
+    /**
+     * Same as InputQueue({@link #DEFAULT_CAPACITY})
+     */
+    public InputQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Number of samples the queue can hold. Rounded up to a
+     *                 power of two.
+     */
+    public InputQueue(int capacity) {
+        int size = 1;
+        while (size < capacity || size <= RESERVED_SLOTS) size <<= 1;
+        this.mSlots = new InputEvent[size];
+        this.mDrainedEvents = new InputEvent[size];
+        for (int i = 0; i < size; i++) {
+            mSlots[i] = new InputEvent();
+            mDrainedEvents[i] = new InputEvent();
+        }
+        this.mMask = size - 1;
+        this.mHead = 0;
+        this.mTail = 0;
+        this.mNumDropped = 0;
+        this.mDrained = new ArrayList<InputEvent>(size);
+    }
+
+    /**
+     * Producer only. Adds a sample to the queue.
+     *
+     * @return false if the sample was dropped because the queue is full.
+     */
+    public boolean offer(int action, int pointerId, float x, float y, long time) {
+        long tail = mTail;
+        long used = tail - mHead;
+        int free = mSlots.length - (int) used;
+        if (free <= 0 ||
+            (action == InputEvent.ACTION_MOVE && free <= RESERVED_SLOTS)) {
+            mNumDropped++;
+            return false;
+        }
+        mSlots[(int) tail & mMask].set(action, pointerId, x, y, time);
+        /* Publish the slot */
+        mTail = tail + 1;
+        return true;
+    }
+
+    /**
+     * Consumer only. Copies every queued sample into consumer owned records
+     * and returns them in the order they were offered. The returned list and
+     * its events are reused by the next call.
+     */
+    public ArrayList<InputEvent> drain() {
+        mDrained.clear();
+        long head = mHead;
+        long tail = mTail;
+        int count = 0;
+        while (head < tail) {
+            InputEvent event = mDrainedEvents[count++];
+            event.set(mSlots[(int) head & mMask]);
+            mDrained.add(event);
+            head++;
+        }
+        /* Hand the slots back to the producer */
+        mHead = head;
+        return mDrained;
+    }
+
+    /**
+     * Returns the number of samples dropped because the queue was full.
+     */
+    public int getNumDropped() {
+        return mNumDropped;
+    }
+
+    public int getCapacity() {
+        return mSlots.length;
+    }
+}
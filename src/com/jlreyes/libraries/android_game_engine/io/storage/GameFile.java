@@ -7,7 +7,10 @@ import com.jlreyes.libraries.android_game_engine.utils.exceptions.*;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 /**
  * A file that we store somewhere on the device. All game files have the
@@ -17,11 +20,15 @@ import java.nio.ByteBuffer;
  * 4 (int) : The size this file should be.
  * 8 (long)   : Padding
  *
+ * A CRC32 of the whole file is taken while it is loaded, so checking a
+ * file's contents against a checksum costs no extra read.
+ *
  * @author jlreyes
  */
 public abstract class GameFile {
     private boolean mLoaded;
     private String mFileName;
+    private long mChecksum;
 
     public static final String TAG = "GameFile";
     public static final int MAGIC_NUMBER = 69;
@@ -34,6 +41,7 @@ public abstract class GameFile {
     protected GameFile(String fileName) {
         this.mFileName = fileName;
         this.mLoaded = false;
+        this.mChecksum = 0l;
     }
 
     /**
@@ -52,9 +60,21 @@ public abstract class GameFile {
                    FileCorruptedException,
                    InvalidFileSizeException,
                    DataExpiredException {
+        load(ExternalStorageHelper.OpenFile(context, getAbsoluteFileName()));
+    }
 
-        BufferedInputStream data =
-                ExternalStorageHelper.OpenFile(context, getAbsoluteFileName());
+    /**
+     * Loads the GameFile from the given stream, header included, and closes
+     * it. Lets a file be read from memory, as the benchmarks do.
+     */
+    public void load(InputStream in)
+            throws IOException,
+                   DataStreamEndedEarlyException,
+                   FileCorruptedException,
+                   InvalidFileSizeException,
+                   DataExpiredException {
+        CRC32 crc = new CRC32();
+        BufferedInputStream data = new BufferedInputStream(new CheckedInputStream(in, crc));
         loadHeader(data);
         loadFileInfo(data);
         /* Verify that there is no data left in the stream */
@@ -65,6 +85,7 @@ public abstract class GameFile {
                                                "bytes too large");
         }
         data.close();
+        mChecksum = crc.getValue();
         mLoaded = true;
     }
 
@@ -114,23 +135,32 @@ public abstract class GameFile {
                    FileCorruptedException,
                    InvalidFileSizeException,
                    DataExpiredException {
-        /* Calculate filesize */
-        int fileSize = data.capacity() + HEADER_SIZE;
         /* Create file */
         BufferedOutputStream fileBuffer =
                 ExternalStorageHelper.WriteFile(context, getAbsoluteFileName());
+        write(fileBuffer, data);
+        fileBuffer.close();
+        /* Verify creation */
+        load(context);
+    }
+
+    /**
+     * Writes the header and the given data, up to its limit, to the given
+     * stream and flushes it.
+     */
+    protected void write(BufferedOutputStream out, ByteBuffer data)
+            throws IOException {
+        /* Calculate filesize, data may be a pooled buffer bigger than it */
+        int fileSize = data.limit() + HEADER_SIZE;
         /* Write GameFile header */
-        ExternalStorageHelper.WriteIntToOutputStream(fileBuffer, MAGIC_NUMBER);
-        ExternalStorageHelper.WriteIntToOutputStream(fileBuffer, fileSize);
-        ExternalStorageHelper.WriteLongToOutputStream(fileBuffer, PADDING);
+        ExternalStorageHelper.WriteIntToOutputStream(out, MAGIC_NUMBER);
+        ExternalStorageHelper.WriteIntToOutputStream(out, fileSize);
+        ExternalStorageHelper.WriteLongToOutputStream(out, PADDING);
         /* Write data */
         data.position(0);
-        ExternalStorageHelper.WriteBuffToOutputStream(fileBuffer, data);
+        ExternalStorageHelper.WriteBuffToOutputStream(out, data);
         /* Make sure the data is written */
-        fileBuffer.flush();
-        fileBuffer.close();
-        /* Verify creation */
-        load(context);
+        out.flush();
     }
     
     /*
@@ -153,4 +183,12 @@ public abstract class GameFile {
     public boolean isLoaded() {
         return mLoaded;
     }
+
+    /**
+     * The CRC32 of the whole file, header included, as of the last load or
+     * create.
+     */
+    public long getChecksum() {
+        return mChecksum;
+    }
 }
@@ -11,6 +11,9 @@ import java.io.*;
 import java.nio.ByteBuffer;
 
 public class ExternalStorageHelper {
+    /* Largest copy between a stream and a direct buffer at once */
+    private static final int COPY_CHUNK_SIZE = 8192;
+
     /**
      * Returns true iff the external media is read/writeable.
      */
@@ -28,6 +31,21 @@ public class ExternalStorageHelper {
         return file.exists();
     }
 
+    /**
+     * Returns the size of the given file in bytes, or -1 if it does not
+     * exist. Only stats the file.
+     * @throws IOException
+     */
+    public static long FileSize(Context context,
+                                String fileName) throws IOException {
+        if (MediaMounted() == false)
+            throw new IOException("Something went wrong when trying to mount " +
+                                  "external storage.");
+        File file = new File(context.getExternalFilesDir(null), fileName);
+        if (file.exists() == false) return -1l;
+        return file.length();
+    }
+
     /**
      * Opens a file for writing. Creates a new file if one doesn't exist and
      * truncates any existing file.
@@ -99,6 +117,25 @@ public class ExternalStorageHelper {
         return numBytes;
     }
 
+    /**
+     * Given an inputstream, fills everything remaining in the given buffer
+     * from it.
+     * @throws IOException
+     * @throws DataStreamEndedEarlyException
+     */
+    public static void ReadIntoBuffer(BufferedInputStream inputStream,
+                                      ByteBuffer bytes)
+            throws IOException, DataStreamEndedEarlyException {
+        byte[] chunk = new byte[Math.min(bytes.remaining(), COPY_CHUNK_SIZE)];
+        while (bytes.hasRemaining() == true) {
+            int length = Math.min(bytes.remaining(), chunk.length);
+            int bytesRead = inputStream.read(chunk, 0, length);
+            if (bytesRead == -1)
+                throw new DataStreamEndedEarlyException("File ended prematurely.");
+            bytes.put(chunk, 0, bytesRead);
+        }
+    }
+
     /**
      * Given an inputstream, reads the given number of bytes from it and returns
      * an array of those bytes.
@@ -184,10 +221,20 @@ public class ExternalStorageHelper {
      */
     public static void WriteBuffToOutputStream(BufferedOutputStream outputStream,
                                                ByteBuffer bytes) throws IOException {
-        int length = bytes.remaining();
-        byte[] bArray = new byte[length];
-        bytes.get(bArray);
-        outputStream.write(bArray);
+        if (bytes.hasArray() == true) {
+            outputStream.write(bytes.array(),
+                               bytes.arrayOffset() + bytes.position(),
+                               bytes.remaining());
+            bytes.position(bytes.limit());
+            return;
+        }
+        /* Copy a chunk at a time rather than the whole buffer at once */
+        byte[] chunk = new byte[Math.min(bytes.remaining(), COPY_CHUNK_SIZE)];
+        while (bytes.hasRemaining() == true) {
+            int length = Math.min(bytes.remaining(), chunk.length);
+            bytes.get(chunk, 0, length);
+            outputStream.write(chunk, 0, length);
+        }
     }
 
     /**
@@ -4,8 +4,10 @@ import android.content.Context;
 import com.jlreyes.libraries.android_game_engine.io.storage.GameFile;
 import com.jlreyes.libraries.android_game_engine.io.storage.external.ExternalStorageHelper;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.types.BitmapTexType;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.types.BufferTexType;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.types.ETC1TexType;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.types.TexType;
+import com.jlreyes.libraries.android_game_engine.utils.BufferPool;
 import com.jlreyes.libraries.android_game_engine.utils.exceptions.*;
 
 import java.io.BufferedInputStream;
@@ -67,16 +69,21 @@ public class TextureImageFile extends GameFile {
         /* Determining the textype to store */
         byte texTypeId = 0;
         if (tex instanceof BitmapTexType) texTypeId = 1;
+        else if (tex instanceof BufferTexType) texTypeId = 1;
         else if (tex instanceof ETC1TexType) texTypeId = 2;
         else throw new RuntimeException("Wut");
         /* Creating the bytebuffer we will store */
         byte[] texData = tex.toByteArray();
-        ByteBuffer texFileData = ByteBuffer.allocateDirect(1 + texData.length);
-        /* Storing the information */
-        texFileData.put(texTypeId);
-        texFileData.put(texData);
-        /* Creating  the file */
-        super.create(context, texFileData);
+        ByteBuffer texFileData = BufferPool.STAGING.acquire(1 + texData.length);
+        try {
+            /* Storing the information */
+            texFileData.put(texTypeId);
+            texFileData.put(texData);
+            /* Creating  the file */
+            super.create(context, texFileData);
+        } finally {
+            BufferPool.STAGING.release(texFileData);
+        }
     }
 
     /*
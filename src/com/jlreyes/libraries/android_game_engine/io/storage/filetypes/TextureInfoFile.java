@@ -5,12 +5,12 @@ import com.jlreyes.libraries.android_game_engine.io.storage.GameFile;
 import com.jlreyes.libraries.android_game_engine.io.storage.external.ExternalStorageHelper;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureState;
-import com.jlreyes.libraries.android_game_engine.utils.Utils;
+import com.jlreyes.libraries.android_game_engine.utils.BufferPool;
 import com.jlreyes.libraries.android_game_engine.utils.exceptions.*;
-import com.jlreyes.libraries.android_game_engine.utils.math.MathMatrix;
-import com.jlreyes.libraries.android_game_engine.utils.math.function.Function1;
+import com.jlreyes.libraries.android_game_engine.utils.math.IntGrid;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
@@ -77,31 +77,24 @@ public class TextureInfoFile extends GameFile {
         /* Create texture parts */
         int numTexParts = ExternalStorageHelper.ReadIntFromInputStream(data);
         Texture.TexturePart[] texParts = new Texture.TexturePart[numTexParts];
+        TextureState.Frame[] frames = TextureState.AllFrames(mStates);
         for (int i = 0; i < numTexParts; i++) {
             int rows = ExternalStorageHelper.ReadIntFromInputStream(data);
             int cols = ExternalStorageHelper.ReadIntFromInputStream(data);
-            /* Create and fill the frame matrix */
-            MathMatrix<TextureState.Frame> matrix =
-                    new MathMatrix<TextureState.Frame>(rows, cols);
+            /* Create and fill the frame grid */
+            IntGrid grid = new IntGrid(rows, cols);
             for (int row = 0; row < rows; row++) {
                 for (int col = 0; col < cols; col++) {
                     int frameNum =
                             ExternalStorageHelper.ReadIntFromInputStream(data);
                     String stateName =
                             ExternalStorageHelper.ReadStringFromInputStream(data);
-                    if (frameNum != -1) {
-                        /* Search our states for this stateName */
-                        TextureState result = (TextureState)
-                                Utils.LinearSearch(getStateEqualityFunc(stateName),
-                                                   mStates);
-                        if (result == null) throw new FileCorruptedException();
-                        /* Get the frame, if it exists */
-                        TextureState.Frame frame = result.getFrame(frameNum);
-                        matrix.set(row, col, frame);
-                    }
+                    if (frameNum != -1)
+                        grid.set(row, col, getFrameId(stateName, frameNum));
                 }
             }
-            texParts[i] = new Texture.TexturePart(matrix,
+            texParts[i] = new Texture.TexturePart(grid,
+                                                  frames,
                                                   mFrameWidth,
                                                   mFrameHeight);
         }
@@ -109,17 +102,21 @@ public class TextureInfoFile extends GameFile {
     }
 
     /**
-     * Returns a function that only returns true if the given state
-     * has a name equal to the given stateName
+     * Returns the index in {@link TextureState#AllFrames(TextureState[])} of
+     * the given frame of the state with the given name.
      */
-    private Function1<Object, Boolean> getStateEqualityFunc(final String stateName) {
-        return new Function1<Object, Boolean>() {
-            public Boolean run(Object o) {
-                TextureState state = (TextureState) o;
-                if (state.getName().equals(stateName)) return true;
-                else return false;
+    private int getFrameId(String stateName, int frameNum)
+            throws FileCorruptedException {
+        int firstFrame = 0;
+        for (TextureState state : mStates) {
+            if (state.getName().equals(stateName)) {
+                if (frameNum < 0 || frameNum >= state.getNumFrames())
+                    throw new FileCorruptedException();
+                return firstFrame + frameNum;
             }
-        };
+            firstFrame += state.getNumFrames();
+        }
+        throw new FileCorruptedException();
     }
 
     public void create(Context context,
@@ -131,15 +128,43 @@ public class TextureInfoFile extends GameFile {
                    FileCorruptedException,
                    InvalidFileSizeException,
                    DataExpiredException {
+        ByteBuffer data = Encode(lastModified, texParts);
+        try {
+            super.create(context, data);
+        } finally {
+            BufferPool.STAGING.release(data);
+        }
+    }
+
+    /**
+     * Writes the file with the given information to the given stream instead
+     * of external storage, without loading it back.
+     */
+    public void write(BufferedOutputStream out,
+                      long lastModified,
+                      Texture.TexturePart[] texParts) throws IOException {
+        ByteBuffer data = Encode(lastModified, texParts);
+        try {
+            super.write(out, data);
+        } finally {
+            BufferPool.STAGING.release(data);
+        }
+    }
+
+    /**
+     * Returns the given information as it is stored (mod the file header),
+     * in a buffer from {@link BufferPool#STAGING}. Release it when done.
+     */
+    private static ByteBuffer Encode(long lastModified,
+                                     Texture.TexturePart[] texParts) {
         /* Calculating the size of the byte buffer */
         int dataSize = CalculateDataSize(texParts);
         /* Creating the byte buffer we will store */
-        ByteBuffer data = ByteBuffer.allocateDirect(dataSize);
+        ByteBuffer data = BufferPool.STAGING.acquire(dataSize);
         /* Storing data in the byte array */
         data.putLong(lastModified);
         data.putInt(texParts.length);
         for (Texture.TexturePart texPart : texParts) {
-            ;
             /* Storing the rows and cols of a texpart */
             int rows = texPart.getNumRows();
             int cols = texPart.getNumCols();
@@ -163,9 +188,8 @@ public class TextureInfoFile extends GameFile {
                     data.putChar('\u0000');
                 }
             }
-
         }
-        super.create(context, data);
+        return data;
     }
 
     /**
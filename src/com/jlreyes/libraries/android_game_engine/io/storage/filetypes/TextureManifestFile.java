@@ -0,0 +1,158 @@
+package com.jlreyes.libraries.android_game_engine.io.storage.filetypes;
+
+import android.content.Context;
+import com.jlreyes.libraries.android_game_engine.io.storage.GameFile;
+import com.jlreyes.libraries.android_game_engine.io.storage.external.ExternalStorageHelper;
+import com.jlreyes.libraries.android_game_engine.utils.BufferPool;
+import com.jlreyes.libraries.android_game_engine.utils.exceptions.*;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * Index of every texture in the cache, so the cache can be checked with
+ * one read and a stat per file instead of decoding every texture.
+ * File with the following structure:
+ * 0 (int) : Number of entries
+ * 4 (?) : Entries
+ * <p/>
+ * Entries have the following structure.
+ * 0 (String) : Null terminated file name of the texture (name_resolution)
+ * ? (long) : Version of the texture
+ * ? (int) : Resolution ordinal
+ * ? (long) : Checksum of the texture's files, see TextureLoader
+ * ? (int) : Number of files
+ * ? (long) : Size of each file in bytes. The texInfo file first, then the
+ * rgb and alpha images of each texture part.
+ *
+ * @author jlreyes
+ */
+public class TextureManifestFile extends GameFile {
+    public static final String EXTENSION = "texManifest";
+    public static final int MANIFEST_HEADER_SIZE = 4;
+    /* Version, resolution, checksum and number of files */
+    public static final int ENTRY_HEADER_SIZE = 24;
+
+    /**
+     * What we know about one cached texture.
+     *
+     * @author jlreyes
+     */
+    public static class Entry {
+        public final String FileName;
+        public final long Version;
+        public final int Resolution;
+        public final long Checksum;
+        public final long[] FileSizes;
+
+        public Entry(String fileName, long version, int resolution,
+                     long checksum, long[] fileSizes) {
+            this.FileName = fileName;
+            this.Version = version;
+            this.Resolution = resolution;
+            this.Checksum = checksum;
+            this.FileSizes = fileSizes;
+        }
+    }
+
+    private HashMap<String, Entry> mEntries;
+
+    /*
+     * Creation
+     */
+    public TextureManifestFile(String fileName) {
+        super(fileName);
+        this.mEntries = new HashMap<String, Entry>();
+    }
+
+    @Override
+    protected void loadFileInfo(BufferedInputStream data)
+            throws IOException,
+                   DataStreamEndedEarlyException,
+                   FileCorruptedException {
+        HashMap<String, Entry> entries = new HashMap<String, Entry>();
+        int numEntries = ExternalStorageHelper.ReadIntFromInputStream(data);
+        if (numEntries < 0)
+            throw new FileCorruptedException("Number of entries given as " + numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            String fileName = ExternalStorageHelper.ReadStringFromInputStream(data);
+            long version = ExternalStorageHelper.ReadLongFromInputStream(data);
+            int resolution = ExternalStorageHelper.ReadIntFromInputStream(data);
+            long checksum = ExternalStorageHelper.ReadLongFromInputStream(data);
+            int numFiles = ExternalStorageHelper.ReadIntFromInputStream(data);
+            if (numFiles < 0)
+                throw new FileCorruptedException("Number of files given as " + numFiles);
+            long[] fileSizes = new long[numFiles];
+            for (int j = 0; j < numFiles; j++)
+                fileSizes[j] = ExternalStorageHelper.ReadLongFromInputStream(data);
+            entries.put(fileName, new Entry(fileName, version, resolution,
+                                            checksum, fileSizes));
+        }
+        this.mEntries = entries;
+    }
+
+    /**
+     * Writes every entry to external storage, replacing the old manifest.
+     */
+    public void create(Context context)
+            throws IOException,
+                   MissingFileException,
+                   DataStreamEndedEarlyException,
+                   FileCorruptedException,
+                   InvalidFileSizeException,
+                   DataExpiredException {
+        /* Calculating the size of the byte buffer */
+        int dataSize = MANIFEST_HEADER_SIZE;
+        for (Entry entry : mEntries.values())
+            dataSize += 2 * (entry.FileName.length() + 1) + ENTRY_HEADER_SIZE +
+                        8 * entry.FileSizes.length;
+        /* Storing the entries */
+        ByteBuffer data = BufferPool.STAGING.acquire(dataSize);
+        try {
+            data.putInt(mEntries.size());
+            for (Entry entry : mEntries.values()) {
+                int length = entry.FileName.length();
+                for (int i = 0; i < length; i++) data.putChar(entry.FileName.charAt(i));
+                data.putChar('\u0000');
+                data.putLong(entry.Version);
+                data.putInt(entry.Resolution);
+                data.putLong(entry.Checksum);
+                data.putInt(entry.FileSizes.length);
+                for (long size : entry.FileSizes) data.putLong(size);
+            }
+            super.create(context, data);
+        } finally {
+            BufferPool.STAGING.release(data);
+        }
+    }
+
+    /*
+     * Getters and Setters
+     */
+
+    /**
+     * Returns the entry of the texture with the given file name, or null.
+     */
+    public Entry get(String fileName) {
+        return mEntries.get(fileName);
+    }
+
+    public void put(Entry entry) {
+        mEntries.put(entry.FileName, entry);
+    }
+
+    public void remove(String fileName) {
+        mEntries.remove(fileName);
+    }
+
+    public int getNumEntries() {
+        return mEntries.size();
+    }
+
+    @Override
+    public String getExtension() {
+        return EXTENSION;
+    }
+}
@@ -0,0 +1,179 @@
+package com.jlreyes.libraries.android_game_engine.profiling;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Low overhead profiler. Each engine thread records to its own
+ * {@link ProfilerTrack}:
+ * <pre>
+ *     long start = Profiler.LOGIC.begin();
+ *     ...
+ *     Profiler.LOGIC.end("processScenes", start);
+ * </pre>
+ * When disabled, begin returns 0 and end returns immediately, so
+ * instrumentation can stay in place.
+ *
+ * Recorded data can be drawn with a {@link ProfilerOverlay} or exported
+ * in the Chrome trace event format (open it in chrome://tracing).
+ *
+ * @author jlreyes
+ */
+public class Profiler {
+    /* Counters */
+    public static final int COUNTER_DRAW_CALLS = 0;
+    public static final int COUNTER_TEXTURE_BINDS = 1;
+    public static final int COUNTER_SPRITES_CULLED = 2;
+    public static final int NUM_COUNTERS = 3;
+    public static final String[] COUNTER_NAMES = new String[]{"drawCalls",
+                                                              "textureBinds",
+                                                              "spritesCulled"};
+
+    public static final int NUM_SPANS = 4096;
+    public static final int NUM_FRAMES = 256;
+
+    /* Tracks */
+    public static final ProfilerTrack LOGIC = new ProfilerTrack("Logic", 1,
+                                                                NUM_SPANS,
+                                                                NUM_FRAMES);
+    public static final ProfilerTrack RENDER = new ProfilerTrack("Renderer", 2,
+                                                                 NUM_SPANS,
+                                                                 NUM_FRAMES);
+    private static final ProfilerTrack[] TRACKS = new ProfilerTrack[]{LOGIC,
+                                                                      RENDER};
+
+    /**
+     * Exported timestamps are relative to this, so they are small and
+     * positive.
+     */
+    private static final long BASE_TIME = System.nanoTime();
+    private static volatile boolean sEnabled = false;
+
+    public static boolean IsEnabled() {
+        return sEnabled;
+    }
+
+    public static void SetEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public static void Clear() {
+        for (ProfilerTrack track : TRACKS) track.clear();
+    }
+
+    /**
+     * Writes everything recorded to the given file as a Chrome trace.
+     */
+    public static void DumpChromeTrace(File file) throws IOException {
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            WriteChromeTrace(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes everything recorded to the given writer in the Chrome trace
+     * event JSON format. Spans become complete ("X") events and the counters
+     * of each frame become counter ("C") events. Best called while the game
+     * is paused, otherwise the newest entries may be torn.
+     */
+    public static void WriteChromeTrace(Writer writer) throws IOException {
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean first = true;
+        for (ProfilerTrack track : TRACKS) {
+            /* Thread name */
+            if (first == false) writer.write(",\n");
+            first = false;
+            writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+            writer.write(Integer.toString(track.getId()));
+            writer.write(",\"args\":{\"name\":");
+            WriteJSONString(writer, track.getName());
+            writer.write("}}");
+            /* Spans */
+            long numSpans = track.getNumSpans();
+            long firstSpan = Math.max(0, numSpans - track.getSpanCapacity());
+            for (long i = firstSpan; i < numSpans; i++) {
+                writer.write(",\n{\"name\":");
+                WriteJSONString(writer, track.getSpanName(i));
+                writer.write(",\"ph\":\"X\",\"pid\":1,\"tid\":");
+                writer.write(Integer.toString(track.getId()));
+                writer.write(",\"ts\":");
+                writer.write(NanosToMicros(track.getSpanStart(i) - BASE_TIME));
+                writer.write(",\"dur\":");
+                writer.write(NanosToMicros(track.getSpanDuration(i)));
+                writer.write("}");
+            }
+            /* Counters, one event per frame */
+            long numFrames = track.getNumFrames();
+            long firstFrame = Math.max(0, numFrames - track.getFrameCapacity());
+            for (long i = firstFrame; i < numFrames; i++) {
+                writer.write(",\n{\"name\":");
+                WriteJSONString(writer, track.getName() + " counters");
+                writer.write(",\"ph\":\"C\",\"pid\":1,\"tid\":");
+                writer.write(Integer.toString(track.getId()));
+                writer.write(",\"ts\":");
+                writer.write(NanosToMicros(track.getFrameStart(i) - BASE_TIME));
+                writer.write(",\"args\":{");
+                for (int c = 0; c < NUM_COUNTERS; c++) {
+                    if (c > 0) writer.write(",");
+                    WriteJSONString(writer, COUNTER_NAMES[c]);
+                    writer.write(":");
+                    writer.write(Integer.toString(track.getFrameCounter(i, c)));
+                }
+                writer.write("}}");
+            }
+        }
+        writer.write("]}\n");
+        writer.flush();
+    }
+
+    /**
+     * Formats the given ns as us with one decimal place.
+     */
+    private static String NanosToMicros(long nanos) {
+        if (nanos < 0) return Long.toString(nanos / 1000);
+        return (nanos / 1000) + "." + (nanos % 1000) / 100;
+    }
+
+    private static void WriteJSONString(Writer writer, String string)
+            throws IOException {
+        if (string == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        int length = string.length();
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) writer.write(String.format("\\u%04x", (int) c));
+                    else writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
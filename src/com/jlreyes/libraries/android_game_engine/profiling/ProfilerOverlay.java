@@ -0,0 +1,190 @@
+package com.jlreyes.libraries.android_game_engine.profiling;
+
+import android.opengl.GLES20;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderUtils;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.GLApi;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Renderable drawing the frame times of the last {@link #NUM_FRAMES} logic
+ * steps (green) and drawn frames (blue) as bar graphs in the bottom left
+ * corner of the screen. The red line is the 60 fps budget. Drawn on top of
+ * everything by the GameRenderer, see
+ * {@link com.jlreyes.libraries.android_game_engine.rendering.GameRenderer#setProfilerOverlay(ProfilerOverlay)}.
+ *
+ * Uses its own flat color shader, so it does not need a texture.
+ *
+ * @author jlreyes
+ */
+public class ProfilerOverlay extends Renderable {
+    public static final int NUM_FRAMES = 64;
+    /** A bar reaching the top of a graph took this long. */
+    public static final float GRAPH_MAX_MS = 33.3f;
+    public static final float BUDGET_MS = 1000.0f / 60.0f;
+
+    /* Placement in normalized device coordinates */
+    private static final float LEFT = -1.0f;
+    private static final float WIDTH = 0.8f;
+    private static final float BOTTOM = -1.0f;
+    private static final float GRAPH_HEIGHT = 0.2f;
+
+    private static final int FLOATS_PER_QUAD = 6 * RenderUtils.VERTEX_DIM;
+
+    private static final String VERTEX_SHADER = "attribute vec2 a_Position;\n" +
+                                                "\n" +
+                                                "void main() {\n" +
+                                                "    gl_Position = vec4(a_Position, 0.0, 1.0);\n" +
+                                                "}";
+    private static final String FRAGMENT_SHADER = "precision mediump float;\n" +
+                                                  "\n" +
+                                                  "uniform vec4 u_Color;\n" +
+                                                  "\n" +
+                                                  "void main() {\n" +
+                                                  "    gl_FragColor = u_Color;\n" +
+                                                  "}";
+
+    /* What we are drawing with, set at the start of each draw */
+    private RenderState mState;
+    private GLApi mGL;
+    private int mProgramHandle;
+    private int mPositionHandle;
+    private int mColorHandle;
+    private float[] mQuads;
+    private FloatBuffer mQuadBuffer;
+
+    public ProfilerOverlay() {
+        super();
+        this.mProgramHandle = 0;
+        this.mQuads = new float[NUM_FRAMES * FLOATS_PER_QUAD];
+        ByteBuffer b = ByteBuffer.allocateDirect(mQuads.length *
+                                                 RenderUtils.GL_FLOAT_SIZE);
+        this.mQuadBuffer = b.order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    /**
+     * Called by the renderer when a new OpenGL context is created. Our old
+     * program is gone with the old context.
+     */
+    public void onSurfaceCreated() {
+        this.mProgramHandle = 0;
+    }
+
+    @Override
+    public boolean isVisible(float left, float bottom, float right, float top) {
+        return true;
+    }
+
+    /**
+     * Draws the graphs, leaving our program in use. The caller must switch
+     * back to its own program.
+     */
+    @Override
+    public void draw(RenderState state) {
+        mState = state;
+        mGL = state.getGL();
+        if (mProgramHandle == 0) createProgram();
+        state.useProgram(mProgramHandle);
+        state.enableVertexAttribArray(mPositionHandle);
+        /* Background */
+        float height = 2.0f * GRAPH_HEIGHT;
+        drawQuad(LEFT, BOTTOM, LEFT + WIDTH, BOTTOM + height,
+                 0.0f, 0.0f, 0.0f, 0.5f);
+        /* Graphs */
+        drawGraph(Profiler.RENDER, BOTTOM, 0.0f, 0.3f, 0.8f);
+        drawGraph(Profiler.LOGIC, BOTTOM + GRAPH_HEIGHT, 0.0f, 0.8f, 0.0f);
+        /* Budget lines */
+        float budget = GRAPH_HEIGHT * BUDGET_MS / GRAPH_MAX_MS;
+        for (int i = 0; i < 2; i++) {
+            float y = BOTTOM + i * GRAPH_HEIGHT + budget;
+            drawQuad(LEFT, y, LEFT + WIDTH, y + 0.005f, 0.8f, 0.0f, 0.0f, 0.8f);
+        }
+    }
+
+    /**
+     * Draws one bar per frame of the given track, oldest on the left.
+     */
+    private void drawGraph(ProfilerTrack track, float bottom,
+                           float r, float g, float b) {
+        long numFrames = track.getNumFrames();
+        int count = (int) Math.min(Math.min(numFrames, NUM_FRAMES),
+                                   track.getFrameCapacity());
+        if (count == 0) return;
+        float barWidth = WIDTH / NUM_FRAMES;
+        for (int i = 0; i < count; i++) {
+            long frame = numFrames - count + i;
+            float ms = track.getFrameDuration(frame) / 1000000.0f;
+            float height = GRAPH_HEIGHT * Math.min(ms / GRAPH_MAX_MS, 1.0f);
+            float left = LEFT + i * barWidth;
+            putQuad(i, left, bottom, left + barWidth * 0.8f, bottom + height);
+        }
+        flush(count, r, g, b, 1.0f);
+    }
+
+    private void drawQuad(float left, float bottom, float right, float top,
+                          float r, float g, float b, float a) {
+        putQuad(0, left, bottom, right, top);
+        flush(1, r, g, b, a);
+    }
+
+    /**
+     * Writes the given rectangle as two triangles at the given quad index.
+     */
+    private void putQuad(int index, float left, float bottom,
+                         float right, float top) {
+        int i = index * FLOATS_PER_QUAD;
+        float[] q = mQuads;
+        q[i] = left; q[i + 1] = bottom;
+        q[i + 2] = right; q[i + 3] = bottom;
+        q[i + 4] = left; q[i + 5] = top;
+        q[i + 6] = left; q[i + 7] = top;
+        q[i + 8] = right; q[i + 9] = bottom;
+        q[i + 10] = right; q[i + 11] = top;
+    }
+
+    /**
+     * Draws the first numQuads quads with the given color. The blend mode
+     * expects premultiplied alpha.
+     */
+    private void flush(int numQuads, float r, float g, float b, float a) {
+        mQuadBuffer.position(0);
+        mQuadBuffer.put(mQuads, 0, numQuads * FLOATS_PER_QUAD);
+        mQuadBuffer.position(0);
+        mState.vertexAttribPointer(mPositionHandle,
+                                   RenderUtils.VERTEX_DIM,
+                                   RenderUtils.VERTEX_DIM *
+                                   RenderUtils.GL_FLOAT_SIZE,
+                                   mQuadBuffer);
+        mGL.glUniform4f(mColorHandle, r * a, g * a, b * a, a);
+        mGL.glDrawArrays(GLES20.GL_TRIANGLES, 0, numQuads * 6);
+    }
+
+    private void createProgram() {
+        int vertexHandle = RenderUtils.compileShader(GLES20.GL_VERTEX_SHADER,
+                                                     VERTEX_SHADER);
+        int fragmentHandle = RenderUtils.compileShader(GLES20.GL_FRAGMENT_SHADER,
+                                                       FRAGMENT_SHADER);
+        mProgramHandle = RenderUtils.createAndLinkProgram(vertexHandle,
+                                                          fragmentHandle,
+                                                          new String[]{"a_Position"});
+        mPositionHandle = GLES20.glGetAttribLocation(mProgramHandle, "a_Position");
+        mColorHandle = GLES20.glGetUniformLocation(mProgramHandle, "u_Color");
+        if (mPositionHandle == -1)
+            throw new RuntimeException("Could not get overlay position handle.");
+        if (mColorHandle == -1)
+            throw new RuntimeException("Could not get overlay color handle.");
+    }
+
+    /**
+     * The overlay has no per-frame state to copy, so this is just a new
+     * overlay.
+     */
+    @Override
+    public ProfilerOverlay copy() {
+        return new ProfilerOverlay();
+    }
+}
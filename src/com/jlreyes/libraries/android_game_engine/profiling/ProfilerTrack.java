@@ -0,0 +1,201 @@
+package com.jlreyes.libraries.android_game_engine.profiling;
+
+/**
+ * Timeline of a single thread. Holds a ring buffer of timed spans and a ring
+ * buffer of frames, each frame with the counter values collected during it.
+ * Everything is pre-allocated, so recording never allocates.
+ *
+ * Only the thread this track belongs to may record to it. Reading (for the
+ * overlay or for exporting) may happen on any thread, the newest entries
+ * might just be torn.
+ *
+ * @author jlreyes
+ */
+public class ProfilerTrack {
+    private final String mName;
+    private final int mId;
+
+    /* Spans */
+    private final int mSpanMask;
+    private final String[] mSpanNames;
+    private final long[] mSpanStarts;
+    private final long[] mSpanDurations;
+    private volatile long mNumSpans;
+
+    /* Frames */
+    private final int mFrameMask;
+    private final long[] mFrameStarts;
+    private final long[] mFrameDurations;
+    private final int[][] mFrameCounters;
+    private volatile long mNumFrames;
+    private long mFrameStart;
+    private final int[] mCounters;
+
+    /**
+     * @param name        The name of this track, as it will show in traces.
+     * @param id          Unique id of this track.
+     * @param numSpans    Number of spans kept. Rounded up to a power of two.
+     * @param numFrames   Number of frames kept. Rounded up to a power of two.
+     */
+    ProfilerTrack(String name, int id, int numSpans, int numFrames) {
+        this.mName = name;
+        this.mId = id;
+        int spanCapacity = PowerOfTwo(numSpans);
+        this.mSpanMask = spanCapacity - 1;
+        this.mSpanNames = new String[spanCapacity];
+        this.mSpanStarts = new long[spanCapacity];
+        this.mSpanDurations = new long[spanCapacity];
+        this.mNumSpans = 0;
+        int frameCapacity = PowerOfTwo(numFrames);
+        this.mFrameMask = frameCapacity - 1;
+        this.mFrameStarts = new long[frameCapacity];
+        this.mFrameDurations = new long[frameCapacity];
+        this.mFrameCounters = new int[Profiler.NUM_COUNTERS][frameCapacity];
+        this.mNumFrames = 0;
+        this.mFrameStart = 0;
+        this.mCounters = new int[Profiler.NUM_COUNTERS];
+    }
+
+    /**
+     * Marks the start of a span. Pass the result to
+     * {@link #end(String, long)}.
+     *
+     * @return The current time in ns, or 0 if the profiler is disabled.
+     */
+    public long begin() {
+        if (Profiler.IsEnabled() == false) return 0;
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a span that started at the given time and ends now. Does nothing
+     * if start is 0. Name should be a string that already exists (a constant,
+     * a scene's name, ...) so recording does not allocate.
+     */
+    public void end(String name, long start) {
+        if (start == 0) return;
+        long now = System.nanoTime();
+        long index = mNumSpans;
+        int slot = (int) index & mSpanMask;
+        mSpanNames[slot] = name;
+        mSpanStarts[slot] = start;
+        mSpanDurations[slot] = now - start;
+        mNumSpans = index + 1;
+    }
+
+    /**
+     * Marks the start of a frame (a logic step, a drawn frame, ...).
+     */
+    public void beginFrame() {
+        mFrameStart = begin();
+    }
+
+    /**
+     * Records the frame started by the last call to beginFrame, along with
+     * the counters collected since then, and resets the counters.
+     */
+    public void endFrame() {
+        if (mFrameStart == 0) {
+            for (int i = 0; i < Profiler.NUM_COUNTERS; i++) mCounters[i] = 0;
+            return;
+        }
+        long now = System.nanoTime();
+        long index = mNumFrames;
+        int slot = (int) index & mFrameMask;
+        mFrameStarts[slot] = mFrameStart;
+        mFrameDurations[slot] = now - mFrameStart;
+        for (int i = 0; i < Profiler.NUM_COUNTERS; i++) {
+            mFrameCounters[i][slot] = mCounters[i];
+            mCounters[i] = 0;
+        }
+        mNumFrames = index + 1;
+        mFrameStart = 0;
+    }
+
+    /**
+     * Adds one to the given counter for the current frame.
+     *
+     * @param counter One of Profiler's COUNTER_ constants.
+     */
+    public void count(int counter) {
+        mCounters[counter]++;
+    }
+
+    public void count(int counter, int amount) {
+        mCounters[counter] += amount;
+    }
+
+    /*
+     * Reading
+     */
+
+    /**
+     * Returns the total number of spans ever recorded. Only the last
+     * {@link #getSpanCapacity()} are kept.
+     */
+    public long getNumSpans() {
+        return mNumSpans;
+    }
+
+    public int getSpanCapacity() {
+        return mSpanNames.length;
+    }
+
+    public String getSpanName(long index) {
+        return mSpanNames[(int) index & mSpanMask];
+    }
+
+    public long getSpanStart(long index) {
+        return mSpanStarts[(int) index & mSpanMask];
+    }
+
+    public long getSpanDuration(long index) {
+        return mSpanDurations[(int) index & mSpanMask];
+    }
+
+    /**
+     * Returns the total number of frames ever recorded. Only the last
+     * {@link #getFrameCapacity()} are kept.
+     */
+    public long getNumFrames() {
+        return mNumFrames;
+    }
+
+    public int getFrameCapacity() {
+        return mFrameStarts.length;
+    }
+
+    public long getFrameStart(long index) {
+        return mFrameStarts[(int) index & mFrameMask];
+    }
+
+    public long getFrameDuration(long index) {
+        return mFrameDurations[(int) index & mFrameMask];
+    }
+
+    public int getFrameCounter(long index, int counter) {
+        return mFrameCounters[counter][(int) index & mFrameMask];
+    }
+
+    /**
+     * Forgets every recorded span and frame.
+     */
+    public void clear() {
+        mNumSpans = 0;
+        mNumFrames = 0;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public int getId() {
+        return mId;
+    }
+
+    private static int PowerOfTwo(int n) {
+        int result = 1;
+        while (result < n) result <<= 1;
+        return result;
+    }
+}
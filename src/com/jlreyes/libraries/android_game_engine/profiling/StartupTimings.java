@@ -0,0 +1,71 @@
+package com.jlreyes.libraries.android_game_engine.profiling;
+
+/**
+ * When each stage of starting the game was reached, in ms since the game's
+ * activity was created. Stages are marked by the engine; read them with
+ * {@link #GetMillis(Stage)} or log {@link #Summary()}. Only the first mark of
+ * a stage after {@link #Reset()} counts, so marking is safe from anywhere.
+ *
+ * @author jlreyes
+ */
+public class StartupTimings {
+    public enum Stage {
+        /** AGEActivity.onCreate, everything is relative to this */
+        ACTIVITY_CREATED,
+        /** Logic, music and animation threads started */
+        THREADS_STARTED,
+        /** The renderer has a GL context and can take uploads */
+        SURFACE_CREATED,
+        /** The first frame with something in it was drawn */
+        FIRST_FRAME,
+        /** The start scene finished loading and was added */
+        START_SCENE_LOADED
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    /* System.nanoTime() of each stage, 0 if not reached */
+    private static final long[] TIMES = new long[STAGES.length];
+
+    /**
+     * Forgets every stage and marks ACTIVITY_CREATED now.
+     */
+    public static synchronized void Reset() {
+        for (int i = 0; i < TIMES.length; i++) TIMES[i] = 0l;
+        TIMES[Stage.ACTIVITY_CREATED.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Marks the given stage as reached now, unless it already was.
+     */
+    public static synchronized void Mark(Stage stage) {
+        if (TIMES[stage.ordinal()] == 0l) TIMES[stage.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Returns the ms from ACTIVITY_CREATED to the given stage, or -1 if
+     * either hasn't been reached.
+     */
+    public static synchronized long GetMillis(Stage stage) {
+        long created = TIMES[Stage.ACTIVITY_CREATED.ordinal()];
+        long time = TIMES[stage.ordinal()];
+        if (created == 0l || time == 0l) return -1l;
+        return (time - created) / 1000000l;
+    }
+
+    public static synchronized boolean Reached(Stage stage) {
+        return TIMES[stage.ordinal()] != 0l;
+    }
+
+    /**
+     * One line with every stage reached so far.
+     */
+    public static synchronized String Summary() {
+        StringBuilder summary = new StringBuilder("Startup:");
+        for (Stage stage : STAGES) {
+            long millis = GetMillis(stage);
+            if (millis < 0) continue;
+            summary.append(' ').append(stage.name()).append('=').append(millis).append("ms");
+        }
+        return summary.toString();
+    }
+}
@@ -2,12 +2,18 @@ package com.jlreyes.libraries.android_game_engine.rendering;
 
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView.Renderer;
+import com.jlreyes.libraries.android_game_engine.profiling.Profiler;
+import com.jlreyes.libraries.android_game_engine.profiling.ProfilerOverlay;
+import com.jlreyes.libraries.android_game_engine.profiling.StartupTimings;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.AndroidGL;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
+import com.jlreyes.libraries.android_game_engine.utils.ThreadUtils;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Renderer for the GameView.
@@ -17,86 +23,89 @@ import java.util.ArrayList;
 public class GameRenderer implements Renderer {
     public static enum State {RENDERING, NOT_RENDERING}
 
-    /**
-     * How long this thread will sleep when it needs to sleep
-     */
-    public static final int SLEEP_INTERVAL = 500;
+    private static final String SPAN_DRAW = "draw";
 
-    private volatile boolean mDrawing;
+    /* Counted down once we have a surface, replaced when we lose it */
+    private volatile CountDownLatch mSurfaceLatch;
+    private boolean mDrewFirstFrame;
     private State mState;
     private RenderInfo mRenderInfo;
     private RenderInfo mRenderInfoBuffer;
+    private volatile ProfilerOverlay mProfilerOverlay;
     /**
      * Dummy thread for indexing in SyncWrapper
      */
     private Thread mRendererThread;
 
-    /* Aspect Ratio */
-    private float mRatio;
-    private int mProgramHandle;
-    private int mMVPMatrixHandle;
-    private int mPositionHandle;
-    private int mTexCoordHandle;
-    private int mRGBTexHandle;
-    private int mATexHandle;
-    private float[] mMVPMatrix;
-    private float[] mModelMatrix;
-    private float[] mViewMatrix;
-    private float[] mProjectionMatrix;
+    /**
+     * Handles, matrices and cached GL state handed to every renderable.
+     */
+    private RenderState mRenderState;
 
     public GameRenderer() {
-        this.mDrawing = false;
+        this.mSurfaceLatch = new CountDownLatch(1);
+        this.mDrewFirstFrame = false;
         this.mState = State.NOT_RENDERING;
         this.mRenderInfo = new RenderInfo();
         this.mRenderInfoBuffer = mRenderInfo;
+        this.mProfilerOverlay = null;
         this.mRendererThread = new Thread("Renderer");
 
-        this.mProgramHandle = 0;
-        this.mMVPMatrixHandle = 0;
-        this.mPositionHandle = 0;
-        this.mTexCoordHandle = 0;
-        this.mRGBTexHandle = 0;
-        this.mATexHandle = 0;
-        this.mRatio = 0.0f;
-        this.mMVPMatrix = new float[16];
-        this.mModelMatrix = new float[16];
-        this.mViewMatrix = new float[16];
-        this.mProjectionMatrix = new float[16];
+        this.mRenderState = new RenderState(new AndroidGL());
     }
 
     /**
-     * Returns true iff the renderer has reached the onDrawFrame.
+     * Returns true iff the renderer has a surface, that is, openGL calls
+     * queued to it will work.
      */
     public boolean isReady() {
-        return mDrawing;
+        return mSurfaceLatch.getCount() == 0;
+    }
+
+    /**
+     * Returns once the renderer has a surface. Don't call from the renderer
+     * thread. Throws if the calling thread is interrupted first.
+     */
+    public void awaitSurface() {
+        ThreadUtils.Await(mSurfaceLatch);
+    }
+
+    /**
+     * Called once the view has paused, so no frame is drawn until it
+     * resumes. Anything waiting for a surface after this waits until we
+     * draw again, with a new context or the preserved one.
+     */
+    public void onPause() {
+        if (mSurfaceLatch.getCount() == 0) mSurfaceLatch = new CountDownLatch(1);
     }
 
     /**
      * Renders whatever information the renderer has.
      */
     public void onDrawFrame(GL10 gl) {
-        mDrawing = true;
+        /* If the context was preserved over a pause, onSurfaceCreated is not
+         * called again, so the first frame lets waiting uploads go */
+        if (mSurfaceLatch.getCount() != 0) mSurfaceLatch.countDown();
         switch (getState()) {
             case NOT_RENDERING: {
                 onNotRendering();
                 break;
             }
             case RENDERING: {
+                Profiler.RENDER.beginFrame();
                 onRendering(gl);
+                Profiler.RENDER.endFrame();
                 break;
             }
         }
     }
 
     /**
-     * Called whenever we are not rendering
+     * Called whenever we are not rendering. Only clears, the frame rate
+     * paces us, so queued uploads are never held up behind a sleep.
      */
     private void onNotRendering() {
-        try {
-            Thread.sleep(SLEEP_INTERVAL);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
     }
 
     /**
@@ -107,33 +116,51 @@ public class GameRenderer implements Renderer {
         synchronized (mRenderInfoBuffer) {
             mRenderInfo = mRenderInfoBuffer;
         }        /* Render the Scene */
+        long start = Profiler.RENDER.begin();
         synchronized (mRenderInfo) {
-            GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
             ArrayList<Renderable> renderables = mRenderInfo.getRenderables();
-            int length = renderables.size();
-            for (int i = 0; i < length; i++) {
-                Renderable renderable = renderables.get(i);
-                renderable.draw(mPositionHandle,
-                                mMVPMatrixHandle,
-                                mTexCoordHandle,
-                                mRGBTexHandle,
-                                mATexHandle,
-                                mRatio,
-                                mMVPMatrix,
-                                mViewMatrix,
-                                mModelMatrix,
-                                mProjectionMatrix);
+            Draw(mRenderState, renderables);
+            if (mDrewFirstFrame == false && renderables.isEmpty() == false) {
+                mDrewFirstFrame = true;
+                StartupTimings.Mark(StartupTimings.Stage.FIRST_FRAME);
             }
         }
+        /* Draw the overlay on top of everything */
+        ProfilerOverlay overlay = mProfilerOverlay;
+        if (overlay != null) {
+            overlay.draw(mRenderState);
+            mRenderState.useMainProgram();
+        }
+        Profiler.RENDER.end(SPAN_DRAW, start);
+    }
+
+    /**
+     * Clears the screen and draws the given renderables in order with the
+     * given state. Static so the draw path can be run against a
+     * {@link com.jlreyes.libraries.android_game_engine.rendering.gl.RecordingGL}
+     * to count the GL calls a frame makes.
+     */
+    public static void Draw(RenderState state,
+                            ArrayList<Renderable> renderables) {
+        state.getGL().glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        int length = renderables.size();
+        for (int i = 0; i < length; i++) renderables.get(i).draw(state);
     }
 
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
         GLES20.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
-        LayerCamera.SetDefaultViewMatrix(mViewMatrix);
+        /* Everything we had cached or uploaded died with the old context */
+        mRenderState.onNewContext();
+        LayerCamera.SetDefaultViewProjection(mRenderState.getViewProjection());
         setUpTweaks();
-        setUpShaders();
-        getHandles();
-        GLES20.glUseProgram(mProgramHandle);
+        int programHandle = setUpShaders();
+        getHandles(programHandle);
+        mRenderState.useMainProgram();
+        ProfilerOverlay overlay = mProfilerOverlay;
+        if (overlay != null) overlay.onSurfaceCreated();
+        StartupTimings.Mark(StartupTimings.Stage.SURFACE_CREATED);
+        /* Let everything waiting to upload go */
+        mSurfaceLatch.countDown();
     }
 
     /**
@@ -151,7 +178,7 @@ public class GameRenderer implements Renderer {
         GLES20.glBlendFunc(GLES20.GL_ONE, GLES20.GL_ONE_MINUS_SRC_ALPHA);
     }
 
-    private void setUpShaders() {
+    private int setUpShaders() {
         String vertexShader = RenderUtils.VERTEX_SHADER;
         String fragmentShader = RenderUtils.FRAGMENT_SHADER;
         String[] attributes = new String[]{"a_Position", "a_TexCoordinate"};
@@ -161,32 +188,37 @@ public class GameRenderer implements Renderer {
         int fragmentHandle =
                 RenderUtils.compileShader(GLES20.GL_FRAGMENT_SHADER,
                                           fragmentShader);
-        mProgramHandle =
-                RenderUtils.createAndLinkProgram(vertexHandle,
-                                                 fragmentHandle,
-                                                 attributes);
-    }
-
-    public void getHandles() {
-        mMVPMatrixHandle = GLES20.glGetUniformLocation(mProgramHandle,
-                                                       "u_MVPMatrix");
-        mRGBTexHandle = GLES20.glGetUniformLocation(mProgramHandle, "u_RGBTexture");
-        mATexHandle = GLES20.glGetUniformLocation(mProgramHandle, "u_ATexture");
-        mPositionHandle = GLES20.glGetAttribLocation(mProgramHandle,
-                                                     "a_Position");
-        mTexCoordHandle = GLES20.glGetAttribLocation(mProgramHandle,
-                                                     "a_TexCoordinate");
+        return RenderUtils.createAndLinkProgram(vertexHandle,
+                                                fragmentHandle,
+                                                attributes);
+    }
+
+    public void getHandles(int programHandle) {
+        int mvpTransformHandle = GLES20.glGetUniformLocation(programHandle,
+                                                             "u_MVPTransform");
+        int rgbTexHandle = GLES20.glGetUniformLocation(programHandle, "u_RGBTexture");
+        int aTexHandle = GLES20.glGetUniformLocation(programHandle, "u_ATexture");
+        int positionHandle = GLES20.glGetAttribLocation(programHandle,
+                                                        "a_Position");
+        int texCoordHandle = GLES20.glGetAttribLocation(programHandle,
+                                                        "a_TexCoordinate");
 	    /* Verify we got the location */
-        if (mMVPMatrixHandle == -1)
-            throw new RuntimeException("Could not get MVP matrix handle.");
-        if (mRGBTexHandle == -1)
+        if (mvpTransformHandle == -1)
+            throw new RuntimeException("Could not get MVP transform handle.");
+        if (rgbTexHandle == -1)
             throw new RuntimeException("Could not get RGB Tex handle.");
-        if (mATexHandle == -1)
+        if (aTexHandle == -1)
             throw new RuntimeException("Could not get A Tex handle.");
-        if (mPositionHandle == -1)
+        if (positionHandle == -1)
             throw new RuntimeException("Could not get position handle.");
-        if (mTexCoordHandle == -1)
+        if (texCoordHandle == -1)
             throw new RuntimeException("Could not get Tex Coord handle.");
+        mRenderState.setHandles(programHandle,
+                                mvpTransformHandle,
+                                positionHandle,
+                                texCoordHandle,
+                                rgbTexHandle,
+                                aTexHandle);
     }
 
 
@@ -221,6 +253,31 @@ public class GameRenderer implements Renderer {
         }
     }
 
+    /**
+     * Sets the profiler overlay drawn on top of every frame. null removes it.
+     */
+    public void setProfilerOverlay(ProfilerOverlay overlay) {
+        this.mProfilerOverlay = overlay;
+    }
+
+    public ProfilerOverlay getProfilerOverlay() {
+        return mProfilerOverlay;
+    }
+
+    /**
+     * Only touch from the renderer thread.
+     */
+    public RenderState getRenderState() {
+        return mRenderState;
+    }
+
+    /**
+     * Any thread. See {@link RenderState#getContextGeneration()}.
+     */
+    public int getContextGeneration() {
+        return mRenderState.getContextGeneration();
+    }
+
     public synchronized Thread getThread() {
         return mRendererThread;
     }
@@ -0,0 +1,238 @@
+package com.jlreyes.libraries.android_game_engine.rendering;
+
+import android.opengl.GLES20;
+import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.GLApi;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Immutable vertex data shared by every renderable with the same vertices.
+ * Get one through {@link #Intern(float[])}, so identical vertex arrays (every
+ * Rectangle of a given size, every copy of a renderable) end up as one
+ * Geometry and one vertex buffer object on the GPU.
+ *
+ * The VBO is created by the renderer the first time the geometry is drawn,
+ * and again after the GL context is lost, see
+ * {@link RenderState#getContextGeneration()}. Geometry is reference counted:
+ * each renderable holds one reference, and once the last is released the
+ * geometry is forgotten and its VBO deleted.
+ *
+ * @author jlreyes
+ */
+public class Geometry {
+    public static final String TAG = "Geometry";
+
+    /* Every geometry with references left. Also guards the counts. */
+    private static final HashMap<Geometry, Geometry> INTERNED =
+            new HashMap<Geometry, Geometry>();
+
+    private float[] mVertices;
+    private int mHashCode;
+    private FloatBuffer mBuffer;
+    private int mNumVertices;
+    /* Bounding box of the vertices */
+    private float mMinX;
+    private float mMinY;
+    private float mMaxX;
+    private float mMaxY;
+    private int mRefCount;
+
+    /* Only touched on the renderer thread */
+    private int mVBOHandle;
+    private int mVBOGeneration;
+
+    private Geometry(float[] vertices) {
+        this.mVertices = vertices;
+        this.mHashCode = Arrays.hashCode(vertices);
+        this.mNumVertices = vertices.length / RenderUtils.VERTEX_DIM;
+        this.mVBOHandle = 0;
+        this.mVBOGeneration = -1;
+        this.mRefCount = 0;
+    }
+
+    /**
+     * Returns the geometry with the given vertices (x0, y0, x1, y1, ...),
+     * creating it if no renderable is using these vertices. The array is
+     * copied. The caller gets a reference, see {@link #release(GameView)}.
+     * Thread safe.
+     */
+    public static Geometry Intern(float[] vertices) {
+        if (vertices.length < RenderUtils.VERTEX_DIM ||
+            vertices.length % RenderUtils.VERTEX_DIM != 0)
+            throw new RuntimeException("Geometry needs whole " +
+                                       RenderUtils.VERTEX_DIM + "D vertices, got " +
+                                       vertices.length + " floats.");
+        Geometry key = new Geometry(vertices);
+        synchronized (INTERNED) {
+            Geometry geometry = INTERNED.get(key);
+            if (geometry != null) {
+                geometry.mRefCount++;
+                return geometry;
+            }
+            key.mVertices = vertices.clone();
+            key.finish();
+            key.mRefCount = 1;
+            INTERNED.put(key, key);
+            return key;
+        }
+    }
+
+    /**
+     * Adds a reference to this geometry and returns it, for sharing it
+     * with another renderable.
+     */
+    public Geometry retain() {
+        synchronized (INTERNED) {
+            if (mRefCount == 0)
+                throw new RuntimeException("Retaining released " + this);
+            mRefCount++;
+        }
+        return this;
+    }
+
+    /**
+     * Drops a reference to this geometry. After the last, it is no longer
+     * interned and the renderer deletes its VBO before its next frame, so
+     * only call this once nothing draws it. The game view is null when
+     * headless.
+     */
+    public void release(GameView gameView) {
+        synchronized (INTERNED) {
+            if (mRefCount == 0)
+                throw new RuntimeException("Releasing released " + this);
+            if (--mRefCount > 0) return;
+            INTERNED.remove(this);
+        }
+        if (gameView == null) return;
+        final RenderState state = gameView.getGameRenderer().getRenderState();
+        gameView.queueEvent(new Runnable() {
+            public void run() {
+                if (mVBOGeneration == state.getContextGeneration())
+                    state.deleteBuffer(mVBOHandle);
+                mVBOHandle = 0;
+                mVBOGeneration = -1;
+            }
+        });
+    }
+
+    /**
+     * Returns how many distinct geometries are interned.
+     */
+    public static int GetNumInterned() {
+        synchronized (INTERNED) {
+            return INTERNED.size();
+        }
+    }
+
+    /**
+     * Creates the client side buffer and bounds of a new geometry.
+     */
+    private void finish() {
+        ByteBuffer b = ByteBuffer.allocateDirect(mVertices.length *
+                                                 RenderUtils.GL_FLOAT_SIZE);
+        this.mBuffer = b.order(ByteOrder.nativeOrder()).asFloatBuffer();
+        mBuffer.put(mVertices);
+        mBuffer.position(0);
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < mVertices.length; i += RenderUtils.VERTEX_DIM) {
+            float x = mVertices[i];
+            float y = mVertices[i + 1];
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+        this.mMinX = minX;
+        this.mMinY = minY;
+        this.mMaxX = maxX;
+        this.mMaxY = maxY;
+    }
+
+    /**
+     * Returns the handle of this geometry's VBO in the current context,
+     * uploading it first if needed. Renderer thread only.
+     */
+    public int getVBOHandle(RenderState state) {
+        int generation = state.getContextGeneration();
+        if (mVBOGeneration == generation) return mVBOHandle;
+        GLApi gl = state.getGL();
+        int[] handleHolder = new int[1];
+        gl.glGenBuffers(1, handleHolder, 0);
+        if (handleHolder[0] == 0)
+            throw new RuntimeException("Could not create a VBO for " + this);
+        state.bindArrayBuffer(handleHolder[0]);
+        mBuffer.position(0);
+        gl.glBufferData(GLES20.GL_ARRAY_BUFFER,
+                        mVertices.length * RenderUtils.GL_FLOAT_SIZE,
+                        mBuffer,
+                        GLES20.GL_STATIC_DRAW);
+        this.mVBOHandle = handleHolder[0];
+        this.mVBOGeneration = generation;
+        return mVBOHandle;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if ((o instanceof Geometry) == false) return false;
+        Geometry other = (Geometry) o;
+        return mHashCode == other.mHashCode &&
+               Arrays.equals(mVertices, other.mVertices);
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    public String toString() {
+        return TAG + "[" + mNumVertices + " vertices, " +
+               mMinX + "," + mMinY + " to " + mMaxX + "," + mMaxY + "]";
+    }
+
+    /*
+     * Getters and Setters
+     */
+
+    /**
+     * Read only client side copy of the vertices.
+     */
+    public FloatBuffer getBuffer() {
+        return mBuffer;
+    }
+
+    /**
+     * Returns a new array with the vertices.
+     */
+    public float[] getVerticesAsArray() {
+        return mVertices.clone();
+    }
+
+    public int getNumVertices() {
+        return mNumVertices;
+    }
+
+    public float getMinX() {
+        return mMinX;
+    }
+
+    public float getMinY() {
+        return mMinY;
+    }
+
+    public float getMaxX() {
+        return mMaxX;
+    }
+
+    public float getMaxY() {
+        return mMaxY;
+    }
+}
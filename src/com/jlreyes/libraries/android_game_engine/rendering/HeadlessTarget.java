@@ -0,0 +1,83 @@
+package com.jlreyes.libraries.android_game_engine.rendering;
+
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+import com.jlreyes.libraries.android_game_engine.io.InputQueue;
+
+import java.util.ArrayList;
+
+/**
+ * Render target with no screen. Render info is dropped once counted, so the
+ * logic thread can run a full game off a device, as fast as its clock lets
+ * it. Touches can be fed in through the input queue.
+ *
+ * @author jlreyes
+ */
+public class HeadlessTarget implements RenderTarget {
+    private int mWidth;
+    private int mHeight;
+    private InputQueue mInputQueue;
+    /* Never started, render info passed to it is just let go */
+    private Thread mRenderThread;
+    private volatile long mNumUpdates;
+    private volatile int mLastNumRenderables;
+
+    public HeadlessTarget(int width, int height) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mInputQueue = new InputQueue();
+        this.mRenderThread = new Thread("Headless Renderer");
+        this.mNumUpdates = 0l;
+        this.mLastNumRenderables = 0;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public ArrayList<InputEvent> getInputEvents() {
+        return mInputQueue.drain();
+    }
+
+    public void update(RenderInfo renderInfo) {
+        mLastNumRenderables = renderInfo.getRenderables().size();
+        mNumUpdates++;
+    }
+
+    public Thread getRenderThread() {
+        return mRenderThread;
+    }
+
+    /**
+     * Nothing is uploaded, so nothing is ever lost.
+     */
+    public int getContextGeneration() {
+        return 0;
+    }
+
+    public void awaitSurface() {}
+
+    /*
+     * Getters and Setters
+     */
+    public InputQueue getInputQueue() {
+        return mInputQueue;
+    }
+
+    /**
+     * How many logic steps have handed us render info.
+     */
+    public long getNumUpdates() {
+        return mNumUpdates;
+    }
+
+    /**
+     * How many renderables the last step would have drawn.
+     */
+    public int getLastNumRenderables() {
+        return mLastNumRenderables;
+    }
+}
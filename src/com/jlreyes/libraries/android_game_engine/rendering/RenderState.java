@@ -0,0 +1,339 @@
+package com.jlreyes.libraries.android_game_engine.rendering;
+
+import android.opengl.GLES20;
+import com.jlreyes.libraries.android_game_engine.profiling.Profiler;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.GLApi;
+import com.jlreyes.libraries.android_game_engine.utils.math.Affine2D;
+
+import java.nio.Buffer;
+
+/**
+ * Everything a renderable needs to draw itself: the GL calls, the shader
+ * handles and the transforms. Also remembers the GL state set through it
+ * (program, bound textures, enabled vertex arrays and integer uniforms) so
+ * setting the same state twice in a row only costs a compare.
+ *
+ * Only used on the renderer thread. The cache assumes nothing else changes
+ * GL state behind its back; anything that does must call {@link #reset()}.
+ *
+ * @author jlreyes
+ */
+public class RenderState {
+    public static final String TAG = "RenderState";
+    public static final int MAX_TEXTURE_UNITS = 8;
+    public static final int MAX_VERTEX_ATTRIBS = 16;
+    public static final int MAX_UNIFORMS = 64;
+    /* Value meaning "we don't know what GL has" */
+    private static final int UNKNOWN = -1;
+
+    private GLApi mGL;
+
+    /* Shader handles */
+    private int mProgramHandle;
+    private int mMVPTransformHandle;
+    private int mPositionHandle;
+    private int mTexCoordHandle;
+    private int mRGBTexHandle;
+    private int mATexHandle;
+
+    /* Transforms. The engine is 2d, so these are affine transforms rather
+     * than 4x4 matrices. */
+    private float mRatio;
+    private Affine2D mViewProjection;
+    private Affine2D mModelTransform;
+    private Affine2D mMVPTransform;
+    /* mMVPTransform's rows, as the shader takes them */
+    private float[] mMVPUniform;
+
+    /* Bumped every time a new GL context is created. Read by other
+     * threads to tell if the context survived a pause. */
+    private volatile int mContextGeneration;
+
+    /* Cached GL state */
+    private int mCurrentProgram;
+    private int mArrayBuffer;
+    /* Per vertex attribute: the VBO and offset its pointer was last set to */
+    private int[] mAttribBuffers;
+    private int[] mAttribOffsets;
+    private int mActiveTextureUnit;
+    private int[] mBoundTextures;
+    /* Bit i is set iff vertex attribute array i is enabled */
+    private int mEnabledArrays;
+    private int mKnownArrays;
+    private int[] mUniformValues;
+    private boolean[] mUniformKnown;
+
+    public RenderState(GLApi gl) {
+        this.mGL = gl;
+        this.mRatio = 0.0f;
+        this.mViewProjection = new Affine2D();
+        this.mModelTransform = new Affine2D();
+        this.mMVPTransform = new Affine2D();
+        this.mMVPUniform = new float[6];
+        this.mContextGeneration = 0;
+        this.mAttribBuffers = new int[MAX_VERTEX_ATTRIBS];
+        this.mAttribOffsets = new int[MAX_VERTEX_ATTRIBS];
+        this.mBoundTextures = new int[MAX_TEXTURE_UNITS];
+        this.mUniformValues = new int[MAX_UNIFORMS];
+        this.mUniformKnown = new boolean[MAX_UNIFORMS];
+        setHandles(0, 0, 0, 0, 0, 0);
+        reset();
+    }
+
+    /**
+     * Forgets all cached GL state, so the next call of each kind goes
+     * through. Call whenever a new GL context is created.
+     */
+    public void reset() {
+        mCurrentProgram = UNKNOWN;
+        mArrayBuffer = UNKNOWN;
+        for (int i = 0; i < MAX_VERTEX_ATTRIBS; i++) mAttribBuffers[i] = UNKNOWN;
+        mActiveTextureUnit = UNKNOWN;
+        for (int i = 0; i < MAX_TEXTURE_UNITS; i++) mBoundTextures[i] = UNKNOWN;
+        mEnabledArrays = 0;
+        mKnownArrays = 0;
+        forgetUniforms();
+    }
+
+    /**
+     * Called when a new GL context is created. Everything uploaded to the
+     * old one (VBOs, see {@link Geometry}) is gone and must be uploaded
+     * again.
+     */
+    public void onNewContext() {
+        mContextGeneration++;
+        reset();
+    }
+
+    private void forgetUniforms() {
+        for (int i = 0; i < MAX_UNIFORMS; i++) mUniformKnown[i] = false;
+    }
+
+    /**
+     * Sets the handles of the main program.
+     */
+    public void setHandles(int programHandle,
+                           int mvpTransformHandle,
+                           int positionHandle,
+                           int texCoordHandle,
+                           int rgbTexHandle,
+                           int aTexHandle) {
+        this.mProgramHandle = programHandle;
+        this.mMVPTransformHandle = mvpTransformHandle;
+        this.mPositionHandle = positionHandle;
+        this.mTexCoordHandle = texCoordHandle;
+        this.mRGBTexHandle = rgbTexHandle;
+        this.mATexHandle = aTexHandle;
+    }
+
+    /*
+     * Cached GL calls
+     */
+    public void useProgram(int program) {
+        if (mCurrentProgram == program) return;
+        mGL.glUseProgram(program);
+        mCurrentProgram = program;
+        /* Uniform values belong to the program */
+        forgetUniforms();
+    }
+
+    /**
+     * Switches back to the main program.
+     */
+    public void useMainProgram() {
+        useProgram(mProgramHandle);
+    }
+
+    public void bindArrayBuffer(int buffer) {
+        if (mArrayBuffer == buffer) return;
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffer);
+        mArrayBuffer = buffer;
+    }
+
+    /**
+     * Deletes the given VBO and forgets anything we cached about it, since GL
+     * hands deleted names out again.
+     */
+    public void deleteBuffer(int buffer) {
+        if (buffer <= 0) return;
+        mGL.glDeleteBuffers(1, new int[]{buffer}, 0);
+        if (mArrayBuffer == buffer) mArrayBuffer = UNKNOWN;
+        for (int i = 0; i < MAX_VERTEX_ATTRIBS; i++)
+            if (mAttribBuffers[i] == buffer) mAttribBuffers[i] = UNKNOWN;
+    }
+
+    /**
+     * Points the given float attribute at offset bytes into the given VBO.
+     * Skipped if it already points there, so renderables sharing geometry
+     * only set it once per run.
+     */
+    public void vertexAttribPointer(int index, int size, int stride,
+                                    int buffer, int offset) {
+        boolean cached = index >= 0 && index < MAX_VERTEX_ATTRIBS;
+        if (cached == true && mAttribBuffers[index] == buffer &&
+            mAttribOffsets[index] == offset) return;
+        bindArrayBuffer(buffer);
+        mGL.glVertexAttribPointer(index, size, GLES20.GL_FLOAT, false, stride, offset);
+        if (cached == true) {
+            mAttribBuffers[index] = buffer;
+            mAttribOffsets[index] = offset;
+        }
+    }
+
+    /**
+     * Points the given float attribute at client memory. Never skipped,
+     * since the contents may have changed.
+     */
+    public void vertexAttribPointer(int index, int size, int stride,
+                                    Buffer buffer) {
+        bindArrayBuffer(0);
+        mGL.glVertexAttribPointer(index, size, GLES20.GL_FLOAT, false, stride, buffer);
+        if (index >= 0 && index < MAX_VERTEX_ATTRIBS) mAttribBuffers[index] = UNKNOWN;
+    }
+
+    public void enableVertexAttribArray(int index) {
+        int bit = bitOf(index);
+        if (bit != 0 && (mKnownArrays & bit) != 0 && (mEnabledArrays & bit) != 0)
+            return;
+        mGL.glEnableVertexAttribArray(index);
+        mKnownArrays |= bit;
+        mEnabledArrays |= bit;
+    }
+
+    public void disableVertexAttribArray(int index) {
+        int bit = bitOf(index);
+        if (bit != 0 && (mKnownArrays & bit) != 0 && (mEnabledArrays & bit) == 0)
+            return;
+        mGL.glDisableVertexAttribArray(index);
+        mKnownArrays |= bit;
+        mEnabledArrays &= ~bit;
+    }
+
+    private static int bitOf(int index) {
+        if (index < 0 || index >= MAX_VERTEX_ATTRIBS) return 0;
+        return 1 << index;
+    }
+
+    /**
+     * Binds the given 2D texture to the given texture unit, switching the
+     * active unit only if the texture actually has to be bound.
+     *
+     * @param unit    The unit index, 0 for GL_TEXTURE0 and so on.
+     * @param texture The OpenGL texture handle.
+     */
+    public void bindTexture(int unit, int texture) {
+        if (unit < 0 || unit >= MAX_TEXTURE_UNITS)
+            throw new RuntimeException("Texture unit " + unit + " is not supported.");
+        if (mBoundTextures[unit] == texture) return;
+        if (mActiveTextureUnit != unit) {
+            mGL.glActiveTexture(GLES20.GL_TEXTURE0 + unit);
+            mActiveTextureUnit = unit;
+        }
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+        mBoundTextures[unit] = texture;
+        Profiler.RENDER.count(Profiler.COUNTER_TEXTURE_BINDS);
+    }
+
+    /**
+     * Deletes the given textures and forgets any binding of them we cached,
+     * since GL hands deleted names out again.
+     */
+    public void deleteTextures(int[] textures) {
+        mGL.glDeleteTextures(textures.length, textures, 0);
+        for (int texture : textures)
+            for (int i = 0; i < MAX_TEXTURE_UNITS; i++)
+                if (mBoundTextures[i] == texture) mBoundTextures[i] = UNKNOWN;
+    }
+
+    /**
+     * Sets an integer (or sampler) uniform of the program in use.
+     */
+    public void uniform1i(int location, int value) {
+        if (location >= 0 && location < MAX_UNIFORMS) {
+            if (mUniformKnown[location] == true && mUniformValues[location] == value)
+                return;
+            mUniformKnown[location] = true;
+            mUniformValues[location] = value;
+        }
+        mGL.glUniform1i(location, value);
+    }
+
+    /**
+     * Sets the shader's transform to the view projection times the given
+     * model transform: 12 multiplies and one uniform upload.
+     */
+    public void uniformMVP(Affine2D model) {
+        Affine2D mvp = mMVPTransform.multiply(mViewProjection, model);
+        float[] uniform = mMVPUniform;
+        uniform[0] = mvp.getA();
+        uniform[1] = mvp.getC();
+        uniform[2] = mvp.getTx();
+        uniform[3] = mvp.getB();
+        uniform[4] = mvp.getD();
+        uniform[5] = mvp.getTy();
+        mGL.glUniform3fv(mMVPTransformHandle, 2, uniform, 0);
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public GLApi getGL() {
+        return mGL;
+    }
+
+    /**
+     * Any thread. Changes only when the GL context, and everything uploaded
+     * to it, is lost.
+     */
+    public int getContextGeneration() {
+        return mContextGeneration;
+    }
+
+    public int getProgramHandle() {
+        return mProgramHandle;
+    }
+
+    public int getMVPTransformHandle() {
+        return mMVPTransformHandle;
+    }
+
+    public int getPositionHandle() {
+        return mPositionHandle;
+    }
+
+    public int getTexCoordHandle() {
+        return mTexCoordHandle;
+    }
+
+    public int getRGBTexHandle() {
+        return mRGBTexHandle;
+    }
+
+    public int getATexHandle() {
+        return mATexHandle;
+    }
+
+    public float getRatio() {
+        return mRatio;
+    }
+
+    public void setRatio(float ratio) {
+        this.mRatio = ratio;
+    }
+
+    /**
+     * Maps game coordinates to clip space. Set by the layer camera drawn
+     * before each layer's renderables.
+     */
+    public Affine2D getViewProjection() {
+        return mViewProjection;
+    }
+
+    /**
+     * Scratch transform renderables may build their model transform in
+     * before passing it to {@link #uniformMVP(Affine2D)}.
+     */
+    public Affine2D getModelTransform() {
+        return mModelTransform;
+    }
+}
@@ -0,0 +1,46 @@
+package com.jlreyes.libraries.android_game_engine.rendering;
+
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+
+import java.util.ArrayList;
+
+/**
+ * Everything the logic side of the engine needs from what shows the game:
+ * the screen size, touch input, and somewhere to hand each step's render
+ * info. The {@link com.jlreyes.libraries.android_game_engine.io.GameView} is
+ * the real one, a {@link HeadlessTarget} stands in for it off a device.
+ *
+ * @author jlreyes
+ */
+public interface RenderTarget {
+    public int getWidth();
+
+    public int getHeight();
+
+    /**
+     * Drains the input events received since the last call. Logic thread.
+     */
+    public ArrayList<InputEvent> getInputEvents();
+
+    /**
+     * Takes the render info of a logic step. Logic thread.
+     */
+    public void update(RenderInfo renderInfo);
+
+    /**
+     * The thread render info is passed to once the logic thread is done
+     * with it, see {@link com.jlreyes.libraries.android_game_engine.threading.SyncWrapper}.
+     */
+    public Thread getRenderThread();
+
+    /**
+     * See {@link RenderState#getContextGeneration()}. Any thread.
+     */
+    public int getContextGeneration();
+
+    /**
+     * Returns once there is something to draw to. Throws if the calling
+     * thread is interrupted first, see ThreadUtils.Await.
+     */
+    public void awaitSurface();
+}
@@ -1,7 +1,6 @@
 package com.jlreyes.libraries.android_game_engine.rendering;
 
 import android.opengl.GLES20;
-import android.opengl.Matrix;
 import android.util.Log;
 
 public class RenderUtils {
@@ -25,8 +24,9 @@ public class RenderUtils {
                                                  "     gl_FragColor = texel;\n" +
                                                  "}";
 
-    /* Vertex Shader */
-    public static final String VERTEX_SHADER = "uniform mat4 u_MVPMatrix;\n" +
+    /* Vertex Shader. u_MVPTransform holds the rows (a, c, tx) and (b, d, ty)
+     * of the 2d model view projection, see RenderState#uniformMVP */
+    public static final String VERTEX_SHADER = "uniform vec3 u_MVPTransform[2];\n" +
                                                "\n" +
                                                "attribute vec2 a_Position;\n" +
                                                "attribute vec2 a_TexCoordinate;\n" +
@@ -35,27 +35,12 @@ public class RenderUtils {
                                                "\n" +
                                                "void main() {\n" +
                                                "    v_TexCoordinate = vec2(a_TexCoordinate.x, 1.0 - a_TexCoordinate.y);\n" +
-                                               "    vec4 position = vec4(0.0 - a_Position.x, a_Position.y, 0.0, 1.0);\n" +
-                                               "    gl_Position = u_MVPMatrix * position;\n" +
+                                               "    vec3 position = vec3(a_Position, 1.0);\n" +
+                                               "    gl_Position = vec4(dot(u_MVPTransform[0], position),\n" +
+                                               "                       dot(u_MVPTransform[1], position),\n" +
+                                               "                       0.0, 1.0);\n" +
                                                "}";
 
-    /**
-     * Given a view, model, and projection matrix, performs matrix multiplication
-     * in the correct order and returns a combined matrix to render.
-     *
-     * @param viewMatrix       The view matrix.
-     * @param modelMatrix      The model matrix.
-     * @param projectionMatrix The projection matrix.
-     */
-    public static void CreateMVPMatrix(float[] mvpMatrix,
-                                       float[] viewMatrix,
-                                       float[] modelMatrix,
-                                       float[] projectionMatrix) {
-        Matrix.multiplyMM(mvpMatrix, 0, viewMatrix, 0, modelMatrix, 0);
-        Matrix.multiplyMM(mvpMatrix, 0, projectionMatrix, 0, mvpMatrix, 0);
-    }
-
-
     /**
      * Helper function to compile a shader.
      *
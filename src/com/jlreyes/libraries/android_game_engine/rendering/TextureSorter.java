@@ -0,0 +1,101 @@
+package com.jlreyes.libraries.android_game_engine.rendering;
+
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
+
+import java.util.ArrayList;
+
+/**
+ * Stable sort of a range of renderables by {@link Renderable#getSortKey()},
+ * so renderables sharing a texture end up next to each other and the
+ * renderer skips their texture binds. Renderables with equal keys keep their
+ * order.
+ *
+ * Bottom-up merge sort over scratch arrays that only grow, so sorting does
+ * not allocate once the arrays have reached the layer's size.
+ *
+ * @author jlreyes
+ */
+public class TextureSorter {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Renderable[] mItems;
+    private Renderable[] mScratchItems;
+    private int[] mKeys;
+    private int[] mScratchKeys;
+
+    public TextureSorter() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Sorts renderables[from, to) in place.
+     */
+    public void sort(ArrayList<Renderable> renderables, int from, int to) {
+        int n = to - from;
+        if (n < 2) return;
+        if (n > mItems.length) allocate(Math.max(n, mItems.length << 1));
+        /* Read the keys once, and bail out early if already sorted */
+        boolean sorted = true;
+        for (int i = 0; i < n; i++) {
+            Renderable renderable = renderables.get(from + i);
+            mItems[i] = renderable;
+            mKeys[i] = renderable.getSortKey();
+            if (i > 0 && mKeys[i] < mKeys[i - 1]) sorted = false;
+        }
+        if (sorted == false) {
+            Renderable[] items = mItems;
+            int[] keys = mKeys;
+            Renderable[] scratchItems = mScratchItems;
+            int[] scratchKeys = mScratchKeys;
+            for (int width = 1; width < n; width <<= 1) {
+                for (int left = 0; left < n; left += width << 1) {
+                    int mid = Math.min(left + width, n);
+                    int right = Math.min(left + (width << 1), n);
+                    merge(items, keys, scratchItems, scratchKeys, left, mid, right);
+                }
+                /* Swap source and destination */
+                Renderable[] tempItems = items;
+                items = scratchItems;
+                scratchItems = tempItems;
+                int[] tempKeys = keys;
+                keys = scratchKeys;
+                scratchKeys = tempKeys;
+            }
+            for (int i = 0; i < n; i++) renderables.set(from + i, items[i]);
+        }
+        /* Don't hold on to renderables */
+        for (int i = 0; i < n; i++) {
+            mItems[i] = null;
+            mScratchItems[i] = null;
+        }
+    }
+
+    /**
+     * Merges src[left, mid) and src[mid, right) into dst[left, right),
+     * taking from the left run on ties.
+     */
+    private static void merge(Renderable[] srcItems, int[] srcKeys,
+                              Renderable[] dstItems, int[] dstKeys,
+                              int left, int mid, int right) {
+        int i = left;
+        int j = mid;
+        for (int k = left; k < right; k++) {
+            if (i < mid && (j >= right || srcKeys[i] <= srcKeys[j])) {
+                dstItems[k] = srcItems[i];
+                dstKeys[k] = srcKeys[i];
+                i++;
+            } else {
+                dstItems[k] = srcItems[j];
+                dstKeys[k] = srcKeys[j];
+                j++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.mItems = new Renderable[capacity];
+        this.mScratchItems = new Renderable[capacity];
+        this.mKeys = new int[capacity];
+        this.mScratchKeys = new int[capacity];
+    }
+}
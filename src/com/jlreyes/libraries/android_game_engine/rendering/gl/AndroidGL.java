@@ -0,0 +1,97 @@
+package com.jlreyes.libraries.android_game_engine.rendering.gl;
+
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
+
+/**
+ * {@link GLApi} backed by the device's OpenGL ES 2.0 driver.
+ *
+ * @author jlreyes
+ */
+public class AndroidGL implements GLApi {
+    public void glClear(int mask) {
+        GLES20.glClear(mask);
+    }
+
+    public void glUseProgram(int program) {
+        GLES20.glUseProgram(program);
+    }
+
+    public void glEnableVertexAttribArray(int index) {
+        GLES20.glEnableVertexAttribArray(index);
+    }
+
+    public void glDisableVertexAttribArray(int index) {
+        GLES20.glDisableVertexAttribArray(index);
+    }
+
+    public void glVertexAttribPointer(int index, int size, int type,
+                                      boolean normalized, int stride,
+                                      Buffer buffer) {
+        GLES20.glVertexAttribPointer(index, size, type, normalized, stride, buffer);
+    }
+
+    public void glVertexAttribPointer(int index, int size, int type,
+                                      boolean normalized, int stride,
+                                      int offset) {
+        GLES20.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        GLES20.glGenBuffers(n, buffers, offset);
+    }
+
+    public void glBindBuffer(int target, int buffer) {
+        GLES20.glBindBuffer(target, buffer);
+    }
+
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        GLES20.glDeleteBuffers(n, buffers, offset);
+    }
+
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        GLES20.glBufferData(target, size, data, usage);
+    }
+
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        GLES20.glBufferSubData(target, offset, size, data);
+    }
+
+    public void glGenTextures(int n, int[] textures, int offset) {
+        GLES20.glGenTextures(n, textures, offset);
+    }
+
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        GLES20.glDeleteTextures(n, textures, offset);
+    }
+
+    public void glActiveTexture(int texture) {
+        GLES20.glActiveTexture(texture);
+    }
+
+    public void glBindTexture(int target, int texture) {
+        GLES20.glBindTexture(target, texture);
+    }
+
+    public void glUniform1i(int location, int x) {
+        GLES20.glUniform1i(location, x);
+    }
+
+    public void glUniform3fv(int location, int count, float[] value, int offset) {
+        GLES20.glUniform3fv(location, count, value, offset);
+    }
+
+    public void glUniform4f(int location, float x, float y, float z, float w) {
+        GLES20.glUniform4f(location, x, y, z, w);
+    }
+
+    public void glUniformMatrix4fv(int location, int count, boolean transpose,
+                                   float[] value, int offset) {
+        GLES20.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    public void glDrawArrays(int mode, int first, int count) {
+        GLES20.glDrawArrays(mode, first, count);
+    }
+}
@@ -0,0 +1,58 @@
+package com.jlreyes.libraries.android_game_engine.rendering.gl;
+
+import java.nio.Buffer;
+
+/**
+ * The OpenGL ES 2.0 calls made while drawing. Renderables go through this
+ * (via {@link com.jlreyes.libraries.android_game_engine.rendering.RenderState})
+ * instead of calling GLES20 directly, so the draw path can run against
+ * {@link RecordingGL} without a GPU.
+ *
+ * @author jlreyes
+ */
+public interface GLApi {
+    public void glClear(int mask);
+
+    public void glUseProgram(int program);
+
+    public void glEnableVertexAttribArray(int index);
+
+    public void glDisableVertexAttribArray(int index);
+
+    public void glVertexAttribPointer(int index, int size, int type,
+                                      boolean normalized, int stride,
+                                      Buffer buffer);
+
+    public void glVertexAttribPointer(int index, int size, int type,
+                                      boolean normalized, int stride,
+                                      int offset);
+
+    public void glGenBuffers(int n, int[] buffers, int offset);
+
+    public void glBindBuffer(int target, int buffer);
+
+    public void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    public void glBufferData(int target, int size, Buffer data, int usage);
+
+    public void glBufferSubData(int target, int offset, int size, Buffer data);
+
+    public void glGenTextures(int n, int[] textures, int offset);
+
+    public void glDeleteTextures(int n, int[] textures, int offset);
+
+    public void glActiveTexture(int texture);
+
+    public void glBindTexture(int target, int texture);
+
+    public void glUniform1i(int location, int x);
+
+    public void glUniform3fv(int location, int count, float[] value, int offset);
+
+    public void glUniform4f(int location, float x, float y, float z, float w);
+
+    public void glUniformMatrix4fv(int location, int count, boolean transpose,
+                                   float[] value, int offset);
+
+    public void glDrawArrays(int mode, int first, int count);
+}
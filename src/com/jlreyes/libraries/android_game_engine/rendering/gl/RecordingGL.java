@@ -0,0 +1,171 @@
+package com.jlreyes.libraries.android_game_engine.rendering.gl;
+
+import java.nio.Buffer;
+
+/**
+ * {@link GLApi} that draws nothing and only counts the calls made to it.
+ * Stands in for the driver when checking how many (redundant) calls a frame
+ * makes, on a machine without a GPU.
+ *
+ * @author jlreyes
+ */
+public class RecordingGL implements GLApi {
+    public static enum Call {
+        CLEAR,
+        USE_PROGRAM,
+        ENABLE_VERTEX_ATTRIB_ARRAY,
+        DISABLE_VERTEX_ATTRIB_ARRAY,
+        VERTEX_ATTRIB_POINTER,
+        GEN_BUFFERS,
+        BIND_BUFFER,
+        DELETE_BUFFERS,
+        BUFFER_DATA,
+        BUFFER_SUB_DATA,
+        GEN_TEXTURES,
+        DELETE_TEXTURES,
+        ACTIVE_TEXTURE,
+        BIND_TEXTURE,
+        UNIFORM_1I,
+        UNIFORM_3FV,
+        UNIFORM_4F,
+        UNIFORM_MATRIX_4FV,
+        DRAW_ARRAYS
+    }
+
+    private static final Call[] CALLS = Call.values();
+
+    private int[] mCounts;
+    private int mTotal;
+    /* Handed out by glGenBuffers and glGenTextures so callers get distinct
+     * non-zero handles */
+    private int mNextHandle;
+
+    public RecordingGL() {
+        this.mCounts = new int[CALLS.length];
+        this.mTotal = 0;
+        this.mNextHandle = 1;
+    }
+
+    private void record(Call call) {
+        mCounts[call.ordinal()]++;
+        mTotal++;
+    }
+
+    /**
+     * Returns how many times the given call was made since the last reset.
+     */
+    public int getCount(Call call) {
+        return mCounts[call.ordinal()];
+    }
+
+    /**
+     * Returns the number of calls of any kind made since the last reset.
+     */
+    public int getTotalCount() {
+        return mTotal;
+    }
+
+    public void reset() {
+        for (int i = 0; i < mCounts.length; i++) mCounts[i] = 0;
+        mTotal = 0;
+    }
+
+    public String toString() {
+        StringBuilder builder = new StringBuilder("RecordingGL[");
+        for (int i = 0; i < CALLS.length; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(CALLS[i]).append('=').append(mCounts[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    /*
+     * GLApi
+     */
+    public void glClear(int mask) {
+        record(Call.CLEAR);
+    }
+
+    public void glUseProgram(int program) {
+        record(Call.USE_PROGRAM);
+    }
+
+    public void glEnableVertexAttribArray(int index) {
+        record(Call.ENABLE_VERTEX_ATTRIB_ARRAY);
+    }
+
+    public void glDisableVertexAttribArray(int index) {
+        record(Call.DISABLE_VERTEX_ATTRIB_ARRAY);
+    }
+
+    public void glVertexAttribPointer(int index, int size, int type,
+                                      boolean normalized, int stride,
+                                      Buffer buffer) {
+        record(Call.VERTEX_ATTRIB_POINTER);
+    }
+
+    public void glVertexAttribPointer(int index, int size, int type,
+                                      boolean normalized, int stride,
+                                      int offset) {
+        record(Call.VERTEX_ATTRIB_POINTER);
+    }
+
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        record(Call.GEN_BUFFERS);
+        for (int i = 0; i < n; i++) buffers[offset + i] = mNextHandle++;
+    }
+
+    public void glBindBuffer(int target, int buffer) {
+        record(Call.BIND_BUFFER);
+    }
+
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        record(Call.DELETE_BUFFERS);
+    }
+
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        record(Call.BUFFER_DATA);
+    }
+
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        record(Call.BUFFER_SUB_DATA);
+    }
+
+    public void glGenTextures(int n, int[] textures, int offset) {
+        record(Call.GEN_TEXTURES);
+        for (int i = 0; i < n; i++) textures[offset + i] = mNextHandle++;
+    }
+
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        record(Call.DELETE_TEXTURES);
+    }
+
+    public void glActiveTexture(int texture) {
+        record(Call.ACTIVE_TEXTURE);
+    }
+
+    public void glBindTexture(int target, int texture) {
+        record(Call.BIND_TEXTURE);
+    }
+
+    public void glUniform1i(int location, int x) {
+        record(Call.UNIFORM_1I);
+    }
+
+    public void glUniform3fv(int location, int count, float[] value, int offset) {
+        record(Call.UNIFORM_3FV);
+    }
+
+    public void glUniform4f(int location, float x, float y, float z, float w) {
+        record(Call.UNIFORM_4F);
+    }
+
+    public void glUniformMatrix4fv(int location, int count, boolean transpose,
+                                   float[] value, int offset) {
+        record(Call.UNIFORM_MATRIX_4FV);
+    }
+
+    public void glDrawArrays(int mode, int first, int count) {
+        record(Call.DRAW_ARRAYS);
+    }
+}
@@ -1,11 +1,11 @@
 package com.jlreyes.libraries.android_game_engine.rendering.renderable;
 
-import android.opengl.Matrix;
-import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera.AnchorPoint;
 
 /**
- * A Renderable that updates the model, view, and projection matrices.
+ * A Renderable that sets the view projection for the renderables after
+ * it.
  *
  * @author jlreyes
  */
@@ -14,18 +14,6 @@ public class LayerCameraRenderable extends Renderable {
     private float mWidth;
     private float mHeight;
 
-    /* z position of the eye */
-    public static final float EYE_Z = -1.0f;
-    /* z position we are looking at */
-    public static final float CENTER_Z = 0.0f;
-    /* Up Vector */
-    public static final float UP_X = 0.0f;
-    public static final float UP_Y = 1.0f;
-    public static final float UP_Z = 0.0f;
-    /* Z Near and Far */
-    public static final float NEAR = 1.0f;
-    public static final float FAR = -1.0f;
-
     public LayerCameraRenderable() {
         super();
         this.mAnchorPoint = AnchorPoint.CENTER;
@@ -34,21 +22,12 @@ public class LayerCameraRenderable extends Renderable {
     }
 
     @Override
-    public boolean isVisible(LayerCamera gameCamera) {
+    public boolean isVisible(float left, float bottom, float right, float top) {
         return true;
     }
 
     @Override
-    public void draw(int positionhandle,
-                     int mvpMatrixHandle,
-                     int texCoordHandle,
-                     int texRGBHandle,
-                     int texHandle,
-                     float ratio,
-                     float[] mvpMatrix,
-                     float[] viewMatrix,
-                     float[] modelMatrix,
-                     float[] projectionMatrix) {
+    public void draw(RenderState state) {
         float x = Float.NaN;
         float y = Float.NaN;
         if (mAnchorPoint == AnchorPoint.BOTTOM_LEFT) {
@@ -58,14 +37,13 @@ public class LayerCameraRenderable extends Renderable {
             x = getXPos() - (mWidth / 2.0f);
             y = getYPos() - (mHeight / 2.0f);
         }
-        Matrix.orthoM(projectionMatrix, 0,
-                      0, mWidth,
-                      0, mHeight,
-                      NEAR, FAR);
-        Matrix.setLookAtM(viewMatrix, 0,
-                          -x, y, EYE_Z,
-                          -x, y, CENTER_Z,
-                          UP_X, UP_Y, UP_Z);
+		/* Maps (x, y) to the bottom left corner of the screen, (-1, -1),
+		 * and (x + width, y + height) to the top right, (1, 1). Once per
+		 * layer, every renderable after us only composes with it. */
+        state.getViewProjection().set(2.0f / mWidth, 0.0f,
+                                      0.0f, 2.0f / mHeight,
+                                      -2.0f * x / mWidth - 1.0f,
+                                      -2.0f * y / mHeight - 1.0f);
     }
 
     @Override
@@ -1,100 +1,79 @@
 package com.jlreyes.libraries.android_game_engine.rendering.renderable;
 
-import android.opengl.GLES20;
+import com.jlreyes.libraries.android_game_engine.profiling.Profiler;
+import com.jlreyes.libraries.android_game_engine.rendering.Geometry;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
 import com.jlreyes.libraries.android_game_engine.rendering.RenderUtils;
-import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.GLApi;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
-
-import java.nio.FloatBuffer;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureState;
 
 public class Polygon extends Renderable {
     public static final String TAG = "Polygon";
 
-    private FloatBuffer mVertices;
     private int mNumVertices;
 
     public Polygon(float[] vertices) {
-        super(Renderable.RenderType.TRIANGLE_STRIP, vertices);        /* Get vertices created by parent */
-        this.mVertices = getVertices();
-        this.mNumVertices = getNumVertices();
+        this(Geometry.Intern(vertices));
     }
 
-    @Override
-    public boolean isVisible(LayerCamera gameCamera) {
-        /* We will go through all the triangles composing this polygon and
-         * determine if they intersect with the gamecamera view */
-        return true;
+    /**
+     * Takes over a reference to the given geometry, see
+     * {@link Renderable#Renderable(RenderType, Geometry)}.
+     */
+    public Polygon(Geometry geometry) {
+        super(Renderable.RenderType.TRIANGLE_STRIP, geometry);
+        this.mNumVertices = geometry.getNumVertices();
     }
 
     @Override
-    public void draw(int positionHandle,
-                     int mvpMatrixHandle,
-                     int texCoordHandle,
-                     int texRGBHandle,
-                     int texAHandle,
-                     float ratio,
-                     float[] mvpMatrix,
-                     float[] viewMatrix,
-                     float[] modelMatrix,
-                     float[] projectionMatrix) {        /* Transform the model matrix as necessary */
-        updateModelMatrix(modelMatrix);
-		/* Pass position information */
-        mVertices.position(0);
-        GLES20.glVertexAttribPointer(positionHandle,
-                                     RenderUtils.VERTEX_DIM, // Vector Components
-                                     GLES20.GL_FLOAT, // Component Type
-                                     false, // No normalization
-                                     RenderUtils.VERTEX_DIM *  // Byte offset
-                                     RenderUtils.GL_FLOAT_SIZE,// between vertices
-                                     mVertices);
-        GLES20.glEnableVertexAttribArray(positionHandle);
-		/* Create the final combined Model View Projection matrix for 
-		 * rendering */
-        RenderUtils.CreateMVPMatrix(mvpMatrix,
-                                    viewMatrix,
-                                    modelMatrix,
-                                    projectionMatrix);
-		/* Passing the mvpMatrix to the opengl program */
-        GLES20.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
-		/* Binding the texture, making sure no other thread is updating it. */
-        Texture texture = getTexture();
-        synchronized (texture) {
-        	/* Binding texCoordinate */
-            FloatBuffer texIndices = texture.getActiveIndices();
-            texIndices.position(0);
-            GLES20.glVertexAttribPointer(texCoordHandle,
-                                         Texture.VERTEX_DIM,
-                                         GLES20.GL_FLOAT,
-                                         false,
-                                         Texture.VERTEX_DIM *
-                                         RenderUtils.GL_FLOAT_SIZE,
-                                         texIndices);
-            GLES20.glEnableVertexAttribArray(texCoordHandle);
-    		/* Binding the RGB texture */
-            GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
-            int activeRGBHandle = texture.getActiveRGBHandle();
-            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, activeRGBHandle);
-            GLES20.glUniform1i(texRGBHandle, 0);
-    		/* Binding the Alpha texture */
-            GLES20.glActiveTexture(GLES20.GL_TEXTURE1);
-            int activeAHandle = texture.getActiveAHandle();
-            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, activeAHandle);
-            GLES20.glUniform1i(texAHandle, 1);
-        }
-        
+    public void draw(RenderState state) {
+        GLApi gl = state.getGL();
+        int positionHandle = state.getPositionHandle();
+        int texCoordHandle = state.getTexCoordHandle();
+		/* Pass position information from our geometry's VBO. Skipped if the
+		 * last renderable drawn had the same geometry. */
+        state.vertexAttribPointer(positionHandle,
+                                  RenderUtils.VERTEX_DIM, // Vector Components
+                                  RenderUtils.VERTEX_DIM *  // Byte offset
+                                  RenderUtils.GL_FLOAT_SIZE,// between vertices
+                                  getGeometry().getVBOHandle(state),
+                                  0);
+        state.enableVertexAttribArray(positionHandle);
+		/* Passing our model view projection to the opengl program */
+        uniformMVP(state);
+		/* Binding the texture. The active frame is read once, so the
+		 * animator stepping it mid draw can't mix up parts and
+		 * coordinates. The state skips binds of textures that are already
+		 * bound, which is most of them when the layer sorts by texture. */
+        TextureState.Frame frame = getTexture().getActiveFrame();
+        Texture.TexturePart part = frame.getTexturePart();
+		/* Binding texCoordinate, every frame of the part is in one VBO */
+        state.vertexAttribPointer(texCoordHandle,
+                                  Texture.VERTEX_DIM,
+                                  Texture.VERTEX_DIM *
+                                  RenderUtils.GL_FLOAT_SIZE,
+                                  part.getUVHandle(state, mNumVertices),
+                                  part.getUVOffset(frame, mNumVertices));
+        state.enableVertexAttribArray(texCoordHandle);
+		/* Binding the RGB texture */
+        state.bindTexture(0, part.getRGBHandle());
+        state.uniform1i(state.getRGBTexHandle(), 0);
+		/* Binding the Alpha texture */
+        state.bindTexture(1, part.getAHandle());
+        state.uniform1i(state.getATexHandle(), 1);
+
 		/* Drawing the renderable */
-        GLES20.glDrawArrays(getRenderType().GL_RENDER_ID, 0, mNumVertices);
+        gl.glDrawArrays(getRenderType().GL_RENDER_ID, 0, mNumVertices);
+        Profiler.RENDER.count(Profiler.COUNTER_DRAW_CALLS);
     }
 
+    /**
+     * Geometry is immutable, so the copy shares ours.
+     */
     @Override
     public Polygon copy() {
-		/* Deep copy of vertices */
-        float[] vertices = new float[mNumVertices * RenderUtils.VERTEX_DIM];
-        for (int i = 0; i < vertices.length; i++)
-            vertices[i] = mVertices.get(i);
-		/* New Renderable */
-        Polygon polygon = new Polygon(vertices);
-        return polygon;
+        return new Polygon(getGeometry().retain());
     }
 
 }
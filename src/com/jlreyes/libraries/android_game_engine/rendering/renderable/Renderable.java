@@ -1,15 +1,14 @@
 package com.jlreyes.libraries.android_game_engine.rendering.renderable;
 
 import android.opengl.GLES20;
-import android.opengl.Matrix;
-import com.jlreyes.libraries.android_game_engine.rendering.RenderUtils;
+import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.rendering.Geometry;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+import com.jlreyes.libraries.android_game_engine.utils.math.Affine2D;
 import com.jlreyes.libraries.android_game_engine.utils.math.FloatMathUtils;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
 
 /**
  * Class storing information, and only the information. needed to render some OpenGl object.
@@ -19,7 +18,8 @@ import java.nio.FloatBuffer;
 public abstract class Renderable {
     public static enum RenderType {
         NONE(-1),
-        TRIANGLE_STRIP(GLES20.GL_TRIANGLE_STRIP);
+        TRIANGLE_STRIP(GLES20.GL_TRIANGLE_STRIP),
+        TRIANGLES(GLES20.GL_TRIANGLES);
 
         public int GL_RENDER_ID;
 
@@ -30,8 +30,9 @@ public abstract class Renderable {
 
     private RenderType mRenderType;
     private Texture mTexture;
-    private FloatBuffer mVertices;
-    private int mNumVertices;
+    /* Shared, immutable. null iff the render type is NONE */
+    private Geometry mGeometry;
+    private boolean mFreed;
 
     /**
      * Coordinate to render at
@@ -48,6 +49,17 @@ public abstract class Renderable {
     private float mScaleX;
     private float mScaleY;
 
+    /*
+     * Bounding box of the transformed vertices in game coordinates. Only
+     * recomputed when the transform changes.
+     */
+    private boolean mHasBounds;
+    private boolean mBoundsDirty;
+    private float mMinX;
+    private float mMinY;
+    private float mMaxX;
+    private float mMaxY;
+
     public static final float TRANSLATE_EPSILON = 0.001f;
     public static final float ANGLE_EPSILON = 0.01f;
     public static final float SCALE_EPSILON = 0.01f;
@@ -56,76 +68,153 @@ public abstract class Renderable {
      * Same as Renderable(Renderable.NONE, null)
      */
     public Renderable() {
-        this(RenderType.NONE, null);
+        this(RenderType.NONE, (Geometry) null);
     }
 
     /**
-     * Creates a new renderable that renders with the given type.
+     * Creates a new renderable that renders the given vertices with the given
+     * type. Renderables with the same vertices share one {@link Geometry}.
      */
     public Renderable(RenderType renderType, float[] vertices) {
+        this(renderType,
+             renderType == RenderType.NONE ? null : Geometry.Intern(vertices));
+    }
+
+    /**
+     * Creates a new renderable that renders the given geometry with the given
+     * type. Takes over a reference to the geometry, from
+     * {@link Geometry#Intern(float[])} or {@link Geometry#retain()}.
+     */
+    public Renderable(RenderType renderType, Geometry geometry) {
         this.mRenderType = renderType;
+        this.mFreed = false;
+        this.mHasBounds = false;
+        this.mBoundsDirty = false;
         if (renderType != RenderType.NONE) {
             this.mTexture = null;
-            this.mNumVertices = vertices.length / RenderUtils.VERTEX_DIM;            /* Creating the buffer we will store vertices in */
-            ByteBuffer b = ByteBuffer.allocateDirect(mNumVertices *
-                                                     RenderUtils.VERTEX_DIM *
-                                                     RenderUtils.GL_FLOAT_SIZE);
-            b = b.order(ByteOrder.nativeOrder());
-            this.mVertices = b.asFloatBuffer();
-            mVertices.put(vertices);
-            mVertices.position(0);
+            this.mGeometry = geometry;
             this.mPosX = 0.0f;
             this.mPosY = 0.0f;
             this.mAngle = 0.0f;
             this.mScaleX = 1.0f;
             this.mScaleY = 1.0f;
+            this.mHasBounds = true;
+            this.mBoundsDirty = true;
         }
     }
 
     /**
      * Returns true iff this renderable is visible by the given camera.
      */
-    public abstract boolean isVisible(LayerCamera gameCamera);
-
-    /**
-     * Draws the renderable using the given view, model, and projection
-     * matrices. Also takes a handle to the final combined MVP matrix.
-     * @param mvpMatrixHandle  An openGL handle to the combined MVP matrix.
-     * @param texCoordHandle   an openGL handle to the texture coordinate.
-     * @param texRGBHandle     An openGL handle to the rgb texture uniform
-     * @param texAHandle       An openGL handle to the alpha texture uniform.
-     * @param ratio            The screen ratio
-     * @param mvpMatrix        The mvpMatrix we will store data in.
-     * @param viewMatrix       The view matrix.
-     * @param modelMatrix      The model matrix.
-     * @param projectionMatrix The projection matrix.
-     */
-    public abstract void draw(int positionHandle,
-                              int mvpMatrixHandle,
-                              int texCoordHandle,
-                              int texRGBHandle,
-                              int texAHandle,
-                              float ratio,
-                              float[] mvpMatrix,
-                              float[] viewMatrix,
-                              float[] modelMatrix,
-                              float[] projectionMatrix);
-
-    /**
-     * Transforms the model matrix based on stored position, rotation, and
-     * scaling values.
-     */
-    protected void updateModelMatrix(float[] modelMatrix) {
-        Matrix.setIdentityM(modelMatrix, 0);
-        if (FloatMathUtils.FloatsEqual(TRANSLATE_EPSILON, mPosX, 0.0f) == false ||
-            FloatMathUtils.FloatsEqual(TRANSLATE_EPSILON, mPosY, 0.0f) == false)
-            Matrix.translateM(modelMatrix, 0, -mPosX, mPosY, 0.0f);
-        if (FloatMathUtils.FloatsEqual(ANGLE_EPSILON, mAngle, 0.0f) == false)
-            Matrix.rotateM(modelMatrix, 0, mAngle, 0.0f, 0.0f, 1.0f);
-        if (FloatMathUtils.FloatsEqual(SCALE_EPSILON, mScaleX, 0.0f) == false ||
-            FloatMathUtils.FloatsEqual(SCALE_EPSILON, mScaleY, 0.0f) == false)
-            Matrix.scaleM(modelMatrix, 0, mScaleX, mScaleY, 1.0f);
-        //Log.i("Debug", "C at x=" + mPosX + " y=" + mPosY);
+    public boolean isVisible(LayerCamera gameCamera) {
+        return isVisible(gameCamera.getLeft(), gameCamera.getBottom(),
+                         gameCamera.getRight(), gameCamera.getTop());
+    }
+
+    /**
+     * Returns true iff this renderable is (or may be) visible in the given
+     * rectangle of game coordinates. By default tests the bounding box, see
+     * {@link #getMinX()}. Renderables without vertices are always visible.
+     */
+    public boolean isVisible(float left, float bottom, float right, float top) {
+        if (mHasBounds == false) return true;
+        if (mBoundsDirty == true) updateBounds();
+        return mMaxX >= left && mMinX <= right &&
+               mMaxY >= bottom && mMinY <= top;
+    }
+
+    /**
+     * Recomputes the game coordinate bounding box from the local one, using
+     * the same transform as {@link #updateModelTransform(Affine2D)}: a vertex
+     * (vx, vy) ends up at
+     * (c*sx*vx + s*sy*vy + x, -s*sx*vx + c*sy*vy + y).
+     */
+    private void updateBounds() {
+        mBoundsDirty = false;
+        float sx = mScaleX;
+        float sy = mScaleY;
+        float localMinX = mGeometry.getMinX();
+        float localMinY = mGeometry.getMinY();
+        float localMaxX = mGeometry.getMaxX();
+        float localMaxY = mGeometry.getMaxY();
+        if (FloatMathUtils.FloatsEqual(ANGLE_EPSILON, mAngle, 0.0f) == true) {
+            float x0 = sx * localMinX;
+            float x1 = sx * localMaxX;
+            float y0 = sy * localMinY;
+            float y1 = sy * localMaxY;
+            mMinX = mPosX + Math.min(x0, x1);
+            mMaxX = mPosX + Math.max(x0, x1);
+            mMinY = mPosY + Math.min(y0, y1);
+            mMaxY = mPosY + Math.max(y0, y1);
+            return;
+        }
+        double radians = Math.toRadians(mAngle);
+        float c = (float) Math.cos(radians);
+        float s = (float) Math.sin(radians);
+        /* Each term's extremes are at the box's extremes */
+        float ax = c * sx * localMinX;
+        float bx = c * sx * localMaxX;
+        float ay = s * sy * localMinY;
+        float by = s * sy * localMaxY;
+        mMinX = mPosX + Math.min(ax, bx) + Math.min(ay, by);
+        mMaxX = mPosX + Math.max(ax, bx) + Math.max(ay, by);
+        ax = -s * sx * localMinX;
+        bx = -s * sx * localMaxX;
+        ay = c * sy * localMinY;
+        by = c * sy * localMaxY;
+        mMinY = mPosY + Math.min(ax, bx) + Math.min(ay, by);
+        mMaxY = mPosY + Math.max(ax, bx) + Math.max(ay, by);
+    }
+
+    /**
+     * Draws the renderable. The given render state holds the shader handles
+     * and the view, model, projection and combined MVP matrices, and should
+     * be used for any GL state it caches (program, textures, enabled arrays
+     * and integer uniforms) so redundant calls are skipped.
+     *
+     * @param state The renderer's state. Only valid during this call.
+     */
+    public abstract void draw(RenderState state);
+
+    /**
+     * Returns the key the renderer may sort by to group renderables sharing
+     * a texture, see {@link com.jlreyes.libraries.android_game_engine.scenes.Layer#setSortByTexture(boolean)}.
+     * Renderables without a texture return 0.
+     */
+    public int getSortKey() {
+        Texture texture = mTexture;
+        if (texture == null) return 0;
+        return texture.getActiveRGBHandle();
+    }
+
+    /**
+     * Sets the given transform to our position, rotation, and scaling, in
+     * game coordinates. Game x runs opposite to the old GL x, so the angle
+     * is negated, see {@link #updateBounds()}. As before, a near zero angle
+     * is no rotation and a near zero scale on both axes is no scaling.
+     */
+    protected void updateModelTransform(Affine2D model) {
+        float angle = mAngle;
+        if (FloatMathUtils.FloatsEqual(ANGLE_EPSILON, angle, 0.0f) == true)
+            angle = 0.0f;
+        float scaleX = mScaleX;
+        float scaleY = mScaleY;
+        if (FloatMathUtils.FloatsEqual(SCALE_EPSILON, scaleX, 0.0f) == true &&
+            FloatMathUtils.FloatsEqual(SCALE_EPSILON, scaleY, 0.0f) == true) {
+            scaleX = 1.0f;
+            scaleY = 1.0f;
+        }
+        model.setTransform(mPosX, mPosY, -angle, scaleX, scaleY);
+    }
+
+    /**
+     * Builds our model transform and hands the combined model view
+     * projection to the shader.
+     */
+    protected void uniformMVP(RenderState state) {
+        Affine2D model = state.getModelTransform();
+        updateModelTransform(model);
+        state.uniformMVP(model);
     }
 
     /**
@@ -133,18 +222,38 @@ public abstract class Renderable {
      */
     public abstract Renderable copy();
 
+    /**
+     * Frees whatever this renderable holds on the GPU. Called once the
+     * renderer is done with it, see
+     * {@link com.jlreyes.libraries.android_game_engine.sprites.Sprite#freeRenderables(GameView)}.
+     * GL deletes are queued to the renderer thread. The game view is null
+     * when headless. Releases our geometry, see
+     * {@link Geometry#release(GameView)}. Freeing twice does nothing.
+     */
+    public void free(GameView gameView) {
+        if (mFreed == true) return;
+        this.mFreed = true;
+        if (mGeometry != null) mGeometry.release(gameView);
+    }
+
     public void translate(float x, float y) {
+        if (mPosX == x && mPosY == y) return;
         mPosX = x;
         mPosY = y;
+        mBoundsDirty = true;
     }
 
     public void scale(float x, float y) {
+        if (mScaleX == x && mScaleY == y) return;
         mScaleX = x;
         mScaleY = y;
+        mBoundsDirty = true;
     }
 
     public void rotate(float angle) {
+        if (mAngle == angle) return;
         mAngle = angle;
+        mBoundsDirty = true;
     }
 
     /*
@@ -163,21 +272,18 @@ public abstract class Renderable {
     }
 
     /**
-     * Returns a new float array with the values from the stored FloatBuffer.
+     * Returns a new float array with the vertices.
      */
     public float[] getVerticesAsArray() {
-        int numIndices = mNumVertices * RenderUtils.VERTEX_DIM;
-        float[] vertices = new float[numIndices];
-        for (int i = 0; i < numIndices; i++) vertices[i] = mVertices.get(i);
-        return vertices;
+        return mGeometry.getVerticesAsArray();
     }
 
-    protected FloatBuffer getVertices() {
-        return mVertices;
+    public Geometry getGeometry() {
+        return mGeometry;
     }
 
     public int getNumVertices() {
-        return mNumVertices;
+        return mGeometry == null ? 0 : mGeometry.getNumVertices();
     }
 
     public float getXPos() {
@@ -199,4 +305,35 @@ public abstract class Renderable {
     public float getAngle() {
         return mAngle;
     }
+
+    /**
+     * Returns true iff this renderable has a bounding box, which is when it
+     * has vertices.
+     */
+    public boolean hasBounds() {
+        return mHasBounds;
+    }
+
+    /*
+     * Bounding box in game coordinates. Only meaningful if hasBounds().
+     */
+    public float getMinX() {
+        if (mBoundsDirty == true) updateBounds();
+        return mMinX;
+    }
+
+    public float getMinY() {
+        if (mBoundsDirty == true) updateBounds();
+        return mMinY;
+    }
+
+    public float getMaxX() {
+        if (mBoundsDirty == true) updateBounds();
+        return mMaxX;
+    }
+
+    public float getMaxY() {
+        if (mBoundsDirty == true) updateBounds();
+        return mMaxY;
+    }
 }
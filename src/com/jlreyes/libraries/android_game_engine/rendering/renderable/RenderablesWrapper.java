@@ -1,50 +1,135 @@
 package com.jlreyes.libraries.android_game_engine.rendering.renderable;
 
-import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
 
 public class RenderablesWrapper extends Renderable {
     public static final String TAG = "RenderablesWrapper";
 
+    /* What a child was when it was last set */
+    private static final byte EMPTY = 0;
+    private static final byte UNBOUNDED = 1;
+    private static final byte BOUNDED = 2;
+
     private Renderable[] mRenderables;
+    /*
+     * Each child as it was last set, and the boxes of bounded ones, four
+     * floats a child. Culling nulls out children in mRenderables but not
+     * here, so a child set again unchanged the next step changes nothing.
+     */
+    private byte[] mChildKinds;
+    private float[] mChildBoxes;
+    /* Union of the children's boxes, recomputed only when one changes */
+    private boolean mUnionDirty;
+    private boolean mHasChildren;
+    private boolean mHasUnbounded;
+    private float mMinX;
+    private float mMinY;
+    private float mMaxX;
+    private float mMaxY;
 
     public RenderablesWrapper(int numRenderables) {
         super();
-        this.mRenderables = new Renderable[numRenderables];
+        setRenderables(new Renderable[numRenderables]);
+    }
+
+    /**
+     * Culls the whole group with the union of its children's boxes first.
+     * If the group may be visible, children that are not visible are set to
+     * null so they aren't drawn. Not visible if every child is null.
+     */
+    @Override
+    public boolean isVisible(float left, float bottom, float right, float top) {
+        updateUnion();
+        if (mHasChildren == false) return false;
+        if (mHasUnbounded == false &&
+            (mMaxX < left || mMinX > right || mMaxY < bottom || mMinY > top))
+            return false;
+        boolean visible = false;
+        Renderable[] renderables = mRenderables;
+        for (int i = 0; i < renderables.length; i++) {
+            Renderable renderable = renderables[i];
+            if (renderable == null) continue;
+            if (renderable.isVisible(left, bottom, right, top) == true)
+                visible = true;
+            else renderables[i] = null;
+        }
+        return visible;
+    }
+
+    /**
+     * Recomputes the union box of our children if one of them changed
+     * since it was last computed.
+     */
+    private void updateUnion() {
+        if (mUnionDirty == false) return;
+        mUnionDirty = false;
+        mHasChildren = false;
+        mHasUnbounded = false;
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        byte[] kinds = mChildKinds;
+        float[] boxes = mChildBoxes;
+        for (int i = 0; i < kinds.length; i++) {
+            byte kind = kinds[i];
+            if (kind == EMPTY) continue;
+            mHasChildren = true;
+            if (kind == UNBOUNDED) {
+                mHasUnbounded = true;
+                continue;
+            }
+            int box = i << 2;
+            if (boxes[box] < minX) minX = boxes[box];
+            if (boxes[box + 1] < minY) minY = boxes[box + 1];
+            if (boxes[box + 2] > maxX) maxX = boxes[box + 2];
+            if (boxes[box + 3] > maxY) maxY = boxes[box + 3];
+        }
+        mMinX = minX;
+        mMinY = minY;
+        mMaxX = maxX;
+        mMaxY = maxY;
+    }
+
+    /**
+     * Wrappers have a box iff they have a child with one. Children without
+     * one make the wrapper always pass the group test.
+     */
+    @Override
+    public boolean hasBounds() {
+        updateUnion();
+        return mHasUnbounded == false && mMinX <= mMaxX;
+    }
+
+    @Override
+    public float getMinX() {
+        updateUnion();
+        return mMinX;
+    }
+
+    @Override
+    public float getMinY() {
+        updateUnion();
+        return mMinY;
+    }
+
+    @Override
+    public float getMaxX() {
+        updateUnion();
+        return mMaxX;
     }
 
     @Override
-    public boolean isVisible(LayerCamera gameCamera) {        /* If all elements in this renderablewrapper are null, this wrapper
-         * is not visible */
-        for (Renderable renderable : mRenderables)
-            if (renderable != null) return true;
-        return false;
+    public float getMaxY() {
+        updateUnion();
+        return mMaxY;
     }
 
     @Override
-    public void draw(int positionhandle,
-                     int mvpMatrixHandle,
-                     int texCoordHandle,
-                     int texRGBHandle,
-                     int texAHandle,
-                     float ratio,
-                     float[] mvpMatrix,
-                     float[] viewMatrix,
-                     float[] modelMatrix,
-                     float[] projectionMatrix) {
+    public void draw(RenderState state) {
         for (Renderable renderable : mRenderables) {
-            if (renderable != null)
-                renderable.draw(positionhandle,
-                                mvpMatrixHandle,
-                                texCoordHandle,
-                                texRGBHandle,
-                                texAHandle,
-                                ratio,
-                                mvpMatrix,
-                                viewMatrix,
-                                modelMatrix,
-                                projectionMatrix);
+            if (renderable != null) renderable.draw(state);
         }
-
     }
 
     @Override
@@ -52,8 +137,40 @@ public class RenderablesWrapper extends Renderable {
         return new RenderablesWrapper(mRenderables.length);
     }
 
+    /**
+     * Sets the given child, marking the union dirty if its box is not the
+     * one the child there had before. Children are set again every step,
+     * so this is where their changes reach us, and nested wrappers bring
+     * their own union up to date here.
+     */
     public void set(int i, Renderable renderable) {
         mRenderables[i] = renderable;
+        byte kind = EMPTY;
+        float minX = 0.0f;
+        float minY = 0.0f;
+        float maxX = 0.0f;
+        float maxY = 0.0f;
+        if (renderable != null) {
+            if (renderable.hasBounds() == false) kind = UNBOUNDED;
+            else {
+                kind = BOUNDED;
+                minX = renderable.getMinX();
+                minY = renderable.getMinY();
+                maxX = renderable.getMaxX();
+                maxY = renderable.getMaxY();
+            }
+        }
+        float[] boxes = mChildBoxes;
+        int box = i << 2;
+        if (kind == mChildKinds[i] &&
+            boxes[box] == minX && boxes[box + 1] == minY &&
+            boxes[box + 2] == maxX && boxes[box + 3] == maxY) return;
+        mChildKinds[i] = kind;
+        boxes[box] = minX;
+        boxes[box + 1] = minY;
+        boxes[box + 2] = maxX;
+        boxes[box + 3] = maxY;
+        mUnionDirty = true;
     }
 
     /*
@@ -65,5 +182,9 @@ public class RenderablesWrapper extends Renderable {
 
     public void setRenderables(Renderable[] renderables) {
         this.mRenderables = renderables;
+        this.mChildKinds = new byte[renderables.length];
+        this.mChildBoxes = new float[renderables.length << 2];
+        this.mUnionDirty = true;
+        for (int i = 0; i < renderables.length; i++) set(i, renderables[i]);
     }
 }
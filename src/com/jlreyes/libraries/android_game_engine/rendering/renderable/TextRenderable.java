@@ -0,0 +1,305 @@
+package com.jlreyes.libraries.android_game_engine.rendering.renderable;
+
+import android.opengl.GLES20;
+import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.profiling.Profiler;
+import com.jlreyes.libraries.android_game_engine.rendering.Geometry;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderUtils;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.GLApi;
+import com.jlreyes.libraries.android_game_engine.sprites.sprites.font.Font;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * A line of text drawn as one batch of quads, one per character cell.
+ * Cells are a fixed width, so the quad positions never change and are a
+ * shared {@link Geometry}. Only the texture coordinates of cells whose
+ * character changed are rewritten and uploaded.
+ *
+ * @author jlreyes
+ */
+public class TextRenderable extends Renderable {
+    public static final String TAG = "TextRenderable";
+    /* Two triangles per character */
+    public static final int VERTICES_PER_GLYPH = 6;
+    public static final int FLOATS_PER_GLYPH = VERTICES_PER_GLYPH * Texture.VERTEX_DIM;
+
+    /**
+     * Which cells text shorter than the max length goes in. Centered text
+     * is centered to the nearest cell.
+     */
+    public static enum Align {
+        LEFT, CENTER, RIGHT
+    }
+
+    private Font mFont;
+    private Geometry mGeometry;
+    private int mMaxLength;
+    private float mCharWidth;
+    private float mCharHeight;
+    /* Texture coordinates of every cell */
+    private FloatBuffer mUVs;
+    /* The glyph whose coordinates are in each cell, -1 for none yet */
+    private int[] mCellGlyphs;
+    /* The cells we draw */
+    private int mFirstCell;
+    private int mNumCells;
+    /* Cells changed since the last upload, none if min > max */
+    private int mDirtyMin;
+    private int mDirtyMax;
+
+    /* Only touched on the renderer thread */
+    private int mUVHandle;
+    private int mUVGeneration;
+
+    /**
+     * @param font       The font to draw with.
+     * @param maxLength  The most characters this can show.
+     * @param charWidth  The width of a character cell in game units.
+     * @param charHeight The height of a character cell in game units.
+     */
+    public TextRenderable(Font font, int maxLength, float charWidth, float charHeight) {
+        super(RenderType.TRIANGLES, Geometry.Intern(CreateVertices(maxLength,
+                                                                   charWidth,
+                                                                   charHeight)));
+        this.mFont = font;
+        this.mGeometry = getGeometry();
+        this.mMaxLength = maxLength;
+        this.mCharWidth = charWidth;
+        this.mCharHeight = charHeight;
+        ByteBuffer b = ByteBuffer.allocateDirect(maxLength * FLOATS_PER_GLYPH *
+                                                 RenderUtils.GL_FLOAT_SIZE);
+        this.mUVs = b.order(ByteOrder.nativeOrder()).asFloatBuffer();
+        this.mCellGlyphs = new int[maxLength];
+        for (int i = 0; i < maxLength; i++) mCellGlyphs[i] = -1;
+        this.mFirstCell = 0;
+        this.mNumCells = 0;
+        this.mDirtyMin = 0;
+        this.mDirtyMax = maxLength - 1;
+        this.mUVHandle = 0;
+        this.mUVGeneration = -1;
+    }
+
+    /**
+     * Returns the quads of maxLength cells side by side, centered on the
+     * origin.
+     */
+    private static float[] CreateVertices(int maxLength,
+                                          float charWidth,
+                                          float charHeight) {
+        if (maxLength <= 0)
+            throw new RuntimeException("Text needs room for at least one character.");
+        float[] vertices = new float[maxLength * FLOATS_PER_GLYPH];
+        float left = -(charWidth * (float) maxLength) / 2.0f;
+        float bottom = -charHeight / 2.0f;
+        float top = charHeight / 2.0f;
+        for (int i = 0; i < maxLength; i++) {
+            float x0 = left + charWidth * (float) i;
+            float x1 = x0 + charWidth;
+            WriteQuad(vertices, i * FLOATS_PER_GLYPH, x0, bottom, x1, top);
+        }
+        return vertices;
+    }
+
+    /**
+     * Writes the two triangles of the given box, in the same corner order
+     * the texture coordinates use.
+     */
+    private static void WriteQuad(float[] out, int offset,
+                                  float left, float bottom,
+                                  float right, float top) {
+        out[offset] = left;
+        out[offset + 1] = bottom;
+        out[offset + 2] = left;
+        out[offset + 3] = top;
+        out[offset + 4] = right;
+        out[offset + 5] = bottom;
+        out[offset + 6] = left;
+        out[offset + 7] = top;
+        out[offset + 8] = right;
+        out[offset + 9] = bottom;
+        out[offset + 10] = right;
+        out[offset + 11] = top;
+    }
+
+    /**
+     * Shows the first length characters of text, dropping any past the max
+     * length. Only cells whose character changed are rewritten, so setting
+     * the same text every step costs a compare per character.
+     */
+    public void setText(char[] text, int length, Align align) {
+        if (length > mMaxLength) length = mMaxLength;
+        int first = 0;
+        switch (align) {
+            case LEFT:
+                first = 0;
+                break;
+            case CENTER:
+                first = (mMaxLength - length) / 2;
+                break;
+            case RIGHT:
+                first = mMaxLength - length;
+                break;
+        }
+        for (int i = 0; i < length; i++)
+            setCell(first + i, mFont.getGlyph(text[i]));
+        this.mFirstCell = first;
+        this.mNumCells = length;
+    }
+
+    private void setCell(int cell, int glyph) {
+        if (mCellGlyphs[cell] == glyph) return;
+        mCellGlyphs[cell] = glyph;
+        float[] glyphUVs = mFont.getUVs();
+        int g = glyph * Font.UVS_PER_GLYPH;
+        float left = glyphUVs[g];
+        float bottom = glyphUVs[g + 1];
+        float right = glyphUVs[g + 2];
+        float top = glyphUVs[g + 3];
+		/* Same corner order as WriteQuad */
+        int offset = cell * FLOATS_PER_GLYPH;
+        mUVs.put(offset, left);
+        mUVs.put(offset + 1, bottom);
+        mUVs.put(offset + 2, left);
+        mUVs.put(offset + 3, top);
+        mUVs.put(offset + 4, right);
+        mUVs.put(offset + 5, bottom);
+        mUVs.put(offset + 6, left);
+        mUVs.put(offset + 7, top);
+        mUVs.put(offset + 8, right);
+        mUVs.put(offset + 9, bottom);
+        mUVs.put(offset + 10, right);
+        mUVs.put(offset + 11, top);
+        if (cell < mDirtyMin) mDirtyMin = cell;
+        if (cell > mDirtyMax) mDirtyMax = cell;
+    }
+
+    /**
+     * Returns the handle of our texture coordinate VBO, uploading the cells
+     * that changed since the last draw. Renderer thread only.
+     */
+    private int getUVHandle(RenderState state) {
+        GLApi gl = state.getGL();
+        int generation = state.getContextGeneration();
+        if (mUVGeneration != generation) {
+			/* New context, upload everything */
+            int[] handleHolder = new int[1];
+            gl.glGenBuffers(1, handleHolder, 0);
+            if (handleHolder[0] == 0)
+                throw new RuntimeException("Could not create a VBO for " + this);
+            this.mUVHandle = handleHolder[0];
+            this.mUVGeneration = generation;
+            state.bindArrayBuffer(mUVHandle);
+            mUVs.position(0);
+            gl.glBufferData(GLES20.GL_ARRAY_BUFFER,
+                            mUVs.capacity() * RenderUtils.GL_FLOAT_SIZE,
+                            mUVs,
+                            GLES20.GL_DYNAMIC_DRAW);
+        } else if (mDirtyMin <= mDirtyMax) {
+            int start = mDirtyMin * FLOATS_PER_GLYPH;
+            int count = (mDirtyMax - mDirtyMin + 1) * FLOATS_PER_GLYPH;
+            state.bindArrayBuffer(mUVHandle);
+            mUVs.position(start);
+            gl.glBufferSubData(GLES20.GL_ARRAY_BUFFER,
+                               start * RenderUtils.GL_FLOAT_SIZE,
+                               count * RenderUtils.GL_FLOAT_SIZE,
+                               mUVs);
+        }
+        mUVs.position(0);
+        this.mDirtyMin = mMaxLength;
+        this.mDirtyMax = -1;
+        return mUVHandle;
+    }
+
+    @Override
+    public void draw(RenderState state) {
+        if (mNumCells == 0) return;
+        GLApi gl = state.getGL();
+        int positionHandle = state.getPositionHandle();
+        int texCoordHandle = state.getTexCoordHandle();
+		/* Pass position information from our geometry's VBO */
+        state.vertexAttribPointer(positionHandle,
+                                  RenderUtils.VERTEX_DIM,
+                                  RenderUtils.VERTEX_DIM *
+                                  RenderUtils.GL_FLOAT_SIZE,
+                                  mGeometry.getVBOHandle(state),
+                                  0);
+        state.enableVertexAttribArray(positionHandle);
+		/* Passing our model view projection to the opengl program */
+        uniformMVP(state);
+		/* Binding texCoordinate */
+        state.vertexAttribPointer(texCoordHandle,
+                                  Texture.VERTEX_DIM,
+                                  Texture.VERTEX_DIM *
+                                  RenderUtils.GL_FLOAT_SIZE,
+                                  getUVHandle(state),
+                                  0);
+        state.enableVertexAttribArray(texCoordHandle);
+		/* Binding the glyph atlas */
+        Texture.TexturePart part = mFont.getTexturePart();
+        state.bindTexture(0, part.getRGBHandle());
+        state.uniform1i(state.getRGBTexHandle(), 0);
+        state.bindTexture(1, part.getAHandle());
+        state.uniform1i(state.getATexHandle(), 1);
+		/* Drawing every character at once */
+        gl.glDrawArrays(getRenderType().GL_RENDER_ID,
+                        mFirstCell * VERTICES_PER_GLYPH,
+                        mNumCells * VERTICES_PER_GLYPH);
+        Profiler.RENDER.count(Profiler.COUNTER_DRAW_CALLS);
+    }
+
+    /**
+     * Queues the deletion of our texture coordinate VBO, if it was created
+     * in the current context.
+     */
+    @Override
+    public void free(GameView gameView) {
+        super.free(gameView);
+        if (gameView == null) return;
+        final RenderState state = gameView.getGameRenderer().getRenderState();
+        gameView.queueEvent(new Runnable() {
+            public void run() {
+                if (mUVGeneration == state.getContextGeneration())
+                    state.deleteBuffer(mUVHandle);
+                mUVHandle = 0;
+                mUVGeneration = -1;
+            }
+        });
+    }
+
+    /**
+     * Shares our font and geometry but not our text, so the copy has its
+     * own VBO.
+     */
+    @Override
+    public TextRenderable copy() {
+        return new TextRenderable(mFont, mMaxLength, mCharWidth, mCharHeight);
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public Font getFont() {
+        return mFont;
+    }
+
+    public int getMaxLength() {
+        return mMaxLength;
+    }
+
+    public int getLength() {
+        return mNumCells;
+    }
+
+    public float getCharWidth() {
+        return mCharWidth;
+    }
+
+    public float getCharHeight() {
+        return mCharHeight;
+    }
+}
@@ -1,21 +1,23 @@
 package com.jlreyes.libraries.android_game_engine.scenes;
 
-import android.content.Context;
-import android.view.MotionEvent;
 import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+import com.jlreyes.libraries.android_game_engine.profiling.Profiler;
+import com.jlreyes.libraries.android_game_engine.rendering.TextureSorter;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
 import com.jlreyes.libraries.android_game_engine.scenes.Loader.PercentDone;
 import com.jlreyes.libraries.android_game_engine.scenes.Scene.SceneState;
 import com.jlreyes.libraries.android_game_engine.sprites.Sprite;
+import com.jlreyes.libraries.android_game_engine.sprites.SpritePool;
+import com.jlreyes.libraries.android_game_engine.sprites.SpriteWrapper;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.GameCamera;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.IndirectCamera;
 import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
-import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
-import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureLoader;
-import com.jlreyes.libraries.android_game_engine.sprites.textures.types.TexType;
+import com.jlreyes.libraries.android_game_engine.threading.WorkerPool;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 
 /**
  * Layer within a scene.
@@ -25,22 +27,88 @@ import java.util.ArrayList;
 public abstract class Layer {
     public static final int MAX_TAP_DURATION = 500; /* MS */
     public static final float MAX_TAP_TRAVEL_DISTANCE = 5.0f; /* UNITS */
+    /** Pointers with higher ids are ignored. */
+    public static final int MAX_POINTERS = 10;
+    /** Default number of sprites per task when updating in parallel */
+    public static final int DEFAULT_UPDATE_CHUNK_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int OP_ADD = 0;
+    private static final int OP_REMOVE = 1;
+    private static final int OP_RECYCLE = 2;
 
     private String mName;
+    /* Profiler span names */
+    private String mUpdateSpanName;
+    private String mFinishSpanName;
     private Scene mParentScene;
     private CullGrid mCullGrid;
+    private TouchGrid mTouchGrid;
+    /*
+     * Parallel update state. mUpdateDeltaTime is the delta the update task
+     * passes to sprites, mInParallelUpdate is true while it runs.
+     */
+    private boolean mIndependent;
+    private int mUpdateChunkSize;
+    private WorkerPool.Task mUpdateTask;
+    private long mUpdateDeltaTime;
+    private boolean mInParallelUpdate;
+    /* Non-null iff this layer's renderables are sorted by texture */
+    private TextureSorter mTextureSorter;
+    /**
+     * Sprites in this layer, in drawing order. Only the first mNumSprites
+     * entries are used and element 0 is always the camera.
+     */
     private Sprite[] mSprites;
+    private int mNumSprites;
+    private SpritePool mSpritePool;
 
-    private Sprite mWatchedSprite;
-    private float mInitialTouchX;
-    private float mInitialTouchY;
-    private long mInitialTouchTime;
+    /*
+     * Adds and removes requested during a logic step are queued here and
+     * applied at the end of the step, so the sprite array never changes while
+     * it is being iterated.
+     */
+    private boolean mInStep;
+    private Sprite[] mPendingSprites;
+    private int[] mPendingOps;
+    private int mNumPending;
+
+    /*
+     * Every texture our sprites were added with, released with the scene,
+     * and every sprite of ours ever added, whose renderables are freed with
+     * the scene. Removed sprites let go of both two steps later, once the
+     * renderer has been passed a step without them. Sprites in a wrapper
+     * are never added themselves, they go with their wrapper.
+     */
+    private IdentityHashMap<Texture, Boolean> mTextures;
+    private IdentityHashMap<Sprite, Boolean> mOwnedSprites;
+    private ArrayList<Sprite> mRemovedSprites;
+    private ArrayList<Sprite> mReleasingSprites;
+
+    /* Tap watching state, indexed by pointer id */
+    private Sprite[] mWatchedSprites;
+    private float[] mInitialTouchX;
+    private float[] mInitialTouchY;
+    private long[] mInitialTouchTime;
 
     private GameCamera mCamera;
 
     public Layer(String name, Scene scene) {
         this.mName = scene.getName() + "." + name;
+        this.mUpdateSpanName = mName + ".update";
+        this.mFinishSpanName = mName + ".finish";
         this.mParentScene = scene;
+        this.mTextureSorter = null;
+        this.mIndependent = false;
+        this.mUpdateChunkSize = DEFAULT_UPDATE_CHUNK_SIZE;
+        this.mUpdateTask = new WorkerPool.Task() {
+            public void run(int from, int to) {
+                /* Items are sprites after the camera */
+                Sprite[] sprites = mSprites;
+                long deltaTime = mUpdateDeltaTime;
+                for (int i = from + 1; i <= to; i++) sprites[i].update(deltaTime);
+            }
+        };
+        this.mInParallelUpdate = false;
     }
 
     /**
@@ -48,10 +116,46 @@ public abstract class Layer {
      */
     public void load(PercentDone percentDone) {
         this.mCullGrid = null;
-        this.mWatchedSprite = null;
+        this.mTouchGrid = this.createTouchGrid();
+        this.mWatchedSprites = new Sprite[MAX_POINTERS];
+        this.mInitialTouchX = new float[MAX_POINTERS];
+        this.mInitialTouchY = new float[MAX_POINTERS];
+        this.mInitialTouchTime = new long[MAX_POINTERS];
         this.mCamera = this.createCamera();
-        this.mSprites = new Sprite[1];
+        this.mSprites = new Sprite[INITIAL_CAPACITY];
         this.mSprites[0] = this.mCamera.getInstance();
+        this.mSprites[0].setLayerIndex(0);
+        this.mNumSprites = 1;
+        this.mSpritePool = new SpritePool();
+        this.mInStep = false;
+        this.mPendingSprites = new Sprite[INITIAL_CAPACITY];
+        this.mPendingOps = new int[INITIAL_CAPACITY];
+        this.mNumPending = 0;
+        this.mTextures = new IdentityHashMap<Texture, Boolean>();
+        this.mOwnedSprites = new IdentityHashMap<Sprite, Boolean>();
+        this.mRemovedSprites = new ArrayList<Sprite>();
+        this.mReleasingSprites = new ArrayList<Sprite>();
+    }
+
+    /**
+     * Releases every texture our sprites, removed, pooled or not, were
+     * added with, and frees their renderables. Called by
+     * {@link Scene#unload()}.
+     */
+    public void releaseResources() {
+        /* Not loaded, or the scene's load threw before getting to us */
+        if (mTextures == null) return;
+        mRemovedSprites.clear();
+        mReleasingSprites.clear();
+        GameView gameView = mParentScene.getScheduler().getGameView();
+        for (Sprite sprite : mOwnedSprites.keySet()) {
+            /* Wrappers may have been handed sprites since they were added */
+            trackTextures(sprite);
+            sprite.freeRenderables(gameView);
+        }
+        mOwnedSprites.clear();
+        for (Texture texture : mTextures.keySet()) texture.releaseAll();
+        mTextures.clear();
     }
 
     /**
@@ -59,6 +163,15 @@ public abstract class Layer {
      */
     public abstract GameCamera createCamera();
 
+    /**
+     * Called during load. Returns the grid used to find touched sprites.
+     * Override to tune the cell size to this layer's sprites, or return
+     * null to check every sprite on each touch instead.
+     */
+    public TouchGrid createTouchGrid() {
+        return new TouchGrid();
+    }
+
     /**
      * Called when the application is about to be paused.
      * We lose our context, so no need to unregister textures.
@@ -66,72 +179,74 @@ public abstract class Layer {
     public void onPause() {}
 
     /**
-     * Called when the application is about to be resumed. We reload every
-     * sprite's textures.
-     */
-    public void onResume() {
-        Context context = this.getParentScene().getScheduler().getContext();
-        GameView gameView = this.getParentScene().getScheduler().getGameView();
-        for (Sprite sprite : mSprites) {
-            if (sprite == null) continue;
-            Texture texture = sprite.getTexture();
-            if (texture == null) continue;
-            TexController.TexInfo texInfo = texture.getTexInfo();
-            TextureLoader.TexInfo texData;
-            try {
-                texData = TextureLoader.TexFromStorage(texInfo, context);
-            } catch (Exception e) {
-                throw new RuntimeException("Something happened to your texture" +
-                                           "files while the game was paused!" +
-                                           " Restart the game to have them" +
-                                           " recreated.");
-            }
-            TexType[] rgbTexes = texData.getRGBTexs();
-            TexType[] aTexes = texData.getATexs();
-            texture.registerWithOpenGL(gameView, rgbTexes, aTexes);
-            int length = rgbTexes.length;
-            for (int i = 0; i < length; i++) {
-                rgbTexes[i].recycle();
-                aTexes[i].recycle();
-                rgbTexes[i] = null;
-                aTexes[i] = null;
-            }
-        }
-    }
+     * Called when the application is about to be resumed. Our sprites'
+     * textures have already been reloaded by the texture registry, once
+     * for every sprite sharing them.
+     */
+    public void onResume() {}
 
     public void onUpdateStart() {
-        for (Sprite sprite : mSprites)
+        mInStep = true;
+        releaseRemovedSprites();
+        for (int i = 0; i < mNumSprites; i++) {
+            Sprite sprite = mSprites[i];
             /* Make sure we only handle sprites owned by this layer */
             if (sprite.getLayer() == this) sprite.onStartLogicStep();
+        }
     }
 
     /**
      * Updates the layer depending on the state and then calls the update method
      * for each sprite in this layer. Updates this layer's camera last.
      */
-    public void update(long deltaTime, SceneState state) {        /* Update the layer */
+    public void update(long deltaTime, SceneState state) {
+        long start = Profiler.LOGIC.begin();
+        /* Update the layer */
         updateOnState(deltaTime, state);
 		/* Update the camera reference, if we need to */
         if (this.mCamera instanceof IndirectCamera)
             mSprites[0] = this.mCamera.getInstance();
-        for (Sprite sprite : mSprites) {
-			/* Skip the camera for now */
-            if (sprite != this.mCamera) sprite.update(deltaTime);
+        /* Skip the camera (element 0) for now */
+        int numToUpdate = mNumSprites - 1;
+        if (mIndependent == true && numToUpdate > mUpdateChunkSize) {
+            mUpdateDeltaTime = deltaTime;
+            mInParallelUpdate = true;
+            try {
+                getParentScene().getScheduler().getWorkerPool()
+                                .run(mUpdateTask, numToUpdate, mUpdateChunkSize);
+            } finally {
+                mInParallelUpdate = false;
+            }
+            /* Sprites couldn't tell the touch grid they moved */
+            if (mTouchGrid != null) mTouchGrid.markAllDirty();
+        } else {
+            for (int i = 1; i < mNumSprites; i++) mSprites[i].update(deltaTime);
         }
 		/* If this layer does not control a camera, we let whichever layer
 		 * DOES control camera update the camera */
         if (this.mCamera instanceof LayerCamera) this.mCamera.update(deltaTime);
+        Profiler.LOGIC.end(mUpdateSpanName, start);
     }
 
     /**
-     * Called on at the end of an update.
+     * Called on at the end of an update. Sprites added or removed during
+     * this update are added or removed here, after everything else.
      *
      * @param renderables list where we should add the renderables from this
      *                    layer
      * @param thread      The thread we will pass control to.
      */
     public void onUpdateFinish(ArrayList<Renderable> renderables, Thread thread) {
-        for (Sprite sprite : mSprites) {
+        long start = Profiler.LOGIC.begin();
+        int firstRenderable = renderables.size();
+        /* What the camera sees, looked up once for the whole layer */
+        LayerCamera camera = getCamera();
+        float left = camera.getLeft();
+        float bottom = camera.getBottom();
+        float right = camera.getRight();
+        float top = camera.getTop();
+        for (int i = 0; i < mNumSprites; i++) {
+            Sprite sprite = mSprites[i];
 		    /* Grab the sprites active renderable */
             Renderable renderable = null;
 		    /* End the sprite if it is owned by this layer */
@@ -140,10 +255,19 @@ public abstract class Layer {
             else renderable = sprite.getActiveRenderable();
             /* If this sprite is visible, add it to the given list and pass it
              * to the given thread. */
-            if (renderable.isVisible(getCamera()) == true)
+            if (renderable.isVisible(left, bottom, right, top) == true)
                 renderables.add(renderable);
-            else sprite.release(thread);
+            else {
+                sprite.release(thread);
+                Profiler.LOGIC.count(Profiler.COUNTER_SPRITES_CULLED);
+            }
         }
+        /* Group by texture, leaving the camera's renderable first */
+        if (mTextureSorter != null)
+            mTextureSorter.sort(renderables, firstRenderable + 1, renderables.size());
+        mInStep = false;
+        applyPending();
+        Profiler.LOGIC.end(mFinishSpanName, start);
     }
 
     /**
@@ -155,35 +279,43 @@ public abstract class Layer {
 
     /**
      * Processes the given input event. We only attempt to check if a sprite
-     * was tapped.
+     * was tapped. Every pointer is watched separately, so several sprites can
+     * be tapped at once.
      *
      * @return null if no sprite handled the event, the sprite that handled
      *         the event otherwise
      */
-    public Sprite processInput(MotionEvent inputEvent) {
+    public Sprite processInput(InputEvent inputEvent) {
         int action = inputEvent.getAction();
+        /* A cancel stops all watching */
+        if (action == InputEvent.ACTION_CANCEL) {
+            for (int i = 0; i < MAX_POINTERS; i++) {
+                if (this.mWatchedSprites[i] == null) continue;
+                this.mWatchedSprites[i].onTouchCancel(inputEvent);
+                this.mWatchedSprites[i] = null;
+            }
+            return null;
+        }
+        int pointerId = inputEvent.getPointerId();
+        if (pointerId < 0 || pointerId >= MAX_POINTERS) return null;
+        Sprite watchedSprite = this.mWatchedSprites[pointerId];
         switch (action) {
-            case MotionEvent.ACTION_DOWN:
+            case InputEvent.ACTION_DOWN:
+            case InputEvent.ACTION_POINTER_DOWN:
                 break;
             /* If we are not watching any sprite, there is nothing to do */
-            case MotionEvent.ACTION_MOVE: {
-                if (this.mWatchedSprite == null) return null;
+            case InputEvent.ACTION_MOVE: {
+                if (watchedSprite == null) return null;
                 break;
             }
-            /* When we release a pointer, notify the watched sprite */
-            case MotionEvent.ACTION_UP: {
-                if (this.mWatchedSprite == null) return null;
-                boolean handled = this.mWatchedSprite.onTouchUp(inputEvent);
-                Sprite watchedSprite = this.mWatchedSprite;
-                this.mWatchedSprite = null;
+            /* When we release a pointer, notify the sprite it was watching */
+            case InputEvent.ACTION_UP:
+            case InputEvent.ACTION_POINTER_UP: {
+                if (watchedSprite == null) return null;
+                this.mWatchedSprites[pointerId] = null;
+                boolean handled = watchedSprite.onTouchUp(inputEvent);
                 return handled ? watchedSprite : null;
             }
-            /* We stop all watching when a second pointer comes down */
-            case MotionEvent.ACTION_POINTER_DOWN: {
-                this.mWatchedSprite.onTouchCancel(inputEvent);
-                this.mWatchedSprite = null;
-                return null;
-            }
             default:
                 return null;
         }
@@ -192,9 +324,9 @@ public abstract class Layer {
         LayerCamera layerCamera = this.mCamera.getInstance();
         float x = layerCamera.screenPixelToGameCoordX(inputEvent.getX());
         float y = layerCamera.screenPixelToGameCoordY(inputEvent.getY());
-        Sprite sprite = spriteAt(x, y);
 
-        if (action == MotionEvent.ACTION_DOWN) {
+        if (action != InputEvent.ACTION_MOVE) {
+            Sprite sprite = spriteAt(x, y);
             /* If we are note touching anything, do nothing */
             if (sprite == null) return null;
             /* If the sprite does not handle the touch, do nothing */
@@ -202,68 +334,242 @@ public abstract class Layer {
             if (handled == false) return null;
 
             /* If we get here, we need to watch this sprite */
-            this.mWatchedSprite = sprite;
-            this.mInitialTouchX = x;
-            this.mInitialTouchY = y;
-            this.mInitialTouchTime = System.currentTimeMillis();
+            this.mWatchedSprites[pointerId] = sprite;
+            this.mInitialTouchX[pointerId] = x;
+            this.mInitialTouchY[pointerId] = y;
+            this.mInitialTouchTime[pointerId] = inputEvent.getTime();
             return sprite;
         } else {
             /* We must have moved the pointer */
             boolean stopWatching = false;
             /* If we have touched for too long, we stop watching */
-            long deltaTime = System.currentTimeMillis() - this.mInitialTouchTime;
+            long deltaTime = inputEvent.getTime() - this.mInitialTouchTime[pointerId];
             if (deltaTime >= Layer.MAX_TAP_DURATION) stopWatching = true;
             /* If we have moved too far, we stop watching */
-            float deltaX = Math.abs(this.mInitialTouchX - x);
-            float deltaY = Math.abs(this.mInitialTouchY - y);
+            float deltaX = Math.abs(this.mInitialTouchX[pointerId] - x);
+            float deltaY = Math.abs(this.mInitialTouchY[pointerId] - y);
             if (deltaX >= Layer.MAX_TAP_TRAVEL_DISTANCE ||
                 deltaY >= Layer.MAX_TAP_TRAVEL_DISTANCE) stopWatching = true;
             /* If we need to stop watching, do so */
             if (stopWatching == true) {
-                this.mWatchedSprite.onTouchCancel(inputEvent);
-                this.mWatchedSprite = null;
+                watchedSprite.onTouchCancel(inputEvent);
+                this.mWatchedSprites[pointerId] = null;
             }
             return null;
         }
     }
 
+    /*
+     * Sprite Methods
+     */
+
     /**
-     * Adds the given sprite to this layer's array of sprites. O(n), should
-     * not be used dynamically.
+     * Adds the given sprite to the top of this layer. Amortized O(1). If
+     * called during a logic step, the sprite is added at the end of the step.
      */
     public void addSprite(Sprite sprite) {
-        addSprites(new Sprite[]{sprite});
+        if (mInStep == true) queuePending(sprite, OP_ADD);
+        else addSpriteNow(sprite);
     }
 
     /**
-     * Appends the given array of sprites to this layer's array of sprites.
-     * O(n), sprite's should not be added dynamically.
+     * Adds the given sprites to this layer, in order.
      *
      * @param sprites Array of sprites to add
      */
     public void addSprites(Sprite[] sprites) {
-	    /* Create the new array of sprites */
-        int newSize = mSprites.length + sprites.length;
-        Sprite[] newSprites = new Sprite[newSize];
-        System.arraycopy(mSprites, 0, newSprites, 0, mSprites.length);
-        System.arraycopy(sprites, 0, newSprites, mSprites.length, sprites.length);
-        mSprites = newSprites;
+        for (Sprite sprite : sprites) addSprite(sprite);
     }
 
     public void addSprites(ArrayList<Sprite> sprites) {
-        if (sprites.size() > 0) addSprites(sprites.toArray(new Sprite[0]));
+        int size = sprites.size();
+        for (int i = 0; i < size; i++) addSprite(sprites.get(i));
+    }
+
+    /**
+     * Removes the given sprite from this layer in O(1). The topmost sprite
+     * takes its place, so the drawing order of that sprite changes. If called
+     * during a logic step, the sprite is removed at the end of the step.
+     * Removing a sprite that is not in this layer does nothing. The
+     * sprite's texture is released and its renderables freed once the
+     * renderer is done with it, so it can't be added again; recycle sprites
+     * you want to reuse.
+     */
+    public void removeSprite(Sprite sprite) {
+        if (mInStep == true) queuePending(sprite, OP_REMOVE);
+        else if (removeSpriteNow(sprite) == true) mRemovedSprites.add(sprite);
+    }
+
+    /**
+     * Same as {@link #removeSprite(Sprite)}, but the sprite is then added to
+     * this layer's sprite pool so it can be reused through
+     * {@link #obtainSprite(Class)}. It keeps its texture and renderables
+     * until the scene is unloaded.
+     */
+    public void recycleSprite(Sprite sprite) {
+        if (mInStep == true) queuePending(sprite, OP_RECYCLE);
+        else if (removeSpriteNow(sprite) == true) mSpritePool.recycle(sprite);
     }
 
     /**
-     * Returns a sprite iff there is a sprite in this layer at (x, y). Returns
-     * null otherwise.
+     * Returns a recycled sprite of exactly the given class, or null if there
+     * is none. The sprite is not in the layer until it is added again.
+     */
+    public <T extends Sprite> T obtainSprite(Class<T> type) {
+        return mSpritePool.obtain(type);
+    }
+
+    private void addSpriteNow(Sprite sprite) {
+        if (mNumSprites == mSprites.length) {
+            Sprite[] newSprites = new Sprite[mSprites.length << 1];
+            System.arraycopy(mSprites, 0, newSprites, 0, mNumSprites);
+            mSprites = newSprites;
+        }
+        sprite.setLayerIndex(mNumSprites);
+        mSprites[mNumSprites++] = sprite;
+        trackTextures(sprite);
+        if (sprite.getLayer() == this) mOwnedSprites.put(sprite, Boolean.TRUE);
+        if (mTouchGrid != null && (sprite instanceof GameCamera) == false)
+            mTouchGrid.addSprite(sprite);
+    }
+
+    /**
+     * Swaps the given sprite with the topmost sprite and removes it.
+     *
+     * @return false if the given sprite was not in this layer.
+     */
+    private boolean removeSpriteNow(Sprite sprite) {
+        int index = sprite.getLayerIndex();
+        if (index < 0 || index >= mNumSprites || mSprites[index] != sprite)
+            return false;
+        if (index == 0)
+            throw new RuntimeException("Cannot remove the camera of " + this);
+        int last = mNumSprites - 1;
+        mSprites[index] = mSprites[last];
+        mSprites[index].setLayerIndex(index);
+        mSprites[last] = null;
+        mNumSprites = last;
+        sprite.setLayerIndex(-1);
+        /* Forget about the sprite everywhere else */
+        if (mTouchGrid != null) mTouchGrid.removeSprite(sprite);
+        if (mCullGrid != null) mCullGrid.removeSprite(sprite);
+        for (int i = 0; i < MAX_POINTERS; i++)
+            if (mWatchedSprites[i] == sprite) mWatchedSprites[i] = null;
+        return true;
+    }
+
+    /**
+     * Releases the textures and frees the renderables of sprites removed
+     * two steps ago. The step after their removal was the first one without
+     * their renderables, and it has been handed to the renderer since, so
+     * nothing draws them.
+     */
+    private void releaseRemovedSprites() {
+        int numReleasing = mReleasingSprites.size();
+        if (numReleasing > 0) {
+            GameView gameView = mParentScene.getScheduler().getGameView();
+            for (int i = 0; i < numReleasing; i++) {
+                Sprite sprite = mReleasingSprites.get(i);
+                releaseTextures(sprite);
+                if (mOwnedSprites.remove(sprite) != null)
+                    sprite.freeRenderables(gameView);
+            }
+            mReleasingSprites.clear();
+        }
+        ArrayList<Sprite> released = mReleasingSprites;
+        mReleasingSprites = mRemovedSprites;
+        mRemovedSprites = released;
+    }
+
+    /**
+     * Remembers the texture of the given sprite, and of every sprite in it
+     * if it is a wrapper, to release with the scene.
+     */
+    private void trackTextures(Sprite sprite) {
+        Texture texture = sprite.getTexture();
+        if (texture != null) mTextures.put(texture, Boolean.TRUE);
+        if (sprite instanceof SpriteWrapper)
+            for (Sprite wrapped : ((SpriteWrapper) sprite).getSprites())
+                trackTextures(wrapped);
+    }
+
+    /**
+     * Releases the texture of the given removed sprite, and of every sprite
+     * in it if it is a wrapper.
+     */
+    private void releaseTextures(Sprite sprite) {
+        Texture texture = sprite.getTexture();
+        if (texture != null) {
+            texture.release();
+            if (texture.isReleased() == true) mTextures.remove(texture);
+        }
+        if (sprite instanceof SpriteWrapper)
+            for (Sprite wrapped : ((SpriteWrapper) sprite).getSprites())
+                releaseTextures(wrapped);
+    }
+
+    /* Synchronized since sprites in independent layers may call it from
+     * worker threads */
+    private synchronized void queuePending(Sprite sprite, int op) {
+        if (mNumPending == mPendingSprites.length) {
+            int capacity = mPendingSprites.length << 1;
+            Sprite[] newSprites = new Sprite[capacity];
+            int[] newOps = new int[capacity];
+            System.arraycopy(mPendingSprites, 0, newSprites, 0, mNumPending);
+            System.arraycopy(mPendingOps, 0, newOps, 0, mNumPending);
+            mPendingSprites = newSprites;
+            mPendingOps = newOps;
+        }
+        mPendingSprites[mNumPending] = sprite;
+        mPendingOps[mNumPending] = op;
+        mNumPending++;
+    }
+
+    /**
+     * Applies the adds and removes queued during the last logic step, in the
+     * order they were requested.
+     */
+    private void applyPending() {
+        for (int i = 0; i < mNumPending; i++) {
+            Sprite sprite = mPendingSprites[i];
+            mPendingSprites[i] = null;
+            switch (mPendingOps[i]) {
+                case OP_ADD:
+                    addSpriteNow(sprite);
+                    break;
+                case OP_REMOVE:
+                    if (removeSpriteNow(sprite) == true) mRemovedSprites.add(sprite);
+                    break;
+                case OP_RECYCLE:
+                    if (removeSpriteNow(sprite) == true)
+                        mSpritePool.recycle(sprite);
+                    break;
+            }
+        }
+        mNumPending = 0;
+    }
+
+    /**
+     * Returns the topmost sprite in this layer at (x, y), that is the one
+     * drawn last. Returns null if there is no sprite there.
      */
     public Sprite spriteAt(float x, float y) {
-        for (Sprite sprite : mSprites)
-            if (sprite.isTouching(x, y) == true) return sprite;
+        if (mTouchGrid != null) return mTouchGrid.spriteAt(x, y);
+        for (int i = mNumSprites - 1; i >= 0; i--)
+            if (mSprites[i].isTouching(x, y) == true) return mSprites[i];
         return null;
     }
 
+    /**
+     * Called by sprites in this layer whenever their location, scale, or
+     * angle changes.
+     */
+    public void onSpriteTransformed(Sprite sprite) {
+        /* The grid is not thread safe, update() marks everything instead */
+        if (mInParallelUpdate == true) return;
+        if (mTouchGrid != null) mTouchGrid.markDirty(sprite);
+    }
+
     /*
      * Camera Methods
      */
@@ -274,10 +580,11 @@ public abstract class Layer {
     public void setCamera(GameCamera gameCamera) {
         this.mCamera = gameCamera;
         mSprites[0] = gameCamera;
+        gameCamera.setLayerIndex(0);
     }
 
     /*
-     * CullGrid methods
+     * Grid methods
      */
     public void setCullGrid(CullGrid cullGrid) {
         this.mCullGrid = cullGrid;
@@ -291,14 +598,90 @@ public abstract class Layer {
         return mCullGrid != null;
     }
 
+    public TouchGrid getTouchGrid() {
+        return mTouchGrid;
+    }
+
+    /*
+     * Parallel update methods
+     */
+
+    /**
+     * Marks this layer as independent: its sprites' update methods only
+     * touch their own sprite (and may add or remove sprites in this layer),
+     * never other sprites, layers or the scene. Independent layers with more
+     * than {@link #getUpdateChunkSize()} sprites update them in chunks spread
+     * across cores. Layers still update one after another in order, and
+     * updateOnState and the camera update still run on the logic thread
+     * before and after the sprites. Adds and removes from an independent
+     * layer's sprites are applied in no particular order. Off by default.
+     */
+    public void setIndependent(boolean independent) {
+        this.mIndependent = independent;
+    }
+
+    public boolean isIndependent() {
+        return mIndependent;
+    }
+
+    /**
+     * Sets how many sprites are updated per task when updating in parallel.
+     * Bigger chunks have less overhead, smaller ones balance better when
+     * sprite updates vary in cost.
+     */
+    public void setUpdateChunkSize(int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size must be greater than 0.");
+        this.mUpdateChunkSize = chunkSize;
+    }
+
+    public int getUpdateChunkSize() {
+        return mUpdateChunkSize;
+    }
+
+    /*
+     * Draw order methods
+     */
+
+    /**
+     * If true, this layer's renderables are sorted by texture every step so
+     * sprites sharing a texture are drawn back to back and the renderer can
+     * skip rebinding it. The sort is stable and only happens within this
+     * layer, so layers still draw in order and sprites sharing a texture keep
+     * their order. Only turn on for layers whose sprites don't overlap, or
+     * whose overlapping sprites share a texture. Off by default.
+     */
+    public void setSortByTexture(boolean sortByTexture) {
+        if (sortByTexture == true && mTextureSorter == null)
+            mTextureSorter = new TextureSorter();
+        else if (sortByTexture == false)
+            mTextureSorter = null;
+    }
+
+    public boolean isSortByTexture() {
+        return mTextureSorter != null;
+    }
+
     /*
      * Getters and Setters
      */
 
+    /**
+     * Returns the array backing this layer. Only the first
+     * {@link #getNumSprites()} elements are sprites, the rest are null.
+     */
     public Sprite[] getSprites() {
         return mSprites;
     }
 
+    public int getNumSprites() {
+        return mNumSprites;
+    }
+
+    public SpritePool getSpritePool() {
+        return mSpritePool;
+    }
+
     public String getName() {
         return mName;
     }
@@ -1,33 +1,21 @@
 package com.jlreyes.libraries.android_game_engine.scenes;
 
-import android.util.Log;
 import com.jlreyes.libraries.android_game_engine.scenes.scenes.loadscene.LoadScene;
+import com.jlreyes.libraries.android_game_engine.threading.ProgressChannel;
 import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
 import com.jlreyes.libraries.android_game_engine.threading.TempThread;
 import com.jlreyes.libraries.android_game_engine.threading.logic.GameCommand;
 import com.jlreyes.libraries.android_game_engine.threading.logic.LogicManager;
+import com.jlreyes.libraries.android_game_engine.utils.BufferPool;
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
 import com.jlreyes.libraries.android_game_engine.utils.math.function.Function1;
 
 public abstract class Loader<T> extends TempThread {
-    public static class PercentDone {
-        private Integer mPercentDone;
-
-        public PercentDone() {
-            this.mPercentDone = 0;
-        }
-
-        public synchronized void setPercentDone(int i) {
-            synchronized (mPercentDone) {
-                this.mPercentDone = i;
-            }
-        }
-
-        public synchronized int getPercentDone() {
-            synchronized (mPercentDone) {
-                return mPercentDone;
-            }
-        }
-    }
+    /**
+     * Progress of a load, read by its LoadScene every step. Setting it
+     * neither locks nor allocates.
+     */
+    public static class PercentDone extends ProgressChannel {}
 
     private LogicManager mLogicManager;
 
@@ -57,14 +45,12 @@ public abstract class Loader<T> extends TempThread {
     public void run() {;
         mLogicManager.addScene(mLoadScene);
         T instance = getLoadedObject();
-        Log.i("Loader", "Created instance of " + mName);
+        Logger.I("Loader", "Created instance of " + mName);
         onLoad(instance);
-        mLogicManager.addGameCommand(new GameCommand(GameCommand.Command.KILL,
-                                                     SceneController.LOAD_SCENE));
+        mLogicManager.postCommand(GameCommand.Command.KILL, SceneController.LOAD_SCENE);
         getPercentDone().setPercentDone(100);
         mCallback.run(instance);
-        Log.i("Loader", "Finished loading " + mName);
-        System.gc();
+        Logger.I("Loader", "Finished loading " + mName + ". " + BufferPool.STAGING);
     }
 
     public abstract void onLoad(T instance);
@@ -1,17 +1,22 @@
 package com.jlreyes.libraries.android_game_engine.scenes;
 
-import android.view.MotionEvent;
+import com.jlreyes.libraries.android_game_engine.datastructures.CompiledDFA;
 import com.jlreyes.libraries.android_game_engine.datastructures.DFA;
-import com.jlreyes.libraries.android_game_engine.rendering.GameRenderer;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+import com.jlreyes.libraries.android_game_engine.profiling.Profiler;
 import com.jlreyes.libraries.android_game_engine.rendering.RenderInfo;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderTarget;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.LayerCameraRenderable;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
 import com.jlreyes.libraries.android_game_engine.sprites.Sprite;
+import com.jlreyes.libraries.android_game_engine.sprites.SpriteWrapper;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureData;
 import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
 import com.jlreyes.libraries.android_game_engine.utils.math.function.Function0;
 
 import java.util.ArrayList;
-import java.util.PriorityQueue;
+import java.util.IdentityHashMap;
 
 public abstract class Scene {
     /**
@@ -24,8 +29,9 @@ public abstract class Scene {
 
         /**
          * Create a new Scene Event with the given priority. If more than one
-         * Scene Event occurs in a game loop, the event with the higher priority
-         * takes precedence (and the other will be thrown on the event queue).
+         * Scene Event occurs in a game loop, they are all applied at the end of
+         * the loop, highest priority first. Events with the same priority are
+         * applied in the order they were set.
          *
          * @param priority The priority of this scene event. A higher value
          *                 indicates a higher priority.
@@ -46,6 +52,7 @@ public abstract class Scene {
     }
 
     public static final SceneEvent NO_EVENT = new SceneEvent(Integer.MIN_VALUE);
+    private static final int INITIAL_EVENT_CAPACITY = 8;
 
     /**
      * Dummy class where each instance represents a scene state
@@ -57,7 +64,7 @@ public abstract class Scene {
 
     private String mName;
     private Scheduler mScheduler;
-    private GameRenderer mGameRenderer;
+    private RenderTarget mRenderTarget;
     private RenderInfo mRenderInfo;
     private boolean isLoaded;
 
@@ -66,14 +73,20 @@ public abstract class Scene {
      */
     private ArrayList<Function0<Void>> mStartFunctions;
     private Layer[] mLayers;
-    private DFA<SceneState, SceneEvent> mEventDFA;
-    private PriorityQueue<SceneEvent> mEventQueue;
+    private CompiledDFA<SceneState, SceneEvent> mEventDFA;
+    /*
+     * Events set since they were last applied, as letter ids of mEventDFA,
+     * sorted by priority (highest first).
+     */
+    private int[] mEventLetters;
+    private int[] mEventPriorities;
+    private int mNumEvents;
     private SceneState mCurrentState;
 
     public Scene(Scheduler scheduler) {
         this.mName = this.getName();
         this.mScheduler = scheduler;
-        this.mGameRenderer = scheduler.getGameRenderer();
+        this.mRenderTarget = scheduler.getRenderTarget();
     }
 
     /**
@@ -82,8 +95,10 @@ public abstract class Scene {
     public void load(SceneLoader.PercentDone percentDone) {
         this.mStartFunctions = new ArrayList<Function0<Void>>();
         this.mLayers = createLayers();
-        this.mEventDFA = loadEventDFA();
-        this.mEventQueue = new PriorityQueue<SceneEvent>();
+        this.mEventDFA = loadEventDFA().compile();
+        this.mEventLetters = new int[INITIAL_EVENT_CAPACITY];
+        this.mEventPriorities = new int[INITIAL_EVENT_CAPACITY];
+        this.mNumEvents = 0;
         this.mCurrentState = mEventDFA.getCurrentState();
         this.mRenderInfo = new RenderInfo();        /* Loading Layers */
         for (Layer layer : mLayers) layer.load(percentDone);
@@ -95,6 +110,59 @@ public abstract class Scene {
     public void onLoad() {}
 
 
+    /**
+     * Releases the textures of every sprite in this scene, pooled and
+     * removed ones included, freeing the ones no other scene uses, and
+     * frees the sprites' renderables, see
+     * {@link Layer#releaseResources()}. Called
+     * once the scene won't be drawn again: by the logic manager after
+     * removing it, and for cancelled or failed preloads. Unloading twice
+     * does nothing.
+     */
+    public void unload() {
+        /* Also after a load that threw, for what it got */
+        if (mLayers == null) return;
+        for (Layer layer : mLayers) layer.releaseResources();
+        this.isLoaded = false;
+    }
+
+    /**
+     * Returns roughly how much GL memory this scene's textures take, see
+     * {@link Texture#getEstimatedBytes()}, counting shared textures once.
+     * Walks every sprite, so don't call it every step.
+     */
+    public long getEstimatedTextureBytes() {
+        if (this.isLoaded == false) return 0;
+        long bytes = 0;
+        IdentityHashMap<TextureData, Boolean> counted =
+                new IdentityHashMap<TextureData, Boolean>();
+        for (Layer layer : mLayers) {
+            Sprite[] sprites = layer.getSprites();
+            int numSprites = layer.getNumSprites();
+            for (int i = 0; i < numSprites; i++)
+                bytes += EstimateTextureBytes(sprites[i], counted);
+        }
+        return bytes;
+    }
+
+    /**
+     * The bytes of the given sprite's texture, and of those of the sprites
+     * in it if it is a wrapper, that aren't counted yet.
+     */
+    private static long EstimateTextureBytes(Sprite sprite,
+                                             IdentityHashMap<TextureData, Boolean> counted) {
+        long bytes = 0;
+        Texture texture = sprite.getTexture();
+        if (texture != null && counted.containsKey(texture.getData()) == false) {
+            counted.put(texture.getData(), Boolean.TRUE);
+            bytes += texture.getData().getEstimatedBytes();
+        }
+        if (sprite instanceof SpriteWrapper)
+            for (Sprite wrapped : ((SpriteWrapper) sprite).getSprites())
+                bytes += EstimateTextureBytes(wrapped, counted);
+        return bytes;
+    }
+
     /**
      * Called when the application is about to be paused.
      */
@@ -110,6 +178,12 @@ public abstract class Scene {
         for (Layer layer : mLayers) layer.onResume();
     }
 
+    /**
+     * Called on the logic thread, before stepping, for every event posted
+     * with {@link com.jlreyes.libraries.android_game_engine.threading.logic.LogicManager#postEvent(int, Object, int)}.
+     */
+    public void onGameEvent(int eventId, Object payload) {}
+
     /**
      * Called on loading. Returns the created layers for this scene in order
      * such that element 0 in the array corresponds to the layer most in the
@@ -119,11 +193,13 @@ public abstract class Scene {
 
     /**
      * Called on loading. Returns a DFA determing the current GameEvent of the
-     * scene.
+     * scene. It is compiled once (see {@link DFA#compile()}), so changing it
+     * afterwards has no effect.
      */
     protected abstract DFA<SceneState, SceneEvent> loadEventDFA();
 
-    public void step(long deltaTime, ArrayList<MotionEvent> inputEvents) {
+    public void step(long deltaTime, ArrayList<InputEvent> inputEvents) {
+        long start = Profiler.LOGIC.begin();
         updateStart();
         runStartFunctions();
         processInputEvents(inputEvents);
@@ -131,6 +207,7 @@ public abstract class Scene {
         updateLayers(deltaTime, mCurrentState);
         onExit(deltaTime, mCurrentState);
         updateFinish();
+        Profiler.LOGIC.end(mName, start);
     }
 
     /**
@@ -139,7 +216,6 @@ public abstract class Scene {
      */
     protected void updateStart() {
         mCurrentState = mEventDFA.getCurrentState();
-        mEventQueue.clear();
         mRenderInfo.clear();
         for (Layer layer : mLayers) layer.onUpdateStart();
     }
@@ -150,10 +226,10 @@ public abstract class Scene {
         mStartFunctions.clear();
     }
 
-    protected void processInputEvents(ArrayList<MotionEvent> inputEvents) {
+    protected void processInputEvents(ArrayList<InputEvent> inputEvents) {
         int numEvents = inputEvents.size();
         for (int i = 0; i < numEvents; i++) {
-            MotionEvent event = inputEvents.get(i);
+            InputEvent event = inputEvents.get(i);
             Sprite handlingSprite = null;
             int numLayers = mLayers.length;
             for (int j = numLayers - 1; j >= 0; j--) {
@@ -165,13 +241,13 @@ public abstract class Scene {
     }
 
     /**
-     * Method called after the given motionEvent was processed.
+     * Method called after the given inputEvent was processed.
      *
-     * @param motionEvent    The motion event that occurred.
+     * @param inputEvent     The input event that occurred.
      * @param handlingSprite The sprite that handled the given event. null
      *                       if it was not handled.
      */
-    protected void handleInputEvent(MotionEvent motionEvent, Sprite handlingSprite) {
+    protected void handleInputEvent(InputEvent inputEvent, Sprite handlingSprite) {
     }
 
     /**
@@ -211,11 +287,11 @@ public abstract class Scene {
      * sprite's renderable.
      */
     protected void updateFinish() {
-        this.mEventDFA.step(this.mEventQueue.poll()); /* null is okay */
+        applySceneEvents();
         ArrayList<Renderable> renderables = mRenderInfo.getRenderables();
         int numLayers = mLayers.length;        /* Notifying each layer */
         for (Layer layer : mLayers)
-            layer.onUpdateFinish(renderables, mGameRenderer.getThread());
+            layer.onUpdateFinish(renderables, mRenderTarget.getRenderThread());
 		/* Remove excess cameraRenderables */
         int numRenderables = renderables.size();
         for (int i = 0; i < numRenderables; i++) {
@@ -236,10 +312,44 @@ public abstract class Scene {
     }
 
     /**
-     * Sets the scene event for this loop
+     * Steps the DFA with every event set since the last call, highest
+     * priority first.
+     */
+    private void applySceneEvents() {
+        int numEvents = mNumEvents;
+        for (int i = 0; i < numEvents; i++) mEventDFA.step(mEventLetters[i]);
+        mNumEvents = 0;
+    }
+
+    /**
+     * Sets a scene event. Every event set is applied at the end of the
+     * current (or, if not in a loop, the next) game loop, see
+     * {@link SceneEvent#SceneEvent(int)}. Events the DFA doesn't know are
+     * ignored.
      */
     public void setSceneEvent(SceneEvent sceneEvent) {
-        this.mEventQueue.add(sceneEvent);
+        int letter = mEventDFA.getLetterId(sceneEvent);
+        if (letter == CompiledDFA.NO_LETTER) return;
+        if (mNumEvents == mEventLetters.length) {
+            int capacity = mEventLetters.length << 1;
+            int[] letters = new int[capacity];
+            int[] priorities = new int[capacity];
+            System.arraycopy(mEventLetters, 0, letters, 0, mNumEvents);
+            System.arraycopy(mEventPriorities, 0, priorities, 0, mNumEvents);
+            mEventLetters = letters;
+            mEventPriorities = priorities;
+        }
+        /* Insert after every event with the same or higher priority */
+        int priority = sceneEvent.getPriority();
+        int i = mNumEvents;
+        while (i > 0 && mEventPriorities[i - 1] < priority) {
+            mEventLetters[i] = mEventLetters[i - 1];
+            mEventPriorities[i] = mEventPriorities[i - 1];
+            i--;
+        }
+        mEventLetters[i] = letter;
+        mEventPriorities[i] = priority;
+        mNumEvents++;
     }
 
     /**
@@ -248,8 +358,9 @@ public abstract class Scene {
     public Sprite requestSprite(String name) {
         for (Layer layer : mLayers) {
             Sprite[] sprites = layer.getSprites();
-            for (Sprite sprite : sprites) {
-                if (name.equals(sprite.getName())) return sprite;
+            int numSprites = layer.getNumSprites();
+            for (int i = 0; i < numSprites; i++) {
+                if (name.equals(sprites[i].getName())) return sprites[i];
             }
         }
         throw new RuntimeException(name + " does not exist!");
@@ -287,6 +398,10 @@ public abstract class Scene {
         return this.mCurrentState;
     }
 
+    public CompiledDFA<SceneState, SceneEvent> getEventDFA() {
+        return mEventDFA;
+    }
+
     public RenderInfo getRenderInfo() {
         return mRenderInfo;
     }
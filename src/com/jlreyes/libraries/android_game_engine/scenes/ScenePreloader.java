@@ -0,0 +1,161 @@
+package com.jlreyes.libraries.android_game_engine.scenes;
+
+import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
+import com.jlreyes.libraries.android_game_engine.threading.TempThread;
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
+
+/**
+ * TempThread that constructs and fully loads a scene (layers, sprites and
+ * textures) without showing a LoadScene or adding it to the LogicManager, so
+ * whatever scene is running keeps running. Once {@link #isReady()} the scene
+ * can be swapped in with {@link com.jlreyes.libraries.android_game_engine.threading.logic.GameCommand.Command#SWAP}.
+ *
+ * Texture uploads still go through the renderer, one queued event at a
+ * time, so they are spread across frames instead of stalling one.
+ *
+ * If constructing or loading the scene throws, the preload is marked
+ * {@link #isFailed()} and whatever textures it got are released, so the
+ * logic manager can drop it. Cancelling a preload that is still loading
+ * interrupts it, so it stops at its next wait for the renderer.
+ *
+ * @author jlreyes
+ */
+public class ScenePreloader extends TempThread {
+    public static final String TAG = "ScenePreloader";
+
+    private Scheduler mScheduler;
+    private SceneController.SceneInfo mSceneInfo;
+    private Loader.PercentDone mPercentDone;
+    private volatile Scene mScene;
+    private volatile boolean mReady;
+    private volatile boolean mFailed;
+    private volatile long mEstimatedBytes;
+    /* Set when nobody wants the scene anymore */
+    private volatile boolean mCancelled;
+
+    public ScenePreloader(Scheduler scheduler, SceneController.SceneInfo sceneInfo) {
+        super(scheduler);
+        this.setName(TAG + " " + sceneInfo.ClassName.getSimpleName());
+        this.mScheduler = scheduler;
+        this.mSceneInfo = sceneInfo;
+        this.mPercentDone = new Loader.PercentDone();
+        this.mScene = null;
+        this.mReady = false;
+        this.mFailed = false;
+        this.mEstimatedBytes = 0;
+        this.mCancelled = false;
+    }
+
+    public void run() {
+        Scene scene = null;
+        try {
+            scene = SceneLoader.ConstructObject(mScheduler, mSceneInfo.ClassName);
+            if (scene == null)
+                throw new RuntimeException("Could not construct " +
+                                           mSceneInfo.ClassName.getName());
+            if (mCancelled == false) scene.load(mPercentDone);
+        } catch (RuntimeException e) {
+            /* Whatever was loaded before it threw */
+            if (scene != null) scene.unload();
+            /* Interrupted by cancel(), nobody wants it anyway */
+            if (mCancelled == true) {
+                Logger.I(TAG, "Preload of " + mSceneInfo.ClassName.getName() +
+                              " was cancelled while loading.");
+                return;
+            }
+            Logger.E(TAG, "Preload of " + mSceneInfo.ClassName.getName() +
+                          " failed: " + e);
+            e.printStackTrace();
+            this.mFailed = true;
+            return;
+        }
+        synchronized (this) {
+            if (mCancelled == true) {
+                Logger.I(TAG, "Preload of " + scene.getName() + " was cancelled.");
+                scene.unload();
+                return;
+            }
+            this.mEstimatedBytes = scene.getEstimatedTextureBytes();
+            this.mScene = scene;
+            this.mPercentDone.setPercentDone(100);
+            this.mReady = true;
+        }
+        Logger.I(TAG, "Preloaded " + scene.getName() + " (~" +
+                   (mEstimatedBytes / 1024) + " KB of textures)");
+    }
+
+    /**
+     * Drops the preloaded scene, or interrupts the scene being preloaded and
+     * drops it once its load gives up, releasing its textures. Safe after
+     * the GL context is lost, deletes of textures in a dead context are
+     * skipped.
+     */
+    public void cancel() {
+        Scene scene = null;
+        synchronized (this) {
+            if (mCancelled == true) return;
+            mCancelled = true;
+            if (mReady == true) {
+                scene = mScene;
+                mScene = null;
+                mReady = false;
+            } else if (mFailed == false) interrupt();
+        }
+        if (scene != null) scene.unload();
+    }
+
+    /**
+     * Hands over the preloaded scene. Returns null if it is not ready yet or
+     * was cancelled. The scene is only handed over once.
+     */
+    public synchronized Scene take() {
+        if (mReady == false) return null;
+        Scene scene = mScene;
+        mScene = null;
+        mReady = false;
+        mCancelled = true;
+        return scene;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public SceneController.SceneInfo getSceneInfo() {
+        return mSceneInfo;
+    }
+
+    public boolean isReady() {
+        return mReady;
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * True if constructing or loading the scene threw. The preload is over,
+     * it will never be ready.
+     */
+    public boolean isFailed() {
+        return mFailed;
+    }
+
+    /**
+     * The preloaded scene, or null if it is not ready.
+     */
+    public Scene getScene() {
+        return mScene;
+    }
+
+    /**
+     * Estimated GL memory the preloaded scene's textures take. 0 until
+     * ready.
+     */
+    public long getEstimatedBytes() {
+        return mEstimatedBytes;
+    }
+
+    public Loader.PercentDone getPercentDone() {
+        return mPercentDone;
+    }
+}
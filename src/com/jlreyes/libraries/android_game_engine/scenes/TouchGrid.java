@@ -0,0 +1,315 @@
+package com.jlreyes.libraries.android_game_engine.scenes;
+
+import com.jlreyes.libraries.android_game_engine.sprites.Sprite;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Grid used by a layer to answer "which sprite is at (x, y)" without testing
+ * every sprite. The plane is split into square cells and each cell is hashed
+ * into a fixed number of buckets, so the grid has no bounds and stops
+ * allocating once its buckets have grown to their working size.
+ *
+ * Sprites without touch bounds (see {@link Sprite#getTouchBounds(float[])}),
+ * or whose bounds cover more than {@link #MAX_CELLS_PER_SPRITE} cells, are kept
+ * in a separate list that is always checked.
+ *
+ * Sprites are not re-filed every step. A sprite that moves marks itself dirty
+ * and is re-filed right before the next query, so sprites that move without
+ * anyone touching the screen cost nothing.
+ *
+ * @author jlreyes
+ */
+public class TouchGrid {
+    public static final float DEFAULT_CELL_SIZE = 10.0f;
+    public static final int DEFAULT_NUM_BUCKETS = 256;
+    /**
+     * Sprites covering more cells than this are checked on every query
+     * instead of being filed in the grid.
+     */
+    public static final int MAX_CELLS_PER_SPRITE = 64;
+    private static final int INITIAL_BUCKET_CAPACITY = 4;
+
+    /**
+     * Where a single sprite is filed in the grid.
+     */
+    private static class Entry {
+        private Sprite mSprite;
+        /* Where it is in mEntryList */
+        private int mIndex;
+        private boolean mBounded;
+        private boolean mDirty;
+        private int mMinCol;
+        private int mMinRow;
+        private int mMaxCol;
+        private int mMaxRow;
+
+        public Entry(Sprite sprite) {
+            this.mSprite = sprite;
+            this.mBounded = false;
+            this.mDirty = false;
+        }
+    }
+
+    private float mCellSize;
+    private int mBucketMask;
+    private Entry[][] mBuckets;
+    private int[] mBucketSizes;
+    private IdentityHashMap<Sprite, Entry> mEntries;
+    /* The same entries, to walk without allocating an iterator */
+    private ArrayList<Entry> mEntryList;
+    private ArrayList<Entry> mUnbounded;
+    private ArrayList<Entry> mDirty;
+    /**
+     * Bounds that {@link Sprite#getTouchBounds(float[])} writes into.
+     * Pre-allocated to prevent runtime allocation.
+     */
+    private float[] mBounds;
+
+    /**
+     * Same as TouchGrid({@link #DEFAULT_CELL_SIZE}, {@link #DEFAULT_NUM_BUCKETS})
+     */
+    public TouchGrid() {
+        this(DEFAULT_CELL_SIZE, DEFAULT_NUM_BUCKETS);
+    }
+
+    /**
+     * @param cellSize   The width and height of a cell in game units. Should be
+     *                   around the size of a typical touchable sprite.
+     * @param numBuckets The number of buckets cells are hashed into. Rounded
+     *                   up to a power of two.
+     */
+    public TouchGrid(float cellSize, int numBuckets) {
+        if (cellSize <= 0.0f)
+            throw new IllegalArgumentException("Cell size must be greater than 0.");
+        if (numBuckets <= 0)
+            throw new IllegalArgumentException("There must be at least one bucket.");
+        int capacity = 1;
+        while (capacity < numBuckets) capacity <<= 1;
+        this.mCellSize = cellSize;
+        this.mBucketMask = capacity - 1;
+        this.mBuckets = new Entry[capacity][];
+        this.mBucketSizes = new int[capacity];
+        for (int i = 0; i < capacity; i++)
+            mBuckets[i] = new Entry[INITIAL_BUCKET_CAPACITY];
+        this.mEntries = new IdentityHashMap<Sprite, Entry>();
+        this.mEntryList = new ArrayList<Entry>();
+        this.mUnbounded = new ArrayList<Entry>();
+        this.mDirty = new ArrayList<Entry>();
+        this.mBounds = new float[4];
+    }
+
+    /**
+     * Adds the given sprite to the grid. Does nothing if it is already here.
+     */
+    public void addSprite(Sprite sprite) {
+        if (mEntries.containsKey(sprite) == true) return;
+        Entry entry = new Entry(sprite);
+        mEntries.put(sprite, entry);
+        entry.mIndex = mEntryList.size();
+        mEntryList.add(entry);
+        file(entry, sprite.getTouchBounds(mBounds));
+    }
+
+    public void removeSprite(Sprite sprite) {
+        Entry entry = mEntries.remove(sprite);
+        if (entry == null) return;
+        /* Swap-remove, the order of the list does not matter */
+        int last = mEntryList.size() - 1;
+        Entry lastEntry = mEntryList.remove(last);
+        if (lastEntry != entry) {
+            lastEntry.mIndex = entry.mIndex;
+            mEntryList.set(entry.mIndex, lastEntry);
+        }
+        unfile(entry);
+        /* Left in mDirty, where flush skips it */
+        entry.mDirty = false;
+    }
+
+    /**
+     * Tells the grid the given sprite's bounds may have changed. The sprite is
+     * re-filed before the next query. Sprites not in this grid are ignored.
+     */
+    public void markDirty(Sprite sprite) {
+        Entry entry = mEntries.get(sprite);
+        if (entry == null || entry.mDirty == true) return;
+        entry.mDirty = true;
+        mDirty.add(entry);
+    }
+
+    /**
+     * Marks every sprite dirty, for when sprites may have moved without
+     * telling us.
+     */
+    public void markAllDirty() {
+        int numEntries = mEntryList.size();
+        for (int i = 0; i < numEntries; i++) {
+            Entry entry = mEntryList.get(i);
+            if (entry.mDirty == true) continue;
+            entry.mDirty = true;
+            mDirty.add(entry);
+        }
+    }
+
+    /**
+     * Returns the topmost sprite touching (x, y), where the topmost sprite is
+     * the one with the highest layer index (the one drawn last). Returns
+     * null if no sprite is touching the point.
+     */
+    public Sprite spriteAt(float x, float y) {
+        flush();
+        Sprite result = null;
+        int resultIndex = Integer.MIN_VALUE;
+        /* Sprites filed in the cell containing the point */
+        int bucket = bucketOf(cellOf(x), cellOf(y));
+        Entry[] entries = mBuckets[bucket];
+        int size = mBucketSizes[bucket];
+        for (int i = 0; i < size; i++) {
+            Sprite sprite = entries[i].mSprite;
+            int index = sprite.getLayerIndex();
+            if (index > resultIndex && sprite.isTouching(x, y) == true) {
+                result = sprite;
+                resultIndex = index;
+            }
+        }
+        /* Sprites we could not file */
+        int numUnbounded = mUnbounded.size();
+        for (int i = 0; i < numUnbounded; i++) {
+            Sprite sprite = mUnbounded.get(i).mSprite;
+            int index = sprite.getLayerIndex();
+            if (index > resultIndex && sprite.isTouching(x, y) == true) {
+                result = sprite;
+                resultIndex = index;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Re-files every sprite that was marked dirty. Entries no longer dirty
+     * were removed since they were marked.
+     */
+    private void flush() {
+        int numDirty = mDirty.size();
+        for (int i = 0; i < numDirty; i++) {
+            Entry entry = mDirty.get(i);
+            if (entry.mDirty == false) continue;
+            entry.mDirty = false;
+            refile(entry);
+        }
+        mDirty.clear();
+    }
+
+    /**
+     * Files the given entry only if the cells it covers have changed.
+     */
+    private void refile(Entry entry) {
+        boolean bounded = entry.mSprite.getTouchBounds(mBounds);
+        if (bounded == true && entry.mBounded == true) {
+            if (cellOf(mBounds[0]) == entry.mMinCol &&
+                cellOf(mBounds[1]) == entry.mMinRow &&
+                cellOf(mBounds[2]) == entry.mMaxCol &&
+                cellOf(mBounds[3]) == entry.mMaxRow) return;
+        }
+        unfile(entry);
+        file(entry, bounded);
+    }
+
+    /**
+     * Files the given entry by the bounds in mBounds, or as unbounded.
+     *
+     * @param bounded What getTouchBounds returned when filling mBounds.
+     */
+    private void file(Entry entry, boolean bounded) {
+        entry.mBounded = false;
+        if (bounded == true) {
+            int minCol = cellOf(mBounds[0]);
+            int minRow = cellOf(mBounds[1]);
+            int maxCol = cellOf(mBounds[2]);
+            int maxRow = cellOf(mBounds[3]);
+            long numCells = (long) (maxCol - minCol + 1) * (long) (maxRow - minRow + 1);
+            if (minCol <= maxCol && minRow <= maxRow &&
+                numCells <= MAX_CELLS_PER_SPRITE) {
+                entry.mBounded = true;
+                entry.mMinCol = minCol;
+                entry.mMinRow = minRow;
+                entry.mMaxCol = maxCol;
+                entry.mMaxRow = maxRow;
+            }
+        }
+        if (entry.mBounded == false) {
+            mUnbounded.add(entry);
+            return;
+        }
+        for (int col = entry.mMinCol; col <= entry.mMaxCol; col++)
+            for (int row = entry.mMinRow; row <= entry.mMaxRow; row++)
+                addToBucket(bucketOf(col, row), entry);
+    }
+
+    private void unfile(Entry entry) {
+        if (entry.mBounded == false) {
+            mUnbounded.remove(entry);
+            return;
+        }
+        for (int col = entry.mMinCol; col <= entry.mMaxCol; col++)
+            for (int row = entry.mMinRow; row <= entry.mMaxRow; row++)
+                removeFromBucket(bucketOf(col, row), entry);
+        entry.mBounded = false;
+    }
+
+    /**
+     * Adds the entry to the bucket unless another of its cells already
+     * hashed there.
+     */
+    private void addToBucket(int bucket, Entry entry) {
+        Entry[] entries = mBuckets[bucket];
+        int size = mBucketSizes[bucket];
+        for (int i = 0; i < size; i++)
+            if (entries[i] == entry) return;
+        if (size == entries.length) {
+            Entry[] newEntries = new Entry[size << 1];
+            System.arraycopy(entries, 0, newEntries, 0, size);
+            mBuckets[bucket] = newEntries;
+            entries = newEntries;
+        }
+        entries[size] = entry;
+        mBucketSizes[bucket] = size + 1;
+    }
+
+    /**
+     * Swap-removes the entry from the bucket. Order within a bucket does not
+     * matter since queries pick the topmost sprite by layer index.
+     */
+    private void removeFromBucket(int bucket, Entry entry) {
+        Entry[] entries = mBuckets[bucket];
+        int size = mBucketSizes[bucket];
+        for (int i = 0; i < size; i++) {
+            if (entries[i] == entry) {
+                entries[i] = entries[size - 1];
+                entries[size - 1] = null;
+                mBucketSizes[bucket] = size - 1;
+                return;
+            }
+        }
+    }
+
+    private int cellOf(float coord) {
+        return (int) Math.floor(coord / mCellSize);
+    }
+
+    private int bucketOf(int col, int row) {
+        return ((col * 73856093) ^ (row * 19349663)) & mBucketMask;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public int getNumSprites() {
+        return mEntries.size();
+    }
+
+    public float getCellSize() {
+        return mCellSize;
+    }
+}
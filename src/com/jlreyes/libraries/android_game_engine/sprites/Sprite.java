@@ -1,6 +1,7 @@
 package com.jlreyes.libraries.android_game_engine.sprites;
 
-import android.view.MotionEvent;
+import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
 import com.jlreyes.libraries.android_game_engine.scenes.Layer;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
@@ -23,6 +24,7 @@ public abstract class Sprite {
     private float mYLoc;
     private float mScale;
     private float mAngle;
+    private int mLayerIndex;
 
     private SyncWrapper<Renderable> mRenderableWrapper;
     private Renderable mActiveRenderable;
@@ -81,7 +83,8 @@ public abstract class Sprite {
                      startX,
                      startY,
                      startScale,
-                     startAngle);
+                     startAngle,
+                     false);
     }
 
     /**
@@ -136,7 +139,8 @@ public abstract class Sprite {
                      startX,
                      startY + wrapper.getYLocation(),
                      startScale,
-                     startAngle);
+                     startAngle,
+                     true);
     }
 
     /**
@@ -191,7 +195,8 @@ public abstract class Sprite {
                      startX,
                      startY,
                      startScale,
-                     startAngle);
+                     startAngle,
+                     true);
     }
 
     /**
@@ -248,9 +253,14 @@ public abstract class Sprite {
                      startX,
                      startY,
                      startScale,
-                     startAngle);
+                     startAngle,
+                     false);
     }
 
+    /**
+     * @param retainTexture False if the texture was loaded for us, so the
+     *                      reference it was loaded with is ours.
+     */
     private void CreateSprite(String formattedName,
                               Layer layer,
                               Renderable renderable,
@@ -259,7 +269,8 @@ public abstract class Sprite {
                               float startX,
                               float startY,
                               float startScale,
-                              float startAngle) {
+                              float startAngle,
+                              boolean retainTexture) {
         this.mName = formattedName;
         this.mTexture = null;
         this.mLayer = layer;
@@ -268,6 +279,7 @@ public abstract class Sprite {
         this.mYLoc = startY;
         this.mScale = startScale;
         this.mAngle = startAngle;
+        this.mLayerIndex = -1;
         Scheduler scheduler = layer.getParentScene().getScheduler();
         /* Attaching to cull grid, if we need to */
         if (isMovable() == false)
@@ -278,11 +290,23 @@ public abstract class Sprite {
         mRenderableWrapper.add(renderable);
         mRenderableWrapper.add(renderable.copy());
         this.mActiveRenderable = null;
-        /* Attaching texture */
+        /* Attaching texture, which is released once we are removed */
+        if (texture != null && retainTexture == true) texture.retain();
         this.mTexture = texture;
-        if (texture != null)
-            mTexture.updateVertices(renderable.getRenderType(),
-                                    renderable.getNumVertices());
+        updateTextureVertices(renderable);
+    }
+
+    /**
+     * Makes our texture's frame coordinates match the given renderable.
+     * Only triangle strips use them, other renderables (text) bring their
+     * own texture coordinates.
+     */
+    private void updateTextureVertices(Renderable renderable) {
+        if (mTexture == null) return;
+        if (renderable.getRenderType() != Renderable.RenderType.TRIANGLE_STRIP)
+            return;
+        mTexture.updateVertices(renderable.getRenderType(),
+                                renderable.getNumVertices());
     }
 
     /**
@@ -335,16 +359,27 @@ public abstract class Sprite {
         /* If there was an active renderable, change it */
         if (mActiveRenderable != null) onStartLogicStep();
         /* Update the texture */
-        if (mTexture != null)
-            mTexture.updateVertices(renderable.getRenderType(),
-                                    renderable.getNumVertices());
+        updateTextureVertices(renderable);
     }
 
 
     public void setTextureState(TexController.TexStateInfo stateInfo) {
+        if (mTexture == null) return;
         mTexture.setActiveState(stateInfo);
     }
 
+    /**
+     * Frees what our renderables hold on the GPU, see
+     * {@link Renderable#free(GameView)}. Called by our layer once the
+     * renderer is done with us, after we are removed or the scene is
+     * unloaded.
+     */
+    public void freeRenderables(GameView gameView) {
+        int numRenderables = mRenderableWrapper.getNumElements();
+        for (int i = 0; i < numRenderables; i++)
+            mRenderableWrapper.getElement(i).free(gameView);
+    }
+
     /**
      * If the given thread holds a renderable for this sprite, calling
      * this releases it
@@ -358,23 +393,35 @@ public abstract class Sprite {
      */
     public abstract boolean isTouching(float x, float y);
 
+    /**
+     * Writes the box this sprite can be touched in to bounds as
+     * {left, bottom, right, top}. Every point for which isTouching returns
+     * true must be inside this box. Used by the layer's touch grid.
+     *
+     * @return false if this sprite has no such box, in which case it is
+     *         checked on every touch. True otherwise.
+     */
+    public boolean getTouchBounds(float[] bounds) {
+        return false;
+    }
+
     /**
      * Called when a touch starts on the sprite.
      *
      * @return true if this sprite handled the touch, false otherwise.
      */
-    public abstract boolean onTouchDown(MotionEvent e);
+    public abstract boolean onTouchDown(InputEvent e);
 
 
     /** Called when a touch is canceled after a onTouchDown was called. */
-    public abstract void onTouchCancel(MotionEvent e);
+    public abstract void onTouchCancel(InputEvent e);
 
     /**
      * Called when a touch ends on the sprite.
      *
      * @return true if this sprite handled the touch, false otherwise.
      */
-    public abstract boolean onTouchUp(MotionEvent e);
+    public abstract boolean onTouchUp(InputEvent e);
 
     /*
      * Position Methods
@@ -427,6 +474,7 @@ public abstract class Sprite {
         checkMoveable();
         mXLoc = v1;
         mYLoc = v2;
+        mLayer.onSpriteTransformed(this);
     }
 
     public void setXLocation(float x) {
@@ -447,6 +495,7 @@ public abstract class Sprite {
     public void setScale(float scale) {
         checkMoveable();
         this.mScale = scale;
+        mLayer.onSpriteTransformed(this);
     }
 
     /**
@@ -463,6 +512,7 @@ public abstract class Sprite {
     public void setAngle(float angle) {
         checkMoveable();
         this.mAngle = angle;
+        mLayer.onSpriteTransformed(this);
     }
 
     public float getAngle() {
@@ -494,4 +544,16 @@ public abstract class Sprite {
     public Texture getTexture() {
         return mTexture;
     }
+
+    /**
+     * Returns this sprite's index in its layer, or -1 if it has not been
+     * added to one. Sprites with higher indices are drawn on top.
+     */
+    public int getLayerIndex() {
+        return mLayerIndex;
+    }
+
+    public void setLayerIndex(int layerIndex) {
+        this.mLayerIndex = layerIndex;
+    }
 }
@@ -0,0 +1,74 @@
+package com.jlreyes.libraries.android_game_engine.sprites;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Pool of removed sprites, kept by their exact class, so short lived sprites
+ * (bullets, particles) can be reused instead of being re-created. Sprites
+ * are returned as they were when recycled, it is up to the caller to reset
+ * their location, state, and so on.
+ *
+ * @author jlreyes
+ */
+public class SpritePool {
+    private HashMap<Class<?>, ArrayList<Sprite>> mFreeSprites;
+    private int mNumFree;
+
+    public SpritePool() {
+        this.mFreeSprites = new HashMap<Class<?>, ArrayList<Sprite>>();
+        this.mNumFree = 0;
+    }
+
+    /**
+     * Returns a recycled sprite of exactly the given class, or null if there
+     * is none.
+     */
+    public <T extends Sprite> T obtain(Class<T> type) {
+        ArrayList<Sprite> free = mFreeSprites.get(type);
+        if (free == null) return null;
+        int size = free.size();
+        if (size == 0) return null;
+        mNumFree--;
+        return type.cast(free.remove(size - 1));
+    }
+
+    /**
+     * Adds the given sprite to the pool. The sprite must no longer be in its
+     * layer.
+     */
+    public void recycle(Sprite sprite) {
+        Class<?> type = sprite.getClass();
+        ArrayList<Sprite> free = mFreeSprites.get(type);
+        if (free == null) {
+            free = new ArrayList<Sprite>();
+            mFreeSprites.put(type, free);
+        }
+        free.add(sprite);
+        mNumFree++;
+    }
+
+    /**
+     * Makes sure the pool can hold capacity sprites of the given class
+     * without growing.
+     */
+    public void reserve(Class<? extends Sprite> type, int capacity) {
+        ArrayList<Sprite> free = mFreeSprites.get(type);
+        if (free == null) {
+            free = new ArrayList<Sprite>(capacity);
+            mFreeSprites.put(type, free);
+        } else free.ensureCapacity(capacity);
+    }
+
+    public void clear() {
+        mFreeSprites.clear();
+        mNumFree = 0;
+    }
+
+    /**
+     * Returns the number of sprites waiting in this pool.
+     */
+    public int getNumFree() {
+        return mNumFree;
+    }
+}
@@ -1,14 +1,16 @@
 package com.jlreyes.libraries.android_game_engine.sprites;
 
+import com.jlreyes.libraries.android_game_engine.io.GameView;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.RenderablesWrapper;
 import com.jlreyes.libraries.android_game_engine.scenes.Layer;
-import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
 
 /**
  * Class wrapping several sprites that are intended to be treated as the same
- * sprite.
+ * sprite. The wrapped sprites are never added to the layer themselves; the
+ * layer releases their textures and frees their renderables along with the
+ * wrapper's.
  *
  * @author jlreyes
  */
@@ -129,7 +131,7 @@ public abstract class SpriteWrapper extends Sprite {
         System.arraycopy(sprites, 0, newSprites, oldLength, sprites.length);        /* Update renderable */
         changeRenderable(new RenderablesWrapper(newLength));
 	    /* Update sprites array */
-        mSprites = sprites;
+        mSprites = newSprites;
     }
 
     @Override
@@ -148,17 +150,22 @@ public abstract class SpriteWrapper extends Sprite {
         int numSprites = mSprites.length;
         RenderablesWrapper renderables =
                 (RenderablesWrapper) getActiveRenderable();
-        for (int i = 0; i < numSprites; i++) {
-            Renderable renderable = mSprites[i].onEndLogicStep(thread);
-		    /* Make sure the sprite is visible, else just set to null */
-            LayerCamera gameCamera = getLayer().getCamera();
-            if (renderable.isVisible(gameCamera) == false) renderable = null;
-		    /* Set the ith index in the RenderablesWrapper */
-            renderables.set(i, renderable);
-        }
+        /* Culling happens when the layer asks the wrapper if it is visible,
+         * which also drops invisible children */
+        for (int i = 0; i < numSprites; i++)
+            renderables.set(i, mSprites[i].onEndLogicStep(thread));
         return super.onEndLogicStep(thread);
     }
 
+    /**
+     * Also frees the renderables of every sprite we wrap.
+     */
+    @Override
+    public void freeRenderables(GameView gameView) {
+        super.freeRenderables(gameView);
+        for (Sprite sprite : mSprites) sprite.freeRenderables(gameView);
+    }
+
     /**
      * Does the same as {@link Sprite#setLocation(float, float)} except that
      * this also translates every sprite contained by this SpriteWrapper.
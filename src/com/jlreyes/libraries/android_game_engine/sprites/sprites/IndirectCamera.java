@@ -1,6 +1,6 @@
 package com.jlreyes.libraries.android_game_engine.sprites.sprites;
 
-import android.view.MotionEvent;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
 import com.jlreyes.libraries.android_game_engine.scenes.Layer;
 
 /**
@@ -34,15 +34,15 @@ public class IndirectCamera extends GameCamera {
     }
 
     @Override
-    public boolean onTouchDown(MotionEvent e) {
+    public boolean onTouchDown(InputEvent e) {
         return false;
     }
 
     @Override
-    public void onTouchCancel(MotionEvent e) {}
+    public void onTouchCancel(InputEvent e) {}
 
     @Override
-    public boolean onTouchUp(MotionEvent e) {
+    public boolean onTouchUp(InputEvent e) {
         return false;
     }
 }
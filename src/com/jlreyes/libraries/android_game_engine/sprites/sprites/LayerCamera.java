@@ -1,11 +1,11 @@
 package com.jlreyes.libraries.android_game_engine.sprites.sprites;
 
-import android.opengl.Matrix;
-import android.view.MotionEvent;
-import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderTarget;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.LayerCameraRenderable;
 import com.jlreyes.libraries.android_game_engine.scenes.Layer;
 import com.jlreyes.libraries.android_game_engine.sprites.Sprite;
+import com.jlreyes.libraries.android_game_engine.utils.math.Affine2D;
 import com.jlreyes.libraries.android_game_engine.utils.math.function.Function1;
 
 import java.util.ArrayList;
@@ -23,7 +23,7 @@ public class LayerCamera extends GameCamera {
     public static final String TAG = "LayerCamera";
 
     private float mDefaultDim;
-    private GameView mGameView;
+    private RenderTarget mRenderTarget;
     private AnchorPoint mAnchorPoint;
     private AspectType mAspectType;
     private ArrayList<Function1<LayerCamera, Void>> mListeners;
@@ -46,7 +46,7 @@ public class LayerCamera extends GameCamera {
         super(name, layer, new LayerCameraRenderable(),
               startX, startY, startScale, startAngle);
         this.mDefaultDim = defaultDim;
-        this.mGameView = layer.getParentScene().getScheduler().getGameView();
+        this.mRenderTarget = layer.getParentScene().getScheduler().getRenderTarget();
         this.mListeners = new ArrayList<Function1<LayerCamera, Void>>();
         this.mAnchorPoint = AnchorPoint.CENTER;
         this.mAspectType = AspectType.WIDTH_PRIORITY;
@@ -127,22 +127,34 @@ public class LayerCamera extends GameCamera {
      * Returns true iff the given coordinates are visible by this camera.
      */
     public boolean isVisible(float x, float y) {
-        float left = Float.NaN;
-        float bottom = Float.NaN;
-        if (mAnchorPoint == AnchorPoint.BOTTOM_LEFT) {
-            left = getXLocation();
-            bottom = getYLocation();
-        } else if (mAnchorPoint == AnchorPoint.CENTER) {
-            left = getXLocation() - mWidth / 2.0f;
-            bottom = getYLocation() - mHeight / 2.0f;
-        }
-        float right = left + mWidth;
-        float top = bottom + mHeight;
-        if (left <= x && x <= right &&
-            bottom <= y && y <= top) return true;
+        float left = getLeft();
+        float bottom = getBottom();
+        if (left <= x && x <= left + mWidth &&
+            bottom <= y && y <= bottom + mHeight) return true;
         else return false;
     }
 
+    /*
+     * Bounds of what this camera sees, in game coordinates.
+     */
+    public float getLeft() {
+        if (mAnchorPoint == AnchorPoint.BOTTOM_LEFT) return getXLocation();
+        return getXLocation() - mWidth / 2.0f;
+    }
+
+    public float getBottom() {
+        if (mAnchorPoint == AnchorPoint.BOTTOM_LEFT) return getYLocation();
+        return getYLocation() - mHeight / 2.0f;
+    }
+
+    public float getRight() {
+        return getLeft() + mWidth;
+    }
+
+    public float getTop() {
+        return getBottom() + mHeight;
+    }
+
     /**
      * Converts a given screen y pixel coordinate to its corresponding y
      * game coordinate.
@@ -150,8 +162,8 @@ public class LayerCamera extends GameCamera {
      */
     public float screenPixelToGameCoordY(float y) {
 		/* Fix y inversion */
-        y = (float) mGameView.getHeight() - y;
-        float screenPercent = y / (float) mGameView.getHeight();
+        y = (float) mRenderTarget.getHeight() - y;
+        float screenPercent = y / (float) mRenderTarget.getHeight();
         float gameY = Float.NaN;
         if (mAnchorPoint == AnchorPoint.BOTTOM_LEFT)
             gameY = screenPercent * mHeight + getYLocation();
@@ -166,7 +178,7 @@ public class LayerCamera extends GameCamera {
      * @return The in-game coordinate.
      */
     public float screenPixelToGameCoordX(float x) {
-        float screenPercent = x / (float) mGameView.getWidth();
+        float screenPercent = x / (float) mRenderTarget.getWidth();
         float gameX = Float.NaN;
         if (mAnchorPoint == AnchorPoint.BOTTOM_LEFT)
             gameX = screenPercent * mWidth + getXLocation();
@@ -184,35 +196,31 @@ public class LayerCamera extends GameCamera {
     }
 
     @Override
-    public boolean onTouchDown(MotionEvent e) {
+    public boolean onTouchDown(InputEvent e) {
         return false;
     }
 
     @Override
-    public void onTouchCancel(MotionEvent e) {}
+    public void onTouchCancel(InputEvent e) {}
 
     @Override
-    public boolean onTouchUp(MotionEvent e) {
+    public boolean onTouchUp(InputEvent e) {
         return false;
     }
 
     /**
-     * Creates the default view matrix.
+     * Sets the default view projection, used until a camera is drawn. Game
+     * coordinates are clip coordinates.
      */
-    public static void SetDefaultViewMatrix(float[] viewMatrix) {
-        Matrix.setLookAtM(viewMatrix, 0,
-                          0.0f, 0.0f, LayerCameraRenderable.EYE_Z,
-                          0.0f, 0.0f, LayerCameraRenderable.CENTER_Z,
-                          LayerCameraRenderable.UP_X,
-                          LayerCameraRenderable.UP_Y,
-                          LayerCameraRenderable.UP_Z);
+    public static void SetDefaultViewProjection(Affine2D viewProjection) {
+        viewProjection.setIdentity();
     }
 
     /**
      * Returns the screen ratio this camera is rendering at.
      */
     public float getScreenRatio() {
-        return ((float) mGameView.getWidth()) / ((float) mGameView.getHeight());
+        return ((float) mRenderTarget.getWidth()) / ((float) mRenderTarget.getHeight());
     }
 
     /**
@@ -283,11 +291,11 @@ public class LayerCamera extends GameCamera {
     }
 
     public float getScreenWidth() {
-        return mGameView.getWidth();
+        return mRenderTarget.getWidth();
     }
 
     public float getScreenHeight() {
-        return mGameView.getHeight();
+        return mRenderTarget.getHeight();
     }
 
     public float getWidth() {
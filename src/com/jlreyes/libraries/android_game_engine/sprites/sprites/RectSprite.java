@@ -1,6 +1,6 @@
 package com.jlreyes.libraries.android_game_engine.sprites.sprites;
 
-import android.view.MotionEvent;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.Rectangle;
 import com.jlreyes.libraries.android_game_engine.scenes.Layer;
 import com.jlreyes.libraries.android_game_engine.sprites.Sprite;
@@ -99,7 +99,7 @@ public abstract class RectSprite extends Sprite {
     }
 
     @Override
-    public abstract void onTouchCancel(MotionEvent e);
+    public abstract void onTouchCancel(InputEvent e);
 
     @Override
     public boolean isTouching(float x, float y) {
@@ -112,4 +112,13 @@ public abstract class RectSprite extends Sprite {
             return true;
         else return false;
     }
+
+    @Override
+    public boolean getTouchBounds(float[] bounds) {
+        bounds[0] = getXLocation() - mWidth / 2.0f;
+        bounds[1] = getYLocation() - mHeight / 2.0f;
+        bounds[2] = getXLocation() + mWidth / 2.0f;
+        bounds[3] = getYLocation() + mHeight / 2.0f;
+        return true;
+    }
 }
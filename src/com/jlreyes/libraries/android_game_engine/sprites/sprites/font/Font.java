@@ -0,0 +1,104 @@
+package com.jlreyes.libraries.android_game_engine.sprites.sprites.font;
+
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureState;
+
+/**
+ * Where each character of a loaded font is in its glyph atlas. Every glyph
+ * has to be in the same texture part so a whole string is one draw.
+ *
+ * @author jlreyes
+ */
+public class Font {
+    public static final String TAG = "Font";
+    /* Floats per glyph in mUVs, {left s, bottom t, right s, top t} */
+    public static final int UVS_PER_GLYPH = 4;
+
+    private Texture mTexture;
+    private TexController.FontTexInfo mFontInfo;
+    private Texture.TexturePart mTexturePart;
+    /* Glyph of each character below mGlyphs.length, -1 if not in the font */
+    private int[] mGlyphs;
+    private int mBlankGlyph;
+    private float[] mUVs;
+
+    /**
+     * Takes over the given texture's reference. Sprites created with this
+     * font hold their own, and the texture is released with their scene
+     * (see {@link com.jlreyes.libraries.android_game_engine.scenes.Scene#unload()}).
+     */
+    public Font(Texture texture) {
+        if ((texture.getTexInfo() instanceof TexController.FontTexInfo) == false)
+            throw new RuntimeException(texture + " is not a font.");
+        this.mTexture = texture;
+        this.mFontInfo = (TexController.FontTexInfo) texture.getTexInfo();
+        String characters = mFontInfo.Characters;
+        int numGlyphs = characters.length();
+        /* Character lookup table */
+        char maxChar = 0;
+        for (int i = 0; i < numGlyphs; i++)
+            if (characters.charAt(i) > maxChar) maxChar = characters.charAt(i);
+        this.mGlyphs = new int[maxChar + 1];
+        for (int i = 0; i < mGlyphs.length; i++) mGlyphs[i] = -1;
+        for (int i = 0; i < numGlyphs; i++) mGlyphs[characters.charAt(i)] = i;
+        this.mBlankGlyph = mGlyphs[TexController.FontTexInfo.BLANK];
+        /* Texture coordinates of each glyph */
+        this.mUVs = new float[numGlyphs * UVS_PER_GLYPH];
+        float[] uvs = new float[UVS_PER_GLYPH];
+        TexController.TexStateInfo[] statesInfo = mFontInfo.States;
+        for (int i = 0; i < numGlyphs; i++) {
+            TextureState.Frame frame = texture.getState(statesInfo[i]).getFrame(0);
+            if (mTexturePart == null) mTexturePart = frame.getTexturePart();
+            else if (frame.getTexturePart() != mTexturePart)
+                throw new RuntimeException("Font " + mFontInfo.Name + " does" +
+                                           " not fit in one texture. Use" +
+                                           " fewer characters or smaller" +
+                                           " glyphs.");
+            mTexturePart.getFrameUVs(frame, uvs);
+            System.arraycopy(uvs, 0, mUVs, i * UVS_PER_GLYPH, UVS_PER_GLYPH);
+        }
+    }
+
+    /**
+     * Returns the glyph of the given character, or the blank glyph if it is
+     * not in this font.
+     */
+    public int getGlyph(char c) {
+        if (c >= mGlyphs.length) return mBlankGlyph;
+        int glyph = mGlyphs[c];
+        if (glyph < 0) return mBlankGlyph;
+        return glyph;
+    }
+
+    public boolean hasCharacter(char c) {
+        return c < mGlyphs.length && mGlyphs[c] >= 0;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public Texture getTexture() {
+        return mTexture;
+    }
+
+    public TexController.FontTexInfo getFontInfo() {
+        return mFontInfo;
+    }
+
+    public Texture.TexturePart getTexturePart() {
+        return mTexturePart;
+    }
+
+    public int getBlankGlyph() {
+        return mBlankGlyph;
+    }
+
+    /**
+     * Texture coordinates of every glyph, {@link #UVS_PER_GLYPH} floats
+     * each. Don't modify.
+     */
+    public float[] getUVs() {
+        return mUVs;
+    }
+}
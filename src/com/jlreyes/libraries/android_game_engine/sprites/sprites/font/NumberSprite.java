@@ -1,34 +1,104 @@
 package com.jlreyes.libraries.android_game_engine.sprites.sprites.font;
 
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.TextRenderable;
+import com.jlreyes.libraries.android_game_engine.scenes.Layer;
+import com.jlreyes.libraries.android_game_engine.sprites.Sprite;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
+
 /**
- * User: James
- * Date: 1/18/13
- * Time: 1:40 PM
+ * A right aligned number, for scores and counters. Setting the number
+ * writes its digits straight into the text, without making a String, so it
+ * can be set every step. Use a font with at least
+ * {@link TexController.FontTexInfo#DIGITS}.
+ *
+ * @author jlreyes
  */
-// TODO
-/*public class NumberSprite extends RectSprite {
-    public NumberSprite(int number,
+public class NumberSprite extends TextSprite {
+    public static final String TAG = "NumberSprite";
+    /* Digits and sign of Long.MIN_VALUE */
+    private static final int MAX_CHARS = 20;
+
+    private long mNumber;
+    private int mMinDigits;
+    private char[] mDigits;
+
+    public NumberSprite(String name,
                         Layer layer,
+                        TexController.FontTexInfo fontInfo,
                         boolean isMoveable,
-                        float dim) {
-        this(number, layer, isMoveable, 0, 0, 1, 0, dim);
+                        int maxLength,
+                        float charWidth,
+                        float charHeight) {
+        super(name, layer, fontInfo, isMoveable, maxLength, charWidth, charHeight);
+        init();
+    }
+
+    public NumberSprite(String name,
+                        Layer layer,
+                        Font font,
+                        boolean isMoveable,
+                        float startX,
+                        float startY,
+                        float startScale,
+                        float startAngle,
+                        int maxLength,
+                        float charWidth,
+                        float charHeight) {
+        super(name, layer, font, isMoveable, startX, startY, startScale,
+              startAngle, maxLength, charWidth, charHeight);
+        init();
+    }
+
+    private void init() {
+        this.mMinDigits = 1;
+        this.mDigits = new char[MAX_CHARS];
+        setAlign(TextRenderable.Align.RIGHT);
+        setNumber(0);
     }
 
-    public NumberSprite(int number, Layer layer, boolean isMoveable, float startX, float startY, float startScale, float startAngle, float dim) {
-        super(name, layer, texture, isMoveable, startX, startY, startScale, startAngle, dim);
+    /**
+     * Shows the given number. If it has more characters than the max
+     * length, its leading characters are dropped.
+     */
+    public void setNumber(long number) {
+        this.mNumber = number;
+        /* Work with the number negated so Long.MIN_VALUE works */
+        boolean negative = number < 0;
+        long n = negative == true ? number : -number;
+        int start = mDigits.length;
+        do {
+            mDigits[--start] = (char) ('0' - (n % 10));
+            n /= 10;
+        } while (n != 0);
+        while (mDigits.length - start < mMinDigits && start > 1)
+            mDigits[--start] = '0';
+        if (negative == true) mDigits[--start] = '-';
+        /* Keep the least significant digits if we are too long */
+        int length = mDigits.length - start;
+        if (length > getMaxLength()) {
+            start += length - getMaxLength();
+            length = getMaxLength();
+        }
+        setText(mDigits, start, length);
     }
 
-    @Override
-    public void update(long deltaTime) {
+    /*
+     * Getters and Setters
+     */
+    public long getNumber() {
+        return mNumber;
     }
 
-    @Override
-    public boolean onTouchDown() {
-        return false;
+    /**
+     * Pads the number with leading zeros to at least the given number of
+     * digits.
+     */
+    public void setMinDigits(int minDigits) {
+        this.mMinDigits = minDigits;
+        setNumber(mNumber);
     }
 
-    @Override
-    public boolean onTouchUp() {
-        return false;
+    public int getMinDigits() {
+        return mMinDigits;
     }
-}     */
+}
@@ -1,11 +1,213 @@
 package com.jlreyes.libraries.android_game_engine.sprites.sprites.font;
 
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.TextRenderable;
+import com.jlreyes.libraries.android_game_engine.scenes.Layer;
+import com.jlreyes.libraries.android_game_engine.sprites.Sprite;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureLoader;
+
 /**
- * Author: James
- * Date: 1/18/13
- * Time: 3:36 PM
+ * A line of text drawn in one draw call. The text is copied into a fixed
+ * buffer, so changing it every step doesn't allocate, and only characters
+ * that changed are rebuilt. Characters not in the font are drawn blank.
+ *
+ * @author jlreyes
  */
-//TODO
-/*
-public class TextSprite {
-} */
+public class TextSprite extends Sprite {
+    public static final String TAG = "TextSprite";
+
+    private char[] mText;
+    private int mLength;
+    private TextRenderable.Align mAlign;
+    private Font mFont;
+    private float mWidth;
+    private float mHeight;
+
+    /**
+     * Same as TextSprite(String, Layer, FontTexInfo, boolean, float, float,
+     * float, float, int, float, float) except with the default position,
+     * scale and angle.
+     */
+    public TextSprite(String name,
+                      Layer layer,
+                      TexController.FontTexInfo fontInfo,
+                      boolean isMoveable,
+                      int maxLength,
+                      float charWidth,
+                      float charHeight) {
+        this(name,
+             layer,
+             fontInfo,
+             isMoveable,
+             Sprite.DEFAULT_X,
+             Sprite.DEFAULT_Y,
+             Sprite.DEFAULT_SCALE,
+             Sprite.DEFAULT_ANGLE,
+             maxLength,
+             charWidth,
+             charHeight);
+    }
+
+    /**
+     * Loads the given font and creates a text sprite with it. Sprites
+     * sharing a font should load it once and use the Font constructor.
+     */
+    public TextSprite(String name,
+                      Layer layer,
+                      TexController.FontTexInfo fontInfo,
+                      boolean isMoveable,
+                      float startX,
+                      float startY,
+                      float startScale,
+                      float startAngle,
+                      int maxLength,
+                      float charWidth,
+                      float charHeight) {
+        this(name,
+             layer,
+             new Font(TextureLoader.LoadTexture(fontInfo,
+                                                layer.getParentScene().getScheduler())),
+             isMoveable,
+             startX,
+             startY,
+             startScale,
+             startAngle,
+             maxLength,
+             charWidth,
+             charHeight);
+        /* Nobody else has the font, so its reference is ours to drop */
+        mFont.getTexture().release();
+    }
+
+    /**
+     * Creates a new text sprite.
+     *
+     * @param font       The loaded font to draw with.
+     * @param maxLength  The most characters this sprite can show.
+     * @param charWidth  The width of each character in game units.
+     * @param charHeight The height of each character in game units.
+     */
+    public TextSprite(String name,
+                      Layer layer,
+                      Font font,
+                      boolean isMoveable,
+                      float startX,
+                      float startY,
+                      float startScale,
+                      float startAngle,
+                      int maxLength,
+                      float charWidth,
+                      float charHeight) {
+        super(name,
+              layer,
+              new TextRenderable(font, maxLength, charWidth, charHeight),
+              font.getTexture(),
+              isMoveable,
+              startX,
+              startY,
+              startScale,
+              startAngle);
+        this.mText = new char[maxLength];
+        this.mLength = 0;
+        this.mAlign = TextRenderable.Align.LEFT;
+        this.mFont = font;
+        this.mWidth = charWidth * (float) maxLength;
+        this.mHeight = charHeight;
+    }
+
+    /**
+     * Shows the given text, dropping characters past the max length.
+     */
+    public void setText(CharSequence text) {
+        int length = Math.min(text.length(), mText.length);
+        for (int i = 0; i < length; i++) mText[i] = text.charAt(i);
+        mLength = length;
+    }
+
+    /**
+     * Shows length characters of text starting at offset, dropping
+     * characters past the max length.
+     */
+    public void setText(char[] text, int offset, int length) {
+        if (length > mText.length) length = mText.length;
+        System.arraycopy(text, offset, mText, 0, length);
+        mLength = length;
+    }
+
+    /**
+     * Hands our text to the renderable before it is passed on.
+     */
+    @Override
+    public Renderable onEndLogicStep(Thread thread) {
+        Renderable renderable = getActiveRenderable();
+        if (renderable != null)
+            ((TextRenderable) renderable).setText(mText, mLength, mAlign);
+        return super.onEndLogicStep(thread);
+    }
+
+    @Override
+    public void update(long deltaTime) {
+    }
+
+    @Override
+    public boolean isTouching(float x, float y) {
+        float halfWidth = mWidth * getScale() / 2.0f;
+        float halfHeight = mHeight * getScale() / 2.0f;
+        return getXLocation() - halfWidth <= x && x <= getXLocation() + halfWidth &&
+               getYLocation() - halfHeight <= y && y <= getYLocation() + halfHeight;
+    }
+
+    @Override
+    public boolean getTouchBounds(float[] bounds) {
+        float halfWidth = mWidth * getScale() / 2.0f;
+        float halfHeight = mHeight * getScale() / 2.0f;
+        bounds[0] = getXLocation() - halfWidth;
+        bounds[1] = getYLocation() - halfHeight;
+        bounds[2] = getXLocation() + halfWidth;
+        bounds[3] = getYLocation() + halfHeight;
+        return true;
+    }
+
+    @Override
+    public boolean onTouchDown(InputEvent e) {
+        return false;
+    }
+
+    @Override
+    public void onTouchCancel(InputEvent e) {
+    }
+
+    @Override
+    public boolean onTouchUp(InputEvent e) {
+        return false;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public void setAlign(TextRenderable.Align align) {
+        this.mAlign = align;
+    }
+
+    public TextRenderable.Align getAlign() {
+        return mAlign;
+    }
+
+    public int getLength() {
+        return mLength;
+    }
+
+    public int getMaxLength() {
+        return mText.length;
+    }
+
+    public char charAt(int index) {
+        return mText[index];
+    }
+
+    public Font getFont() {
+        return mFont;
+    }
+}
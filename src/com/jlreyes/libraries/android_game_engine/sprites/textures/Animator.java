@@ -24,21 +24,11 @@ public class Animator extends GameThread {
      */
     @Override
     protected void onRunning() {
+        long time = System.currentTimeMillis();
         synchronized (mTextures) {
             int numTextures = mTextures.size();
-            for (int i = 0; i < numTextures; i++) {
-                Texture texture = mTextures.get(i);
-                synchronized (texture) {
-                    TextureState state = texture.getActiveState();
-                    TextureState.Frame frame = state.getActiveFrame();
-                    long timeSinceStepped =
-                            (System.currentTimeMillis() - state.getLastTimeStepped());
-                    long frameTimeLength = frame.getTimeLength();
-                    if (frameTimeLength <= timeSinceStepped) {
-                        state.step();
-                    }
-                }
-            }
+            for (int i = 0; i < numTextures; i++)
+                mTextures.get(i).step(time);
         }
     }
 
@@ -0,0 +1,48 @@
+package com.jlreyes.libraries.android_game_engine.sprites.textures;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * The state of a single character in a font. Instead of decoding its frame
+ * from a resource, it draws the character.
+ *
+ * @author jlreyes
+ */
+class GlyphTextureState extends TextureState {
+    private TexController.FontTexInfo mFontInfo;
+    private char mCharacter;
+
+    public GlyphTextureState(TexController.FontTexInfo fontInfo,
+                             TexController.TexStateInfo stateInfo,
+                             int frameWidth, int frameHeight) {
+        super(stateInfo.Name, 0, stateInfo.FrameTimes, frameWidth, frameHeight);
+        this.mFontInfo = fontInfo;
+        this.mCharacter = stateInfo.Name.charAt(0);
+    }
+
+    /**
+     * Draws our character centered in a frame sized bitmap.
+     */
+    @Override
+    public Bitmap generateFrameBitmap(Context context, int frame) {
+        int width = mFontInfo.FrameWidth();
+        int height = mFontInfo.FrameHeight();
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        if (mCharacter == TexController.FontTexInfo.BLANK) return bitmap;
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        if (mFontInfo.Face != null) paint.setTypeface(mFontInfo.Face);
+        paint.setColor(mFontInfo.Color);
+        paint.setTextSize(mFontInfo.TextSize * (float) height);
+        char[] text = new char[]{mCharacter};
+		/* Center horizontally by width, vertically by ascent and descent.
+		 * Ascent is negative. */
+        float x = ((float) width - paint.measureText(text, 0, 1)) / 2.0f;
+        float y = ((float) height - paint.ascent() - paint.descent()) / 2.0f;
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawText(text, 0, 1, x, y, paint);
+        return bitmap;
+    }
+}
@@ -1,5 +1,7 @@
 package com.jlreyes.libraries.android_game_engine.sprites.textures;
 
+import android.graphics.Typeface;
+
 /**
  * Class holding texture info.
  */
@@ -166,12 +168,85 @@ public class TexController {
         }
     }
 
+    /**
+     * A font rasterized into a texture at texture init time. Every character
+     * is a one frame state named after it, so the glyph atlas goes through
+     * the same cache files as any other texture. Glyphs are drawn white (or
+     * in Color) and centered in frame sized cells.
+     */
+    public static class FontTexInfo extends TexInfo {
+        /**
+         * Always in a font, unknown characters are drawn as this.
+         */
+        public static final char BLANK = ' ';
+        public static final String DIGITS = "0123456789-";
+        public static final float DEFAULT_TEXT_SIZE = 0.8f;
+
+        public String Characters;
+        public Typeface Face;
+        public int Color;
+        /* Text size as a fraction of the frame height */
+        public float TextSize;
+
+        /**
+         * Create a new font.
+         *
+         * @param characters The characters to rasterize. {@link #BLANK} is
+         *                   added if missing.
+         * @param face       The typeface to draw them with, null for the
+         *                   default.
+         * @param highRes    The width and height of a glyph cell at high
+         *                   resolution, see {@link TexInfo}.
+         */
+        public FontTexInfo(String name, long version,
+                           String characters, Typeface face, int color,
+                           int[] highRes, int[] medRes, int[] lowRes) {
+            super(name, version, highRes, medRes, lowRes,
+                  GlyphStates(name, WithBlank(characters)));
+            this.Characters = WithBlank(characters);
+            this.Face = face;
+            this.Color = color;
+            this.TextSize = DEFAULT_TEXT_SIZE;
+        }
+
+        /**
+         * A white font with the default typeface.
+         */
+        public FontTexInfo(String name, long version, String characters,
+                           int[] highRes, int[] medRes, int[] lowRes) {
+            this(name, version, characters, null,
+                 android.graphics.Color.WHITE, highRes, medRes, lowRes);
+        }
+    }
+
+    private static String WithBlank(String characters) {
+        if (characters.indexOf(FontTexInfo.BLANK) >= 0) return characters;
+        return FontTexInfo.BLANK + characters;
+    }
+
+    /**
+     * One single frame state per character, named after it.
+     */
+    private static TexStateInfo[] GlyphStates(String fontName, String characters) {
+        int numChars = characters.length();
+        TexStateInfo[] states = new TexStateInfo[numChars];
+        for (int i = 0; i < numChars; i++) {
+            char c = characters.charAt(i);
+            if (characters.indexOf(c) != i)
+                throw new IllegalArgumentException("Font " + fontName +
+                                                   " has '" + c + "' twice.");
+            states[i] = new TexStateInfo(String.valueOf(c), new int[]{0}, 0, 0, 0);
+        }
+        return states;
+    }
+
     public static enum Resolution {
         HIGH, MED, LOW
     }
 
     public static final TexInfo NO_TEX = null;
     public static TexInfo[] TEXTURES;
+    public static FontTexInfo[] FONTS = new FontTexInfo[0];
     public static Resolution RESOLUTION = Resolution.HIGH;
 }
 
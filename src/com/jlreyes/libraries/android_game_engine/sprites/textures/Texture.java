@@ -4,59 +4,96 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.opengl.GLES20;
 import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.GLApi;
 import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
-import com.jlreyes.libraries.android_game_engine.sprites.textures.types.TexType;
 import com.jlreyes.libraries.android_game_engine.utils.Utils;
 import com.jlreyes.libraries.android_game_engine.utils.exceptions.StrictGLException;
-import com.jlreyes.libraries.android_game_engine.utils.math.MathMatrix;
+import com.jlreyes.libraries.android_game_engine.utils.math.IntGrid;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.util.HashMap;
 
 
 /**
  * Texture that can be attached to a sprite. Dynamically made out of
  * TextureParts which are individual texture images making up the entire image.
  *
+ * The parts, states and GL handles are a {@link TextureData} shared by
+ * every sprite with the same TexInfo. A Texture itself is only that
+ * sprite's place in the animation, so it is cheap to have many.
+ *
  * @author jlreyes
  */
 public class Texture {
     /**
-     * Represents a part of a larger texture. Is a row x col matrix
-     * where each index is of type Frame.
+     * Represents a part of a larger texture. Is a row x col grid of frame
+     * ids, indices into the texture's frames (see
+     * {@link TextureState#AllFrames(TextureState[])}), with
+     * {@link IntGrid#EMPTY} for blank cells.
      *
      * @author jlreyes
      */
     public static class TexturePart {
+        /**
+         * The texture coordinates of every frame in a part for one number of
+         * vertices, packed one frame after another. The buffer is never
+         * changed once created.
+         */
+        private static class UVData {
+            private final FloatBuffer mBuffer;
+            private final int mNumVertices;
+            /* Only touched on the renderer thread */
+            private int mHandle;
+            private int mGeneration;
+
+            public UVData(FloatBuffer buffer, int numVertices) {
+                this.mBuffer = buffer;
+                this.mNumVertices = numVertices;
+                this.mHandle = 0;
+                this.mGeneration = -1;
+            }
+        }
+
         private GameView mGameView;
-        private MathMatrix<TextureState.Frame> mFrameMatrix;
+        private IntGrid mFrameGrid;
+        private TextureState.Frame[] mFrames;
         private int mRGBHandle;
         private int mAHandle;
         private int mFrameWidth;
         private int mFrameHeight;
         private int mPartWidth;
         private int mPartHeight;
+        /* One per number of vertices sprites using this part have asked
+         * for, usually just one. Replaced whole when one is added. */
+        private volatile UVData[] mUVData;
 
         /**
          * Creates a new texture part
          */
-        public TexturePart(MathMatrix<TextureState.Frame> frameMatrix,
+        public TexturePart(IntGrid frameGrid,
+                           TextureState.Frame[] frames,
                            int frameWidth, int frameHeight) {
-            this.mFrameMatrix = frameMatrix;
+            this.mFrameGrid = frameGrid;
+            this.mFrames = frames;
             this.mFrameWidth = frameWidth;
             this.mFrameHeight = frameHeight;
-            this.mPartWidth = mFrameMatrix.getNumCols() * frameWidth;
-            this.mPartHeight = mFrameMatrix.getNumRows() * frameHeight;
+            this.mPartWidth = mFrameGrid.getNumCols() * frameWidth;
+            this.mPartHeight = mFrameGrid.getNumRows() * frameHeight;
             this.mRGBHandle = 0;
-            this.mAHandle = 0;            /* Making sure each frame in frameMatrix is owned by this part */
-            int rows = frameMatrix.getNumRows();
-            int cols = frameMatrix.getNumCols();
+            this.mAHandle = 0;
+            this.mUVData = new UVData[0];
+            /* Making sure each frame in frameGrid is owned by this part */
+            int rows = frameGrid.getNumRows();
+            int cols = frameGrid.getNumCols();
             for (int i = 0; i < rows; i++)
                 for (int j = 0; j < cols; j++) {
-                    TextureState.Frame frame = frameMatrix.get(i, j);
-                    if (frame != null) frame.setTexturePart(this);
+                    TextureState.Frame frame = getFrame(i, j);
+                    if (frame != null) {
+                        frame.setTexturePart(this);
+                        frame.setPartIndex(i * cols + j);
+                    }
                 }
         }
 
@@ -64,9 +101,9 @@ public class Texture {
          * Registers this texture part with opengl, must be run on the render
          * thread to work.
          */
-        public void registerWithOpenGL() throws StrictGLException {
+        public void registerWithOpenGL(RenderState state) throws StrictGLException {
             int[] handleHolder = new int[2];
-            GLES20.glGenTextures(2, handleHolder, 0);
+            state.getGL().glGenTextures(2, handleHolder, 0);
             this.mRGBHandle = handleHolder[0];
             this.mAHandle = handleHolder[1];
             if (this.mRGBHandle == 0 || this.mAHandle == 0)
@@ -75,14 +112,81 @@ public class Texture {
         }
 
         /**
-         * Frees up resources by calling glDeleteTextures on our handles
+         * Frees up resources by calling glDeleteTextures on our handles and
+         * deleting our texture coordinate VBO, if we have one.
          */
-        public void unregisterWithOpenGL() throws StrictGLException {
+        public void unregisterWithOpenGL(RenderState state) throws StrictGLException {
             if (mRGBHandle <= 0 || mAHandle <= 0)
                 throw new StrictGLException("Attempting to unregister a" +
                                             " texture part that is not been" +
                                             "registered with openGL");
-            GLES20.glDeleteTextures(2, new int[]{mRGBHandle, mAHandle}, 0);
+            state.deleteTextures(new int[]{mRGBHandle, mAHandle});
+            this.mRGBHandle = 0;
+            this.mAHandle = 0;
+            for (UVData uvData : mUVData) {
+                if (uvData.mGeneration == state.getContextGeneration())
+                    state.deleteBuffer(uvData.mHandle);
+                uvData.mHandle = 0;
+                uvData.mGeneration = -1;
+            }
+        }
+
+        /**
+         * Returns the handle of the VBO holding the texture coordinates of
+         * every frame in this part for the given number of vertices,
+         * uploading them first if the GL context was lost. Renderer thread
+         * only.
+         */
+        public int getUVHandle(RenderState state, int numVertices) {
+            UVData uvData = null;
+            for (UVData candidate : mUVData)
+                if (candidate.mNumVertices == numVertices) uvData = candidate;
+            if (uvData == null)
+                throw new RuntimeException("Texture coordinates were never" +
+                                           " created for " + numVertices +
+                                           " vertices. Was updateVertices" +
+                                           " called?");
+            int generation = state.getContextGeneration();
+            if (uvData.mGeneration == generation) return uvData.mHandle;
+            GLApi gl = state.getGL();
+            int[] handleHolder = new int[1];
+            gl.glGenBuffers(1, handleHolder, 0);
+            if (handleHolder[0] == 0)
+                throw new RuntimeException("Could not create a texture" +
+                                           " coordinate VBO.");
+            uvData.mHandle = handleHolder[0];
+            uvData.mGeneration = generation;
+            state.bindArrayBuffer(uvData.mHandle);
+            uvData.mBuffer.position(0);
+            gl.glBufferData(GLES20.GL_ARRAY_BUFFER,
+                            uvData.mBuffer.capacity() * Utils.FLOAT_BYTES,
+                            uvData.mBuffer,
+                            GLES20.GL_STATIC_DRAW);
+            return uvData.mHandle;
+        }
+
+        /**
+         * Writes the corners of the given frame of this part to uvs as
+         * {left s, bottom t, right s, top t}, the same coordinates
+         * updateVertices gives a triangle strip.
+         */
+        public void getFrameUVs(TextureState.Frame frame, float[] uvs) {
+            int cols = mFrameGrid.getNumCols();
+            int row = frame.getPartIndex() / cols;
+            int col = frame.getPartIndex() % cols;
+            float bottomY = (float) mFrameHeight * (float) (row + 1);
+            uvs[0] = (float) (col * mFrameWidth) / (float) mPartWidth;
+            uvs[1] = bottomY / (float) mPartHeight;
+            uvs[2] = (float) ((col + 1) * mFrameWidth) / (float) mPartWidth;
+            uvs[3] = (bottomY + (float) mFrameHeight) / (float) mPartHeight;
+        }
+
+        /**
+         * Returns the byte offset of the given frame's texture coordinates in
+         * our VBO for the given number of vertices.
+         */
+        public int getUVOffset(TextureState.Frame frame, int numVertices) {
+            return frame.getPartIndex() * numVertices * VERTEX_DIM * Utils.FLOAT_BYTES;
         }
 
         public Bitmap[] generateBitmaps(Context context) {
@@ -101,7 +205,7 @@ public class Texture {
             int numFramesVert = mPartHeight / mFrameHeight;
             for (int i = 0; i < numFramesVert; i++) {
                 for (int j = 0; j < numFramesHorz; j++) {
-                    TextureState.Frame frame = mFrameMatrix.get(i, j);
+                    TextureState.Frame frame = getFrame(i, j);
                     Bitmap frameBitmap = null;
                     if (frame != null) {
                         TextureState state = frame.getState();
@@ -145,16 +249,23 @@ public class Texture {
 
         }
 
-        private void updateVerticesToTriangleStrip(int numVertices) {
-		    /* Iterating through frames */
-            int rows = mFrameMatrix.getNumRows();
-            int cols = mFrameMatrix.getNumCols();
+        private synchronized void updateVerticesToTriangleStrip(int numVertices) {
+            /* Every sprite using this texture calls this, usually with the
+             * same number of vertices */
+            UVData[] current = mUVData;
+            for (UVData uvData : current)
+                if (uvData.mNumVertices == numVertices) return;
+		    /* Iterating through frames. Blank frames keep a zeroed slot so
+		     * each frame's offset is just its index in the part. */
+            int rows = mFrameGrid.getNumRows();
+            int cols = mFrameGrid.getNumCols();
+            int frameFloats = numVertices * VERTEX_DIM; // (s, t) for each vertex
+            float[] indices = new float[rows * cols * frameFloats];
             for (int row = 0; row < rows; row++) {
                 for (int col = 0; col < cols; col++) {
-                    TextureState.Frame frame = mFrameMatrix.get(row, col);
-                    if (frame != null) {
+                    if (mFrameGrid.get(row, col) != IntGrid.EMPTY) {
                         /* Create indices */
-                        float[] indices = new float[numVertices * 2]; // (s, t) for each vertex
+                        int start = (row * cols + col) * frameFloats;
                         int halfNumVertices = numVertices / 2;
                         float deltaX = (float) mFrameWidth / (float) (halfNumVertices - 1);
                         for (int i = 0; i < halfNumVertices; i++) {
@@ -162,21 +273,25 @@ public class Texture {
                             float bottomY = ((float) mFrameHeight * (float) (row + 1));
                             float topY = bottomY + (float) mFrameHeight;
                             /* (s, t) ratio coordinates */
-                            indices[4 * i] = x / (float) mPartWidth;
-                            indices[4 * i + 1] = bottomY / (float) mPartHeight;
-                            indices[4 * i + 2] = x / (float) mPartWidth;
-                            indices[4 * i + 3] = topY / (float) mPartHeight;
+                            indices[start + 4 * i] = x / (float) mPartWidth;
+                            indices[start + 4 * i + 1] = bottomY / (float) mPartHeight;
+                            indices[start + 4 * i + 2] = x / (float) mPartWidth;
+                            indices[start + 4 * i + 3] = topY / (float) mPartHeight;
                         }
-                        /* Create a float buffer for the indices */
-                        ByteBuffer b = ByteBuffer.allocateDirect(indices.length *
-                                                                 Utils.FLOAT_BYTES);
-                        b.order(ByteOrder.nativeOrder());
-                        FloatBuffer f = b.asFloatBuffer();
-                        f.put(indices).position(0);
-                        frame.setIndices(f);
                     }
                 }
             }
+            /* Create a float buffer for the indices, picked up by the
+             * renderer on its next draw */
+            ByteBuffer b = ByteBuffer.allocateDirect(indices.length *
+                                                     Utils.FLOAT_BYTES);
+            b.order(ByteOrder.nativeOrder());
+            FloatBuffer f = b.asFloatBuffer();
+            f.put(indices).position(0);
+            UVData[] uvData = new UVData[current.length + 1];
+            System.arraycopy(current, 0, uvData, 0, current.length);
+            uvData[current.length] = new UVData(f, numVertices);
+            mUVData = uvData;
         }
 
         /*
@@ -184,15 +299,20 @@ public class Texture {
          */
 
         public int getNumRows() {
-            return mFrameMatrix.getNumRows();
+            return mFrameGrid.getNumRows();
         }
 
         public int getNumCols() {
-            return mFrameMatrix.getNumCols();
+            return mFrameGrid.getNumCols();
         }
 
+        /**
+         * Returns the frame at the given cell, or null if it is blank.
+         */
         public TextureState.Frame getFrame(int row, int col) {
-            return mFrameMatrix.get(row, col);
+            int id = mFrameGrid.get(row, col);
+            if (id == IntGrid.EMPTY) return null;
+            return mFrames[id];
         }
 
         public int getRGBHandle() {
@@ -219,114 +339,79 @@ public class Texture {
     }
 
     public static final String TAG = "Texture";
+    public static final int VERTEX_DIM = 2;
 
-    private TexController.TexInfo mTexInfo;
-    private TexturePart[] mTextureParts;
-    private HashMap<TexController.TexStateInfo, TextureState> mStates;
-    private TextureState mActiveState;
-    /* Texture information */
-    private int mFrameWidth;
-    private int mFrameHeight;
-
+    private TextureData mData;
+    /* Who to give the data back to, null if it was not shared */
+    private TextureRegistry mRegistry;
+    /* Sprites and fonts holding us, see retain() */
+    private int mRefCount;
+    private boolean mReleased;
+    /* Read by the renderer without locking. The frame knows its state. */
+    private volatile TextureState.Frame mActiveFrame;
+    private long mLastTimeStepped;
+    /* The frame each state was last on, so switching back resumes it */
+    private int[] mStateFrames;
 
-    public static final int VERTEX_DIM = 2;
+    /**
+     * Creates a cursor over the given texture data, starting in its default
+     * state. See {@link TextureRegistry#acquire(TexController.TexInfo)}.
+     *
+     * @param registry The registry the data came from, or null.
+     */
+    public Texture(TextureData data, TextureRegistry registry) {
+        this.mData = data;
+        this.mRegistry = registry;
+        this.mRefCount = 1;
+        this.mReleased = false;
+        this.mActiveFrame = data.getDefaultState().getFrame(0);
+        this.mLastTimeStepped = System.currentTimeMillis();
+        this.mStateFrames = new int[data.getNumStates()];
+    }
 
     /**
-     * Create a texture.
+     * Adds a holder of this texture. A texture starts with one, whoever
+     * loaded it, and every sprite it is handed to adds one.
      */
-    public Texture(TexController.TexInfo texInfo,
-                   TexturePart[] textureParts,
-                   TextureState[] states,
-                   TextureState defaultState,
-                   int framewidth,
-                   int frameHeight) {
-        this.mTexInfo = texInfo;
-        this.mFrameWidth = framewidth;
-        this.mFrameHeight = frameHeight;
-        this.mActiveState = defaultState;
-        this.mStates = new HashMap<TexController.TexStateInfo, TextureState>();
-        this.mTextureParts = textureParts;
-		/* Generate states hashmap */
-        TexController.TexStateInfo[] statesInfo = texInfo.States;
-        int numStates = statesInfo.length;
-        for (int i = 0; i < numStates; i++)
-            mStates.put(statesInfo[i], states[i]);
+    public synchronized void retain() {
+        if (mReleased == true)
+            throw new RuntimeException("Texture " + this + " was already" +
+                                       " released.");
+        mRefCount++;
     }
 
     /**
-     * Registers the texture on the rendering thread. Does not return until
-     * finished registering.
+     * Drops a holder of this texture. The last one gives our texture data
+     * back to its registry, which frees it once no texture uses it, so
+     * nothing may draw with this texture afterwards.
      */
-    public void registerWithOpenGL(GameView gameView,
-                                   final TexType[] rgbTexs,
-                                   final TexType[] aTexs) {
-		/* Create runnable to pass to render thread */
-        Runnable r = new Runnable() {
-            public void run() {
-                int length = mTextureParts.length;
-                for (int i = 0; i < length; i++) {
-                    TexturePart texturePart = mTextureParts[i];
-                    TexType rgbTex = rgbTexs[i];
-                    TexType aTex = aTexs[i];
-					/* Generate texture part handles */
-                    try {
-                        texturePart.registerWithOpenGL();
-                    } catch (StrictGLException e) {
-                        throw new RuntimeException("Texture Part " + i +
-                                                   "'s registration failed" +
-                                                   " for texture " + this);
-                    }
-					/* Load RGB Texture */
-                    int rgbHandle = texturePart.getRGBHandle();
-                    rgbTex.register(rgbHandle);
-					/* Load alpha Texture */
-                    int aHandle = texturePart.getAHandle();
-                    aTex.register(aHandle);
-                }
-            }
-        };
-		/* Queue Event and wait for it to finish */
-        gameView.queueEvent(r);
-        while (gameView.eventFinished(r) == false) {
-            try {
-                Thread.sleep(10l);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    public void release() {
+        synchronized (this) {
+            if (mReleased == true)
+                throw new RuntimeException("Texture " + this + " was already" +
+                                           " released.");
+            if (--mRefCount > 0) return;
+            mReleased = true;
         }
+        if (mRegistry != null) mRegistry.release(this);
     }
-	
-	/*
-	 * Deletion
-	 */
 
     /**
-     * Deletes this texture and free up resources. Runs on the renderer thread.
-     * Does not return until the texture is unregistered.
+     * Gives our texture data back to its registry whoever still holds us.
+     * Used when a whole scene is unloaded. Does nothing if already
+     * released.
      */
-    public void unregisterWithOpenGL(GameView gameView) {
-        Runnable r = new Runnable() {
-            public void run() {
-                for (TexturePart texPart : mTextureParts) {
-                    try {
-                        texPart.unregisterWithOpenGL();
-                    } catch (StrictGLException e) {
-                        throw new RuntimeException("Texture unregisration " +
-                                                   "failed for texture " +
-                                                   this);
-                    }
-                }
-            }
-        };
-		/* Queue event and wait for it to finish. */
-        gameView.queueEvent(r);
-        while (gameView.eventFinished(r) == false) {
-            try {
-                Thread.sleep(10l);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    public void releaseAll() {
+        synchronized (this) {
+            if (mReleased == true) return;
+            mRefCount = 0;
+            mReleased = true;
         }
+        if (mRegistry != null) mRegistry.release(this);
+    }
+
+    public synchronized boolean isReleased() {
+        return mReleased;
     }
 
     /*
@@ -357,70 +442,98 @@ public class Texture {
      * @param renderType TRIANGLE_STRIP ONLY
      */
     public void updateVertices(Renderable.RenderType renderType, int numVertices) {
-        if (renderType != Renderable.RenderType.TRIANGLE_STRIP)
-            throw new RuntimeException("TRIANGLE_STRIP only supported type");
-        for (TexturePart texPart : mTextureParts)
-            texPart.updateVertices(renderType, numVertices);
+        mData.updateVertices(renderType, numVertices);
     }
 
-    public void setActiveState(TexController.TexStateInfo stateInfo) {
-        synchronized (this) {
-            TextureState state = mStates.get(stateInfo);
-            if (state == null)
-                throw new RuntimeException(stateInfo.Name + " is not a valid " +
-                                           " state type for texture " + this);
-            this.mActiveState = state;
-        }
+    /**
+     * Moves to the next frame of the active state if the current one has
+     * been shown for its time. Called by the animator.
+     */
+    public synchronized void step(long time) {
+        TextureState.Frame frame = mActiveFrame;
+        if (time - mLastTimeStepped < frame.getTimeLength()) return;
+        TextureState state = frame.getState();
+        int next = frame.getStateFrame() + 1;
+        if (next >= state.getNumFrames()) next = 0;
+        mStateFrames[state.getIndex()] = next;
+        /* Written once so the renderer never sees a half switched frame */
+        mActiveFrame = state.getFrame(next);
+        mLastTimeStepped = time;
+    }
+
+    public synchronized void setActiveState(TexController.TexStateInfo stateInfo) {
+        TextureState state = mData.getState(stateInfo);
+        if (state == null)
+            throw new RuntimeException(stateInfo.Name + " is not a valid " +
+                                       " state type for texture " + this);
+        if (state == mActiveFrame.getState()) return;
+        mActiveFrame = state.getFrame(mStateFrames[state.getIndex()]);
+        mLastTimeStepped = System.currentTimeMillis();
     }
 
     public int getActiveRGBHandle() {
-        TextureState.Frame activeFrame = mActiveState.getActiveFrame();
-        TexturePart activeTexturePart = activeFrame.getTexturePart();
-        return activeTexturePart.getRGBHandle();
+        return mActiveFrame.getTexturePart().getRGBHandle();
     }
 
     public int getActiveAHandle() {
-        TextureState.Frame activeFrame = mActiveState.getActiveFrame();
-        TexturePart activeTexturePart = activeFrame.getTexturePart();
-        return activeTexturePart.getAHandle();
+        return mActiveFrame.getTexturePart().getAHandle();
     }
 
     public TextureState getActiveState() {
-        return mActiveState;
+        return mActiveFrame.getState();
+    }
+
+    /**
+     * Returns the state with the given info, or null if we have none.
+     */
+    public TextureState getState(TexController.TexStateInfo stateInfo) {
+        return mData.getState(stateInfo);
     }
 
     /**
-     * Outputs the correct indices in the texture to render.
+     * Returns the frame to render. The frame knows its texture part, so
+     * read it once and draw everything from it; the animator may step
+     * this texture in between.
      */
-    public FloatBuffer getActiveIndices() {
-        TextureState.Frame activeFrame = mActiveState.getActiveFrame();
-        FloatBuffer indices = activeFrame.getIndices();
-        if (indices == null) throw new RuntimeException("Indices are null," +
-                                                        " but a sprite is " +
-                                                        " attached! Wut?!");
-        return indices;
+    public TextureState.Frame getActiveFrame() {
+        return mActiveFrame;
     }
 	
 	/*
 	 * Getters and Setters
 	 */
     public String toString() {
-        return this.mTexInfo.toString();
+        return mData.toString();
+    }
+
+    /**
+     * Returns the data shared by every texture with our TexInfo.
+     */
+    public TextureData getData() {
+        return mData;
     }
 
     public TexController.TexInfo getTexInfo() {
-        return mTexInfo;
+        return mData.getTexInfo();
     }
 
     public TexturePart[] getTextureParts() {
-        return mTextureParts;
+        return mData.getTextureParts();
+    }
+
+    /**
+     * See {@link TextureData#getEstimatedBytes()}. Shared with every
+     * texture using the same data.
+     */
+    public long getEstimatedBytes() {
+        return mData.getEstimatedBytes();
     }
 
     public int getFrameWidth() {
-        return mFrameWidth;
+        return mData.getFrameWidth();
     }
 
     public int getFrameHeight() {
-        return mFrameHeight;
+        return mData.getFrameHeight();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,225 @@
+package com.jlreyes.libraries.android_game_engine.sprites.textures;
+
+import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.profiling.Profiler;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture.TexturePart;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.types.TexType;
+import com.jlreyes.libraries.android_game_engine.utils.exceptions.StrictGLException;
+
+import java.util.HashMap;
+
+/**
+ * Everything about a texture that does not change while it animates: its
+ * texture parts and their GL handles, its states and its frame size. One
+ * of these is shared by every {@link Texture} with the same TexInfo, see
+ * {@link TextureRegistry}.
+ *
+ * @author jlreyes
+ */
+public class TextureData {
+    public static final String TAG = "TextureData";
+    private static final String SPAN_UPLOAD = "glUpload";
+
+    private TexController.TexInfo mTexInfo;
+    private TexturePart[] mTextureParts;
+    private HashMap<TexController.TexStateInfo, TextureState> mStates;
+    private TextureState[] mStateList;
+    private TextureState mDefaultState;
+    /* Texture information */
+    private int mFrameWidth;
+    private int mFrameHeight;
+    /* Textures using us, guarded by the registry */
+    private int mRefCount;
+    /* The GL context our parts were last uploaded to, renderer thread */
+    private volatile int mGeneration;
+
+    public TextureData(TexController.TexInfo texInfo,
+                       TexturePart[] textureParts,
+                       TextureState[] states,
+                       TextureState defaultState,
+                       int frameWidth,
+                       int frameHeight) {
+        this.mTexInfo = texInfo;
+        this.mTextureParts = textureParts;
+        this.mStateList = states;
+        this.mDefaultState = defaultState;
+        this.mFrameWidth = frameWidth;
+        this.mFrameHeight = frameHeight;
+        this.mRefCount = 0;
+        this.mGeneration = -1;
+        this.mStates = new HashMap<TexController.TexStateInfo, TextureState>();
+		/* Generate states hashmap */
+        TexController.TexStateInfo[] statesInfo = texInfo.States;
+        int numStates = statesInfo.length;
+        for (int i = 0; i < numStates; i++) {
+            states[i].setIndex(i);
+            mStates.put(statesInfo[i], states[i]);
+        }
+    }
+
+    /**
+     * Registers the texture parts on the rendering thread. Does not return
+     * until finished registering, which is not before the renderer has a
+     * surface. If the calling thread is interrupted first this throws, and
+     * the parts are deleted again should the upload still happen.
+     */
+    public void registerWithOpenGL(GameView gameView,
+                                   final TexType[] rgbTexs,
+                                   final TexType[] aTexs) {
+        final RenderState state = gameView.getGameRenderer().getRenderState();
+		/* Create runnable to pass to render thread */
+        Runnable r = new Runnable() {
+            public void run() {
+                long start = Profiler.RENDER.begin();
+                int length = mTextureParts.length;
+                for (int i = 0; i < length; i++) {
+                    TexturePart texturePart = mTextureParts[i];
+                    TexType rgbTex = rgbTexs[i];
+                    TexType aTex = aTexs[i];
+					/* Generate texture part handles */
+                    try {
+                        texturePart.registerWithOpenGL(state);
+                    } catch (StrictGLException e) {
+                        throw new RuntimeException("Texture Part " + i +
+                                                   "'s registration failed" +
+                                                   " for texture " + this);
+                    }
+					/* Load RGB Texture */
+                    int rgbHandle = texturePart.getRGBHandle();
+                    rgbTex.register(rgbHandle);
+					/* Load alpha Texture */
+                    int aHandle = texturePart.getAHandle();
+                    aTex.register(aHandle);
+                }
+                mGeneration = state.getContextGeneration();
+                Profiler.RENDER.end(SPAN_UPLOAD, start);
+            }
+        };
+		/* Waits for a surface, so loading can start before there is one */
+        try {
+            gameView.runAndWait(r);
+        } catch (RuntimeException e) {
+            /* Queued after the upload, so it runs after it if it ever does */
+            unregisterWithOpenGL(gameView);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the texture parts and frees up resources. Queued to the
+     * renderer thread without waiting, so it runs before the next frame.
+     * Skipped if the context we were uploaded to is gone, our handles went
+     * with it.
+     */
+    public void unregisterWithOpenGL(GameView gameView) {
+        final RenderState state = gameView.getGameRenderer().getRenderState();
+        Runnable r = new Runnable() {
+            public void run() {
+                if (mGeneration != state.getContextGeneration()) return;
+                for (TexturePart texPart : mTextureParts) {
+                    try {
+                        texPart.unregisterWithOpenGL(state);
+                    } catch (StrictGLException e) {
+                        throw new RuntimeException("Texture unregisration " +
+                                                   "failed for texture " +
+                                                   this);
+                    }
+                }
+                mGeneration = -1;
+            }
+        };
+        gameView.queueEvent(r);
+    }
+
+    /**
+     * See {@link Texture#updateVertices(Renderable.RenderType, int)}. Parts
+     * keep texture coordinates for every vertex count asked for, so sprites
+     * of different shapes can share them.
+     */
+    public void updateVertices(Renderable.RenderType renderType, int numVertices) {
+        if (renderType != Renderable.RenderType.TRIANGLE_STRIP)
+            throw new RuntimeException("TRIANGLE_STRIP only supported type");
+        for (TexturePart texPart : mTextureParts)
+            texPart.updateVertices(renderType, numVertices);
+    }
+
+    /**
+     * True if any state has more than one frame.
+     */
+    public boolean isAnimated() {
+        return mStateList.length != mTexInfo.NumFrames;
+    }
+
+    /*
+     * Reference counting, called by the registry only
+     */
+    void retain() {
+        mRefCount++;
+    }
+
+    /**
+     * Returns the number of references left.
+     */
+    int release() {
+        if (mRefCount <= 0)
+            throw new RuntimeException("Texture data " + this + " was released" +
+                                       " more times than it was retained.");
+        return --mRefCount;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public String toString() {
+        return this.mTexInfo.toString();
+    }
+
+    public TexController.TexInfo getTexInfo() {
+        return mTexInfo;
+    }
+
+    public TexturePart[] getTextureParts() {
+        return mTextureParts;
+    }
+
+    /**
+     * Returns the state with the given info, or null if we have none.
+     */
+    public TextureState getState(TexController.TexStateInfo stateInfo) {
+        return mStates.get(stateInfo);
+    }
+
+    public TextureState getDefaultState() {
+        return mDefaultState;
+    }
+
+    public int getNumStates() {
+        return mStateList.length;
+    }
+
+    public int getRefCount() {
+        return mRefCount;
+    }
+
+    /**
+     * Returns roughly how much GL memory this texture takes once registered,
+     * counting 3 bytes per pixel for the rgb texture and 1 for the alpha
+     * texture of every part. Compressed textures take less.
+     */
+    public long getEstimatedBytes() {
+        long bytes = 0;
+        for (TexturePart part : mTextureParts)
+            bytes += (long) part.getPartWidth() * (long) part.getPartHeight() * 4l;
+        return bytes;
+    }
+
+    public int getFrameWidth() {
+        return mFrameWidth;
+    }
+
+    public int getFrameHeight() {
+        return mFrameHeight;
+    }
+}
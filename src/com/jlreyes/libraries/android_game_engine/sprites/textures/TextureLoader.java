@@ -8,6 +8,7 @@ import com.jlreyes.libraries.android_game_engine.io.GameView;
 import com.jlreyes.libraries.android_game_engine.io.storage.external.ExternalStorageHelper;
 import com.jlreyes.libraries.android_game_engine.io.storage.filetypes.TextureImageFile;
 import com.jlreyes.libraries.android_game_engine.io.storage.filetypes.TextureInfoFile;
+import com.jlreyes.libraries.android_game_engine.io.storage.filetypes.TextureManifestFile;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture.TexturePart;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.types.BitmapTexType;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.types.ETC1TexType;
@@ -15,10 +16,7 @@ import com.jlreyes.libraries.android_game_engine.sprites.textures.types.TexType;
 import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
 import com.jlreyes.libraries.android_game_engine.utils.Utils.Direction;
 import com.jlreyes.libraries.android_game_engine.utils.exceptions.*;
-import com.jlreyes.libraries.android_game_engine.utils.math.MathMatrixConstructor;
-import com.jlreyes.libraries.android_game_engine.utils.math.Tuple;
-import com.jlreyes.libraries.android_game_engine.utils.math.function.Function0;
-import com.jlreyes.libraries.android_game_engine.utils.typewrappers.IntWrapper;
+import com.jlreyes.libraries.android_game_engine.utils.math.IntGrid;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -30,8 +28,13 @@ import java.util.ArrayList;
  */
 public class TextureLoader {
     public static final String TAG = "Texture Loader";
+    public static final String MANIFEST_FILE_NAME = "textures";
     public static long MEMORY_USED = 0l;
 
+    /* The cache manifest, loaded on first use */
+    private static final Object MANIFEST_LOCK = new Object();
+    private static TextureManifestFile MANIFEST = null;
+
     /**
      * TexInfo is a public, purely-organizational, class used by the Texture
      * Loader to transfer texture info around methods. It holds a given
@@ -41,7 +44,17 @@ public class TextureLoader {
      *
      * @author jlreyes
      */
-    public static class TexInfo extends Tuple {
+    public static class TexInfo {
+        private final Texture.TexturePart[] mTexParts;
+        private final TexType[] mRGBTexs;
+        private final TexType[] mATexs;
+        private final TextureState mDefaultState;
+        private final TextureState[] mStates;
+        private final int mFrameWidth;
+        private final int mFrameHeight;
+        /* Of the files this was read from, 0 if it was not read from storage */
+        private final long mChecksum;
+
         protected TexInfo(Texture.TexturePart[] texParts,
                           TexType[] rgbTexs,
                           TexType[] aTexs,
@@ -49,41 +62,77 @@ public class TextureLoader {
                           TextureState[] states,
                           int frameWidth,
                           int frameHeight) {
-            super(texParts,
-                  rgbTexs,
-                  aTexs,
-                  defaultState,
-                  states,
-                  frameWidth,
-                  frameHeight);
+            this(texParts, rgbTexs, aTexs, defaultState, states,
+                 frameWidth, frameHeight, 0l);
+        }
+
+        protected TexInfo(Texture.TexturePart[] texParts,
+                          TexType[] rgbTexs,
+                          TexType[] aTexs,
+                          TextureState defaultState,
+                          TextureState[] states,
+                          int frameWidth,
+                          int frameHeight,
+                          long checksum) {
+            this.mTexParts = texParts;
+            this.mRGBTexs = rgbTexs;
+            this.mATexs = aTexs;
+            this.mDefaultState = defaultState;
+            this.mStates = states;
+            this.mFrameWidth = frameWidth;
+            this.mFrameHeight = frameHeight;
+            this.mChecksum = checksum;
         }
 
         public Texture.TexturePart[] getTexParts() {
-            return (TexturePart[]) super.get(0);
+            return mTexParts;
         }
 
         public TexType[] getRGBTexs() {
-            return (TexType[]) super.get(1);
+            return mRGBTexs;
         }
 
         public TexType[] getATexs() {
-            return (TexType[]) super.get(2);
+            return mATexs;
         }
 
         public TextureState getDefaultState() {
-            return (TextureState) super.get(3);
+            return mDefaultState;
         }
 
         public TextureState[] getStates() {
-            return (TextureState[]) super.get(4);
+            return mStates;
         }
 
         public int getFrameWidth() {
-            return (Integer) super.get(5);
+            return mFrameWidth;
         }
 
         public int getFrameHeight() {
-            return (Integer) super.get(6);
+            return mFrameHeight;
+        }
+
+        public long getChecksum() {
+            return mChecksum;
+        }
+    }
+
+    /**
+     * Where CreateTextureParts is in the texture's frames while packing
+     * them into parts.
+     */
+    private static class PackCursor {
+        private int mNumFramesLeft;
+        private int mState;
+        private int mStateFrame;
+        /* Index of the next frame in TextureState.AllFrames */
+        private int mFrameId;
+
+        public PackCursor(int numFrames) {
+            this.mNumFramesLeft = numFrames;
+            this.mState = 0;
+            this.mStateFrame = 0;
+            this.mFrameId = 0;
         }
     }
 
@@ -95,17 +144,38 @@ public class TextureLoader {
      *
      * @param texControllerInfo The texture to load.
      * @param context           An application context to load resources from.
-     * @return The loaded texture.
+     * @return The loaded texture. It is not shared or registered with
+     *         openGL, so it never needs releasing.
      */
     public static Texture LoadTextureForVerification(TexController.TexInfo texControllerInfo,
                                                      Context context) {
-        return LoadTexture(texControllerInfo, context, null, null);
+        if (texControllerInfo == TexController.NO_TEX) return null;
+        return new Texture(LoadTextureData(texControllerInfo, context, null, null), null);
+    }
+
+    /**
+     * Makes sure a valid texture file exists on the device for the given
+     * texture, like LoadTextureForVerification, but only reads the cache
+     * manifest and stats the texture's files. Their contents are checked
+     * against the manifest's checksum the first time the texture is loaded
+     * for real. Creates the texture file if the check fails.
+     *
+     * @return True if the cached texture looked valid.
+     */
+    public static boolean VerifyTexture(TexController.TexInfo texControllerInfo,
+                                        Context context) {
+        if (texControllerInfo == TexController.NO_TEX) return true;
+        if (CacheLooksValid(texControllerInfo, context) == true) return true;
+        LoadTextureForVerification(texControllerInfo, context);
+        return false;
     }
 
     /**
      * Load a texture using the scheduler's context, gameview, and animator.
      * Calling this method will have the side effect of creating a texture
-     * file on the device if one does not exist.
+     * file on the device if one does not exist. The texture's data is
+     * shared with every other texture with the same info, see
+     * {@link TextureRegistry}, so release it when done.
      *
      * @param texControllerInfo The texture to load.
      * @param scheduler         The scheduler for the game.
@@ -113,32 +183,27 @@ public class TextureLoader {
      */
     public static Texture LoadTexture(TexController.TexInfo texControllerInfo,
                                       Scheduler scheduler) {
-        return LoadTexture(texControllerInfo,
-                           scheduler.getContext(),
-                           scheduler.getGameView(),
-                           scheduler.getAnimator());
+        return scheduler.getTextureRegistry().acquire(texControllerInfo);
     }
 
     /**
-     * Loads the texture with the given textureId. Has various effects depending
-     * on the arguments supplied. Thus, this method is private.
+     * Loads the data of the texture with the given textureId. Only the
+     * registry should call this with a game view, everyone else goes
+     * through {@link #LoadTexture(TexController.TexInfo, Scheduler)}.
      *
      * @param texControllerInfo Required. The texture to load.
      * @param context           The Android context to grab resources from.
      * @param gameView          Optional. If supplied, the texture will be registered with
      *                          openGL ES.
-     * @param animator          Optional. If supplied the texture will be registered with
-     *                          the given animator. That is, the state of the texture will be updated
-     *                          according the its animation properties.
-     * @return A fully loaded texture.
+     * @param memoryCache       Optional. If supplied along with the game view, the
+     *                          image data is handed to it instead of being recycled.
+     * @return The fully loaded texture data.
      */
-    private static Texture LoadTexture(TexController.TexInfo texControllerInfo,
+    static TextureData LoadTextureData(TexController.TexInfo texControllerInfo,
                                        Context context,
                                        GameView gameView,
-                                       Animator animator) {
-        if (texControllerInfo == TexController.NO_TEX) return null;
-
-        /** Tuple containing all important information about the texture */
+                                       TextureMemoryCache memoryCache) {
+        /** All the important information about the texture */
         TexInfo texInfo = GetTexInfo(texControllerInfo, context);
         Texture.TexturePart[] textureParts = texInfo.getTexParts();
         TexType[] rgbTexs = texInfo.getRGBTexs();
@@ -153,20 +218,18 @@ public class TextureLoader {
             throw new RuntimeException("length of textureParts, rgbTexs, and" +
                                        "aTexs must the same.");
     	/* Loading the texture */
-        Texture texture = new Texture(texControllerInfo,
-                                      textureParts,
-                                      states,
-                                      defaultState,
-                                      frameWidth,
-                                      frameHeight);
+        TextureData data = new TextureData(texControllerInfo,
+                                           textureParts,
+                                           states,
+                                           defaultState,
+                                           frameWidth,
+                                           frameHeight);
     	/* Registering with opengl if we need to */
-        if (gameView != null) texture.registerWithOpenGL(gameView,
-                                                         rgbTexs, aTexs);
-		/* Register with animator if we need */
-        if (animator != null) {
-		    /* If each state only has one frame, there is no need to animate. */
-            int numFrames = texControllerInfo.NumFrames;
-            if (states.length != numFrames) animator.addTexture(texture);
+        if (gameView != null) data.registerWithOpenGL(gameView, rgbTexs, aTexs);
+        /* Keeping the image data in memory if we can */
+        if (gameView != null && memoryCache != null) {
+            memoryCache.put(data, rgbTexs, aTexs);
+            return data;
         }
 		/* Recycling the textures */
         int numTexs = textureParts.length;
@@ -178,20 +241,22 @@ public class TextureLoader {
         }
         rgbTexs = null;
         aTexs = null;
-        System.gc();
-        return texture;
+        return data;
     }
 
     /**
-     * Given a textureId, generates and returns its tex info.
+     * Given a textureId, generates and returns its tex info. Files missing
+     * or broken in storage are recreated. Also used by the
+     * {@link TextureRegistry} to reload textures on resume.
      *
      * @return An instance of {@link com.jlreyes.libraries.android_game_engine.sprites.textures.TextureLoader.TexInfo}
      */
-    private static TexInfo GetTexInfo(TexController.TexInfo texControllerInfo,
+    static TexInfo GetTexInfo(TexController.TexInfo texControllerInfo,
                                       Context context) {
         TexInfo texInfo = null;
         try {
             texInfo = TexFromStorage(texControllerInfo, context);
+            CheckManifest(texControllerInfo, texInfo, context);
         } catch (MissingFileException e) {
             /* There was a file missing in this texture, recreate */
             texInfo = CreateTex(texControllerInfo, context);
@@ -218,6 +283,143 @@ public class TextureLoader {
         }
         return texInfo;
     }
+
+	/*
+	 * THE CACHE MANIFEST
+	 */
+
+    /**
+     * Returns the name the given texture's files start with.
+     */
+    private static String FileName(TexController.TexInfo texControllerInfo) {
+        return texControllerInfo.Name + "_" + TexController.RESOLUTION;
+    }
+
+    /**
+     * Returns the names of a texture's files in manifest order, the texInfo
+     * file then the rgb and alpha images of each part.
+     */
+    private static String[] FileNames(String fileName, int numTexParts) {
+        String[] fileNames = new String[1 + 2 * numTexParts];
+        fileNames[0] = fileName + "." + TextureInfoFile.EXTENSION;
+        for (int i = 0; i < numTexParts; i++) {
+            fileNames[1 + 2 * i] = fileName + "_rgb_" + i + "." + TextureImageFile.EXTENSION;
+            fileNames[2 + 2 * i] = fileName + "_a_" + i + "." + TextureImageFile.EXTENSION;
+        }
+        return fileNames;
+    }
+
+    /**
+     * Folds the checksum of the next file into a texture's checksum.
+     */
+    private static long CombineChecksum(long checksum, long fileChecksum) {
+        return 31l * checksum + fileChecksum;
+    }
+
+    /**
+     * Returns the manifest, loading it if we haven't yet. A missing or
+     * broken manifest is an empty one, which only costs a slow start.
+     * Hold MANIFEST_LOCK.
+     */
+    private static TextureManifestFile GetManifest(Context context) {
+        if (MANIFEST != null) return MANIFEST;
+        MANIFEST = new TextureManifestFile(MANIFEST_FILE_NAME);
+        try {
+            MANIFEST.load(context);
+        } catch (MissingFileException e) {
+            Log.i(TAG, "No texture manifest, every texture will be checked.");
+        } catch (Exception e) {
+            Log.w(TAG, "Texture manifest unreadable, every texture will be" +
+                       " checked: " + e.getMessage());
+            MANIFEST = new TextureManifestFile(MANIFEST_FILE_NAME);
+        }
+        return MANIFEST;
+    }
+
+    /**
+     * True if the manifest has the texture at its version and resolution and
+     * each of its files has the size the manifest says.
+     */
+    private static boolean CacheLooksValid(TexController.TexInfo texControllerInfo,
+                                           Context context) {
+        String fileName = FileName(texControllerInfo);
+        TextureManifestFile.Entry entry;
+        synchronized (MANIFEST_LOCK) {
+            entry = GetManifest(context).get(fileName);
+        }
+        if (entry == null) return false;
+        if (entry.Version < texControllerInfo.Version) return false;
+        if (entry.Resolution != TexController.RESOLUTION.ordinal()) return false;
+        int numFiles = entry.FileSizes.length;
+        if (numFiles < 1 || numFiles % 2 != 1) return false;
+        String[] fileNames = FileNames(fileName, (numFiles - 1) / 2);
+        try {
+            for (int i = 0; i < numFiles; i++)
+                if (ExternalStorageHelper.FileSize(context, fileNames[i]) != entry.FileSizes[i])
+                    return false;
+        } catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks a texture just read from storage against its manifest entry,
+     * adding the entry if it is missing or old.
+     *
+     * @throws FileCorruptedException If the files' contents don't match the
+     *                                checksum the manifest has for them.
+     */
+    private static void CheckManifest(TexController.TexInfo texControllerInfo,
+                                      TexInfo texInfo,
+                                      Context context)
+            throws FileCorruptedException {
+        TextureManifestFile.Entry entry;
+        synchronized (MANIFEST_LOCK) {
+            entry = GetManifest(context).get(FileName(texControllerInfo));
+        }
+        if (entry != null &&
+            entry.Version == texControllerInfo.Version &&
+            entry.Resolution == TexController.RESOLUTION.ordinal()) {
+            if (entry.Checksum != texInfo.getChecksum())
+                throw new FileCorruptedException("Checksum of " + FileName(texControllerInfo) +
+                                                 " does not match the manifest.");
+            return;
+        }
+        RecordInManifest(texControllerInfo,
+                         texInfo.getTexParts().length,
+                         texInfo.getChecksum(),
+                         context);
+    }
+
+    /**
+     * Stores the given texture's files in the manifest and writes it out. A
+     * manifest that could not be written only costs a slow start.
+     */
+    private static void RecordInManifest(TexController.TexInfo texControllerInfo,
+                                         int numTexParts,
+                                         long checksum,
+                                         Context context) {
+        String fileName = FileName(texControllerInfo);
+        String[] fileNames = FileNames(fileName, numTexParts);
+        synchronized (MANIFEST_LOCK) {
+            TextureManifestFile manifest = GetManifest(context);
+            try {
+                long[] fileSizes = new long[fileNames.length];
+                for (int i = 0; i < fileNames.length; i++)
+                    fileSizes[i] = ExternalStorageHelper.FileSize(context, fileNames[i]);
+                manifest.put(new TextureManifestFile.Entry(fileName,
+                                                           texControllerInfo.Version,
+                                                           TexController.RESOLUTION.ordinal(),
+                                                           checksum,
+                                                           fileSizes));
+                manifest.create(context);
+            } catch (Exception e) {
+                Log.w(TAG, "Could not update the texture manifest: " + e.getMessage());
+                manifest.remove(fileName);
+            }
+        }
+    }
 	
 	/*
 	 * SAVING A TEXTURE
@@ -226,7 +428,7 @@ public class TextureLoader {
     private static void SaveTexInStorage(TexController.TexInfo texControllerInfo,
                                          TexInfo texInfo,
                                          Context context) {
-        String fileName = texControllerInfo.Name + "_" + TexController.RESOLUTION;
+        String fileName = FileName(texControllerInfo);
         long lastModified = texControllerInfo.Version;
         try {
 	        /* Create texture info file */
@@ -243,13 +445,17 @@ public class TextureLoader {
             TexType[][] texImages = new TexType[][]{
                     texInfo.getRGBTexs(), texInfo.getATexs()
             };
+            long checksum = texInfoFile.getChecksum();
             int numTexParts = texInfo.getTexParts().length;
             for (int i = 0; i < numTexParts; i++) {
                 TextureImageFile rgbFile = new TextureImageFile(fileName + "_rgb_" + i);
                 rgbFile.create(context, texImages[0][i]);
+                checksum = CombineChecksum(checksum, rgbFile.getChecksum());
                 TextureImageFile aFile = new TextureImageFile(fileName + "_a_" + i);
                 aFile.create(context, texImages[1][i]);
+                checksum = CombineChecksum(checksum, aFile.getChecksum());
             }
+            RecordInManifest(texControllerInfo, numTexParts, checksum, context);
         } catch (IOException e) {
 	        /* This is serious, force close. */
             e.printStackTrace();
@@ -303,7 +509,7 @@ public class TextureLoader {
                    InvalidFileSizeException,
                    DataExpiredException {
 		/* Getting attributes */
-        final String fileName = texControllerInfo.Name + "_" + TexController.RESOLUTION;
+        final String fileName = FileName(texControllerInfo);
 		/* Test if the texInfo file is there. Prevents doing unnecessary calculation 
 		 * if its not */
         boolean fileExists =
@@ -324,6 +530,7 @@ public class TextureLoader {
                                                       frameWidth,
                                                       frameHeight);
         texInfo.load(context);
+        long checksum = texInfo.getChecksum();
         TexturePart[] texParts = texInfo.getTexParts();
         /* Attempt to open our texture image files */
         int numTexParts = texParts.length;
@@ -334,11 +541,13 @@ public class TextureLoader {
             String rgbFileName = fileName + "_rgb_" + i;
             TextureImageFile rgbFile = new TextureImageFile(rgbFileName);
             rgbFile.load(context);
+            checksum = CombineChecksum(checksum, rgbFile.getChecksum());
             rgbTexs[i] = rgbFile.getTexType();
             /* Alpha Image */
             String aFileName = fileName + "_a_" + i;
             TextureImageFile aFile = new TextureImageFile(aFileName);
             aFile.load(context);
+            checksum = CombineChecksum(checksum, aFile.getChecksum());
             aTexs[i] = aFile.getTexType();
         }
         return new TexInfo(texParts,
@@ -347,7 +556,8 @@ public class TextureLoader {
                            defaultState,
                            states,
                            frameWidth,
-                           frameHeight);
+                           frameHeight,
+                           checksum);
     }
 	
 	/*
@@ -411,6 +621,15 @@ public class TextureLoader {
         TexController.TexStateInfo[] stateInfo = texControllerInfo.States;
         int numStates = stateInfo.length;
         TextureState[] states = new TextureState[numStates];
+        /* Fonts draw their frames instead of loading them */
+        if (texControllerInfo instanceof TexController.FontTexInfo) {
+            TexController.FontTexInfo fontInfo =
+                    (TexController.FontTexInfo) texControllerInfo;
+            for (int i = 0; i < numStates; i++)
+                states[i] = new GlyphTextureState(fontInfo, stateInfo[i],
+                                                  frameWidth, frameHeight);
+            return states;
+        }
         for (int i = 0; i < numStates; i++)
             states[i] = new TextureState(stateInfo[i], frameWidth, frameHeight);
         return states;
@@ -427,73 +646,61 @@ public class TextureLoader {
     }
 
     /**
-     * Creates texture parts from scratch with the given information.
+     * Creates texture parts from scratch with the given information. Only
+     * called while loading; public as a hook for the benchmarks, which time
+     * the packing on its own.
      */
-    private static Texture.TexturePart[] CreateTextureParts(TexController.TexInfo texControllerInfos,
-                                                            TextureState[] states,
-                                                            int numFrames,
-                                                            int frameWidth,
-                                                            int frameHeight) {
+    public static Texture.TexturePart[] CreateTextureParts(TexController.TexInfo texControllerInfos,
+                                                    TextureState[] states,
+                                                    int numFrames,
+                                                    int frameWidth,
+                                                    int frameHeight) {
 		/* Getting the maximum texture size */
         int maxTexSize = GLES20.GL_MAX_TEXTURE_SIZE;
         if (maxTexSize == 0)
             throw new RuntimeException("Attempting to create texture parts " +
                                        " without a maximum texture size.");
-        IntWrapper numFramesLeft = new IntWrapper(numFrames);
-        IntWrapper currentState = new IntWrapper(0);
-        IntWrapper stateFrame = new IntWrapper(0);
+        TextureState.Frame[] frames = TextureState.AllFrames(states);
+        PackCursor cursor = new PackCursor(numFrames);
         ArrayList<Texture.TexturePart> textureParts =
                 new ArrayList<Texture.TexturePart>();
-        while (numFramesLeft.getInt() > 0) {
-			/* Construction of the texturepart matrix */
-            MathMatrixConstructor<TextureState.Frame> constructor =
-                    new MathMatrixConstructor<TextureState.Frame>();
-            constructor.addRow();
-            constructor.addColumn();
+        while (cursor.mNumFramesLeft > 0) {
+			/* Construction of the texturepart grid */
+            IntGrid grid = new IntGrid(1, 1);
 			/* The width and height of the texture part */
             int partWidth = frameWidth;
             int partHeight = frameHeight;
 			/* Manually fill the first index */
-            FillTexturePartMatrix(constructor,
-                                  0, 0,
-                                  Direction.NONE,
-                                  states,
-                                  numFramesLeft,
-                                  currentState,
-                                  stateFrame);
+            FillTexturePartGrid(grid, 0, 0, Direction.NONE, states, cursor);
 			/* Automatically fill the rest */
             while (true) {
-                if (numFramesLeft.isZero() == true) break;
+                if (cursor.mNumFramesLeft == 0) break;
 				/* Adding a column if possible */
                 if (partWidth + frameWidth <= maxTexSize) {
-                    constructor.addColumn();
+                    grid.addColumn();
                     partWidth += frameWidth;
                 } else break;
 				/* Filling down */
-                FillTexturePartMatrix(constructor,
-                                      0, constructor.getCols() - 1,
-                                      Direction.DOWN,
-                                      states,
-                                      numFramesLeft,
-                                      currentState,
-                                      stateFrame);
-                if (numFramesLeft.isZero() == true) break;
+                FillTexturePartGrid(grid,
+                                    0, grid.getNumCols() - 1,
+                                    Direction.DOWN,
+                                    states,
+                                    cursor);
+                if (cursor.mNumFramesLeft == 0) break;
 				/* Adding a row if possible */
                 if (partHeight + frameHeight <= maxTexSize) {
-                    constructor.addRow();
+                    grid.addRow();
                     partHeight += frameHeight;
                 } else break;
 				/* Filling left */
-                FillTexturePartMatrix(constructor,
-                                      constructor.getRows() - 1,
-                                      constructor.getCols() - 1,
-                                      Direction.LEFT,
-                                      states,
-                                      numFramesLeft,
-                                      currentState,
-                                      stateFrame);
+                FillTexturePartGrid(grid,
+                                    grid.getNumRows() - 1,
+                                    grid.getNumCols() - 1,
+                                    Direction.LEFT,
+                                    states,
+                                    cursor);
             }
-            TexturePart texturePart = new TexturePart(constructor.finish(),
+            TexturePart texturePart = new TexturePart(grid, frames,
                                                       frameWidth, frameHeight);
             textureParts.add(texturePart);
         }
@@ -502,108 +709,65 @@ public class TextureLoader {
     }
 
     /**
-     * Given a direction, returns a function to applied every iteration in
-     * TextureLoader.FillTexturePartMatrix
+     * Fills the given texture part grid in the direction given, starting at
+     * (startRow, startCol), with the frames after the cursor.
      */
-    private static Function0<Void> GetFillDirFunction(Direction dir,
-                                                      final IntWrapper row,
-                                                      final IntWrapper col) {
-        Function0<Void> dirFunction = null;
+    private static void FillTexturePartGrid(IntGrid grid,
+                                            int startRow,
+                                            int startCol,
+                                            Direction dir,
+                                            TextureState[] states,
+                                            PackCursor cursor) {
+        int row = startRow;
+        int col = startCol;
+		/* How each iteration moves */
+        int rowStep = 0;
+        int colStep = 0;
         switch (dir) {
-            case DOWN: {
-                dirFunction = new Function0<Void>() {
-                    public Void run() {
-                        row.setInt(row.getInt() + 1);
-                        return null;
-                    }
-                };
+            case DOWN:
+                rowStep = 1;
                 break;
-            }
-            case UP: {
-                dirFunction = new Function0<Void>() {
-                    public Void run() {
-                        row.setInt(row.getInt() - 1);
-                        return null;
-                    }
-                };
+            case UP:
+                rowStep = -1;
                 break;
-            }
-            case LEFT: {
-                dirFunction = new Function0<Void>() {
-                    public Void run() {
-                        col.setInt(col.getInt() - 1);
-                        return null;
-                    }
-                };
+            case LEFT:
+                colStep = -1;
                 break;
-            }
-            case RIGHT: {
-                dirFunction = new Function0<Void>() {
-                    public Void run() {
-                        col.setInt(col.getInt() + 1);
-                        return null;
-                    }
-                };
+            case RIGHT:
+                colStep = 1;
                 break;
-            }
-            case NONE: {
-                dirFunction = new Function0<Void>() {
-                    public Void run() {
-                        return null;
-                    }
-                };
+            case NONE:
                 break;
-            }
         }
-        return dirFunction;
-    }
-
-    /**
-     * Fills the given texture part in the direction given with the frames
-     * dictated by the given arguments.
-     */
-    private static void FillTexturePartMatrix
-    (MathMatrixConstructor<TextureState.Frame> mConstructor,
-     int startRow,
-     int startCol,
-     Direction dir,
-     TextureState[] states,
-     IntWrapper numFramesLeft,
-     IntWrapper currentState,
-     IntWrapper stateFrame) {
-        IntWrapper row = new IntWrapper(startRow);
-        IntWrapper col = new IntWrapper(startCol);
-		/* Direction Function */
-        Function0<Void> dirFunction = GetFillDirFunction(dir, row, col);
-        while (mConstructor.isIn(row.getInt(), col.getInt())) {
+        while (grid.isIn(row, col)) {
 			/*
 			 * Filling the frame
 			 */
-            TextureState state = states[currentState.getInt()];
-            TextureState.Frame frame = state.getFrame(stateFrame.getInt());
-            mConstructor.set(row.getInt(), col.getInt(), frame);
+            TextureState state = states[cursor.mState];
+            grid.set(row, col, cursor.mFrameId);
 			/*
 			 * Future Calculations
 			 */
-            numFramesLeft.decrement();
-            if (numFramesLeft.isZero() == true) return;
+            cursor.mFrameId++;
+            cursor.mNumFramesLeft--;
+            if (cursor.mNumFramesLeft == 0) return;
 			/* Calculate the state of the next frame */
-            stateFrame.increment();
-            if (stateFrame.getInt() >= state.getNumFrames()) {
-                currentState.increment();
-                if (currentState.getInt() >= states.length)
+            cursor.mStateFrame++;
+            if (cursor.mStateFrame >= state.getNumFrames()) {
+                cursor.mState++;
+                if (cursor.mState >= states.length)
                     throw new RuntimeException("For some reason numFramesLeft " +
-                                               "was equal to " + numFramesLeft.getInt() +
+                                               "was equal to " + cursor.mNumFramesLeft +
                                                " instead of 0. This would have caused" +
                                                "an index out of bounds error next time" +
                                                "around since the there are no states" +
                                                "left to work with.");
-                stateFrame.setInt(0);
+                cursor.mStateFrame = 0;
             }
             if (dir == Direction.NONE) return;
-            dirFunction.run();
+            row += rowStep;
+            col += colStep;
         }
     }
 
-
 }
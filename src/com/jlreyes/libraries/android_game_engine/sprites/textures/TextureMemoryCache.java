@@ -0,0 +1,191 @@
+package com.jlreyes.libraries.android_game_engine.sprites.textures;
+
+import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.types.TexType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the image data of loaded textures in memory, in direct buffers, so
+ * when the GL context is lost they can be uploaded again straight from RAM
+ * instead of being read back from external storage. ETC1 data is kept
+ * compressed, alpha data as raw pixels.
+ *
+ * Holds at most its budget in bytes. The least recently used textures are
+ * dropped first; their copy in external storage is still there, so they
+ * are just read from storage again. A budget of 0, the default, keeps
+ * nothing. Thread safe, used by the {@link TextureRegistry}.
+ *
+ * @author jlreyes
+ */
+public class TextureMemoryCache {
+    public static final String TAG = "TextureMemoryCache";
+    public static final long DEFAULT_BUDGET = 0l;
+
+    /**
+     * The image data of one texture, by texture part. Only touched under
+     * the cache's lock, except the images themselves while being restored.
+     */
+    private static class Images {
+        private final TexType[] mRGBTexs;
+        private final TexType[] mATexs;
+        private final long mNumBytes;
+        /* How many restores are uploading these right now */
+        private int mNumRestoring;
+        /* Dropped from the cache while restoring, the last one recycles */
+        private boolean mDropped;
+
+        private Images(TexType[] rgbTexs, TexType[] aTexs, long numBytes) {
+            this.mRGBTexs = rgbTexs;
+            this.mATexs = aTexs;
+            this.mNumBytes = numBytes;
+            this.mNumRestoring = 0;
+            this.mDropped = false;
+        }
+
+        /**
+         * Recycles the images, or leaves it to the last restore still
+         * uploading them.
+         */
+        private void drop() {
+            if (mNumRestoring > 0) mDropped = true;
+            else recycle();
+        }
+
+        private void recycle() {
+            int length = mRGBTexs.length;
+            for (int i = 0; i < length; i++) {
+                mRGBTexs[i].recycle();
+                mATexs[i].recycle();
+                mRGBTexs[i] = null;
+                mATexs[i] = null;
+            }
+        }
+    }
+
+    /* In access order, least recently used first */
+    private LinkedHashMap<TextureData, Images> mImages;
+    private long mBudget;
+    private long mNumBytes;
+
+    public TextureMemoryCache() {
+        this.mImages = new LinkedHashMap<TextureData, Images>(16, 0.75f, true);
+        this.mBudget = DEFAULT_BUDGET;
+        this.mNumBytes = 0l;
+    }
+
+    /**
+     * Takes the given image data of the given texture, which must already
+     * be registered with openGL. Keeps it if it fits the budget, dropping
+     * less recently used textures to make room, and recycles it otherwise.
+     * Either way, the caller must not use the arrays' contents afterwards.
+     */
+    public synchronized void put(TextureData data,
+                                 TexType[] rgbTexs,
+                                 TexType[] aTexs) {
+        remove(data);
+        long numBytes = 0l;
+        int length = rgbTexs.length;
+        for (int i = 0; i < length; i++)
+            numBytes += rgbTexs[i].getNumBytes() + aTexs[i].getNumBytes();
+        Images images = new Images(rgbTexs, aTexs, numBytes);
+        if (numBytes > mBudget) {
+            images.recycle();
+            return;
+        }
+        /* Copied into direct buffers only once we know we are keeping it */
+        for (int i = 0; i < length; i++) {
+            rgbTexs[i] = rgbTexs[i].toDirectBuffer();
+            aTexs[i] = aTexs[i].toDirectBuffer();
+        }
+        mImages.put(data, images);
+        mNumBytes += numBytes;
+        trim();
+    }
+
+    /**
+     * Registers the given texture with openGL again from memory. Returns
+     * false, doing nothing, if we don't have it. The upload waits on the
+     * renderer, so it happens outside our lock; the images are kept until
+     * it is done even if they are dropped meanwhile.
+     */
+    public boolean restore(TextureData data, GameView gameView) {
+        Images images;
+        synchronized (this) {
+            images = mImages.get(data);
+            if (images == null) return false;
+            images.mNumRestoring++;
+        }
+        try {
+            data.registerWithOpenGL(gameView, images.mRGBTexs, images.mATexs);
+        } finally {
+            synchronized (this) {
+                images.mNumRestoring--;
+                if (images.mDropped == true && images.mNumRestoring == 0)
+                    images.recycle();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks the given texture as just used.
+     */
+    public synchronized void touch(TextureData data) {
+        mImages.get(data);
+    }
+
+    /**
+     * Drops the given texture's image data, if we have it.
+     */
+    public synchronized void remove(TextureData data) {
+        Images images = mImages.remove(data);
+        if (images == null) return;
+        mNumBytes -= images.mNumBytes;
+        images.drop();
+    }
+
+    /**
+     * Drops the least recently used textures until we are within budget.
+     */
+    private void trim() {
+        Iterator<Map.Entry<TextureData, Images>> iter = mImages.entrySet().iterator();
+        while (mNumBytes > mBudget && iter.hasNext()) {
+            Images images = iter.next().getValue();
+            iter.remove();
+            mNumBytes -= images.mNumBytes;
+            images.drop();
+        }
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public synchronized long getBudget() {
+        return mBudget;
+    }
+
+    /**
+     * Sets how many bytes of image data we may hold, dropping textures if
+     * we now hold too much. 0 keeps nothing.
+     */
+    public synchronized void setBudget(long budget) {
+        if (budget < 0) throw new RuntimeException("Budget given as " + budget);
+        this.mBudget = budget;
+        trim();
+    }
+
+    public synchronized long getNumBytes() {
+        return mNumBytes;
+    }
+
+    public synchronized int getNumTextures() {
+        return mImages.size();
+    }
+
+    public synchronized boolean contains(TextureData data) {
+        return mImages.containsKey(data);
+    }
+}
@@ -0,0 +1,243 @@
+package com.jlreyes.libraries.android_game_engine.sprites.textures;
+
+import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.types.TexType;
+import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
+import com.jlreyes.libraries.android_game_engine.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Shares loaded textures. Every sprite asking for the same texture, at the
+ * same resolution and version, gets its own {@link Texture} to animate with,
+ * but they all draw from one {@link TextureData}, which is only decoded and
+ * uploaded once. The data is freed when the last texture using it is
+ * released. Its image data may also be kept in a {@link TextureMemoryCache},
+ * to get it back quickly if the GL context is lost.
+ *
+ * The lock is only held to look up, publish and count textures. Reading
+ * and uploading happen outside it, so a load never holds up other loads or
+ * a release, and a texture being loaded is waited on by anyone else asking
+ * for it instead of being loaded twice.
+ *
+ * @author jlreyes
+ */
+public class TextureRegistry {
+    public static final String TAG = "TextureRegistry";
+
+    private Scheduler mScheduler;
+    private HashMap<String, TextureData> mData;
+    /* Counted down when the texture with the key is loaded, or failed to */
+    private HashMap<String, CountDownLatch> mLoading;
+    private TextureMemoryCache mMemoryCache;
+
+    public TextureRegistry(Scheduler scheduler) {
+        this.mScheduler = scheduler;
+        this.mData = new HashMap<String, TextureData>();
+        this.mLoading = new HashMap<String, CountDownLatch>();
+        this.mMemoryCache = new TextureMemoryCache();
+    }
+
+    /**
+     * Returns a new texture for the given info, loading and registering
+     * its data with openGL if no other texture is using it. Animated
+     * textures are added to the animator. Returns null for NO_TEX, and
+     * when headless for textures that weren't registered, since there is
+     * nothing to load into.
+     */
+    public Texture acquire(TexController.TexInfo texInfo) {
+        if (texInfo == TexController.NO_TEX) return null;
+        boolean headless = mScheduler.isHeadless();
+        String key = Key(texInfo);
+        while (true) {
+            CountDownLatch loading = null;
+            boolean loader = false;
+            Texture loaded = null;
+            synchronized (this) {
+                TextureData data = mData.get(key);
+                if (data != null) loaded = newTexture(data);
+                else if (headless == true) return null;
+                else {
+                    loading = mLoading.get(key);
+                    if (loading == null) {
+                        loading = new CountDownLatch(1);
+                        mLoading.put(key, loading);
+                        loader = true;
+                    }
+                }
+            }
+            /* Outside our lock, the cache has its own */
+            if (loaded != null) {
+                mMemoryCache.touch(loaded.getData());
+                return loaded;
+            }
+            /* Someone else is loading it, look again once they are done. If
+             * they failed, we try ourselves. */
+            if (loader == false) {
+                ThreadUtils.Await(loading);
+                continue;
+            }
+            TextureData data = null;
+            Texture texture = null;
+            try {
+                data = TextureLoader.LoadTextureData(texInfo,
+                                                     mScheduler.getContext(),
+                                                     mScheduler.getGameView(),
+                                                     mMemoryCache);
+            } finally {
+                /* Published and retained at once, so nobody frees it first */
+                synchronized (this) {
+                    mLoading.remove(key);
+                    if (data != null) {
+                        mData.put(key, data);
+                        texture = newTexture(data);
+                    }
+                }
+                loading.countDown();
+            }
+            return texture;
+        }
+    }
+
+    /**
+     * Registers already loaded data, so asking for its texture hands it out
+     * instead of loading it. For tests and headless runs, which have nothing
+     * to load with. Freed like any other data once the last texture using
+     * it is released.
+     */
+    public synchronized void register(TextureData data) {
+        String key = Key(data.getTexInfo());
+        if (mData.containsKey(key) == true || mLoading.containsKey(key) == true)
+            throw new RuntimeException("Texture " + key + " is already registered.");
+        mData.put(key, data);
+    }
+
+    /**
+     * Returns a new texture retaining the given registered data. Under our
+     * lock.
+     */
+    private Texture newTexture(TextureData data) {
+        data.retain();
+        Texture texture = new Texture(data, this);
+        if (data.isAnimated() == true) mScheduler.getAnimator().addTexture(texture);
+        return texture;
+    }
+
+    /**
+     * Called by {@link Texture#release()}. Stops animating the texture and
+     * unregisters its data if nothing else uses it.
+     */
+    void release(Texture texture) {
+        TextureData data = texture.getData();
+        if (data.isAnimated() == true) mScheduler.getAnimator().removeTexture(texture);
+        releaseData(data);
+    }
+
+    /**
+     * Registers every texture in use with openGL again. Called on resume
+     * when the openGL context, and everything in it, was lost while paused.
+     * Textures in the memory cache are uploaded from it, the rest are read
+     * from storage once each, however many sprites use them. Files that went
+     * missing while paused are recreated, and a texture that still can't be
+     * read is logged and skipped rather than failing the resume.
+     */
+    public void reload() {
+        GameView gameView = mScheduler.getGameView();
+        /* Held while we upload, so none of them are freed under us */
+        ArrayList<TextureData> datas;
+        synchronized (this) {
+            datas = new ArrayList<TextureData>(mData.values());
+            for (TextureData data : datas) data.retain();
+        }
+        int numFromMemory = 0;
+        int numSkipped = 0;
+        try {
+            for (TextureData data : datas) {
+                if (mMemoryCache.restore(data, gameView) == true) {
+                    numFromMemory++;
+                    continue;
+                }
+                TextureLoader.TexInfo texData;
+                try {
+                    texData = TextureLoader.GetTexInfo(data.getTexInfo(),
+                                                       mScheduler.getContext());
+                } catch (RuntimeException e) {
+                    Logger.E(TAG, "Couldn't reload " + data + ", skipping it: " +
+                                  e.getMessage());
+                    numSkipped++;
+                    continue;
+                }
+                TexType[] rgbTexes = texData.getRGBTexs();
+                TexType[] aTexes = texData.getATexs();
+                /* Recreated files are packed the same, unless the packing changed */
+                if (rgbTexes.length != data.getTextureParts().length) {
+                    Logger.E(TAG, "Reloaded " + data + " doesn't match its texture" +
+                                  " parts, skipping it.");
+                    for (int i = 0; i < rgbTexes.length; i++) {
+                        rgbTexes[i].recycle();
+                        aTexes[i].recycle();
+                    }
+                    numSkipped++;
+                    continue;
+                }
+                data.registerWithOpenGL(gameView, rgbTexes, aTexes);
+                /* Next time, from memory if it fits */
+                mMemoryCache.put(data, rgbTexes, aTexes);
+            }
+        } finally {
+            for (TextureData data : datas) releaseData(data);
+        }
+        Logger.I(TAG, "Reloaded " + (datas.size() - numSkipped) + " textures, " +
+                      numFromMemory + " from memory, skipped " + numSkipped + ".");
+    }
+
+    /**
+     * Drops a reference to the given data, freeing it if it was the last.
+     * The renderer deletes it before its next frame. Headless, nothing was
+     * uploaded.
+     */
+    private void releaseData(TextureData data) {
+        synchronized (this) {
+            if (data.release() > 0) return;
+            mData.remove(Key(data.getTexInfo()));
+        }
+        mMemoryCache.remove(data);
+        GameView gameView = mScheduler.getGameView();
+        if (gameView != null) data.unregisterWithOpenGL(gameView);
+    }
+
+    private static String Key(TexController.TexInfo texInfo) {
+        return texInfo.Name + "_" + TexController.RESOLUTION + "_" + texInfo.Version;
+    }
+
+    /*
+     * Getters and Setters
+     */
+
+    /**
+     * The number of distinct textures loaded.
+     */
+    public synchronized int getNumTextures() {
+        return mData.size();
+    }
+
+    /**
+     * Roughly how much GL memory every loaded texture takes, counting
+     * shared textures once.
+     */
+    public synchronized long getEstimatedBytes() {
+        long bytes = 0;
+        for (TextureData data : mData.values()) bytes += data.getEstimatedBytes();
+        return bytes;
+    }
+
+    /**
+     * Set its budget to keep textures in memory, it keeps none by default.
+     */
+    public TextureMemoryCache getMemoryCache() {
+        return mMemoryCache;
+    }
+}
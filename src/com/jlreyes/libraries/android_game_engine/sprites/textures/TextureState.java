@@ -5,12 +5,13 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture.TexturePart;
 
-import java.nio.FloatBuffer;
-
 /**
  * Represents a state that the texture can be in. Each state is broken
  * into frames, each frame contains a reference to the texturePart and
- * the partIndex that
+ * the partIndex that it is drawn from.
+ *
+ * States are shared by every sprite using the same texture, so they hold
+ * no animation progress; that is kept per sprite by {@link Texture}.
  *
  * @author jlreyes
  */
@@ -26,7 +27,8 @@ public class TextureState {
         private long mTimeLength;
         private int mFrame;
         private TexturePart mTexturePart;
-        private FloatBuffer mIndices;
+        /* Where this frame is in its part, row * cols + col */
+        private int mPartIndex;
 
         public Frame(TextureState state, int frame, long timeLength) {
             this.mState = state;
@@ -61,23 +63,23 @@ public class TextureState {
             return mTexturePart;
         }
 
-        public void setIndices(FloatBuffer f) {
-            this.mIndices = f;
+        public void setPartIndex(int partIndex) {
+            this.mPartIndex = partIndex;
         }
 
-        public FloatBuffer getIndices() {
-            return mIndices;
+        public int getPartIndex() {
+            return mPartIndex;
         }
     }
 
     private String mName;
     private int mResourceId;
     private TexturePart mTexturePart;
-    private long mLastTimeStepped;
     private Frame[] mFrames;
     private int mFrameWidth;
     private int mFrameHeight;
-    private int mActiveFrame;
+    /* Our index in our texture's states */
+    private int mIndex;
 
     public TextureState(TexController.TexStateInfo stateInfo,
                         int frameWidth, int frameHeight) {
@@ -95,10 +97,10 @@ public class TextureState {
                         int frameHeight) {
         this.mName = name;
         this.mResourceId = resourceId;
-        this.mLastTimeStepped = System.currentTimeMillis();
         this.mFrameWidth = frameWidth;
         this.mFrameHeight = frameHeight;
-        this.mActiveFrame = 0;        /* Creating frames */
+        this.mIndex = 0;
+        /* Creating frames */
         int numFrames = timings.length;
         this.mFrames = new Frame[numFrames];
         for (int i = 0; i < numFrames; i++)
@@ -107,15 +109,6 @@ public class TextureState {
                                    timings[i]);
     }
 
-    /**
-     * Step a frame in the state.
-     */
-    public void step() {
-        mActiveFrame += 1;
-        if (mActiveFrame >= mFrames.length) mActiveFrame = 0;
-        mLastTimeStepped = System.currentTimeMillis();
-    }
-
     public Bitmap generateBitmap(Context context) {        /* Options for generating the bitmaps */
         BitmapFactory.Options options = new BitmapFactory.Options();
         options.inScaled = false;
@@ -140,6 +133,20 @@ public class TextureState {
         return bitmap;
     }
 
+    /**
+     * Returns every frame of the given states, state by state. A frame's
+     * index in this array is its id in a texture part's frame grid.
+     */
+    public static Frame[] AllFrames(TextureState[] states) {
+        int numFrames = 0;
+        for (TextureState state : states) numFrames += state.getNumFrames();
+        Frame[] frames = new Frame[numFrames];
+        int i = 0;
+        for (TextureState state : states)
+            for (Frame frame : state.mFrames) frames[i++] = frame;
+        return frames;
+    }
+
     /*
      * Getters and Setters
      */
@@ -151,12 +158,12 @@ public class TextureState {
         return mName;
     }
 
-    public long getLastTimeStepped() {
-        return mLastTimeStepped;
+    public int getIndex() {
+        return mIndex;
     }
 
-    public Frame getActiveFrame() {
-        return mFrames[mActiveFrame];
+    public void setIndex(int index) {
+        this.mIndex = index;
     }
 
     public Frame getFrame(int index) {
@@ -5,6 +5,7 @@ import android.opengl.GLES20;
 import android.opengl.GLUtils;
 import com.jlreyes.libraries.android_game_engine.io.storage.StorageHelper;
 import com.jlreyes.libraries.android_game_engine.io.storage.external.ExternalStorageHelper;
+import com.jlreyes.libraries.android_game_engine.utils.BufferPool;
 import com.jlreyes.libraries.android_game_engine.utils.exceptions.DataStreamEndedEarlyException;
 import com.jlreyes.libraries.android_game_engine.utils.exceptions.FileCorruptedException;
 import com.jlreyes.libraries.android_game_engine.utils.exceptions.InvalidTypeException;
@@ -56,10 +57,14 @@ public class BitmapTexType extends TexType {
         int height = ExternalStorageHelper.ReadIntFromInputStream(inputStream);
 	    /* Create bitmap */
         Bitmap bitmap = Bitmap.createBitmap(width, height, config);
-        byte[] pixels = new byte[width * height * b];
-        inputStream.read(pixels);
-        ByteBuffer pixelBuffer = ByteBuffer.wrap(pixels);
-        bitmap.copyPixelsFromBuffer(pixelBuffer);
+        ByteBuffer pixels = BufferPool.STAGING.acquire(width * height * b);
+        try {
+            ExternalStorageHelper.ReadIntoBuffer(inputStream, pixels);
+            pixels.position(0);
+            bitmap.copyPixelsFromBuffer(pixels);
+        } finally {
+            BufferPool.STAGING.release(pixels);
+        }
         this.mBitmap = bitmap;
     }
 
@@ -80,20 +85,29 @@ public class BitmapTexType extends TexType {
         if (config == Bitmap.Config.ALPHA_8) depth = 1;
         else if (config == Bitmap.Config.ARGB_8888) depth = 4;
         else throw new InvalidTypeException(config + " not supported");
-        /* Get pixels from bitmap */
-        byte[] pixels = new byte[width * height * depth];
-        ByteBuffer pixelBuffer = ByteBuffer.wrap(pixels);
-        mBitmap.copyPixelsToBuffer(pixelBuffer);
-        /* Creating the returned array */
-        byte[] byteArray = new byte[pixels.length + HEADER_SIZE];
+        /* Creating the returned array, pixels go straight in after the header */
+        byte[] byteArray = new byte[width * height * depth + HEADER_SIZE];
         ByteBuffer b = ByteBuffer.wrap(byteArray).order(StorageHelper.ENDIAN);
         b.put(depth);
-        b.putInt(mBitmap.getWidth());
-        b.putInt(mBitmap.getHeight());
-        b.put(pixels);
+        b.putInt(width);
+        b.putInt(height);
+        mBitmap.copyPixelsToBuffer(b);
         return b.array();
     }
 
+    @Override
+    public int getNumBytes() {
+        return mBitmap.getRowBytes() * mBitmap.getHeight();
+    }
+
+    @Override
+    public TexType toDirectBuffer() {
+        checkRecycled();
+        TexType tex = new BufferTexType(mBitmap);
+        recycle();
+        return tex;
+    }
+
     @Override
     protected void onRecycle() {
         mBitmap.recycle();
@@ -0,0 +1,75 @@
+package com.jlreyes.libraries.android_game_engine.sprites.textures.types;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import com.jlreyes.libraries.android_game_engine.io.storage.StorageHelper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Uncompressed pixels in a direct buffer, uploaded with glTexImage2D as
+ * they are. This is what a BitmapTexType becomes when it is kept in memory,
+ * so it is stored in a file the same way a BitmapTexType is.
+ *
+ * @author jlreyes
+ */
+public class BufferTexType extends TexType {
+    public static final String TAG = "Buffer Tex Type";
+
+    private ByteBuffer mPixels;
+    private int mWidth;
+    private int mHeight;
+    /* 1 => ALPHA_8, 4 => ARGB_8888, as in BitmapTexType */
+    private byte mDepth;
+
+    /**
+     * Copies the given bitmap's pixels. Does not recycle the bitmap.
+     */
+    public BufferTexType(Bitmap bitmap) {
+        super();
+        Bitmap.Config config = bitmap.getConfig();
+        if (config == Bitmap.Config.ALPHA_8) this.mDepth = 1;
+        else if (config == Bitmap.Config.ARGB_8888) this.mDepth = 4;
+        else throw new RuntimeException(config + " not supported");
+        this.mWidth = bitmap.getWidth();
+        this.mHeight = bitmap.getHeight();
+        this.mPixels = ByteBuffer.allocateDirect(mWidth * mHeight * mDepth)
+                                 .order(ByteOrder.nativeOrder());
+        bitmap.copyPixelsToBuffer(mPixels);
+        mPixels.position(0);
+    }
+
+    @Override
+    public void texImage2D() {
+        int format = (mDepth == 1) ? GLES20.GL_ALPHA : GLES20.GL_RGBA;
+        /* Rows are packed tight, alpha rows may not be a multiple of 4 */
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+        GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, format, mWidth, mHeight,
+                            0, format, GLES20.GL_UNSIGNED_BYTE, mPixels);
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 4);
+    }
+
+    @Override
+    public int getNumBytes() {
+        return mPixels.capacity();
+    }
+
+    @Override
+    protected byte[] generateByteArray() throws IOException {
+        int numPixelBytes = mPixels.capacity();
+        byte[] byteArray = new byte[numPixelBytes + BitmapTexType.HEADER_SIZE];
+        ByteBuffer b = ByteBuffer.wrap(byteArray).order(StorageHelper.ENDIAN);
+        b.put(mDepth);
+        b.putInt(mWidth);
+        b.putInt(mHeight);
+        b.put(mPixels.duplicate());
+        return b.array();
+    }
+
+    @Override
+    protected void onRecycle() {
+        this.mPixels = null;
+    }
+}
@@ -3,6 +3,7 @@ package com.jlreyes.libraries.android_game_engine.sprites.textures.types;
 import android.graphics.Bitmap;
 import android.opengl.ETC1Util;
 import android.opengl.GLES20;
+import com.jlreyes.libraries.android_game_engine.utils.BufferPool;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -33,18 +34,21 @@ public class ETC1TexType extends TexType {
         }        /* Bitmap info */
         int width = bitmap.getWidth();
         int height = bitmap.getHeight();
-		/* Creating a buffer */
-        ByteBuffer pixels =
-                ByteBuffer.allocateDirect(width * height * pixelBytes)
-                          .order(ByteOrder.nativeOrder());
-        bitmap.copyPixelsToBuffer(pixels);
-        pixels.position(0);
-		/* Create the texture */
-        mTex = ETC1Util.compressTexture(pixels,
-                                        width,  // width in pixels
-                                        height, // height in pixels
-                                        pixelBytes, // pixel size
-                                        width * pixelBytes); // stride
+		/* Staging buffer, compressing copies out of it */
+        ByteBuffer pixels = BufferPool.STAGING.acquire(width * height * pixelBytes);
+        try {
+            pixels.order(ByteOrder.nativeOrder());
+            bitmap.copyPixelsToBuffer(pixels);
+            pixels.position(0);
+		    /* Create the texture */
+            mTex = ETC1Util.compressTexture(pixels,
+                                            width,  // width in pixels
+                                            height, // height in pixels
+                                            pixelBytes, // pixel size
+                                            width * pixelBytes); // stride
+        } finally {
+            BufferPool.STAGING.release(pixels);
+        }
         bitmap.recycle();
     }
 
@@ -66,25 +70,28 @@ public class ETC1TexType extends TexType {
 		/* Bitmap info */
         int width = bitmap.getWidth();
         int height = bitmap.getHeight();
-		/* Creating a buffer */
-        ByteBuffer pixels =
-                ByteBuffer.allocateDirect(width * height * pixelBytes)
-                          .order(ByteOrder.nativeOrder());
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                int color = bitmap.getPixel(j, i);
-                for (int k = 1; k <= pixelBytes; k++) {
-                    byte channel = (byte) ((color >> (8 * (pixelBytes - k))) & 0xFF);
-                    pixels.put(channel);
+		/* Staging buffer, compressing copies out of it */
+        ByteBuffer pixels = BufferPool.STAGING.acquire(width * height * pixelBytes);
+        try {
+            pixels.order(ByteOrder.nativeOrder());
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    int color = bitmap.getPixel(j, i);
+                    for (int k = 1; k <= pixelBytes; k++) {
+                        byte channel = (byte) ((color >> (8 * (pixelBytes - k))) & 0xFF);
+                        pixels.put(channel);
+                    }
                 }
             }
+            pixels.position(0);
+            return ETC1Util.compressTexture(pixels,
+                                            width,
+                                            height,
+                                            pixelBytes,
+                                            width * pixelBytes);
+        } finally {
+            BufferPool.STAGING.release(pixels);
         }
-        pixels.position(0);
-        return ETC1Util.compressTexture(pixels,
-                                        width,
-                                        height,
-                                        pixelBytes,
-                                        width * pixelBytes);
     }
 
     @Override
@@ -105,6 +112,14 @@ public class ETC1TexType extends TexType {
                              mTex);
     }
 
+    /**
+     * The compressed data is already in a direct buffer.
+     */
+    @Override
+    public int getNumBytes() {
+        return mTex.getData().capacity();
+    }
+
     public void onRecycle() {
         this.mTex = null;
     }
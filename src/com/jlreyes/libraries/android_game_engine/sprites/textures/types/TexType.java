@@ -28,6 +28,21 @@ public abstract class TexType {
 
     public abstract void texImage2D();
 
+    /**
+     * Roughly how many bytes of memory our image data takes.
+     */
+    public abstract int getNumBytes();
+
+    /**
+     * Returns a texture type holding our image data in a direct buffer,
+     * ready to be uploaded again without decoding anything. Types that
+     * already do return themselves, others return a copy and recycle.
+     */
+    public TexType toDirectBuffer() {
+        checkRecycled();
+        return this;
+    }
+
     public byte[] toByteArray()
             throws IOException,
                    InvalidTypeException {
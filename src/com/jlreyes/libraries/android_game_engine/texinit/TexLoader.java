@@ -1,98 +1,81 @@
 package com.jlreyes.libraries.android_game_engine.texinit;
 
-import android.view.View;
+import android.util.Log;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureLoader;
-import com.jlreyes.libraries.android_game_engine.threading.ViewUpdater;
-import com.jlreyes.libraries.android_game_engine.utils.math.function.Function1;
+import com.jlreyes.libraries.android_game_engine.threading.ProgressChannel;
 
 
 public class TexLoader extends Thread {
     public static final String TAG = "Tex Load Activity";
     private static final String mLoadInfoStart = "Loading ";
+    /* Shown until the first texture starts loading */
+    private static final String WAIT_INFO = "Please wait...";
+    /* So showing a percent never allocates */
+    private static final String[] PERCENT_STRINGS = new String[101];
 
-    private TextureInitActivity mActivity;
-    private volatile int mPercentDone;
-    private volatile String mLoadInfo;
+    static {
+        for (int i = 0; i <= 100; i++) PERCENT_STRINGS[i] = String.valueOf(i);
+    }
 
-    private ViewUpdater mProgressBarUpdater;
-    private ViewUpdater mPercentTextUpdater;
-    private ViewUpdater mLoadInfoTextUpdater;
+    private TextureInitActivity mActivity;
+    private ProgressChannel mProgress;
 
+    /**
+     * Create on the UI thread. Any of the views may be null.
+     */
     public TexLoader(TextureInitActivity activity,
-                     ProgressBar progressBar,
-                     TextView percentText,
-                     TextView loadInfoText) {
+                     final ProgressBar progressBar,
+                     final TextView percentText,
+                     final TextView loadInfoText) {
         this.mActivity = activity;
-        this.mPercentDone = 0;
-        this.mLoadInfo = "Please wait...";
-        this.mProgressBarUpdater = new ViewUpdater(progressBar,
-                                                   progressBarFunction());
-        this.mPercentTextUpdater = new ViewUpdater(percentText,
-                                                   percentTextFunction());
-        this.mLoadInfoTextUpdater = new ViewUpdater(loadInfoText,
-                                                    loadInfoTextFunction());
-    }
-
-    private Function1<View, Void> progressBarFunction() {
-        return new Function1<View, Void>() {
-            public Void run(View view) {
-                ProgressBar progressBar = (ProgressBar) view;
-                int percentDone = TexLoader.this.getPercentDone();
-                progressBar.setProgress(percentDone);
-                return null;
+        this.mProgress = new ProgressChannel(new ProgressChannel.Listener() {
+            public void onProgress(int percentDone, String info) {
+                if (progressBar != null) progressBar.setProgress(percentDone);
+                if (percentText != null)
+                    percentText.setText(PERCENT_STRINGS[Math.max(0, Math.min(100, percentDone))]);
+                if (loadInfoText != null && info != null) loadInfoText.setText(info);
             }
-        };
-    }
-
-    private Function1<View, Void> percentTextFunction() {
-        return new Function1<View, Void>() {
-            public Void run(View view) {
-                TextView t = (TextView) view;
-                String percent = String.valueOf(TexLoader.this.getPercentDone());
-                t.setText(percent.toCharArray(), 0, percent.length());
-                return null;
-            }
-        };
-    }
-
-    private Function1<View, Void> loadInfoTextFunction() {
-        return new Function1<View, Void>() {
-            public Void run(View view) {
-                TextView t = (TextView) view;
-                String loadInfo = TexLoader.this.getLoadInfo();
-                t.setText(loadInfo.toCharArray(), 0, loadInfo.length());
-                return null;
-            }
-        };
+        });
+        mProgress.setInfo(WAIT_INFO);
     }
 
     public void run() {
-        /* Loading each texture */
+        /* Loading each texture, then each font */
         TexController.TexInfo[] textures = TexController.TEXTURES;
-        int numTextures = textures.length;
+        TexController.FontTexInfo[] fonts = TexController.FONTS;
+        int numTextures = textures.length + fonts.length;
         int numLoaded = 0;
-        for (TexController.TexInfo texInfo : textures) {
-            /* Updating Load info */
-            mLoadInfo = texInfo.Name;
-            /* Loading */
-            TextureLoader.LoadTextureForVerification(texInfo, mActivity);
+        int numCreated = 0;
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < numTextures; i++) {
+            TexController.TexInfo texInfo = i < textures.length
+                                            ? textures[i]
+                                            : fonts[i - textures.length];
+            /* Updating Load info, built once here rather than on every delivery */
+            mProgress.setInfo(mLoadInfoStart + texInfo.Name);
+            /* Checking the cache, only loads textures that need creating */
+            if (TextureLoader.VerifyTexture(texInfo, mActivity) == false)
+                numCreated += 1;
             numLoaded += 1;
-            mPercentDone = (numLoaded * 100) / numTextures;
+            mProgress.setPercentDone((numLoaded * 100) / numTextures);
         }
-        mProgressBarUpdater.kill();
-        mPercentTextUpdater.kill();
-        mLoadInfoTextUpdater.kill();
+        Log.i(TAG, "Verified " + numTextures + " textures (" + numCreated +
+                   " created) in " + (System.currentTimeMillis() - start) + "ms");
         mActivity.startGame();
     }
 
+    public ProgressChannel getProgress() {
+        return mProgress;
+    }
+
     public int getPercentDone() {
-        return mPercentDone;
+        return mProgress.getPercentDone();
     }
 
     public String getLoadInfo() {
-        return mLoadInfoStart + mLoadInfo;
+        return mProgress.getInfo();
     }
 }
@@ -57,6 +57,7 @@ public abstract class TextureInitActivity extends Activity {
         Log.i(TAG, "Starting texture loader");
         TexController.RESOLUTION = this.getResolution();
         TexController.TEXTURES = this.getTextures();
+        TexController.FONTS = this.getFonts();
         TexLoader texLoader = new TexLoader(this,
                                             this.getProgressBar(),
                                             this.getPercentTextView(),
@@ -66,11 +67,6 @@ public abstract class TextureInitActivity extends Activity {
 
     public void startGame() {
         Log.i(TAG, "Starting Game");
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
         Intent intent = new Intent(this, this.mReturnClass);
         intent.putExtra("texInitSkip", true);
         this.startActivity(intent);
@@ -87,10 +83,12 @@ public abstract class TextureInitActivity extends Activity {
     public abstract TexController.TexInfo[] getTextures();
 
     /**
-     * Returns font info
-     * TODO
+     * Returns an array of all fonts used by the application. Their glyph
+     * atlases are drawn and cached along with the textures. None by default.
      */
-    //public abstract TexController.FontTexInfo[] getFonts();
+    public TexController.FontTexInfo[] getFonts() {
+        return new TexController.FontTexInfo[0];
+    }
 
     /**
      * Returns the linear layout for this activity
@@ -0,0 +1,122 @@
+package com.jlreyes.libraries.android_game_engine.threading;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * How far along some loading is, as a percent and an optional line of info.
+ * Any thread can set it and any thread can read it.
+ *
+ * Given a listener, changes are also handed to the UI thread, coalesced: a
+ * set only posts if nothing is posted yet, and posts are at least a frame
+ * apart. However fast progress is set, the UI hears about it at most once a
+ * frame, and not at all while nothing changes. No thread is needed.
+ *
+ * @author jlreyes
+ */
+public class ProgressChannel {
+    /* About one display frame */
+    public static final long MIN_POST_INTERVAL = 16l;
+
+    /**
+     * Hears about changes on the UI thread.
+     */
+    public interface Listener {
+        public void onProgress(int percentDone, String info);
+    }
+
+    private volatile int mPercentDone;
+    private volatile String mInfo;
+    /* UI side, null if nobody is listening */
+    private Listener mListener;
+    private Handler mHandler;
+    private Runnable mDeliver;
+    private AtomicBoolean mPosted;
+    private volatile long mLastDelivered;
+    private int mDeliveredPercent;
+    private String mDeliveredInfo;
+
+    /**
+     * A channel nobody listens to. Read it with getPercentDone.
+     */
+    public ProgressChannel() {
+        this(null);
+    }
+
+    /**
+     * @param listener Called on the UI thread when progress changes, or
+     *                 null. Create the channel on the UI thread.
+     */
+    public ProgressChannel(Listener listener) {
+        this.mPercentDone = 0;
+        this.mInfo = null;
+        this.mListener = listener;
+        this.mPosted = new AtomicBoolean(false);
+        this.mLastDelivered = 0l;
+        this.mDeliveredPercent = -1;
+        this.mDeliveredInfo = null;
+        if (listener == null) return;
+        this.mHandler = new Handler(Looper.getMainLooper());
+        this.mDeliver = new Runnable() {
+            public void run() {
+                deliver();
+            }
+        };
+    }
+
+    public void setPercentDone(int percentDone) {
+        if (mPercentDone == percentDone) return;
+        this.mPercentDone = percentDone;
+        post();
+    }
+
+    /**
+     * Infos are compared by reference, so pass the same string to avoid
+     * a post.
+     */
+    public void setInfo(String info) {
+        if (mInfo == info) return;
+        this.mInfo = info;
+        post();
+    }
+
+    /**
+     * Posts a delivery unless one is already waiting.
+     */
+    private void post() {
+        if (mListener == null) return;
+        if (mPosted.compareAndSet(false, true) == false) return;
+        long wait = mLastDelivered + MIN_POST_INTERVAL - SystemClock.uptimeMillis();
+        if (wait > 0) mHandler.postDelayed(mDeliver, wait);
+        else mHandler.post(mDeliver);
+    }
+
+    /**
+     * UI thread. Clears the posted flag before reading, so a set racing
+     * with us either is read now or posts again.
+     */
+    private void deliver() {
+        mPosted.set(false);
+        mLastDelivered = SystemClock.uptimeMillis();
+        int percentDone = mPercentDone;
+        String info = mInfo;
+        if (percentDone == mDeliveredPercent && info == mDeliveredInfo) return;
+        mDeliveredPercent = percentDone;
+        mDeliveredInfo = info;
+        mListener.onProgress(percentDone, info);
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public int getPercentDone() {
+        return mPercentDone;
+    }
+
+    public String getInfo() {
+        return mInfo;
+    }
+}
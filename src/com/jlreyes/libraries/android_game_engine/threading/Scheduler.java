@@ -1,12 +1,18 @@
 package com.jlreyes.libraries.android_game_engine.threading;
 
 import android.content.Context;
-import android.util.Log;
 import com.jlreyes.libraries.android_game_engine.datastructures.MinAllocHashSet;
 import com.jlreyes.libraries.android_game_engine.io.GameView;
+import com.jlreyes.libraries.android_game_engine.profiling.StartupTimings;
 import com.jlreyes.libraries.android_game_engine.rendering.GameRenderer;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderTarget;
 import com.jlreyes.libraries.android_game_engine.sprites.textures.Animator;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureRegistry;
 import com.jlreyes.libraries.android_game_engine.threading.logic.LogicManager;
+import com.jlreyes.libraries.android_game_engine.threading.music.MusicManager;
+import com.jlreyes.libraries.android_game_engine.threading.music.NullAudioSink;
+import com.jlreyes.libraries.android_game_engine.utils.Clock;
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
 import com.jlreyes.libraries.android_game_engine.utils.ThreadUtils;
 import com.jlreyes.libraries.android_game_engine.utils.math.function.Function0;
 
@@ -25,11 +31,16 @@ public class Scheduler extends GameThread {
 
     private Context mContext;
     private boolean mInitialized;
+    /* Both null when headless */
     private GameView mGameView;
     private GameRenderer mGameRenderer;
+    private RenderTarget mRenderTarget;
+    private Clock mClock;
     private LogicManager mLogicManager;
-    //private MusicManager mMusicManager;
+    private MusicManager mMusicManager;
     private Animator mAnimator;
+    private TextureRegistry mTextureRegistry;
+    private WorkerPool mWorkerPool;
 
     private MyLock mPauseLock;
     private ConcurrentLinkedQueue<TempThread> mTempThreads;
@@ -40,14 +51,44 @@ public class Scheduler extends GameThread {
     private MyLock mListenerLock;
 
     public Scheduler(String name, Context context) {
+        this(name, context, new GameView(context), Clock.REAL);
+    }
+
+    /**
+     * A scheduler with no screen and no android context, to run a game's
+     * logic off a device. Nothing is drawn, textures aren't loaded and sound
+     * goes nowhere. Set a {@link Logger} sink before starting it.
+     *
+     * @param target Usually a
+     *               {@link com.jlreyes.libraries.android_game_engine.rendering.HeadlessTarget}.
+     * @param clock  A {@link com.jlreyes.libraries.android_game_engine.utils.ManualClock}
+     *               runs the logic as fast as it can.
+     */
+    public Scheduler(String name, RenderTarget target, Clock clock) {
+        this(name, null, target, clock);
+    }
+
+    private Scheduler(String name, Context context, RenderTarget target, Clock clock) {
         super(name);
         this.mContext = context;
         this.mInitialized = false;        /* Initialize threads */
-        this.mGameView = new GameView(context);
-        this.mGameRenderer = mGameView.getGameRenderer();
+        this.mRenderTarget = target;
+        this.mClock = clock;
+        if (target instanceof GameView) {
+            this.mGameView = (GameView) target;
+            this.mGameRenderer = mGameView.getGameRenderer();
+        } else {
+            this.mGameView = null;
+            this.mGameRenderer = null;
+        }
         this.mLogicManager = new LogicManager("Logic Manager", this);
-        //this.mMusicManager = new MusicManager(this, "Music Manager");
+        if (isHeadless() == false) this.mMusicManager = new MusicManager(this, "Music Manager");
+        else this.mMusicManager = new MusicManager("Music Manager", new NullAudioSink(true),
+                                                   MusicManager.DEFAULT_SAMPLE_RATE,
+                                                   MusicManager.DEFAULT_BUFFER_FRAMES);
         this.mAnimator = new Animator("Animator");
+        this.mTextureRegistry = new TextureRegistry(this);
+        this.mWorkerPool = new WorkerPool();
 
         this.mPauseLock = new MyLock();
         this.mTempThreads = new ConcurrentLinkedQueue<TempThread>();
@@ -62,19 +103,16 @@ public class Scheduler extends GameThread {
      * Finish setting up the game.
      */
     public void initialize(Context context) {
-        Log.i(TAG, "Initializing.");
-        Log.i(TAG, "Waiting for the game renderer to be ready.");        /* Wait until the renderer is read */
-        while (mGameRenderer.isReady() == false)
-            try {
-                Thread.sleep(SLEEP_TIME);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        Log.i(TAG, "Starting other threads.");
+        Logger.I(TAG, "Initializing.");
+        /* No need to wait for the renderer. The start scene is constructed
+         * and its textures read while the surface is being created; only
+         * the uploads wait for it, see GameView.runAndWait. */
+        Logger.I(TAG, "Starting other threads.");
         mLogicManager.start(GameThread.LoopState.RUNNING);
-        //mMusicManager.start(LoopState.RUNNING);
+        mMusicManager.start(GameThread.LoopState.RUNNING);
         mAnimator.start(GameThread.LoopState.RUNNING);
-        mGameRenderer.setState(GameRenderer.State.RENDERING);
+        if (mGameRenderer != null) mGameRenderer.setState(GameRenderer.State.RENDERING);
+        StartupTimings.Mark(StartupTimings.Stage.THREADS_STARTED);
     }
 
     protected void onRunning() {
@@ -117,9 +155,9 @@ public class Scheduler extends GameThread {
          * same time */
         synchronized (this.mPauseLock) {
             super.onPause();
-            mGameView.onPause();
+            if (mGameView != null) mGameView.onPause();
             mLogicManager.onPause();
-            //mMusicManager.onPause();
+            mMusicManager.onPause();
             mAnimator.onPause();
             Iterator<TempThread> iter = this.mRunningTempThreads.iterator();
             while (iter.hasNext()) {
@@ -136,9 +174,9 @@ public class Scheduler extends GameThread {
          * same time */
         synchronized (this.mPauseLock) {
             super.onResume();
-            mGameView.onResume();
+            if (mGameView != null) mGameView.onResume();
             mLogicManager.onResume();
-            //mMusicManager.onResume();
+            mMusicManager.onResume();
             mAnimator.onPause();
         }
     }
@@ -151,10 +189,11 @@ public class Scheduler extends GameThread {
 		
 		/* Kill all Threads/Views */
 		/* TODO: Kill Temp Threads and Running Ones */
-        mGameView.onDestroy();
+        if (mGameView != null) mGameView.onDestroy();
         ThreadUtils.KillGameThread(mLogicManager);
         ThreadUtils.KillGameThread(mAnimator);
-        //ThreadUtils.KillGameThread(mMusicManager);
+        mWorkerPool.kill();
+        ThreadUtils.KillGameThread(mMusicManager);
     }
 
     public synchronized void addThread(TempThread thread) {
@@ -179,27 +218,69 @@ public class Scheduler extends GameThread {
     /*
      * Getters and Setters
      */
+    /**
+     * Null when headless.
+     */
     public Context getContext() {
         return mContext;
     }
 
+    /**
+     * Null when headless, see {@link #getRenderTarget()}.
+     */
     public GameView getGameView() {
         return mGameView;
     }
 
+    /**
+     * Null when headless, see {@link #getRenderTarget()}.
+     */
     public GameRenderer getGameRenderer() {
         return mGameRenderer;
     }
 
+    /**
+     * The game view, or what stands in for it when headless.
+     */
+    public RenderTarget getRenderTarget() {
+        return mRenderTarget;
+    }
+
+    public Clock getClock() {
+        return mClock;
+    }
+
+    /**
+     * True if there is no screen, see {@link #Scheduler(String, RenderTarget, Clock)}.
+     */
+    public boolean isHeadless() {
+        return mGameView == null;
+    }
+
     public LogicManager getLogicManager() {
         return mLogicManager;
     }
 
-    /*public MusicManager getMusicManager() {
+    public MusicManager getMusicManager() {
         return mMusicManager;
-    } */
+    }
 
     public Animator getAnimator() {
         return mAnimator;
     }
+
+    /**
+     * Where every texture in the game is loaded from and shared.
+     */
+    public TextureRegistry getTextureRegistry() {
+        return mTextureRegistry;
+    }
+
+    /**
+     * Pool used to update independent layers in parallel, see
+     * {@link com.jlreyes.libraries.android_game_engine.scenes.Layer#setIndependent(boolean)}.
+     */
+    public WorkerPool getWorkerPool() {
+        return mWorkerPool;
+    }
 }
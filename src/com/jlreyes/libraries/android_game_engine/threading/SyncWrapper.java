@@ -117,6 +117,14 @@ public class SyncWrapper<E> {
         return mElems.size();
     }
 
+    /**
+     * Returns the element at the given index, in the order they were added,
+     * whether or not some thread holds it.
+     */
+    public synchronized E getElement(int index) {
+        return mElems.get(index);
+    }
+
     /**
      * Passes control of the elem from the thread calling this to the given
      * thread.
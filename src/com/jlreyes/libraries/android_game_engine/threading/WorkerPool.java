@@ -0,0 +1,185 @@
+package com.jlreyes.libraries.android_game_engine.threading;
+
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small fixed pool of worker threads for splitting a loop across cores. The
+ * calling thread works too, and {@link #run(Task, int, int)} does not return
+ * until every item is done, so it behaves like an ordinary (if faster) loop.
+ *
+ * Meant to be used by one thread (the logic thread) at a time. Does not
+ * allocate per run.
+ *
+ * @author jlreyes
+ */
+public class WorkerPool {
+    public static final String TAG = "WorkerPool";
+
+    /**
+     * Work split into items 0 to numItems - 1.
+     */
+    public static interface Task {
+        /**
+         * Does items [from, to). May be called on any thread, and
+         * concurrently with other ranges.
+         */
+        public void run(int from, int to);
+    }
+
+    private final Object mLock;
+    private Thread[] mWorkers;
+    private volatile boolean mAlive;
+
+    /* The current job. Only written under mLock while no worker is active */
+    private Task mTask;
+    private int mNumItems;
+    private int mChunkSize;
+    private int mNumChunks;
+    private AtomicInteger mNextChunk;
+    private volatile Throwable mFailure;
+
+    /* Guarded by mLock */
+    private long mGeneration;
+    private boolean mJobOpen;
+    private int mNumActive;
+
+    /**
+     * Creates a pool with one worker per core, minus the calling thread.
+     */
+    public WorkerPool() {
+        this(Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * @param numWorkers Threads besides the caller. With 0 every run is just
+     *                   a loop on the calling thread.
+     */
+    public WorkerPool(int numWorkers) {
+        this.mLock = new Object();
+        this.mAlive = true;
+        this.mNextChunk = new AtomicInteger();
+        this.mGeneration = 0;
+        this.mJobOpen = false;
+        this.mNumActive = 0;
+        this.mWorkers = new Thread[Math.max(numWorkers, 0)];
+        for (int i = 0; i < mWorkers.length; i++) {
+            mWorkers[i] = new Thread(new Runnable() {
+                public void run() {
+                    workerLoop();
+                }
+            }, TAG + " " + i);
+            mWorkers[i].setDaemon(true);
+            mWorkers[i].start();
+        }
+    }
+
+    /**
+     * Runs task over items [0, numItems) in chunks of chunkSize, spread over
+     * the workers and the calling thread. Returns when all items are done.
+     * If the task throws, the first exception is rethrown here once the
+     * other chunks are done.
+     */
+    public synchronized void run(Task task, int numItems, int chunkSize) {
+        if (numItems <= 0) return;
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size must be greater than 0.");
+        int numChunks = (numItems + chunkSize - 1) / chunkSize;
+        /* Not worth waking anyone */
+        if (numChunks == 1 || mWorkers.length == 0 || mAlive == false) {
+            task.run(0, numItems);
+            return;
+        }
+        synchronized (mLock) {
+            mTask = task;
+            mNumItems = numItems;
+            mChunkSize = chunkSize;
+            mNumChunks = numChunks;
+            mFailure = null;
+            mNextChunk.set(0);
+            mGeneration++;
+            mJobOpen = true;
+            mLock.notifyAll();
+        }
+        work();
+        /* Every chunk has been claimed. Wait for whoever is still running
+         * one, and keep late workers out of this job. */
+        synchronized (mLock) {
+            mJobOpen = false;
+            while (mNumActive > 0) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+            mTask = null;
+        }
+        Throwable failure = mFailure;
+        if (failure != null) {
+            mFailure = null;
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            throw new RuntimeException(failure);
+        }
+    }
+
+    /**
+     * Claims and runs chunks of the current job until there are none left.
+     */
+    private void work() {
+        Task task = mTask;
+        int numChunks = mNumChunks;
+        int numItems = mNumItems;
+        int chunkSize = mChunkSize;
+        int chunk;
+        while ((chunk = mNextChunk.getAndIncrement()) < numChunks) {
+            int from = chunk * chunkSize;
+            int to = Math.min(from + chunkSize, numItems);
+            try {
+                task.run(from, to);
+            } catch (Throwable t) {
+                if (mFailure == null) mFailure = t;
+            }
+        }
+    }
+
+    private void workerLoop() {
+        long seen = 0;
+        while (true) {
+            synchronized (mLock) {
+                while (mAlive == true && (mJobOpen == false || mGeneration == seen)) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        /* Only kill() interrupts us */
+                    }
+                }
+                if (mAlive == false) return;
+                seen = mGeneration;
+                mNumActive++;
+            }
+            work();
+            synchronized (mLock) {
+                mNumActive--;
+                if (mNumActive == 0) mLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Stops the workers. Later runs happen on the calling thread.
+     */
+    public void kill() {
+        synchronized (mLock) {
+            mAlive = false;
+            mLock.notifyAll();
+        }
+        Logger.I(TAG, "Stopped " + mWorkers.length + " workers.");
+    }
+
+    public int getNumWorkers() {
+        return mWorkers.length;
+    }
+}
@@ -0,0 +1,170 @@
+package com.jlreyes.libraries.android_game_engine.threading.logic;
+
+import com.jlreyes.libraries.android_game_engine.scenes.SceneController;
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of game commands to the logic manager. Any number
+ * of threads can offer (the ui thread, loaders, scenes while they step), and
+ * only the logic thread polls. Commands are stored field by field in
+ * preallocated arrays, so nothing is allocated. Works like the mixer's
+ * {@link com.jlreyes.libraries.android_game_engine.threading.music.PlayQueue}.
+ *
+ * When full, nothing blocks or is dropped: commands spill into a locked
+ * overflow list, and keep going there until the logic thread has taken
+ * everything, so each thread's commands stay in order. The logic thread
+ * doesn't drain while paused, so blocking the ui thread here would hang it.
+ *
+ * @author jlreyes
+ */
+public class CommandQueue {
+    public static final String TAG = "CommandQueue";
+
+    private int mMask;
+    private AtomicLongArray mSequences;
+    private AtomicLong mTail;
+    /* Only touched by the consumer */
+    private long mHead;
+    /* Command fields */
+    private GameCommand.Command[] mCommands;
+    private SceneController.SceneInfo[] mScenes;
+    private SceneController.SceneInfo[] mNextScenes;
+    private int[] mEventIds;
+    private Object[] mPayloads;
+    private int[] mPriorities;
+    /* Used while the ring is full, locked on itself */
+    private ArrayList<GameCommand> mOverflow;
+    private volatile boolean mOverflowing;
+    private int mNumOverflowed;
+
+    /**
+     * @param capacity Rounded up to a power of two.
+     */
+    public CommandQueue(int capacity) {
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.mMask = size - 1;
+        this.mSequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) mSequences.set(i, i);
+        this.mTail = new AtomicLong(0);
+        this.mHead = 0;
+        this.mCommands = new GameCommand.Command[size];
+        this.mScenes = new SceneController.SceneInfo[size];
+        this.mNextScenes = new SceneController.SceneInfo[size];
+        this.mEventIds = new int[size];
+        this.mPayloads = new Object[size];
+        this.mPriorities = new int[size];
+        this.mOverflow = new ArrayList<GameCommand>();
+        this.mOverflowing = false;
+        this.mNumOverflowed = 0;
+    }
+
+    /**
+     * Queues a command. Thread safe, and lock-free unless the queue is full.
+     */
+    public void offer(GameCommand.Command command,
+                      SceneController.SceneInfo scene,
+                      SceneController.SceneInfo nextScene,
+                      int eventId,
+                      Object payload,
+                      int priority) {
+        if (command == null) throw new RuntimeException("Null command offered.");
+        if (mOverflowing == false &&
+            offerRing(command, scene, nextScene, eventId, payload, priority) == true)
+            return;
+        synchronized (mOverflow) {
+            if (mOverflowing == false) {
+                /* The logic thread may have caught up since */
+                if (offerRing(command, scene, nextScene, eventId, payload, priority) == true)
+                    return;
+                Logger.W(TAG, "Command queue full, the logic thread is behind.");
+                this.mOverflowing = true;
+            }
+            GameCommand overflow = new GameCommand();
+            overflow.set(command, scene, nextScene, eventId, payload, priority);
+            mOverflow.add(overflow);
+            mNumOverflowed++;
+        }
+    }
+
+    private boolean offerRing(GameCommand.Command command,
+                              SceneController.SceneInfo scene,
+                              SceneController.SceneInfo nextScene,
+                              int eventId,
+                              Object payload,
+                              int priority) {
+        long ticket = mTail.get();
+        int index;
+        while (true) {
+            index = (int) (ticket & mMask);
+            long difference = mSequences.get(index) - ticket;
+            if (difference == 0) {
+                if (mTail.compareAndSet(ticket, ticket + 1) == true) break;
+                ticket = mTail.get();
+            } else if (difference < 0) {
+                /* The consumer hasn't freed this slot yet, we're full */
+                return false;
+            } else ticket = mTail.get();
+        }
+        mCommands[index] = command;
+        mScenes[index] = scene;
+        mNextScenes[index] = nextScene;
+        mEventIds[index] = eventId;
+        mPayloads[index] = payload;
+        mPriorities[index] = priority;
+        mSequences.set(index, ticket + 1);
+        return true;
+    }
+
+    /**
+     * Takes the next command, copying it into the given one. Consumer only.
+     *
+     * @return false if there was nothing to take.
+     */
+    public boolean poll(GameCommand into) {
+        if (pollRing(into) == true) return true;
+        if (mOverflowing == false) return false;
+        synchronized (mOverflow) {
+            if (mOverflow.isEmpty() == false) into.set(mOverflow.remove(0));
+            else return false;
+            /* Everything is taken, back to the ring */
+            if (mOverflow.isEmpty() == true) this.mOverflowing = false;
+            return true;
+        }
+    }
+
+    private boolean pollRing(GameCommand into) {
+        int index = (int) (mHead & mMask);
+        if (mSequences.get(index) != mHead + 1) return false;
+        into.set(mCommands[index], mScenes[index], mNextScenes[index],
+                 mEventIds[index], mPayloads[index], mPriorities[index]);
+        /* Don't keep the references alive */
+        mScenes[index] = null;
+        mNextScenes[index] = null;
+        mPayloads[index] = null;
+        /* Free the slot for the producer one lap ahead */
+        mSequences.set(index, mHead + mMask + 1);
+        mHead++;
+        return true;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public int getCapacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * How many commands had to go to the overflow list.
+     */
+    public int getNumOverflowed() {
+        synchronized (mOverflow) {
+            return mNumOverflowed;
+        }
+    }
+}
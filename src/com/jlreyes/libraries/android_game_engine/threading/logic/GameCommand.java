@@ -1,30 +1,111 @@
 package com.jlreyes.libraries.android_game_engine.threading.logic;
 
+import com.jlreyes.libraries.android_game_engine.scenes.SceneController;
+import com.jlreyes.libraries.android_game_engine.utils.math.Tuple;
+
 /**
  * Class where each object represents a command to send to the Logic Manager.
+ * Commands are copied into the logic manager's {@link CommandQueue} when
+ * sent, so a command can be reused once sent.
  *
  * @author jlreyes
  */
 public class GameCommand {
     public enum Command {
-        /** Load a new scene. Pass the scene info as the argument */
+        /** Load a new scene. Pass the scene info as the scene */
         LOAD,
         /** Kill the passed scene */
         KILL,
-        /** Kill the passed scene and load the passed scene info's scene.
-         * Pass as a tuple in the stated order. */
+        /** Kill the passed scene and load the passed next scene */
         LOAD_REPLACE,
+        /** Load the passed scene info's scene in the background while the
+         * current scenes keep running. Pass the scene info as the scene */
+        PRELOAD,
+        /** Kill the passed scene (may be null) and start the passed next
+         * scene, which should have been preloaded. Happens on the first step
+         * the preload is ready, without a loading screen. If the preload
+         * failed, the scene is loaded like LOAD_REPLACE instead. */
+        SWAP,
+        /** Drop the preload of the passed scene info's scene, freeing its
+         * textures */
+        CANCEL_PRELOAD,
+        /** Hand the event id and payload to every scene, see
+         * {@link com.jlreyes.libraries.android_game_engine.scenes.Scene#onGameEvent(int, Object)} */
+        EVENT,
         /** Not yet implemented */ // TODO
         SHOW_ERROR,
         /** Not yet implemented */ // TODO
         FATAL_ERROR}
 
+    /** Commands with a higher priority are run first in a step */
+    public static final int PRIORITY_NORMAL = 0;
+
     private Command mCommand;
-    private Object mArgs;
+    private SceneController.SceneInfo mScene;
+    private SceneController.SceneInfo mNextScene;
+    private int mEventId;
+    private Object mPayload;
+    private int mPriority;
+
+    /**
+     * An empty command, to be filled in by a queue.
+     */
+    public GameCommand() {
+        clear();
+    }
+
+    public GameCommand(Command c, SceneController.SceneInfo scene) {
+        this(c, scene, null);
+    }
+
+    public GameCommand(Command c,
+                       SceneController.SceneInfo scene,
+                       SceneController.SceneInfo nextScene) {
+        set(c, scene, nextScene, 0, null, PRIORITY_NORMAL);
+    }
+
+    /**
+     * An EVENT command.
+     */
+    public GameCommand(int eventId, Object payload, int priority) {
+        set(Command.EVENT, null, null, eventId, payload, priority);
+    }
 
+    /**
+     * Takes a scene info, or a tuple of the scene and next scene infos.
+     */
     public GameCommand(Command c, Object args) {
+        if (args instanceof Tuple) {
+            Tuple tuple = (Tuple) args;
+            set(c, (SceneController.SceneInfo) tuple.get(0),
+                (SceneController.SceneInfo) tuple.get(1), 0, null, PRIORITY_NORMAL);
+        } else set(c, (SceneController.SceneInfo) args, null, 0, null, PRIORITY_NORMAL);
+    }
+
+    void set(Command c,
+             SceneController.SceneInfo scene,
+             SceneController.SceneInfo nextScene,
+             int eventId,
+             Object payload,
+             int priority) {
         this.mCommand = c;
-        this.mArgs = args;
+        this.mScene = scene;
+        this.mNextScene = nextScene;
+        this.mEventId = eventId;
+        this.mPayload = payload;
+        this.mPriority = priority;
+    }
+
+    void set(GameCommand other) {
+        set(other.mCommand, other.mScene, other.mNextScene, other.mEventId,
+            other.mPayload, other.mPriority);
+    }
+
+    /**
+     * Drops our references so a reused command doesn't keep them alive.
+     */
+    void clear() {
+        set(null, null, null, 0, null, PRIORITY_NORMAL);
     }
 
     /*
@@ -34,8 +115,34 @@ public class GameCommand {
         return mCommand;
     }
 
-    public Object getArgs() {
-        return mArgs;
+    /**
+     * The scene the command is about. For LOAD_REPLACE and SWAP, the one
+     * being replaced.
+     */
+    public SceneController.SceneInfo getScene() {
+        return mScene;
+    }
+
+    /**
+     * For LOAD_REPLACE and SWAP, the scene replacing the other.
+     */
+    public SceneController.SceneInfo getNextScene() {
+        return mNextScene;
     }
 
+    public int getEventId() {
+        return mEventId;
+    }
+
+    public Object getPayload() {
+        return mPayload;
+    }
+
+    public int getPriority() {
+        return mPriority;
+    }
+
+    public void setPriority(int priority) {
+        this.mPriority = priority;
+    }
 }
@@ -1,18 +1,20 @@
 package com.jlreyes.libraries.android_game_engine.threading.logic;
 
-import android.util.Log;
-import android.view.MotionEvent;
-import com.jlreyes.libraries.android_game_engine.io.GameView;
-import com.jlreyes.libraries.android_game_engine.rendering.GameRenderer;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+import com.jlreyes.libraries.android_game_engine.profiling.Profiler;
+import com.jlreyes.libraries.android_game_engine.profiling.StartupTimings;
 import com.jlreyes.libraries.android_game_engine.rendering.RenderInfo;
+import com.jlreyes.libraries.android_game_engine.rendering.RenderTarget;
 import com.jlreyes.libraries.android_game_engine.scenes.Scene;
 import com.jlreyes.libraries.android_game_engine.scenes.SceneController;
 import com.jlreyes.libraries.android_game_engine.scenes.SceneLoader;
+import com.jlreyes.libraries.android_game_engine.scenes.ScenePreloader;
 import com.jlreyes.libraries.android_game_engine.scenes.scenes.loadscene.LoadScene;
 import com.jlreyes.libraries.android_game_engine.threading.GameThread;
 import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
 import com.jlreyes.libraries.android_game_engine.threading.SyncWrapper;
-import com.jlreyes.libraries.android_game_engine.utils.math.Tuple;
+import com.jlreyes.libraries.android_game_engine.utils.Clock;
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
 import com.jlreyes.libraries.android_game_engine.utils.math.function.Function0;
 import com.jlreyes.libraries.android_game_engine.utils.math.function.Function1;
 
@@ -27,20 +29,48 @@ import java.util.Queue;
  */
 public class LogicManager extends GameThread {
     public static final String TAG = "Logic Manager";
+    /* Profiler span names */
+    private static final String SPAN_PROCESS_COMMANDS = "processCommands";
+    private static final String SPAN_PROCESS_INPUT = "processInput";
+    private static final String SPAN_PROCESS_SCENES = "processScenes";
+    /** Default for {@link #setPreloadBudget(long)} */
+    public static final long DEFAULT_PRELOAD_BUDGET = 16l * 1024l * 1024l;
+    /** At most this many scenes are preloaded at the same time */
+    public static final int MAX_CONCURRENT_PRELOADS = 2;
+    /** Commands that can be queued before they spill, see CommandQueue */
+    public static final int COMMAND_QUEUE_CAPACITY = 64;
 
     private Scheduler mScheduler;
-    private GameView mGameView;
-    private GameRenderer mGameRenderer;
+    private RenderTarget mRenderTarget;
+    private Clock mClock;
 
     private Scene[] mScenes;
+    /* Scenes removed since the last step was handed to the renderer, locked
+     * on itself since scenes are also removed by loader callbacks */
+    private ArrayList<Scene> mRemovedScenes;
+    /* Incoming commands, and the ones being run this step */
+    private CommandQueue mCommandQueue;
     private ArrayList<GameCommand> mCommands;
-    private ArrayList<GameCommand> mCommandQueue;
-    private ArrayList<MotionEvent> mInputEvents;
+    /* Commands put off to the next step, and records free for reuse */
+    private ArrayList<GameCommand> mDeferredCommands;
+    private ArrayList<GameCommand> mFreeCommands;
+    private ArrayList<InputEvent> mInputEvents;
     private SyncWrapper<RenderInfo> mAllRenderInfo;
 
     private Queue<Function0<Void>> mResumeQueue;
-    private volatile Boolean mLoading;
+    /* Whether a scene is loading. Guarded by mLoadingLock */
+    private final Object mLoadingLock;
+    private volatile boolean mLoading;
     private SceneLoader mLoader;
+    /*
+     * Preloads, running or ready, and preloads waiting for memory or a free
+     * slot. Locked on mPreloaders.
+     */
+    private ArrayList<ScenePreloader> mPreloaders;
+    private ArrayList<SceneController.SceneInfo> mPendingPreloads;
+    private volatile long mPreloadBudget;
+    /* The GL context generation when we paused */
+    private volatile int mPausedGeneration;
 
     private long currentTime;
     private long lastTime;
@@ -56,14 +86,18 @@ public class LogicManager extends GameThread {
     private final Function1<Scene, Void> LOAD_CALLBACK = new Function1<Scene, Void>() {
         public Void run(Scene scene) {
             if (getLoopState() == LoopState.PAUSED) {
-                Log.w("LOAD_CALLBACK", "Load completed, but we have paused!");
+                Logger.W("LOAD_CALLBACK", "Load completed, but we have paused!");
                 return null;
             }
             LogicManager.this.addScene(scene);
-            synchronized (mLoading) {
+            synchronized (mLoadingLock) {
                 mLoading = false;
                 mLoader = null;
             }
+            if (StartupTimings.Reached(StartupTimings.Stage.START_SCENE_LOADED) == false) {
+                StartupTimings.Mark(StartupTimings.Stage.START_SCENE_LOADED);
+                Logger.I(TAG, StartupTimings.Summary());
+            }
             return null;
         }
     };
@@ -71,20 +105,29 @@ public class LogicManager extends GameThread {
     public LogicManager(String name, Scheduler scheduler) {
         super(name);
         this.mScheduler = scheduler;
-        this.mGameView = scheduler.getGameView();
-        this.mGameRenderer = scheduler.getGameRenderer();
+        this.mRenderTarget = scheduler.getRenderTarget();
+        this.mClock = scheduler.getClock();
         this.mScenes = new Scene[0];
-        this.mCommands = new ArrayList<GameCommand>();
-        this.mCommands.add(
-                new GameCommand(GameCommand.Command.LOAD, SceneController.START_SCENE));
-        this.mCommandQueue = new ArrayList<GameCommand>();
-        this.mInputEvents = new ArrayList<MotionEvent>();
+        this.mRemovedScenes = new ArrayList<Scene>();
+        this.mCommandQueue = new CommandQueue(COMMAND_QUEUE_CAPACITY);
+        this.mCommands = new ArrayList<GameCommand>(COMMAND_QUEUE_CAPACITY);
+        this.mDeferredCommands = new ArrayList<GameCommand>(COMMAND_QUEUE_CAPACITY);
+        this.mFreeCommands = new ArrayList<GameCommand>(COMMAND_QUEUE_CAPACITY);
+        for (int i = 0; i < COMMAND_QUEUE_CAPACITY; i++)
+            mFreeCommands.add(new GameCommand());
+        postCommand(GameCommand.Command.LOAD, SceneController.START_SCENE);
+        this.mInputEvents = new ArrayList<InputEvent>();
         this.mAllRenderInfo = new SyncWrapper<RenderInfo>(mScheduler);
         this.mAllRenderInfo.add(new RenderInfo());
         this.mAllRenderInfo.add(new RenderInfo());
         this.mResumeQueue = new LinkedList<Function0<Void>>();
+        this.mLoadingLock = new Object();
         this.mLoading = false;
         this.mLoader = null;
+        this.mPreloaders = new ArrayList<ScenePreloader>();
+        this.mPendingPreloads = new ArrayList<SceneController.SceneInfo>();
+        this.mPreloadBudget = DEFAULT_PRELOAD_BUDGET;
+        this.mPausedGeneration = 0;
         this.currentTime = 0l;
         this.lastTime = 0l;
         this.deltaTime = 0l;
@@ -95,10 +138,11 @@ public class LogicManager extends GameThread {
 
     public void onPause() {
         super.onPause();
+        this.mPausedGeneration = mRenderTarget.getContextGeneration();
         removeScene(SceneController.LOAD_SCENE);
-        synchronized (mLoading) {
+        synchronized (mLoadingLock) {
             if (mLoading == true) {
-                Log.w(TAG, "Pause during loading. Adding loading to resume " +
+                Logger.W(TAG, "Pause during loading. Adding loading to resume " +
                            "queue.");
                 this.mResumeQueue.add(new Function0<Void>() {
                     @Override
@@ -115,22 +159,49 @@ public class LogicManager extends GameThread {
                 });
             }
         }
+        /* Preloads still uploading may lose their textures with the context,
+         * so start them over on resume. They release what they got once they
+         * see the cancel. Ready ones are reloaded like scenes. */
+        synchronized (mPreloaders) {
+            for (int i = mPreloaders.size() - 1; i >= 0; i--) {
+                ScenePreloader preloader = mPreloaders.get(i);
+                if (preloader.isReady() == true) {
+                    preloader.getScene().onPause();
+                    continue;
+                }
+                preloader.cancel();
+                mPreloaders.remove(i);
+                mPendingPreloads.add(0, preloader.getSceneInfo());
+            }
+        }
         for (Scene scene : mScenes) scene.onPause();
     }
 
     public void onResume() {
         /* We need to execute functions we stored on pause */
-        synchronized (mLoading) {
+        synchronized (mLoadingLock) {
             this.mLoading = false;
             while (!this.mResumeQueue.isEmpty())
                 this.mResumeQueue.remove().run();
         }
-        /* We need to reload all scenes. We do this on another thread to
-         * prevent ui lockup */
+        /* We need to reload all textures and scenes. We do this on another
+         * thread to prevent ui lockup */
         new Thread(new Runnable() {
             @Override
             public void run() {
+                /* Textures only need uploading again if the context was lost.
+                 * Once there is a surface, the generation tells us. */
+                mRenderTarget.awaitSurface();
+                if (mRenderTarget.getContextGeneration() != mPausedGeneration)
+                    mScheduler.getTextureRegistry().reload();
+                else Logger.I(TAG, "GL context survived the pause, textures kept.");
                 for (Scene scene : mScenes) scene.onResume();
+                synchronized (mPreloaders) {
+                    for (ScenePreloader preloader : mPreloaders) {
+                        Scene scene = preloader.getScene();
+                        if (scene != null) scene.onResume();
+                    }
+                }
                 LogicManager.super.onResume();
             }
         }).start();
@@ -139,124 +210,346 @@ public class LogicManager extends GameThread {
     @Override
     protected void onRunning() {
         processTime();
+        Profiler.LOGIC.beginFrame();
+        long start = Profiler.LOGIC.begin();
         processCommands();
+        Profiler.LOGIC.end(SPAN_PROCESS_COMMANDS, start);
+        start = Profiler.LOGIC.begin();
         processInput();
+        Profiler.LOGIC.end(SPAN_PROCESS_INPUT, start);
+        start = Profiler.LOGIC.begin();
         processScenes();
+        Profiler.LOGIC.end(SPAN_PROCESS_SCENES, start);
+        Profiler.LOGIC.endFrame();
     }
 
     /**
      * Process time and delay/skip logic updates if we need to.
      */
     private void processTime() {
-        this.currentTime = System.currentTimeMillis();
+        this.currentTime = mClock.now();
         this.deltaTime = currentTime - lastTime;
-        this.lastTime = currentTime;
         //Log.i("FPS", "" + ((float) deltaTime / (1000f / 60f)) * 60.0f); // TODO
         if (deltaTime <= TIMESTEP) {
-            try {
-                Thread.sleep(TIMESTEP - deltaTime);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            mClock.sleep(TIMESTEP - deltaTime);
+            /* The step starts after the sleep, or the next step would see
+             * the sleep as time passed and not sleep at all */
+            this.currentTime += TIMESTEP - deltaTime;
             this.deltaTime = TIMESTEP;
         }
+        this.lastTime = currentTime;
     }
 
     /**
-     * Copies the MotionEvents from the given linked list to mInputEvents
+     * Drains the input events received since the last step into mInputEvents
      */
     private void processInput() {
-        mInputEvents = mGameView.getInputEvents();
+        mInputEvents = mRenderTarget.getInputEvents();
     }
 
     /**
-     * Processes all commands in mCommands
+     * Runs the commands put off last step and every command queued since,
+     * highest priority first. Commands that can't run yet are put off again.
      */
     private void processCommands() {
-        synchronized (mCommands) {
-            int numQueued = mCommandQueue.size();
-            for (int i = 0; i < numQueued; i++)
-                mCommands.add(mCommandQueue.get(i));
-            mCommandQueue.clear();
+        int numDeferred = mDeferredCommands.size();
+        for (int i = 0; i < numDeferred; i++)
+            mCommands.add(mDeferredCommands.get(i));
+        mDeferredCommands.clear();
+        while (true) {
+            GameCommand gameCommand = obtainCommand();
+            if (mCommandQueue.poll(gameCommand) == false) {
+                mFreeCommands.add(gameCommand);
+                break;
+            }
+            mCommands.add(gameCommand);
+        }
+        SortByPriority(mCommands);
 
-            int length = mCommands.size();
-            for (int i = 0; i < length; i++) {
-                GameCommand gameCommand = mCommands.get(i);
-                switch (gameCommand.getCommand()) {
-                    case LOAD: {
-                        synchronized (mLoading) {
-                            if (this.mLoading == true) {
-                                this.mCommandQueue.add(gameCommand);
-                                break;
-                            }
-                            this.mLoading = true;
-                            LoadScene loadScene = SceneController.LOAD_SCENE_CONSTRUCTOR
-                                                                 .run(mScheduler);
-                            SceneController.SceneInfo sceneInfo =
-                                    (SceneController.SceneInfo) gameCommand.getArgs();
-                            mLoader = new SceneLoader(mScheduler,
-                                                      sceneInfo.ClassName,
-                                                      loadScene,
-                                                      LOAD_CALLBACK);
-                            mScheduler.addThread(mLoader);
-                        }
-                        break;
-                    }
-                    case KILL: {
-                        SceneController.SceneInfo sceneInfo =
-                                (SceneController.SceneInfo) gameCommand.getArgs();
-                        removeScene(sceneInfo);
-                        break;
-                    }
-                    case LOAD_REPLACE: {
-                        synchronized (mLoading) {
-                            if (this.mLoading == true) {
-                                this.mCommandQueue.add(gameCommand);
-                                break;
-                            }
-                            this.mLoading = true;
-                            Tuple args = (Tuple) gameCommand.getArgs();
-                            final SceneController.SceneInfo thisScene =
-                                    (SceneController.SceneInfo) args.get(0);
-                            final SceneController.SceneInfo nextScene =
-                                    (SceneController.SceneInfo) args.get(1);
-                            Function1<Scene, Void> callback = new Function1<Scene, Void>() {
-                                @Override
-                                public Void run(Scene scene) {
-                                    if (getLoopState() == LoopState.PAUSED)
-                                        return null;
-                                    removeScene(thisScene);
-                                    LOAD_CALLBACK.run(scene);
-                                    return null;
-                                }
-                            };
-                            LoadScene loadScene = SceneController.LOAD_SCENE_CONSTRUCTOR
-                                                                 .run(mScheduler);
-                            mLoader = new SceneLoader(mScheduler,
-                                                      nextScene.ClassName,
-                                                      loadScene,
-                                                      callback);
-                            mScheduler.addThread(mLoader);
-                            break;
-                        }
-                    }
-                    case SHOW_ERROR: {
-                        /* TODO: Throw error */
-                        break;
-                    }
-                    case FATAL_ERROR: {
-                        // TODO: Deal with error.
-                        break;
-                    }
-                    default: {
-                        break;
-                    }
+        int length = mCommands.size();
+        for (int i = 0; i < length; i++) {
+            GameCommand gameCommand = mCommands.get(i);
+            if (runCommand(gameCommand) == true) {
+                gameCommand.clear();
+                mFreeCommands.add(gameCommand);
+            } else mDeferredCommands.add(gameCommand);
+        }
+        mCommands.clear();
+        startPendingPreloads();
+    }
+
+    /**
+     * Returns false if the command can't run yet and should be tried again
+     * next step.
+     */
+    private boolean runCommand(GameCommand gameCommand) {
+        switch (gameCommand.getCommand()) {
+            case LOAD: {
+                synchronized (mLoadingLock) {
+                    if (this.mLoading == true) return false;
+                    this.mLoading = true;
+                    LoadScene loadScene = SceneController.LOAD_SCENE_CONSTRUCTOR
+                                                         .run(mScheduler);
+                    SceneController.SceneInfo sceneInfo = gameCommand.getScene();
+                    mLoader = new SceneLoader(mScheduler,
+                                              sceneInfo.ClassName,
+                                              loadScene,
+                                              LOAD_CALLBACK);
+                    mScheduler.addThread(mLoader);
+                }
+                return true;
+            }
+            case KILL: {
+                removeScene(gameCommand.getScene());
+                return true;
+            }
+            case LOAD_REPLACE: {
+                return loadReplace(gameCommand.getScene(), gameCommand.getNextScene());
+            }
+            case PRELOAD: {
+                preload(gameCommand.getScene());
+                return true;
+            }
+            case SWAP: {
+                SceneController.SceneInfo thisScene = gameCommand.getScene();
+                SceneController.SceneInfo nextScene = gameCommand.getNextScene();
+                /* A failed preload would never be ready, load it normally */
+                if (dropFailedPreload(nextScene) == true) {
+                    Logger.W(TAG, "Preload of " + nextScene.ClassName.getName() +
+                                  " failed, loading it with a load scene.");
+                    return loadReplace(thisScene, nextScene);
+                }
+                /* Wait for the preload, starting it if nobody has */
+                if (swap(thisScene, nextScene) == true) return true;
+                preload(nextScene);
+                return false;
+            }
+            case CANCEL_PRELOAD: {
+                cancelPreload(gameCommand.getScene());
+                return true;
+            }
+            case EVENT: {
+                int eventId = gameCommand.getEventId();
+                Object payload = gameCommand.getPayload();
+                synchronized (mScenes) {
+                    for (Scene scene : mScenes) scene.onGameEvent(eventId, payload);
+                }
+                return true;
+            }
+            case SHOW_ERROR: {
+                /* TODO: Throw error */
+                return true;
+            }
+            case FATAL_ERROR: {
+                // TODO: Deal with error.
+                return true;
+            }
+            default: {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Loads nextScene behind a load scene, then replaces thisScene (if not
+     * null) with it. Returns false if a load is already running.
+     */
+    private boolean loadReplace(final SceneController.SceneInfo thisScene,
+                                SceneController.SceneInfo nextScene) {
+        synchronized (mLoadingLock) {
+            if (this.mLoading == true) return false;
+            this.mLoading = true;
+            Function1<Scene, Void> callback = new Function1<Scene, Void>() {
+                @Override
+                public Void run(Scene scene) {
+                    if (getLoopState() == LoopState.PAUSED)
+                        return null;
+                    if (thisScene != null) removeScene(thisScene);
+                    LOAD_CALLBACK.run(scene);
+                    return null;
+                }
+            };
+            LoadScene loadScene = SceneController.LOAD_SCENE_CONSTRUCTOR
+                                                 .run(mScheduler);
+            mLoader = new SceneLoader(mScheduler,
+                                      nextScene.ClassName,
+                                      loadScene,
+                                      callback);
+            mScheduler.addThread(mLoader);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a free command record, only making one if every record is in
+     * use.
+     */
+    private GameCommand obtainCommand() {
+        int numFree = mFreeCommands.size();
+        if (numFree == 0) return new GameCommand();
+        return mFreeCommands.remove(numFree - 1);
+    }
+
+    /**
+     * Stable insertion sort, highest priority first. Usually there are only
+     * a few commands, already in order.
+     */
+    private static void SortByPriority(ArrayList<GameCommand> commands) {
+        int length = commands.size();
+        for (int i = 1; i < length; i++) {
+            GameCommand command = commands.get(i);
+            int j = i - 1;
+            while (j >= 0 && commands.get(j).getPriority() < command.getPriority()) {
+                commands.set(j + 1, commands.get(j));
+                j--;
+            }
+            commands.set(j + 1, command);
+        }
+    }
+
+    /*
+     * Preloading
+     */
+
+    /**
+     * Queues a preload of the given scene unless it is already preloaded or
+     * queued.
+     */
+    private void preload(SceneController.SceneInfo sceneInfo) {
+        synchronized (mPreloaders) {
+            if (findPreloader(sceneInfo) != null) return;
+            int numPending = mPendingPreloads.size();
+            for (int i = 0; i < numPending; i++)
+                if (mPendingPreloads.get(i).ClassName.equals(sceneInfo.ClassName))
+                    return;
+            mPendingPreloads.add(sceneInfo);
+        }
+    }
+
+    /**
+     * Drops failed preloads, then starts queued preloads while there is a
+     * free slot and the ready preloads fit in the budget. One preload is always allowed to run so a
+     * scene bigger than the budget can still be swapped to.
+     */
+    private void startPendingPreloads() {
+        synchronized (mPreloaders) {
+            /* Failed preloads give their slot back */
+            for (int i = mPreloaders.size() - 1; i >= 0; i--) {
+                ScenePreloader preloader = mPreloaders.get(i);
+                if (preloader.isFailed() == false) continue;
+                Logger.W(TAG, "Dropping failed preload of " +
+                              preloader.getSceneInfo().ClassName.getName());
+                mPreloaders.remove(i);
+            }
+            while (mPendingPreloads.isEmpty() == false) {
+                int numPreloaders = mPreloaders.size();
+                if (numPreloaders > 0) {
+                    int numRunning = 0;
+                    for (int i = 0; i < numPreloaders; i++)
+                        if (mPreloaders.get(i).isReady() == false) numRunning++;
+                    if (numRunning >= MAX_CONCURRENT_PRELOADS) return;
+                    if (getPreloadedBytes() >= mPreloadBudget) return;
                 }
+                ScenePreloader preloader =
+                        new ScenePreloader(mScheduler, mPendingPreloads.remove(0));
+                mPreloaders.add(preloader);
+                mScheduler.addThread(preloader);
             }
-            mCommands.clear();
         }
     }
 
+    /**
+     * Replaces thisScene (if not null) with the preloaded nextScene. Returns
+     * false if nextScene's preload isn't ready.
+     */
+    private boolean swap(SceneController.SceneInfo thisScene,
+                         SceneController.SceneInfo nextScene) {
+        Scene scene;
+        synchronized (mPreloaders) {
+            ScenePreloader preloader = findPreloader(nextScene);
+            if (preloader == null || preloader.isReady() == false) return false;
+            mPreloaders.remove(preloader);
+            scene = preloader.take();
+        }
+        if (scene == null) return false;
+        if (thisScene != null) removeScene(thisScene);
+        addScene(scene);
+        return true;
+    }
+
+    /**
+     * Removes the given scene's preload if it failed. Returns true if it
+     * did.
+     */
+    private boolean dropFailedPreload(SceneController.SceneInfo sceneInfo) {
+        synchronized (mPreloaders) {
+            ScenePreloader preloader = findPreloader(sceneInfo);
+            if (preloader == null || preloader.isFailed() == false) return false;
+            mPreloaders.remove(preloader);
+            return true;
+        }
+    }
+
+    private void cancelPreload(SceneController.SceneInfo sceneInfo) {
+        ScenePreloader preloader;
+        synchronized (mPreloaders) {
+            for (int i = mPendingPreloads.size() - 1; i >= 0; i--)
+                if (mPendingPreloads.get(i).ClassName.equals(sceneInfo.ClassName))
+                    mPendingPreloads.remove(i);
+            preloader = findPreloader(sceneInfo);
+            if (preloader == null) return;
+            mPreloaders.remove(preloader);
+        }
+        /* Outside the lock, a ready scene is unloaded right here */
+        preloader.cancel();
+    }
+
+    private ScenePreloader findPreloader(SceneController.SceneInfo sceneInfo) {
+        int numPreloaders = mPreloaders.size();
+        for (int i = 0; i < numPreloaders; i++) {
+            ScenePreloader preloader = mPreloaders.get(i);
+            if (preloader.getSceneInfo().ClassName.equals(sceneInfo.ClassName))
+                return preloader;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the estimated texture memory held by ready preloads.
+     */
+    public long getPreloadedBytes() {
+        synchronized (mPreloaders) {
+            long bytes = 0;
+            int numPreloaders = mPreloaders.size();
+            for (int i = 0; i < numPreloaders; i++)
+                bytes += mPreloaders.get(i).getEstimatedBytes();
+            return bytes;
+        }
+    }
+
+    /**
+     * Returns true iff the given scene has been preloaded and can be swapped
+     * in on the next step.
+     */
+    public boolean isPreloaded(SceneController.SceneInfo sceneInfo) {
+        synchronized (mPreloaders) {
+            ScenePreloader preloader = findPreloader(sceneInfo);
+            return preloader != null && preloader.isReady() == true;
+        }
+    }
+
+    /**
+     * Sets roughly how many bytes of textures preloaded scenes may hold
+     * before further preloads wait for a swap or cancel.
+     */
+    public void setPreloadBudget(long bytes) {
+        this.mPreloadBudget = bytes;
+    }
+
+    public long getPreloadBudget() {
+        return mPreloadBudget;
+    }
+
     /**
      * Iterate through all the scenes, updating each, ultimately updating
      * mCommands and mAllRenderInfo and passing the data to the render thread.
@@ -270,15 +563,57 @@ public class LogicManager extends GameThread {
                 scene.step(deltaTime, mInputEvents);
                 renderInfo.append(scene.getRenderInfo());
             }
-            mGameRenderer.update(renderInfo);
-            mAllRenderInfo.pass(renderInfo, mGameRenderer.getThread());
+            mRenderTarget.update(renderInfo);
+            mAllRenderInfo.pass(renderInfo, mRenderTarget.getRenderThread());
+            /* The renderer has a step without the removed scenes, and their
+             * textures are deleted on its thread before it draws again */
+            synchronized (mRemovedScenes) {
+                int numRemoved = mRemovedScenes.size();
+                for (int i = 0; i < numRemoved; i++) mRemovedScenes.get(i).unload();
+                mRemovedScenes.clear();
+            }
         }
     }
 
+    /**
+     * Queues the given command for the next step. Any thread, never blocks.
+     * The command is copied, so it can be reused.
+     */
     public void addGameCommand(GameCommand gameCommand) {
-        synchronized (mCommands) {
-            mCommands.add(gameCommand);
-        }
+        mCommandQueue.offer(gameCommand.getCommand(),
+                            gameCommand.getScene(),
+                            gameCommand.getNextScene(),
+                            gameCommand.getEventId(),
+                            gameCommand.getPayload(),
+                            gameCommand.getPriority());
+    }
+
+    /**
+     * Queues a scene command for the next step without making a GameCommand.
+     */
+    public void postCommand(GameCommand.Command command,
+                            SceneController.SceneInfo scene) {
+        postCommand(command, scene, null);
+    }
+
+    /**
+     * Queues a LOAD_REPLACE or SWAP for the next step without making a
+     * GameCommand.
+     */
+    public void postCommand(GameCommand.Command command,
+                            SceneController.SceneInfo scene,
+                            SceneController.SceneInfo nextScene) {
+        mCommandQueue.offer(command, scene, nextScene, 0, null,
+                            GameCommand.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Hands the given event to every scene on the next step, see
+     * {@link Scene#onGameEvent(int, Object)}.
+     */
+    public void postEvent(int eventId, Object payload, int priority) {
+        mCommandQueue.offer(GameCommand.Command.EVENT, null, null, eventId,
+                            payload, priority);
     }
 
     /**
@@ -296,7 +631,8 @@ public class LogicManager extends GameThread {
     }
 
     /**
-     * Removes a scene.
+     * Removes a scene. Its textures are released once the renderer has been
+     * handed a step without it.
      * O(n) where n is the number of scenes held.
      */
     public void removeScene(SceneController.SceneInfo sceneInfo) {
@@ -311,6 +647,9 @@ public class LogicManager extends GameThread {
                 }
             }
             if (sceneIndex == -1) return;
+            synchronized (mRemovedScenes) {
+                mRemovedScenes.add(mScenes[sceneIndex]);
+            }
 			/* Removing the scene */
             int newSize = mScenes.length - 1;
             Scene[] newScenes = new Scene[newSize];
@@ -0,0 +1,67 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+
+/**
+ * Plays the mixer's output through a streaming AudioTrack. The track's
+ * buffer is kept as small as the device allows (at least two mixer
+ * buffers), since everything queued in it is latency.
+ *
+ * @author jlreyes
+ */
+public class AndroidAudioSink implements AudioSink {
+    public static final String TAG = "AndroidAudioSink";
+
+    private AudioTrack mTrack;
+
+    public AndroidAudioSink() {
+        this.mTrack = null;
+    }
+
+    public void open(int sampleRate, int bufferFrames) {
+        int minBytes = AudioTrack.getMinBufferSize(sampleRate,
+                                                   AudioFormat.CHANNEL_OUT_STEREO,
+                                                   AudioFormat.ENCODING_PCM_16BIT);
+        /* 2 channels of 2 bytes per frame */
+        int bufferBytes = Math.max(minBytes, bufferFrames * 4 * 2);
+        mTrack = new AudioTrack(AudioManager.STREAM_MUSIC,
+                                sampleRate,
+                                AudioFormat.CHANNEL_OUT_STEREO,
+                                AudioFormat.ENCODING_PCM_16BIT,
+                                bufferBytes,
+                                AudioTrack.MODE_STREAM);
+        mTrack.play();
+    }
+
+    public void write(short[] buffer, int numFrames) {
+        int numShorts = numFrames * Mixer.CHANNELS;
+        int written = 0;
+        while (written < numShorts) {
+            int result = mTrack.write(buffer, written, numShorts - written);
+            if (result < 0)
+                throw new RuntimeException("AudioTrack write failed with " + result);
+            written += result;
+        }
+    }
+
+    public void pause() {
+        if (mTrack != null) mTrack.pause();
+    }
+
+    public void resume() {
+        if (mTrack != null) mTrack.play();
+    }
+
+    public void close() {
+        if (mTrack == null) return;
+        mTrack.stop();
+        mTrack.release();
+        mTrack = null;
+    }
+
+    public boolean isOpen() {
+        return mTrack != null;
+    }
+}
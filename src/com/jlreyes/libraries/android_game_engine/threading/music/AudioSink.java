@@ -0,0 +1,30 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+/**
+ * Where the mixer's output goes. Buffers are interleaved 16 bit stereo.
+ * {@link AndroidAudioSink} plays them, {@link NullAudioSink} throws them
+ * away so the mixer can be run without a device.
+ *
+ * @author jlreyes
+ */
+public interface AudioSink {
+    /**
+     * Opens the sink for the given format. bufferFrames is how many frames
+     * each write will hold.
+     */
+    public void open(int sampleRate, int bufferFrames);
+
+    /**
+     * Writes numFrames stereo frames from buffer, blocking until the device
+     * has room for them. The time spent blocked is what paces the mixer.
+     */
+    public void write(short[] buffer, int numFrames);
+
+    public void pause();
+
+    public void resume();
+
+    public void close();
+
+    public boolean isOpen();
+}
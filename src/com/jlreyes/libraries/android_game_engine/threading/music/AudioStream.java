@@ -0,0 +1,27 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+import java.io.IOException;
+
+/**
+ * Decoded 16 bit audio read a chunk at a time.
+ *
+ * @author jlreyes
+ */
+public interface AudioStream {
+    public int getSampleRate();
+
+    /**
+     * 1 for mono, 2 for stereo.
+     */
+    public int getChannels();
+
+    /**
+     * Reads up to maxFrames frames into out starting at offset, interleaved
+     * if stereo.
+     *
+     * @return The number of frames read, or -1 at the end of the stream.
+     */
+    public int read(short[] out, int offset, int maxFrames) throws IOException;
+
+    public void close();
+}
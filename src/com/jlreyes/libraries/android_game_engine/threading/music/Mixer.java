@@ -0,0 +1,306 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+/**
+ * Mixes sound effects and music into fixed size stereo buffers. Pure Java,
+ * so it can be run and measured without a device, see {@link NullAudioSink}.
+ *
+ * Sound effects play on a fixed pool of voices. When every voice is busy, a
+ * new sound takes the voice of the lowest priority sound playing (the oldest
+ * of those), as long as that priority is not higher than its own. Otherwise
+ * the new sound is dropped.
+ *
+ * Any thread can call play and stop; requests go through a lock-free
+ * {@link PlayQueue} and are picked up at the start of the next buffer.
+ * Everything else is for the mixer thread only.
+ *
+ * @author jlreyes
+ */
+public class Mixer {
+    public static final String TAG = "Mixer";
+    public static final int CHANNELS = 2;
+    public static final int DEFAULT_MAX_VOICES = 16;
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    /* Gains are fixed point with this many fractional bits */
+    public static final int GAIN_BITS = 12;
+    public static final int GAIN_ONE = 1 << GAIN_BITS;
+    /* Sample positions are fixed point with this many fractional bits */
+    private static final int POSITION_BITS = 16;
+
+    private static class Voice {
+        private boolean mActive;
+        private Sample mSample;
+        private long mPosition;
+        private long mStep;
+        private int mLeftGain;
+        private int mRightGain;
+        private int mPriority;
+        private boolean mLoop;
+        private long mHandle;
+    }
+
+    private int mSampleRate;
+    private int mBufferFrames;
+    private SampleBank mBank;
+    private MusicChannel mMusic;
+    private PlayQueue mQueue;
+    private Voice[] mVoices;
+    private int[] mAccumulator;
+    /* Stats, written by the mixer thread */
+    private volatile int mNumActive;
+    private volatile int mNumStolen;
+    private volatile int mNumDropped;
+
+    public Mixer(int sampleRate, int bufferFrames, SampleBank bank, MusicChannel music) {
+        this(sampleRate, bufferFrames, bank, music,
+             DEFAULT_MAX_VOICES, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param sampleRate    The output rate. Samples at other rates are
+     *                      resampled, music must match it.
+     * @param bufferFrames  The number of frames mixed at a time.
+     * @param music         Where music comes from, null for none.
+     * @param maxVoices     The most sound effects that can play at once.
+     * @param queueCapacity The most requests that can be waiting between
+     *                      two buffers.
+     */
+    public Mixer(int sampleRate, int bufferFrames, SampleBank bank,
+                 MusicChannel music, int maxVoices, int queueCapacity) {
+        this.mSampleRate = sampleRate;
+        this.mBufferFrames = bufferFrames;
+        this.mBank = bank;
+        this.mMusic = music;
+        this.mQueue = new PlayQueue(queueCapacity);
+        this.mVoices = new Voice[maxVoices];
+        for (int i = 0; i < maxVoices; i++) mVoices[i] = new Voice();
+        this.mAccumulator = new int[bufferFrames * CHANNELS];
+        this.mNumActive = 0;
+        this.mNumStolen = 0;
+        this.mNumDropped = 0;
+    }
+
+    /*
+     * Requests, any thread
+     */
+
+    /**
+     * Same as play(sampleId, 1, 0, 1, 0, false).
+     */
+    public long play(int sampleId) {
+        return play(sampleId, 1.0f, 0.0f, 1.0f, 0, false);
+    }
+
+    /**
+     * Plays the sample with the given id.
+     *
+     * @param volume   0 to 1.
+     * @param pan      -1 (left) to 1 (right).
+     * @param pitch    Playback speed, 1 for normal.
+     * @param priority Sounds only take voices from sounds with the same or
+     *                 lower priority.
+     * @param loop     True to loop until stopped.
+     * @return A handle to stop the sound with, or -1 if too many requests
+     *         are waiting.
+     */
+    public long play(int sampleId, float volume, float pan, float pitch,
+                     int priority, boolean loop) {
+        return mQueue.offer(PlayQueue.COMMAND_PLAY, sampleId, volume, pan,
+                            pitch, priority, loop, 0);
+    }
+
+    /**
+     * Stops the sound play returned the given handle for, if it is still
+     * playing.
+     */
+    public void stop(long handle) {
+        mQueue.offer(PlayQueue.COMMAND_STOP, -1, 0, 0, 0, 0, false, handle);
+    }
+
+    public void stopAll() {
+        mQueue.offer(PlayQueue.COMMAND_STOP_ALL, -1, 0, 0, 0, 0, false, 0);
+    }
+
+    /*
+     * Mixing, mixer thread only
+     */
+
+    /**
+     * Mixes the next buffer into out, which holds
+     * getBufferFrames() * CHANNELS samples.
+     */
+    public void mix(short[] out) {
+        processRequests();
+        int[] accumulator = mAccumulator;
+        int numSamples = mBufferFrames * CHANNELS;
+        for (int i = 0; i < numSamples; i++) accumulator[i] = 0;
+        int numActive = 0;
+        for (Voice voice : mVoices) {
+            if (voice.mActive == false) continue;
+            mixVoice(voice);
+            if (voice.mActive == true) numActive++;
+        }
+        mNumActive = numActive;
+        if (mMusic != null) mMusic.mixInto(accumulator, mBufferFrames);
+        for (int i = 0; i < numSamples; i++) {
+            int sample = accumulator[i];
+            if (sample > Short.MAX_VALUE) sample = Short.MAX_VALUE;
+            else if (sample < Short.MIN_VALUE) sample = Short.MIN_VALUE;
+            out[i] = (short) sample;
+        }
+    }
+
+    private void processRequests() {
+        PlayQueue queue = mQueue;
+        while (queue.poll() == true) {
+            switch (queue.getCommand()) {
+                case PlayQueue.COMMAND_PLAY: {
+                    start(queue);
+                    break;
+                }
+                case PlayQueue.COMMAND_STOP: {
+                    long handle = queue.getHandle();
+                    for (Voice voice : mVoices)
+                        if (voice.mActive == true && voice.mHandle == handle)
+                            release(voice);
+                    break;
+                }
+                case PlayQueue.COMMAND_STOP_ALL: {
+                    for (Voice voice : mVoices) release(voice);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void start(PlayQueue request) {
+        Sample sample = mBank.get(request.getSampleId());
+        if (sample == null || sample.getNumFrames() == 0) return;
+        int priority = request.getPriority();
+        Voice voice = findVoice(priority);
+        if (voice == null) {
+            mNumDropped++;
+            return;
+        }
+        float volume = request.getVolume();
+        float pan = request.getPan();
+        float left = pan > 0.0f ? volume * (1.0f - pan) : volume;
+        float right = pan < 0.0f ? volume * (1.0f + pan) : volume;
+        voice.mActive = true;
+        voice.mSample = sample;
+        voice.mPosition = 0;
+        voice.mStep = (long) ((double) request.getPitch() *
+                              (double) sample.getSampleRate() /
+                              (double) mSampleRate * (double) (1 << POSITION_BITS));
+        if (voice.mStep <= 0) voice.mStep = 1;
+        voice.mLeftGain = (int) (left * GAIN_ONE);
+        voice.mRightGain = (int) (right * GAIN_ONE);
+        voice.mPriority = priority;
+        voice.mLoop = request.isLoop();
+        voice.mHandle = request.getTicket();
+    }
+
+    /**
+     * Returns a free voice, or the voice to steal for a sound of the given
+     * priority, or null if the sound should be dropped.
+     */
+    private Voice findVoice(int priority) {
+        Voice victim = null;
+        for (Voice voice : mVoices) {
+            if (voice.mActive == false) return voice;
+            /* Handles increase, so the lowest one is the oldest sound */
+            if (victim == null || voice.mPriority < victim.mPriority ||
+                (voice.mPriority == victim.mPriority && voice.mHandle < victim.mHandle))
+                victim = voice;
+        }
+        if (victim == null || victim.mPriority > priority) return null;
+        mNumStolen++;
+        return victim;
+    }
+
+    private void release(Voice voice) {
+        voice.mActive = false;
+        voice.mSample = null;
+    }
+
+    /**
+     * Adds one buffer of the given voice to the accumulator, releasing it
+     * if its sound ends.
+     */
+    private void mixVoice(Voice voice) {
+        int[] accumulator = mAccumulator;
+        Sample sample = voice.mSample;
+        short[] data = sample.getData();
+        boolean stereo = sample.getChannels() == 2;
+        long end = (long) sample.getNumFrames() << POSITION_BITS;
+        long position = voice.mPosition;
+        long step = voice.mStep;
+        int leftGain = voice.mLeftGain;
+        int rightGain = voice.mRightGain;
+        int numFrames = mBufferFrames;
+        for (int i = 0; i < numFrames; i++) {
+            if (position >= end) {
+                if (voice.mLoop == false) {
+                    release(voice);
+                    return;
+                }
+                /* A short sample at a high pitch can be stepped past more
+                 * than once */
+                position %= end;
+            }
+            int frame = (int) (position >> POSITION_BITS);
+            int left;
+            int right;
+            if (stereo == true) {
+                left = data[2 * frame];
+                right = data[2 * frame + 1];
+            } else {
+                left = data[frame];
+                right = left;
+            }
+            accumulator[2 * i] += (left * leftGain) >> GAIN_BITS;
+            accumulator[2 * i + 1] += (right * rightGain) >> GAIN_BITS;
+            position += step;
+        }
+        voice.mPosition = position;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public int getSampleRate() {
+        return mSampleRate;
+    }
+
+    public int getBufferFrames() {
+        return mBufferFrames;
+    }
+
+    public int getMaxVoices() {
+        return mVoices.length;
+    }
+
+    public SampleBank getSampleBank() {
+        return mBank;
+    }
+
+    /**
+     * Voices playing after the last buffer.
+     */
+    public int getNumActive() {
+        return mNumActive;
+    }
+
+    /**
+     * Sounds that took another sound's voice.
+     */
+    public int getNumStolen() {
+        return mNumStolen;
+    }
+
+    /**
+     * Sounds dropped because every voice had a higher priority.
+     */
+    public int getNumDropped() {
+        return mNumDropped;
+    }
+}
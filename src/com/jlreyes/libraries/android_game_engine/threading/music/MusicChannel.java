@@ -0,0 +1,126 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+/**
+ * Ring buffer of decoded stereo music between the thread streaming it
+ * ({@link MusicStreamer}) and the mixer. One writer and one reader, so the
+ * two positions are all the synchronization needed.
+ *
+ * @author jlreyes
+ */
+public class MusicChannel {
+    private short[] mRing;
+    private int mMask;
+    /* Frames written and read since creation. Only the writer moves
+     * mWritten and only the reader moves mRead. */
+    private volatile long mWritten;
+    private volatile long mRead;
+    /* Set by the writer to drop everything before it, see clear() */
+    private volatile long mSkipTo;
+    private volatile boolean mStreaming;
+    private volatile float mVolume;
+    /* Only touched by the reader */
+    private int mNumUnderruns;
+
+    /**
+     * @param capacityFrames Rounded up to a power of two.
+     */
+    public MusicChannel(int capacityFrames) {
+        int size = 1;
+        while (size < capacityFrames) size <<= 1;
+        this.mRing = new short[size * Mixer.CHANNELS];
+        this.mMask = size - 1;
+        this.mWritten = 0;
+        this.mRead = 0;
+        this.mSkipTo = 0;
+        this.mStreaming = false;
+        this.mVolume = 1.0f;
+        this.mNumUnderruns = 0;
+    }
+
+    /*
+     * Writer
+     */
+
+    public int getFreeFrames() {
+        return (mMask + 1) - (int) (mWritten - mRead);
+    }
+
+    /**
+     * Appends the given stereo frames. There must be room for them.
+     */
+    public void write(short[] frames, int offset, int numFrames) {
+        if (numFrames > getFreeFrames())
+            throw new RuntimeException("Music channel overflow.");
+        long written = mWritten;
+        for (int i = 0; i < numFrames; i++) {
+            int index = (int) ((written + i) & mMask) * Mixer.CHANNELS;
+            mRing[index] = frames[offset + i * Mixer.CHANNELS];
+            mRing[index + 1] = frames[offset + i * Mixer.CHANNELS + 1];
+        }
+        mWritten = written + numFrames;
+    }
+
+    /**
+     * Drops everything written so far, for when the track changes.
+     */
+    public void clear() {
+        mSkipTo = mWritten;
+    }
+
+    /**
+     * Tells the reader whether it should expect more music, so running
+     * dry counts as an underrun.
+     */
+    public void setStreaming(boolean streaming) {
+        this.mStreaming = streaming;
+    }
+
+    /*
+     * Reader
+     */
+
+    /**
+     * Adds up to numFrames frames to the mixer's accumulator.
+     */
+    public void mixInto(int[] accumulator, int numFrames) {
+        long read = mRead;
+        long skipTo = mSkipTo;
+        if (skipTo > read) read = skipTo;
+        int available = (int) (mWritten - read);
+        int frames = Math.min(available, numFrames);
+        if (frames < numFrames && mStreaming == true) mNumUnderruns++;
+        int gain = (int) (mVolume * Mixer.GAIN_ONE);
+        for (int i = 0; i < frames; i++) {
+            int index = (int) ((read + i) & mMask) * Mixer.CHANNELS;
+            accumulator[2 * i] += (mRing[index] * gain) >> Mixer.GAIN_BITS;
+            accumulator[2 * i + 1] += (mRing[index + 1] * gain) >> Mixer.GAIN_BITS;
+        }
+        mRead = read + frames;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public void setVolume(float volume) {
+        this.mVolume = volume;
+    }
+
+    public float getVolume() {
+        return mVolume;
+    }
+
+    public boolean isStreaming() {
+        return mStreaming;
+    }
+
+    /**
+     * Times the mixer wanted music that hadn't been decoded yet.
+     */
+    public int getNumUnderruns() {
+        return mNumUnderruns;
+    }
+
+    public int getBufferedFrames() {
+        return (int) (mWritten - mRead);
+    }
+}
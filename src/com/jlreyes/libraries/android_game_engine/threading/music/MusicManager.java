@@ -1,11 +1,255 @@
 package com.jlreyes.libraries.android_game_engine.threading.music;
 
+import android.content.Context;
+import com.jlreyes.libraries.android_game_engine.threading.GameThread;
+import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
+
+import java.io.IOException;
+
 /**
- * User: James
- * Date: 1/18/13
- * Time: 2:51 PM
- * TODO
+ * The mixer thread. Each loop mixes one small buffer of sound effects and
+ * music and hands it to the sink, whose blocking write paces the loop, so
+ * a sound started now is heard about one buffer later.
+ *
+ * Sound effects are decoded once into the {@link SampleBank}. Music is
+ * decoded on its own {@link MusicStreamer} thread, so the mixer never does
+ * file IO. Nothing is allocated while mixing.
+ *
+ * Neither thread runs until the first sound or track is played, so a game
+ * without sound never opens an audio track or streams silence.
+ *
+ * @author jlreyes
  */
-/*
 public class MusicManager extends GameThread {
-}                                             */
+    public static final String TAG = "MusicManager";
+    public static final int DEFAULT_SAMPLE_RATE = 44100;
+    /* About 6ms at 44100Hz */
+    public static final int DEFAULT_BUFFER_FRAMES = 256;
+    /* Decoded music kept ahead of the mixer, about a second */
+    public static final int MUSIC_BUFFER_FRAMES = 32768;
+
+    private Context mContext;
+    private AudioSink mSink;
+    private SampleBank mSampleBank;
+    private MusicChannel mMusicChannel;
+    private MusicStreamer mMusicStreamer;
+    private Mixer mMixer;
+    private short[] mBuffer;
+    /* Set by start(), the threads start once we are also played */
+    private final Object mStartLock;
+    private boolean mStartRequested;
+    private volatile boolean mPlayed;
+    private boolean mStarted;
+
+    /**
+     * Plays through an AudioTrack at the default rate and buffer size.
+     */
+    public MusicManager(Scheduler scheduler, String name) {
+        this(name, new AndroidAudioSink(), DEFAULT_SAMPLE_RATE, DEFAULT_BUFFER_FRAMES);
+        this.mContext = scheduler.getContext();
+    }
+
+    /**
+     * @param sink         Where mixed buffers go.
+     * @param sampleRate   The output rate. Music must be at this rate.
+     * @param bufferFrames The frames mixed per loop. Smaller is lower
+     *                     latency but more loops.
+     */
+    public MusicManager(String name, AudioSink sink, int sampleRate, int bufferFrames) {
+        super(name);
+        this.mContext = null;
+        this.mSink = sink;
+        this.mSampleBank = new SampleBank();
+        this.mMusicChannel = new MusicChannel(MUSIC_BUFFER_FRAMES);
+        this.mMusicStreamer = new MusicStreamer(name + " Streamer",
+                                                mMusicChannel,
+                                                sampleRate);
+        this.mMixer = new Mixer(sampleRate, bufferFrames, mSampleBank, mMusicChannel);
+        this.mBuffer = new short[bufferFrames * Mixer.CHANNELS];
+        this.mStartLock = new Object();
+        this.mStartRequested = false;
+        this.mPlayed = false;
+        this.mStarted = false;
+    }
+
+    /**
+     * Only starts the mixer and music threads, in the given state, if
+     * something was played already. Otherwise they start on the first play.
+     */
+    @Override
+    public void start(LoopState loopState) {
+        synchronized (mStartLock) {
+            setLoopState(loopState);
+            mStartRequested = true;
+            startIfPlayed();
+        }
+    }
+
+    /**
+     * Called before every request to play something.
+     */
+    private void onPlay() {
+        if (mPlayed == true) return;
+        synchronized (mStartLock) {
+            mPlayed = true;
+            startIfPlayed();
+        }
+    }
+
+    /* Under mStartLock. Starts in our loop state, paused if we were paused
+     * in between. */
+    private void startIfPlayed() {
+        if (mStarted == true || mStartRequested == false || mPlayed == false) return;
+        mStarted = true;
+        mMusicStreamer.start(getLoopState());
+        super.start(getLoopState());
+    }
+
+    @Override
+    protected void onRunning() {
+        if (mSink.isOpen() == false)
+            mSink.open(mMixer.getSampleRate(), mMixer.getBufferFrames());
+        mMixer.mix(mBuffer);
+        mSink.write(mBuffer, mMixer.getBufferFrames());
+    }
+
+    @Override
+    public void onPause() {
+        /* So threads started meanwhile start paused */
+        synchronized (mStartLock) {
+            super.onPause();
+            mMusicStreamer.onPause();
+        }
+        mSink.pause();
+    }
+
+    @Override
+    public void onResume() {
+        mSink.resume();
+        synchronized (mStartLock) {
+            mMusicStreamer.onResume();
+            super.onResume();
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mMusicStreamer.onDestroy();
+        mMusicStreamer.kill();
+        try {
+            mMusicStreamer.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void run() {
+        super.run();
+        mSink.close();
+    }
+
+    /*
+     * Sound effects
+     */
+
+    /**
+     * Decodes the given raw WAV resource into the sample bank. Call while
+     * loading, not during play.
+     *
+     * @return The id to play the sample with.
+     */
+    public int loadSample(int rawResId) {
+        try {
+            return mSampleBank.load(new WavStream(getContext().getResources()
+                                                              .openRawResource(rawResId)));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load sample " + rawResId +
+                                       ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * See {@link Mixer#play(int)}.
+     */
+    public long play(int sampleId) {
+        onPlay();
+        return mMixer.play(sampleId);
+    }
+
+    /**
+     * See {@link Mixer#play(int, float, float, float, int, boolean)}.
+     */
+    public long play(int sampleId, float volume, float pan, float pitch,
+                     int priority, boolean loop) {
+        onPlay();
+        return mMixer.play(sampleId, volume, pan, pitch, priority, loop);
+    }
+
+    public void stop(long handle) {
+        mMixer.stop(handle);
+    }
+
+    public void stopAll() {
+        mMixer.stopAll();
+    }
+
+    /*
+     * Music
+     */
+
+    /**
+     * Streams the given raw WAV resource, replacing the current track.
+     */
+    public void playMusic(final int rawResId, boolean loop) {
+        playMusic(new MusicStreamer.Source() {
+            public AudioStream open() throws IOException {
+                return new WavStream(getContext().getResources()
+                                                 .openRawResource(rawResId));
+            }
+        }, loop);
+    }
+
+    /**
+     * Streams the given source, replacing the current track.
+     */
+    public void playMusic(MusicStreamer.Source source, boolean loop) {
+        onPlay();
+        mMusicStreamer.play(source, loop);
+    }
+
+    public void stopMusic() {
+        mMusicStreamer.play(null, false);
+    }
+
+    public void setMusicVolume(float volume) {
+        mMusicChannel.setVolume(volume);
+    }
+
+    /*
+     * Getters and Setters
+     */
+    private Context getContext() {
+        if (mContext == null)
+            throw new RuntimeException("This music manager has no context to load" +
+                                       " resources from.");
+        return mContext;
+    }
+
+    public Mixer getMixer() {
+        return mMixer;
+    }
+
+    public SampleBank getSampleBank() {
+        return mSampleBank;
+    }
+
+    public MusicChannel getMusicChannel() {
+        return mMusicChannel;
+    }
+
+    public AudioSink getSink() {
+        return mSink;
+    }
+}
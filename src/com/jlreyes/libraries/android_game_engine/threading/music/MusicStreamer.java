@@ -0,0 +1,138 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+import com.jlreyes.libraries.android_game_engine.threading.GameThread;
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
+
+import java.io.IOException;
+
+/**
+ * Decodes the current music track a chunk at a time into a
+ * {@link MusicChannel}, keeping it topped up so the mixer never waits on
+ * file IO or decoding.
+ *
+ * @author jlreyes
+ */
+public class MusicStreamer extends GameThread {
+    public static final String TAG = "MusicStreamer";
+    public static final int CHUNK_FRAMES = 2048;
+    /* How long to wait when the channel is full */
+    private static final long REFILL_SLEEP_MS = 10l;
+
+    /**
+     * Opens a music track, from the start, every time it is called.
+     */
+    public static interface Source {
+        public AudioStream open() throws IOException;
+    }
+
+    private MusicChannel mChannel;
+    private int mSampleRate;
+    /* Requested by other threads */
+    private Source mRequestedSource;
+    private boolean mRequestedLoop;
+    private volatile boolean mChanged;
+    /* Only touched on this thread */
+    private Source mSource;
+    private boolean mLoop;
+    private AudioStream mStream;
+    private short[] mDecoded;
+    private short[] mStereo;
+
+    public MusicStreamer(String name, MusicChannel channel, int sampleRate) {
+        super(name);
+        this.mChannel = channel;
+        this.mSampleRate = sampleRate;
+        this.mChanged = false;
+        this.mDecoded = new short[CHUNK_FRAMES * Mixer.CHANNELS];
+        this.mStereo = new short[CHUNK_FRAMES * Mixer.CHANNELS];
+    }
+
+    /**
+     * Switches to the given track, or stops the music if it is null.
+     * Thread safe.
+     */
+    public synchronized void play(Source source, boolean loop) {
+        this.mRequestedSource = source;
+        this.mRequestedLoop = loop;
+        this.mChanged = true;
+    }
+
+    @Override
+    protected void onRunning() {
+        if (mChanged == true) changeTrack();
+        if (mStream == null || mChannel.getFreeFrames() < CHUNK_FRAMES) {
+            sleep();
+            return;
+        }
+        int read;
+        try {
+            read = mStream.read(mDecoded, 0, CHUNK_FRAMES);
+        } catch (IOException e) {
+            Logger.E(TAG, "Music stream failed: " + e.getMessage());
+            read = -1;
+            mLoop = false;
+        }
+        if (read < 0) {
+            closeStream();
+            if (mLoop == true) openStream();
+            else mChannel.setStreaming(false);
+            return;
+        }
+        if (mStream.getChannels() == 1) {
+            for (int i = 0; i < read; i++) {
+                mStereo[2 * i] = mDecoded[i];
+                mStereo[2 * i + 1] = mDecoded[i];
+            }
+            mChannel.write(mStereo, 0, read);
+        } else mChannel.write(mDecoded, 0, read);
+    }
+
+    private void changeTrack() {
+        synchronized (this) {
+            mSource = mRequestedSource;
+            mLoop = mRequestedLoop;
+            mChanged = false;
+        }
+        closeStream();
+        mChannel.clear();
+        openStream();
+        mChannel.setStreaming(mStream != null);
+    }
+
+    private void openStream() {
+        if (mSource == null) return;
+        try {
+            mStream = mSource.open();
+        } catch (IOException e) {
+            Logger.E(TAG, "Could not open music: " + e.getMessage());
+            mStream = null;
+            return;
+        }
+        if (mStream.getSampleRate() != mSampleRate) {
+            int rate = mStream.getSampleRate();
+            closeStream();
+            throw new RuntimeException("Music is at " + rate + "Hz but the" +
+                                       " mixer runs at " + mSampleRate + "Hz.");
+        }
+    }
+
+    private void closeStream() {
+        if (mStream == null) return;
+        mStream.close();
+        mStream = null;
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(REFILL_SLEEP_MS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void run() {
+        super.run();
+        closeStream();
+    }
+}
@@ -0,0 +1,54 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+/**
+ * Sink that throws everything away. With realTime set it sleeps as long as
+ * the audio would have taken to play, otherwise the mixer runs as fast as it
+ * can, which is what you want when measuring it.
+ *
+ * @author jlreyes
+ */
+public class NullAudioSink implements AudioSink {
+    private boolean mRealTime;
+    private boolean mOpen;
+    private int mSampleRate;
+    private long mFramesWritten;
+
+    public NullAudioSink(boolean realTime) {
+        this.mRealTime = realTime;
+        this.mOpen = false;
+        this.mFramesWritten = 0;
+    }
+
+    public void open(int sampleRate, int bufferFrames) {
+        this.mSampleRate = sampleRate;
+        this.mOpen = true;
+    }
+
+    public void write(short[] buffer, int numFrames) {
+        mFramesWritten += numFrames;
+        if (mRealTime == false) return;
+        try {
+            Thread.sleep((numFrames * 1000l) / mSampleRate);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void pause() {
+    }
+
+    public void resume() {
+    }
+
+    public void close() {
+        this.mOpen = false;
+    }
+
+    public boolean isOpen() {
+        return mOpen;
+    }
+
+    public long getFramesWritten() {
+        return mFramesWritten;
+    }
+}
@@ -0,0 +1,171 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of requests to the mixer. Any number of threads
+ * can offer (the logic thread, layers updating in parallel), and only the
+ * mixer polls. Requests are stored field by field in preallocated arrays, so
+ * nothing is allocated.
+ *
+ * Each slot has a sequence number. A producer claims a slot by moving the
+ * tail with a compare and set, fills it in and then publishes it by setting
+ * its sequence, so the mixer never sees a half written request.
+ *
+ * @author jlreyes
+ */
+public class PlayQueue {
+    public static final int COMMAND_PLAY = 0;
+    public static final int COMMAND_STOP = 1;
+    public static final int COMMAND_STOP_ALL = 2;
+
+    private int mMask;
+    private AtomicLongArray mSequences;
+    private AtomicLong mTail;
+    /* Only touched by the consumer */
+    private long mHead;
+    /* Request fields */
+    private int[] mCommands;
+    private int[] mSampleIds;
+    private int[] mPriorities;
+    private boolean[] mLoops;
+    private float[] mVolumes;
+    private float[] mPans;
+    private float[] mPitches;
+    private long[] mHandles;
+    /* The request last polled */
+    private int mCommand;
+    private int mSampleId;
+    private int mPriority;
+    private boolean mLoop;
+    private float mVolume;
+    private float mPan;
+    private float mPitch;
+    private long mHandle;
+    private long mTicket;
+
+    /**
+     * @param capacity Rounded up to a power of two.
+     */
+    public PlayQueue(int capacity) {
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.mMask = size - 1;
+        this.mSequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) mSequences.set(i, i);
+        this.mTail = new AtomicLong(0);
+        this.mHead = 0;
+        this.mCommands = new int[size];
+        this.mSampleIds = new int[size];
+        this.mPriorities = new int[size];
+        this.mLoops = new boolean[size];
+        this.mVolumes = new float[size];
+        this.mPans = new float[size];
+        this.mPitches = new float[size];
+        this.mHandles = new long[size];
+    }
+
+    /**
+     * Queues a request. Thread safe and lock-free.
+     *
+     * @return The ticket of the request, unique for the life of the queue,
+     *         or -1 if the queue is full.
+     */
+    public long offer(int command, int sampleId, float volume, float pan,
+                      float pitch, int priority, boolean loop, long handle) {
+        long ticket = mTail.get();
+        int index;
+        while (true) {
+            index = (int) (ticket & mMask);
+            long difference = mSequences.get(index) - ticket;
+            if (difference == 0) {
+                if (mTail.compareAndSet(ticket, ticket + 1) == true) break;
+                ticket = mTail.get();
+            } else if (difference < 0) {
+                /* The consumer hasn't freed this slot yet, we're full */
+                return -1;
+            } else ticket = mTail.get();
+        }
+        mCommands[index] = command;
+        mSampleIds[index] = sampleId;
+        mVolumes[index] = volume;
+        mPans[index] = pan;
+        mPitches[index] = pitch;
+        mPriorities[index] = priority;
+        mLoops[index] = loop;
+        mHandles[index] = handle;
+        mSequences.set(index, ticket + 1);
+        return ticket;
+    }
+
+    /**
+     * Takes the next request, whose fields are then returned by the getters.
+     * Consumer only.
+     *
+     * @return false if there was nothing to take.
+     */
+    public boolean poll() {
+        int index = (int) (mHead & mMask);
+        if (mSequences.get(index) != mHead + 1) return false;
+        mCommand = mCommands[index];
+        mSampleId = mSampleIds[index];
+        mVolume = mVolumes[index];
+        mPan = mPans[index];
+        mPitch = mPitches[index];
+        mPriority = mPriorities[index];
+        mLoop = mLoops[index];
+        mHandle = mHandles[index];
+        mTicket = mHead;
+        /* Free the slot for the producer one lap ahead */
+        mSequences.set(index, mHead + mMask + 1);
+        mHead++;
+        return true;
+    }
+
+    /*
+     * The request last polled
+     */
+    public int getCommand() {
+        return mCommand;
+    }
+
+    public int getSampleId() {
+        return mSampleId;
+    }
+
+    public float getVolume() {
+        return mVolume;
+    }
+
+    public float getPan() {
+        return mPan;
+    }
+
+    public float getPitch() {
+        return mPitch;
+    }
+
+    public int getPriority() {
+        return mPriority;
+    }
+
+    public boolean isLoop() {
+        return mLoop;
+    }
+
+    public long getHandle() {
+        return mHandle;
+    }
+
+    /**
+     * The ticket offer returned for the request.
+     */
+    public long getTicket() {
+        return mTicket;
+    }
+
+    public int getCapacity() {
+        return mMask + 1;
+    }
+}
@@ -0,0 +1,52 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+/**
+ * A sound effect decoded into memory. Immutable.
+ *
+ * @author jlreyes
+ */
+public class Sample {
+    private short[] mData;
+    private int mChannels;
+    private int mSampleRate;
+    private int mNumFrames;
+
+    /**
+     * @param data     16 bit samples, interleaved if stereo. Not copied.
+     * @param channels 1 for mono, 2 for stereo.
+     */
+    public Sample(short[] data, int numFrames, int channels, int sampleRate) {
+        if (channels != 1 && channels != 2)
+            throw new RuntimeException("Samples must be mono or stereo.");
+        if (data.length < numFrames * channels)
+            throw new RuntimeException("Sample data is shorter than " +
+                                       numFrames + " frames.");
+        this.mData = data;
+        this.mNumFrames = numFrames;
+        this.mChannels = channels;
+        this.mSampleRate = sampleRate;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public short[] getData() {
+        return mData;
+    }
+
+    public int getNumFrames() {
+        return mNumFrames;
+    }
+
+    public int getChannels() {
+        return mChannels;
+    }
+
+    public int getSampleRate() {
+        return mSampleRate;
+    }
+
+    public long getBytes() {
+        return (long) mNumFrames * (long) mChannels * 2l;
+    }
+}
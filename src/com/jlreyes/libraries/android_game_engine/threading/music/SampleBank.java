@@ -0,0 +1,100 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+import java.io.IOException;
+
+/**
+ * Sound effects decoded ahead of time, so playing one is just handing the
+ * mixer its id. Ids are handed out in load order and never reused.
+ *
+ * Loading is synchronized; the mixer reads without locking.
+ *
+ * @author jlreyes
+ */
+public class SampleBank {
+    public static final String TAG = "SampleBank";
+    private static final int DECODE_CHUNK_FRAMES = 4096;
+
+    /* Replaced whole when a sample is added or removed */
+    private volatile Sample[] mSamples;
+
+    public SampleBank() {
+        this.mSamples = new Sample[0];
+    }
+
+    /**
+     * Decodes the whole stream into a new sample and closes it.
+     *
+     * @return The id of the sample.
+     */
+    public int load(AudioStream stream) throws IOException {
+        int channels = stream.getChannels();
+        short[] data = new short[DECODE_CHUNK_FRAMES * channels];
+        int numFrames = 0;
+        try {
+            while (true) {
+                if ((numFrames + DECODE_CHUNK_FRAMES) * channels > data.length) {
+                    short[] newData = new short[data.length * 2];
+                    System.arraycopy(data, 0, newData, 0, numFrames * channels);
+                    data = newData;
+                }
+                int read = stream.read(data, numFrames * channels, DECODE_CHUNK_FRAMES);
+                if (read < 0) break;
+                numFrames += read;
+            }
+        } finally {
+            stream.close();
+        }
+        short[] trimmed = new short[numFrames * channels];
+        System.arraycopy(data, 0, trimmed, 0, trimmed.length);
+        return add(new Sample(trimmed, numFrames, channels, stream.getSampleRate()));
+    }
+
+    /**
+     * Adds an already decoded sample.
+     *
+     * @return The id of the sample.
+     */
+    public synchronized int add(Sample sample) {
+        Sample[] samples = mSamples;
+        Sample[] newSamples = new Sample[samples.length + 1];
+        System.arraycopy(samples, 0, newSamples, 0, samples.length);
+        newSamples[samples.length] = sample;
+        mSamples = newSamples;
+        return samples.length;
+    }
+
+    /**
+     * Frees the sample with the given id. Voices already playing it finish.
+     */
+    public synchronized void remove(int id) {
+        Sample[] newSamples = mSamples.clone();
+        newSamples[id] = null;
+        mSamples = newSamples;
+    }
+
+    /**
+     * Returns the sample with the given id, or null if there is none.
+     */
+    public Sample get(int id) {
+        Sample[] samples = mSamples;
+        if (id < 0 || id >= samples.length) return null;
+        return samples[id];
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public int getNumSamples() {
+        return mSamples.length;
+    }
+
+    /**
+     * Returns how much memory the loaded samples take.
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Sample sample : mSamples)
+            if (sample != null) bytes += sample.getBytes();
+        return bytes;
+    }
+}
@@ -0,0 +1,267 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams a WAV file, either plain 16 bit PCM or IMA ADPCM. ADPCM is a
+ * quarter the size of PCM and decodes with a few adds per sample, so it is
+ * what long music tracks should use; it also works on every Android version,
+ * unlike the platform decoders.
+ *
+ * Nothing is allocated after the header has been read.
+ *
+ * @author jlreyes
+ */
+public class WavStream implements AudioStream {
+    public static final String TAG = "WavStream";
+    public static final int FORMAT_PCM = 1;
+    public static final int FORMAT_IMA_ADPCM = 0x11;
+    /* Frames of PCM read from the input at a time */
+    private static final int PCM_CHUNK_FRAMES = 1024;
+
+    private static final int[] ADPCM_INDEX_TABLE = {
+            -1, -1, -1, -1, 2, 4, 6, 8,
+            -1, -1, -1, -1, 2, 4, 6, 8
+    };
+    private static final int[] ADPCM_STEP_TABLE = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34,
+            37, 41, 45, 50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143,
+            157, 173, 190, 209, 230, 253, 279, 307, 337, 371, 408, 449, 494,
+            544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552,
+            1707, 1878, 2066, 2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428,
+            4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487,
+            12635, 13899, 15289, 16818, 18500, 20350, 22385, 24623, 27086,
+            29794, 32767
+    };
+
+    private InputStream mIn;
+    private int mFormat;
+    private int mChannels;
+    private int mSampleRate;
+    private int mBlockAlign;
+    /* Bytes of sample data not read yet */
+    private long mDataLeft;
+    /* Raw bytes of one block (ADPCM) or chunk (PCM) */
+    private byte[] mBytes;
+    /* Decoded frames of the current block, and how far we are through it */
+    private short[] mDecoded;
+    private int mDecodedFrames;
+    private int mDecodedPosition;
+
+    /**
+     * Reads the header of the given WAV stream, leaving it at the start of
+     * the sample data.
+     */
+    public WavStream(InputStream in) throws IOException {
+        this.mIn = in;
+        this.mBytes = new byte[16];
+        readHeader();
+        int framesPerBuffer;
+        if (mFormat == FORMAT_PCM) {
+            framesPerBuffer = PCM_CHUNK_FRAMES;
+            this.mBytes = new byte[PCM_CHUNK_FRAMES * 2 * mChannels];
+        } else {
+            framesPerBuffer = adpcmFramesPerBlock();
+            this.mBytes = new byte[mBlockAlign];
+        }
+        this.mDecoded = new short[framesPerBuffer * mChannels];
+        this.mDecodedFrames = 0;
+        this.mDecodedPosition = 0;
+    }
+
+    private void readHeader() throws IOException {
+        readFully(mBytes, 12);
+        if (mBytes[0] != 'R' || mBytes[1] != 'I' || mBytes[2] != 'F' ||
+            mBytes[3] != 'F' || mBytes[8] != 'W' || mBytes[9] != 'A' ||
+            mBytes[10] != 'V' || mBytes[11] != 'E')
+            throw new IOException("Not a WAV file.");
+        boolean haveFormat = false;
+        while (true) {
+            readFully(mBytes, 8);
+            String id = new String(mBytes, 0, 4, "US-ASCII");
+            long size = ReadInt(mBytes, 4) & 0xFFFFFFFFl;
+            if (id.equals("fmt ")) {
+                if (size < 16) throw new IOException("Bad WAV fmt chunk.");
+                readFully(mBytes, 16);
+                mFormat = ReadShort(mBytes, 0) & 0xFFFF;
+                mChannels = ReadShort(mBytes, 2);
+                mSampleRate = ReadInt(mBytes, 4);
+                mBlockAlign = ReadShort(mBytes, 12) & 0xFFFF;
+                int bitsPerSample = ReadShort(mBytes, 14);
+                skip(size - 16 + (size & 1));
+                if (mChannels != 1 && mChannels != 2)
+                    throw new IOException("Only mono and stereo WAVs are supported.");
+                if (mFormat == FORMAT_PCM && bitsPerSample != 16)
+                    throw new IOException("Only 16 bit PCM WAVs are supported.");
+                if (mFormat == FORMAT_IMA_ADPCM && bitsPerSample != 4)
+                    throw new IOException("Only 4 bit IMA ADPCM WAVs are supported.");
+                if (mFormat != FORMAT_PCM && mFormat != FORMAT_IMA_ADPCM)
+                    throw new IOException("Unsupported WAV format " + mFormat + ".");
+                haveFormat = true;
+            } else if (id.equals("data")) {
+                if (haveFormat == false)
+                    throw new IOException("WAV data before its fmt chunk.");
+                mDataLeft = size;
+                return;
+            } else skip(size + (size & 1));
+        }
+    }
+
+    /**
+     * Samples per channel in an ADPCM block: the one in the header plus
+     * two per byte after the headers.
+     */
+    private int adpcmFramesPerBlock() {
+        return (mBlockAlign - 4 * mChannels) * 2 / mChannels + 1;
+    }
+
+    public int read(short[] out, int offset, int maxFrames) throws IOException {
+        int framesRead = 0;
+        while (framesRead < maxFrames) {
+            if (mDecodedPosition == mDecodedFrames) {
+                if (decodeNext() == false) break;
+            }
+            int frames = Math.min(maxFrames - framesRead,
+                                  mDecodedFrames - mDecodedPosition);
+            System.arraycopy(mDecoded, mDecodedPosition * mChannels,
+                             out, offset + framesRead * mChannels,
+                             frames * mChannels);
+            mDecodedPosition += frames;
+            framesRead += frames;
+        }
+        if (framesRead == 0 && maxFrames > 0) return -1;
+        return framesRead;
+    }
+
+    /**
+     * Decodes the next chunk or block into mDecoded. Returns false at the
+     * end of the data.
+     */
+    private boolean decodeNext() throws IOException {
+        if (mDataLeft <= 0) return false;
+        mDecodedPosition = 0;
+        if (mFormat == FORMAT_PCM) {
+            int frameBytes = 2 * mChannels;
+            int numBytes = (int) Math.min(mBytes.length, mDataLeft);
+            numBytes -= numBytes % frameBytes;
+            if (numBytes == 0) {
+                mDataLeft = 0;
+                return false;
+            }
+            readFully(mBytes, numBytes);
+            mDataLeft -= numBytes;
+            int numSamples = numBytes / 2;
+            for (int i = 0; i < numSamples; i++)
+                mDecoded[i] = ReadShort(mBytes, 2 * i);
+            mDecodedFrames = numBytes / frameBytes;
+        } else {
+            /* The last block may be short */
+            int numBytes = (int) Math.min(mBlockAlign, mDataLeft);
+            if (numBytes < 4 * mChannels) {
+                mDataLeft = 0;
+                return false;
+            }
+            readFully(mBytes, numBytes);
+            mDataLeft -= numBytes;
+            mDecodedFrames = decodeAdpcmBlock(numBytes);
+        }
+        return true;
+    }
+
+    /**
+     * Decodes an IMA ADPCM block of the given size into mDecoded. Each
+     * channel starts with a 4 byte header holding its first sample and step
+     * index, then the channels take turns with 4 bytes (8 samples) each.
+     */
+    private int decodeAdpcmBlock(int numBytes) {
+        int channels = mChannels;
+        int dataBytes = numBytes - 4 * channels;
+        int numFrames = dataBytes * 2 / channels + 1;
+        for (int c = 0; c < channels; c++) {
+            int predictor = ReadShort(mBytes, 4 * c);
+            int index = mBytes[4 * c + 2] & 0xFF;
+            if (index > 88) index = 88;
+            mDecoded[c] = (short) predictor;
+            /* Byte groups of this channel */
+            int out = 1;
+            for (int group = c * 4; group < dataBytes; group += 4 * channels) {
+                for (int b = 0; b < 4 && group + b < dataBytes; b++) {
+                    int value = mBytes[4 * channels + group + b] & 0xFF;
+                    for (int half = 0; half < 2; half++) {
+                        int nibble = half == 0 ? value & 0x0F : value >> 4;
+                        int step = ADPCM_STEP_TABLE[index];
+                        int diff = step >> 3;
+                        if ((nibble & 4) != 0) diff += step;
+                        if ((nibble & 2) != 0) diff += step >> 1;
+                        if ((nibble & 1) != 0) diff += step >> 2;
+                        if ((nibble & 8) != 0) predictor -= diff;
+                        else predictor += diff;
+                        if (predictor > 32767) predictor = 32767;
+                        else if (predictor < -32768) predictor = -32768;
+                        index += ADPCM_INDEX_TABLE[nibble];
+                        if (index < 0) index = 0;
+                        else if (index > 88) index = 88;
+                        if (out < numFrames) mDecoded[out * channels + c] = (short) predictor;
+                        out++;
+                    }
+                }
+            }
+        }
+        return numFrames;
+    }
+
+    private void readFully(byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int result = mIn.read(buffer, read, length - read);
+            if (result < 0) throw new IOException("WAV file ended early.");
+            read += result;
+        }
+    }
+
+    private void skip(long length) throws IOException {
+        while (length > 0) {
+            long skipped = mIn.skip(length);
+            if (skipped <= 0) {
+                if (mIn.read() < 0) throw new IOException("WAV file ended early.");
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+
+    private static short ReadShort(byte[] bytes, int offset) {
+        return (short) ((bytes[offset] & 0xFF) | (bytes[offset + 1] << 8));
+    }
+
+    private static int ReadInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) |
+               ((bytes[offset + 1] & 0xFF) << 8) |
+               ((bytes[offset + 2] & 0xFF) << 16) |
+               (bytes[offset + 3] << 24);
+    }
+
+    public void close() {
+        try {
+            mIn.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public int getSampleRate() {
+        return mSampleRate;
+    }
+
+    public int getChannels() {
+        return mChannels;
+    }
+
+    public int getFormat() {
+        return mFormat;
+    }
+}
@@ -0,0 +1,199 @@
+package com.jlreyes.libraries.android_game_engine.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * A pool of direct byte buffers for staging work, like decoding, compressing
+ * and writing out textures, so loading doesn't allocate a new direct buffer
+ * for every step and leave the garbage collector to clean up after it.
+ *
+ * Buffers come in power of two size classes, from MIN_CLASS_SIZE up. Get
+ * one with {@link #acquire(int)} and give it back with
+ * {@link #release(ByteBuffer)} when done, in a finally block. Released
+ * buffers are kept for the next acquire, as long as the pool holds no more
+ * than its cap. Past the cap, idle buffers are dropped before allocating and
+ * released buffers are dropped instead of kept, so the pool only grows past
+ * its cap while that much is actually in use. The peak shows if it did.
+ *
+ * @author jlreyes
+ */
+public class BufferPool {
+    public static final String TAG = "BufferPool";
+    public static final int MIN_CLASS_SIZE = 4096;
+    /* MIN_CLASS_SIZE through 2^30 */
+    public static final int NUM_CLASSES = 19;
+    public static final int MAX_CLASS_SIZE = MIN_CLASS_SIZE << (NUM_CLASSES - 1);
+    public static final long DEFAULT_CAP = 16l << 20;
+
+    /**
+     * For the engine's texture loading. Any thread.
+     */
+    public static final BufferPool STAGING = new BufferPool("Staging", DEFAULT_CAP);
+
+    private final String mName;
+    /* Idle buffers of each size class */
+    private final ArrayList<ArrayList<ByteBuffer>> mFree;
+    private long mCap;
+    /* Allocated by us and not dropped, in use or idle */
+    private long mPooledBytes;
+    private long mIdleBytes;
+    private long mInUseBytes;
+    private long mPeakInUseBytes;
+    private int mNumAcquires;
+    private int mNumAllocations;
+
+    public BufferPool(String name, long cap) {
+        this.mName = name;
+        this.mFree = new ArrayList<ArrayList<ByteBuffer>>(NUM_CLASSES);
+        for (int i = 0; i < NUM_CLASSES; i++) mFree.add(new ArrayList<ByteBuffer>());
+        this.mCap = cap;
+        this.mPooledBytes = 0l;
+        this.mIdleBytes = 0l;
+        this.mInUseBytes = 0l;
+        this.mPeakInUseBytes = 0l;
+        this.mNumAcquires = 0;
+        this.mNumAllocations = 0;
+    }
+
+    /**
+     * Returns a direct buffer of at least the given size, positioned at 0
+     * with its limit at numBytes and in big endian order, like a new one.
+     * Its contents are whatever was left in it.
+     */
+    public synchronized ByteBuffer acquire(int numBytes) {
+        if (numBytes < 0 || numBytes > MAX_CLASS_SIZE)
+            throw new RuntimeException("Can't pool a buffer of " + numBytes + " bytes.");
+        int sizeClass = SizeClass(numBytes);
+        int size = MIN_CLASS_SIZE << sizeClass;
+        ArrayList<ByteBuffer> free = mFree.get(sizeClass);
+        ByteBuffer buffer;
+        if (free.isEmpty() == false) {
+            buffer = free.remove(free.size() - 1);
+            mIdleBytes -= size;
+        } else {
+            /* Make room under the cap from idle buffers of other sizes */
+            dropIdle(mCap - size);
+            buffer = ByteBuffer.allocateDirect(size);
+            mPooledBytes += size;
+            mNumAllocations++;
+        }
+        mNumAcquires++;
+        mInUseBytes += size;
+        if (mInUseBytes > mPeakInUseBytes) mPeakInUseBytes = mInUseBytes;
+        buffer.clear();
+        buffer.limit(numBytes);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Gives back a buffer got from {@link #acquire(int)}. Don't use it
+     * afterwards. Does nothing given null.
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        if (buffer == null) return;
+        int size = buffer.capacity();
+        if (size > mInUseBytes)
+            throw new RuntimeException(mName + " pool was given back more than it" +
+                                       " gave out.");
+        mInUseBytes -= size;
+        if (mPooledBytes > mCap) {
+            mPooledBytes -= size;
+            return;
+        }
+        mFree.get(SizeClass(size)).add(buffer);
+        mIdleBytes += size;
+    }
+
+    /**
+     * Drops every idle buffer.
+     */
+    public synchronized void trim() {
+        dropIdle(0l);
+    }
+
+    /**
+     * Drops idle buffers, largest first, until we hold no more than the
+     * given bytes or nothing is idle.
+     */
+    private void dropIdle(long maxPooledBytes) {
+        for (int i = NUM_CLASSES - 1; i >= 0; i--) {
+            ArrayList<ByteBuffer> free = mFree.get(i);
+            int size = MIN_CLASS_SIZE << i;
+            while (mPooledBytes > maxPooledBytes && free.isEmpty() == false) {
+                free.remove(free.size() - 1);
+                mPooledBytes -= size;
+                mIdleBytes -= size;
+            }
+        }
+    }
+
+    /**
+     * The smallest size class holding the given number of bytes.
+     */
+    private static int SizeClass(int numBytes) {
+        int sizeClass = 0;
+        while ((MIN_CLASS_SIZE << sizeClass) < numBytes) sizeClass++;
+        return sizeClass;
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public synchronized long getCap() {
+        return mCap;
+    }
+
+    /**
+     * Sets the most bytes the pool keeps, dropping idle buffers if it now
+     * holds too much.
+     */
+    public synchronized void setCap(long cap) {
+        if (cap < 0) throw new RuntimeException("Cap given as " + cap);
+        this.mCap = cap;
+        dropIdle(cap);
+    }
+
+    public synchronized long getPooledBytes() {
+        return mPooledBytes;
+    }
+
+    public synchronized long getIdleBytes() {
+        return mIdleBytes;
+    }
+
+    public synchronized long getInUseBytes() {
+        return mInUseBytes;
+    }
+
+    /**
+     * The most bytes in use at once since we were made or the peak was
+     * last reset.
+     */
+    public synchronized long getPeakInUseBytes() {
+        return mPeakInUseBytes;
+    }
+
+    public synchronized void resetPeak() {
+        this.mPeakInUseBytes = mInUseBytes;
+    }
+
+    public synchronized int getNumAcquires() {
+        return mNumAcquires;
+    }
+
+    /**
+     * How many acquires had to allocate a new buffer.
+     */
+    public synchronized int getNumAllocations() {
+        return mNumAllocations;
+    }
+
+    public synchronized String toString() {
+        return mName + " pool: " + (mPooledBytes >> 10) + "KB held, " +
+               (mInUseBytes >> 10) + "KB in use, " + (mPeakInUseBytes >> 10) +
+               "KB peak, " + mNumAllocations + "/" + mNumAcquires + " acquires allocated";
+    }
+}
@@ -0,0 +1,34 @@
+package com.jlreyes.libraries.android_game_engine.utils;
+
+/**
+ * Where the logic thread gets the time from, and how it waits for its next
+ * step. {@link #REAL} is the wall clock; a {@link ManualClock} lets the
+ * game run as fast as it can.
+ *
+ * @author jlreyes
+ */
+public interface Clock {
+    public static final Clock REAL = new Clock() {
+        public long now() {
+            return System.currentTimeMillis();
+        }
+
+        public void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    };
+
+    /**
+     * The time in ms.
+     */
+    public long now();
+
+    /**
+     * Waits until now() has moved on by the given ms.
+     */
+    public void sleep(long millis);
+}
@@ -0,0 +1,69 @@
+package com.jlreyes.libraries.android_game_engine.utils;
+
+/**
+ * Logging for engine code that should also run off a device. Goes to
+ * android's log unless another sink is set, like {@link #STDOUT} when
+ * running headless.
+ *
+ * @author jlreyes
+ */
+public class Logger {
+    /* Same values as android's log priorities */
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    public interface Sink {
+        public void log(int priority, String tag, String message);
+    }
+
+    /**
+     * Prints to System.out, errors to System.err.
+     */
+    public static final Sink STDOUT = new Sink() {
+        public void log(int priority, String tag, String message) {
+            String line = tag + ": " + message;
+            if (priority >= ERROR) System.err.println(line);
+            else System.out.println(line);
+        }
+    };
+
+    /* Null for android's log, which is only loaded when used */
+    private static volatile Sink SINK = null;
+
+    /**
+     * Sets where logs go, null for android's log.
+     */
+    public static void SetSink(Sink sink) {
+        SINK = sink;
+    }
+
+    public static void I(String tag, String message) {
+        Log(INFO, tag, message);
+    }
+
+    public static void W(String tag, String message) {
+        Log(WARN, tag, message);
+    }
+
+    public static void E(String tag, String message) {
+        Log(ERROR, tag, message);
+    }
+
+    private static void Log(int priority, String tag, String message) {
+        Sink sink = SINK;
+        if (sink != null) sink.log(priority, tag, message);
+        else AndroidLog.Log(priority, tag, message);
+    }
+
+    /**
+     * Kept apart so android.util.Log isn't loaded with a sink set.
+     */
+    private static class AndroidLog {
+        private static void Log(int priority, String tag, String message) {
+            if (priority >= ERROR) android.util.Log.e(tag, message);
+            else if (priority == WARN) android.util.Log.w(tag, message);
+            else android.util.Log.i(tag, message);
+        }
+    }
+}
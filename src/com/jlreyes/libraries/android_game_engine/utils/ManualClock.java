@@ -0,0 +1,29 @@
+package com.jlreyes.libraries.android_game_engine.utils;
+
+/**
+ * Clock that only moves when told to. Sleeping moves it on instead of
+ * waiting, so a logic thread run with one steps as fast as it can while
+ * seeing exactly one timestep pass each step.
+ *
+ * @author jlreyes
+ */
+public class ManualClock implements Clock {
+    private volatile long mTime;
+
+    public ManualClock() {
+        this.mTime = 0l;
+    }
+
+    public long now() {
+        return mTime;
+    }
+
+    public synchronized void sleep(long millis) {
+        advance(millis);
+    }
+
+    public synchronized void advance(long millis) {
+        if (millis < 0) throw new RuntimeException("Time can't go back " + millis + "ms");
+        this.mTime += millis;
+    }
+}
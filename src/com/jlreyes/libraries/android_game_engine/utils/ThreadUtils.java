@@ -2,6 +2,8 @@ package com.jlreyes.libraries.android_game_engine.utils;
 
 import com.jlreyes.libraries.android_game_engine.threading.GameThread;
 
+import java.util.concurrent.CountDownLatch;
+
 /**
  * Various utility functions for GameThreads
  *
@@ -23,6 +25,20 @@ public class ThreadUtils {
         }
     }
 
+    /**
+     * Returns when the given latch has counted down. If the calling thread
+     * is interrupted first, its interrupt flag is set again and this throws,
+     * so whatever it was waiting for can be given up on.
+     */
+    public static void Await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting.", e);
+        }
+    }
+
     /**
      * Takes a GameThread and returns when it has been successfully killed
      */
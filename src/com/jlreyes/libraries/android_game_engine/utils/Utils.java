@@ -54,11 +54,7 @@ public class Utils {
     public static long LongFromByteArray(byte[] bytes, int offset, ByteOrder order) {
         if (bytes.length - offset < 8)
             throw new RuntimeException("Not enough bytes given.");
-        ByteBuffer b = ByteBuffer.allocateDirect(8).order(order);
-        b.put(bytes, offset, 8);
-        b.position(0);
-        LongBuffer l = b.asLongBuffer();
-        return l.get();
+        return ByteBuffer.wrap(bytes).order(order).getLong(offset);
     }
 
     /**
@@ -73,12 +69,7 @@ public class Utils {
     public static int IntFromByteArray(byte[] bytes, int offset, ByteOrder order) {
         if (bytes.length - offset < 4)
             throw new RuntimeException("Not enough bytes given.");
-        ByteBuffer b = ByteBuffer.allocateDirect(4).order(order);
-        b.put(bytes, offset, 4);
-        b.position(0);
-        IntBuffer i = b.asIntBuffer();
-        //Log.i("Utils", "Position:" + i.position() + " Limit:" + i.limit());
-        return i.get();
+        return ByteBuffer.wrap(bytes).order(order).getInt(offset);
     }
 
     /**
@@ -93,11 +84,7 @@ public class Utils {
     public static char CharFromByteArray(byte[] bytes, int offset, ByteOrder order) {
         if (bytes.length - offset < 2)
             throw new RuntimeException("Not enough bytes given.");
-        ByteBuffer b = ByteBuffer.allocateDirect(2).order(order);
-        b.put(bytes, offset, 2);
-        b.position(0);
-        CharBuffer c = b.asCharBuffer();
-        return c.get();
+        return ByteBuffer.wrap(bytes).order(order).getChar(offset);
     }
 
     /**
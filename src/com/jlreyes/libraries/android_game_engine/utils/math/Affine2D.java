@@ -0,0 +1,173 @@
+package com.jlreyes.libraries.android_game_engine.utils.math;
+
+/**
+ * A 2d affine transform stored as 6 floats. A point (x, y) maps to
+ *
+ * (a*x + c*y + tx, b*x + d*y + ty)
+ *
+ * which is the 3x3 matrix
+ *
+ * | a c tx |
+ * | b d ty |
+ * | 0 0 1  |
+ *
+ * Composing two of these is 12 multiplies, against 64 for two 4x4
+ * matrices. Operations write into this transform so they can be used in
+ * the game loop without allocating.
+ *
+ * @author jlreyes
+ */
+public class Affine2D {
+    private float mA;
+    private float mB;
+    private float mC;
+    private float mD;
+    private float mTx;
+    private float mTy;
+
+    /**
+     * Creates the identity transform.
+     */
+    public Affine2D() {
+        setIdentity();
+    }
+
+    public Affine2D setIdentity() {
+        return set(1.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f);
+    }
+
+    public Affine2D set(float a, float b, float c, float d, float tx, float ty) {
+        this.mA = a;
+        this.mB = b;
+        this.mC = c;
+        this.mD = d;
+        this.mTx = tx;
+        this.mTy = ty;
+        return this;
+    }
+
+    public Affine2D set(Affine2D t) {
+        return set(t.mA, t.mB, t.mC, t.mD, t.mTx, t.mTy);
+    }
+
+    /**
+     * Sets this to translate(x, y) * rotate(degrees) * scale(sx, sy), that
+     * is, scale first, then rotate counter clockwise, then translate. Only
+     * one sin and cos.
+     */
+    public Affine2D setTransform(float x, float y, float degrees, float sx, float sy) {
+        float c = 1.0f;
+        float s = 0.0f;
+        if (degrees != 0.0f) {
+            double radians = Math.toRadians(degrees);
+            c = (float) Math.cos(radians);
+            s = (float) Math.sin(radians);
+        }
+        return set(c * sx, s * sx, -s * sy, c * sy, x, y);
+    }
+
+    /**
+     * Sets this to left * right, that is, right applied first. Either may
+     * be this transform.
+     */
+    public Affine2D multiply(Affine2D left, Affine2D right) {
+        float a = left.mA * right.mA + left.mC * right.mB;
+        float b = left.mB * right.mA + left.mD * right.mB;
+        float c = left.mA * right.mC + left.mC * right.mD;
+        float d = left.mB * right.mC + left.mD * right.mD;
+        float tx = left.mA * right.mTx + left.mC * right.mTy + left.mTx;
+        float ty = left.mB * right.mTx + left.mD * right.mTy + left.mTy;
+        return set(a, b, c, d, tx, ty);
+    }
+
+    /**
+     * Sets this to its inverse. Throws if it cannot be inverted.
+     */
+    public Affine2D invert() {
+        float det = mA * mD - mB * mC;
+        if (det == 0.0f)
+            throw new RuntimeException("Cannot invert the singular transform " + this);
+        float inv = 1.0f / det;
+        float a = mD * inv;
+        float b = -mB * inv;
+        float c = -mC * inv;
+        float d = mA * inv;
+        float tx = -(a * mTx + c * mTy);
+        float ty = -(b * mTx + d * mTy);
+        return set(a, b, c, d, tx, ty);
+    }
+
+    public float transformX(float x, float y) {
+        return mA * x + mC * y + mTx;
+    }
+
+    public float transformY(float x, float y) {
+        return mB * x + mD * y + mTy;
+    }
+
+    /**
+     * Writes the transformed point in into out. They may be the same
+     * vector.
+     */
+    public Vec2 transform(Vec2 in, Vec2 out) {
+        float x = in.getX();
+        float y = in.getY();
+        return out.set(transformX(x, y), transformY(x, y));
+    }
+
+    /**
+     * Writes this transform into m as a column major 4x4 matrix, the layout
+     * android.opengl.Matrix and glUniformMatrix4fv use, leaving z alone.
+     */
+    public void toMatrix4(float[] m, int offset) {
+        m[offset] = mA;
+        m[offset + 1] = mB;
+        m[offset + 2] = 0.0f;
+        m[offset + 3] = 0.0f;
+        m[offset + 4] = mC;
+        m[offset + 5] = mD;
+        m[offset + 6] = 0.0f;
+        m[offset + 7] = 0.0f;
+        m[offset + 8] = 0.0f;
+        m[offset + 9] = 0.0f;
+        m[offset + 10] = 1.0f;
+        m[offset + 11] = 0.0f;
+        m[offset + 12] = mTx;
+        m[offset + 13] = mTy;
+        m[offset + 14] = 0.0f;
+        m[offset + 15] = 1.0f;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + mA + ", " + mC + ", " + mTx + "; " +
+               mB + ", " + mD + ", " + mTy + "]";
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public float getA() {
+        return mA;
+    }
+
+    public float getB() {
+        return mB;
+    }
+
+    public float getC() {
+        return mC;
+    }
+
+    public float getD() {
+        return mD;
+    }
+
+    public float getTx() {
+        return mTx;
+    }
+
+    public float getTy() {
+        return mTy;
+    }
+}
@@ -1,7 +1,5 @@
 package com.jlreyes.libraries.android_game_engine.utils.math;
 
-import android.util.FloatMath;
-
 public class FloatMathUtils {
     public static final float FLOAT_PI = (float) Math.PI;
     /**
@@ -10,7 +8,7 @@ public class FloatMathUtils {
     public static final float FLOAT_EPSILON = 0.001f;
 
     public static float PythagRFromXY(float x, float y) {
-        return FloatMath.sqrt(x * x + y * y);
+        return (float) Math.sqrt(x * x + y * y);
     }
 
     public static float AngleFromCircleArcLength(float distance,
@@ -0,0 +1,90 @@
+package com.jlreyes.libraries.android_game_engine.utils.math;
+
+/**
+ * A rows x cols grid of ints stored in a single row major array. Cells
+ * start out as {@link #EMPTY}. Rows and columns can be added one at a time,
+ * which copies the grid, so do that while loading only.
+ *
+ * @author jlreyes
+ */
+public class IntGrid {
+    public static final int EMPTY = -1;
+
+    private int[] mCells;
+    private int mRows;
+    private int mCols;
+
+    /**
+     * Same as IntGrid(0, 0)
+     */
+    public IntGrid() {
+        this(0, 0);
+    }
+
+    public IntGrid(int rows, int cols) {
+        if (rows < 0 || cols < 0)
+            throw new RuntimeException("Cannot create a grid of size " +
+                                       rows + "x" + cols);
+        this.mRows = rows;
+        this.mCols = cols;
+        this.mCells = new int[rows * cols];
+        for (int i = 0; i < mCells.length; i++) mCells[i] = EMPTY;
+    }
+
+    public void set(int row, int col, int value) {
+        checkBounds(row, col);
+        mCells[row * mCols + col] = value;
+    }
+
+    public int get(int row, int col) {
+        checkBounds(row, col);
+        return mCells[row * mCols + col];
+    }
+
+    /**
+     * Adds an empty row to the bottom of the grid.
+     */
+    public void addRow() {
+        resize(mRows + 1, mCols);
+    }
+
+    /**
+     * Adds an empty column to the right of the grid.
+     */
+    public void addColumn() {
+        resize(mRows, mCols + 1);
+    }
+
+    private void resize(int rows, int cols) {
+        int[] cells = new int[rows * cols];
+        for (int i = 0; i < cells.length; i++) cells[i] = EMPTY;
+        for (int row = 0; row < mRows; row++)
+            System.arraycopy(mCells, row * mCols, cells, row * cols, mCols);
+        this.mCells = cells;
+        this.mRows = rows;
+        this.mCols = cols;
+    }
+
+    public void checkBounds(int row, int col) {
+        if (isIn(row, col) == false)
+            throw new RuntimeException("(" + row + ", " + col + ") is not a" +
+                                       " valid (row, col) index in grid " +
+                                       this.toString() + " with dimensions " +
+                                       mRows + "x" + mCols);
+    }
+
+    public boolean isIn(int row, int col) {
+        return (0 <= row && row < mRows) && (0 <= col && col < mCols);
+    }
+
+    /*
+     * Getters and setters
+     */
+    public int getNumRows() {
+        return mRows;
+    }
+
+    public int getNumCols() {
+        return mCols;
+    }
+}
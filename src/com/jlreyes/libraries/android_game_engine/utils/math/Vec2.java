@@ -0,0 +1,119 @@
+package com.jlreyes.libraries.android_game_engine.utils.math;
+
+/**
+ * A mutable 2d float vector. Operations write into this vector so they can
+ * be used in the game loop without allocating.
+ *
+ * @author jlreyes
+ */
+public class Vec2 {
+    private float mX;
+    private float mY;
+
+    public Vec2() {
+        this(0.0f, 0.0f);
+    }
+
+    public Vec2(float x, float y) {
+        this.mX = x;
+        this.mY = y;
+    }
+
+    public Vec2 set(float x, float y) {
+        this.mX = x;
+        this.mY = y;
+        return this;
+    }
+
+    public Vec2 set(Vec2 v) {
+        return set(v.mX, v.mY);
+    }
+
+    public Vec2 add(float x, float y) {
+        return set(mX + x, mY + y);
+    }
+
+    public Vec2 add(Vec2 v) {
+        return set(mX + v.mX, mY + v.mY);
+    }
+
+    public Vec2 sub(Vec2 v) {
+        return set(mX - v.mX, mY - v.mY);
+    }
+
+    public Vec2 scale(float s) {
+        return set(mX * s, mY * s);
+    }
+
+    public Vec2 scale(float sx, float sy) {
+        return set(mX * sx, mY * sy);
+    }
+
+    /**
+     * Rotates this vector counter clockwise by the given angle in degrees.
+     */
+    public Vec2 rotate(float degrees) {
+        double radians = Math.toRadians(degrees);
+        float c = (float) Math.cos(radians);
+        float s = (float) Math.sin(radians);
+        return set(c * mX - s * mY, s * mX + c * mY);
+    }
+
+    /**
+     * Scales this vector to length 1. Does nothing to the zero vector.
+     */
+    public Vec2 normalize() {
+        float length = length();
+        if (length == 0.0f) return this;
+        return scale(1.0f / length);
+    }
+
+    public float dot(Vec2 v) {
+        return mX * v.mX + mY * v.mY;
+    }
+
+    /**
+     * Returns the z component of the 3d cross product.
+     */
+    public float cross(Vec2 v) {
+        return mX * v.mY - mY * v.mX;
+    }
+
+    public float length() {
+        return (float) Math.sqrt(lengthSquared());
+    }
+
+    public float lengthSquared() {
+        return mX * mX + mY * mY;
+    }
+
+    public float distanceTo(Vec2 v) {
+        float dx = v.mX - mX;
+        float dy = v.mY - mY;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + mX + ", " + mY + ")";
+    }
+
+    /*
+     * Getters and Setters
+     */
+    public float getX() {
+        return mX;
+    }
+
+    public void setX(float x) {
+        this.mX = x;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    public void setY(float y) {
+        this.mY = y;
+    }
+}
@@ -1,6 +1,5 @@
 package com.jlreyes.libraries.android_game_engine.utils.math.function.math;
 
-import android.util.FloatMath;
 import com.jlreyes.libraries.android_game_engine.utils.math.function.Function1;
 import com.jlreyes.libraries.android_game_engine.utils.typewrappers.FloatWrapper;
 
@@ -19,7 +18,7 @@ public class CosineFunction implements Function1<FloatWrapper, Void> {
 
     public Void run(FloatWrapper d) {
         float x = d.getFloat();
-        float y = mMagnitude * FloatMath.cos(mA * x);
+        float y = mMagnitude * (float) Math.cos(mA * x);
         d.setFloat(y);
         return null;
     }
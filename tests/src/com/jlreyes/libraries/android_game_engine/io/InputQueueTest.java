@@ -0,0 +1,113 @@
+package com.jlreyes.libraries.android_game_engine.io;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Offers and drains an {@link InputQueue} of the smallest capacity, 64
+ * slots, 32 of them kept for downs, ups and cancels. Events carry their
+ * place in the order they were offered as their time.
+ *
+ * @author jlreyes
+ */
+public class InputQueueTest {
+    private static final int CAPACITY = 64;
+    private static final int RESERVED = 32;
+
+    private static boolean Offer(InputQueue queue, int action, long time) {
+        return queue.offer(action, (int) (time % 10), time, -time, time);
+    }
+
+    private static void AssertEvent(InputEvent event, int action, long time) {
+        assertEquals(action, event.getAction());
+        assertEquals(time % 10, event.getPointerId());
+        assertEquals(time, event.getX(), 0.0f);
+        assertEquals(-time, event.getY(), 0.0f);
+        assertEquals(time, event.getTime());
+    }
+
+    @Test
+    public void capacityIsAPowerOfTwoPastTheReservedSlots() {
+        assertEquals(CAPACITY, new InputQueue(1).getCapacity());
+        assertEquals(CAPACITY, new InputQueue(CAPACITY).getCapacity());
+        assertEquals(2 * CAPACITY, new InputQueue(CAPACITY + 1).getCapacity());
+    }
+
+    /**
+     * Drains a few events short of a lap at a time, so the ring's ends
+     * wrap around many times at every offset.
+     */
+    @Test
+    public void eventsWrapAroundInOrder() {
+        InputQueue queue = new InputQueue(CAPACITY);
+        long time = 0;
+        for (int round = 0; round < 100; round++) {
+            int numEvents = CAPACITY - 1 - round % 7;
+            for (int i = 0; i < numEvents; i++)
+                assertTrue(Offer(queue, InputEvent.ACTION_DOWN, time + i));
+            ArrayList<InputEvent> drained = queue.drain();
+            assertEquals(numEvents, drained.size());
+            for (int i = 0; i < numEvents; i++)
+                AssertEvent(drained.get(i), InputEvent.ACTION_DOWN, time + i);
+            time += numEvents;
+        }
+        assertEquals(0, queue.drain().size());
+        assertEquals(0, queue.getNumDropped());
+    }
+
+    @Test
+    public void movesAreDroppedBeforeTheReservedSlots() {
+        InputQueue queue = new InputQueue(CAPACITY);
+        for (int i = 0; i < CAPACITY - RESERVED; i++)
+            assertTrue(Offer(queue, InputEvent.ACTION_MOVE, i));
+        assertFalse(Offer(queue, InputEvent.ACTION_MOVE, CAPACITY));
+        assertEquals(1, queue.getNumDropped());
+        /* Everything else still gets in, until the ring is full */
+        for (int i = CAPACITY - RESERVED; i < CAPACITY; i++)
+            assertTrue(Offer(queue, InputEvent.ACTION_UP, i));
+        assertFalse(Offer(queue, InputEvent.ACTION_UP, CAPACITY));
+        assertEquals(2, queue.getNumDropped());
+        ArrayList<InputEvent> drained = queue.drain();
+        assertEquals(CAPACITY, drained.size());
+        for (int i = 0; i < CAPACITY; i++) {
+            int action = i < CAPACITY - RESERVED ? InputEvent.ACTION_MOVE
+                                                 : InputEvent.ACTION_UP;
+            AssertEvent(drained.get(i), action, i);
+        }
+        /* Draining frees the slots */
+        assertTrue(Offer(queue, InputEvent.ACTION_MOVE, CAPACITY));
+    }
+
+    /**
+     * The ui thread offering while the logic thread drains. Downs are
+     * offered again until they get in, so none go missing.
+     */
+    @Test
+    public void producerAndConsumerKeepOrder() throws InterruptedException {
+        final InputQueue queue = new InputQueue(CAPACITY);
+        final int numEvents = 200000;
+        Thread producer = new Thread("InputQueueTest Producer") {
+            @Override
+            public void run() {
+                for (long time = 0; time < numEvents; time++)
+                    while (Offer(queue, InputEvent.ACTION_DOWN, time) == false)
+                        Thread.yield();
+            }
+        };
+        producer.start();
+        long next = 0;
+        while (next < numEvents) {
+            ArrayList<InputEvent> drained = queue.drain();
+            for (int i = 0; i < drained.size(); i++)
+                AssertEvent(drained.get(i), InputEvent.ACTION_DOWN, next++);
+            if (drained.isEmpty() == true) Thread.yield();
+        }
+        producer.join();
+        assertEquals(0, queue.drain().size());
+    }
+}
@@ -0,0 +1,49 @@
+package com.jlreyes.libraries.android_game_engine.rendering;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Interning and reference counting of geometry, headless, so releasing
+ * never queues a VBO delete.
+ *
+ * @author jlreyes
+ */
+public class GeometryTest {
+    private static final float[] VERTICES = new float[]{0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 1.0f};
+
+    @Test
+    public void sameVerticesShareOneGeometry() {
+        int numInterned = Geometry.GetNumInterned();
+        Geometry a = Geometry.Intern(VERTICES);
+        Geometry b = Geometry.Intern(VERTICES.clone());
+        assertSame(a, b);
+        assertEquals(numInterned + 1, Geometry.GetNumInterned());
+        a.release(null);
+        b.release(null);
+    }
+
+    @Test
+    public void forgottenAfterLastRelease() {
+        int numInterned = Geometry.GetNumInterned();
+        Geometry a = Geometry.Intern(VERTICES);
+        a.retain();
+        a.release(null);
+        assertEquals(numInterned + 1, Geometry.GetNumInterned());
+        a.release(null);
+        assertEquals(numInterned, Geometry.GetNumInterned());
+        Geometry b = Geometry.Intern(VERTICES);
+        assertNotSame(a, b);
+        b.release(null);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void releasingTooOftenThrows() {
+        Geometry a = Geometry.Intern(VERTICES);
+        a.release(null);
+        a.release(null);
+    }
+}
@@ -0,0 +1,154 @@
+package com.jlreyes.libraries.android_game_engine.rendering;
+
+import com.jlreyes.libraries.android_game_engine.rendering.gl.RecordingGL;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.RecordingGL.Call;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.LayerCameraRenderable;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Rectangle;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Renderable;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureData;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureState;
+import com.jlreyes.libraries.android_game_engine.utils.exceptions.StrictGLException;
+import com.jlreyes.libraries.android_game_engine.utils.math.IntGrid;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Draws two sprites sharing the main program, a texture and their geometry
+ * through a {@link RenderState} on a {@link RecordingGL}, and counts the
+ * calls the state let through. The texture's handles come from the
+ * recording GL, nothing is uploaded.
+ *
+ * @author jlreyes
+ */
+public class RenderStateTest {
+    private static final int FRAME_SIZE = 16;
+    /* Shader handles, position and texture coordinates are arrays 0 and 1 */
+    private static final int PROGRAM = 3;
+    private static final int MVP = 4;
+    private static final int POSITION = 0;
+    private static final int TEX_COORD = 1;
+    private static final int RGB_TEX = 5;
+    private static final int A_TEX = 6;
+
+    private RecordingGL mGL;
+    private RenderState mState;
+    private ArrayList<Renderable> mRenderables;
+
+    @Before
+    public void setUp() {
+        this.mGL = new RecordingGL();
+        this.mState = new RenderState(mGL);
+        mState.setHandles(PROGRAM, MVP, POSITION, TEX_COORD, RGB_TEX, A_TEX);
+        Texture texture = CreateTexture(mState);
+        this.mRenderables = new ArrayList<Renderable>();
+        mRenderables.add(new LayerCameraRenderable());
+        for (int i = 0; i < 2; i++) {
+            Rectangle rectangle = new Rectangle(0.5f, 0.5f);
+            rectangle.setTexture(texture);
+            rectangle.translate(0.5f * i, 0.0f);
+            mRenderables.add(rectangle);
+        }
+        mGL.reset();
+    }
+
+    /**
+     * A one frame texture in one part, with coordinates for rectangles.
+     */
+    private static Texture CreateTexture(RenderState state) {
+        int[] resolution = new int[]{FRAME_SIZE, FRAME_SIZE};
+        TexController.TexStateInfo stateInfo =
+                new TexController.TexStateInfo("state", new int[]{100}, 0, 0, 0);
+        TexController.TexInfo texInfo =
+                new TexController.TexInfo("RenderStateTest", 1l,
+                                          resolution, resolution, resolution,
+                                          new TexController.TexStateInfo[]{stateInfo});
+        TextureState[] states = new TextureState[]{
+                new TextureState(stateInfo, FRAME_SIZE, FRAME_SIZE)};
+        IntGrid grid = new IntGrid(1, 1);
+        grid.set(0, 0, 0);
+        Texture.TexturePart part = new Texture.TexturePart(grid,
+                                                           TextureState.AllFrames(states),
+                                                           FRAME_SIZE, FRAME_SIZE);
+        TextureData data = new TextureData(texInfo, new Texture.TexturePart[]{part},
+                                           states, states[0], FRAME_SIZE, FRAME_SIZE);
+        data.updateVertices(Renderable.RenderType.TRIANGLE_STRIP, 4);
+        try {
+            part.registerWithOpenGL(state);
+        } catch (StrictGLException e) {
+            throw new RuntimeException(e);
+        }
+        return new Texture(data, null);
+    }
+
+    /**
+     * Draws a frame the way the renderer does, making sure the main program
+     * is in use before each renderable like the profiler overlay does after
+     * drawing.
+     */
+    private void drawFrame() {
+        mState.useMainProgram();
+        mGL.glClear(0);
+        for (Renderable renderable : mRenderables) {
+            mState.useMainProgram();
+            renderable.draw(mState);
+        }
+    }
+
+    @Test
+    public void secondSpriteSkipsSharedState() {
+        drawFrame();
+        assertEquals(1, mGL.getCount(Call.USE_PROGRAM));
+        /* RGB and alpha once, not once per sprite */
+        assertEquals(2, mGL.getCount(Call.BIND_TEXTURE));
+        assertEquals(2, mGL.getCount(Call.ACTIVE_TEXTURE));
+        assertEquals(2, mGL.getCount(Call.UNIFORM_1I));
+        /* Position and texture coordinates */
+        assertEquals(2, mGL.getCount(Call.ENABLE_VERTEX_ATTRIB_ARRAY));
+        assertEquals(2, mGL.getCount(Call.VERTEX_ATTRIB_POINTER));
+        /* Each sprite still has its own transform and draw */
+        assertEquals(2, mGL.getCount(Call.UNIFORM_3FV));
+        assertEquals(2, mGL.getCount(Call.DRAW_ARRAYS));
+    }
+
+    @Test
+    public void laterFramesOnlyTransformAndDraw() {
+        drawFrame();
+        mGL.reset();
+        drawFrame();
+        assertEquals(0, mGL.getCount(Call.USE_PROGRAM));
+        assertEquals(0, mGL.getCount(Call.BIND_TEXTURE));
+        assertEquals(0, mGL.getCount(Call.ENABLE_VERTEX_ATTRIB_ARRAY));
+        assertEquals(0, mGL.getCount(Call.VERTEX_ATTRIB_POINTER));
+        assertEquals(0, mGL.getCount(Call.GEN_BUFFERS));
+        assertEquals(2, mGL.getCount(Call.UNIFORM_3FV));
+        assertEquals(2, mGL.getCount(Call.DRAW_ARRAYS));
+    }
+
+    @Test
+    public void deletedTexturesAreBoundAgain() {
+        drawFrame();
+        Texture.TexturePart part =
+                mRenderables.get(1).getTexture().getActiveFrame().getTexturePart();
+        mState.deleteTextures(new int[]{part.getRGBHandle(), part.getAHandle()});
+        mGL.reset();
+        drawFrame();
+        assertEquals(2, mGL.getCount(Call.BIND_TEXTURE));
+    }
+
+    @Test
+    public void resetForgetsCachedState() {
+        drawFrame();
+        mState.reset();
+        mGL.reset();
+        drawFrame();
+        assertEquals(1, mGL.getCount(Call.USE_PROGRAM));
+        assertEquals(2, mGL.getCount(Call.BIND_TEXTURE));
+        assertEquals(2, mGL.getCount(Call.ENABLE_VERTEX_ATTRIB_ARRAY));
+    }
+}
@@ -0,0 +1,264 @@
+package com.jlreyes.libraries.android_game_engine.rendering.renderable;
+
+import com.jlreyes.libraries.android_game_engine.rendering.RenderState;
+import com.jlreyes.libraries.android_game_engine.rendering.gl.RecordingGL;
+import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera.AnchorPoint;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the affine model view projection a renderable hands the
+ * shader puts vertices where the old 4x4 matrices did: an ortho projection
+ * and a look at from z = -1 set by the camera, a translate, rotate and
+ * scale model matrix, and a shader that negated x. The old math is redone
+ * here the way android.opengl.Matrix does it, column major.
+ *
+ * @author jlreyes
+ */
+public class MVPTransformTest {
+    private static final float EPSILON = 1e-4f;
+    /* The old camera's look at and ortho depth */
+    private static final float EYE_Z = -1.0f;
+    private static final float NEAR = 1.0f;
+    private static final float FAR = -1.0f;
+    /* A quad's corners, plus a point off its edges */
+    private static final float[] VERTICES = new float[]{
+            -0.5f, -0.5f, -0.5f, 0.5f, 0.5f, -0.5f, 0.5f, 0.5f, 0.3f, -0.7f};
+
+    /**
+     * Keeps the last MVP rows handed to the shader.
+     */
+    private static class UniformGL extends RecordingGL {
+        private float[] mMVP = new float[6];
+
+        @Override
+        public void glUniform3fv(int location, int count, float[] value, int offset) {
+            super.glUniform3fv(location, count, value, offset);
+            System.arraycopy(value, offset, mMVP, 0, 6);
+        }
+    }
+
+    /**
+     * A renderable that only sets its transform.
+     */
+    private static class TransformRenderable extends Renderable {
+        @Override
+        public void draw(RenderState state) {
+            uniformMVP(state);
+        }
+
+        @Override
+        public Renderable copy() {
+            return new TransformRenderable();
+        }
+    }
+
+    private UniformGL mGL;
+    private RenderState mState;
+
+    @Before
+    public void setUp() {
+        this.mGL = new UniformGL();
+        this.mState = new RenderState(mGL);
+    }
+
+    @Test
+    public void translate() {
+        check(AnchorPoint.CENTER, 0.0f, 0.0f, 2.0f, 2.0f, 0.4f, -0.3f, 0.0f, 1.0f, 1.0f);
+    }
+
+    @Test
+    public void rotate() {
+        check(AnchorPoint.CENTER, 0.0f, 0.0f, 2.0f, 2.0f, 0.0f, 0.0f, 30.0f, 1.0f, 1.0f);
+        check(AnchorPoint.CENTER, 0.0f, 0.0f, 2.0f, 2.0f, 0.0f, 0.0f, -135.0f, 1.0f, 1.0f);
+    }
+
+    @Test
+    public void scale() {
+        check(AnchorPoint.CENTER, 0.0f, 0.0f, 2.0f, 2.0f, 0.0f, 0.0f, 0.0f, 2.5f, 0.5f);
+    }
+
+    @Test
+    public void translateRotateScale() {
+        check(AnchorPoint.CENTER, 0.0f, 0.0f, 2.0f, 2.0f, -0.2f, 0.7f, 75.0f, 1.5f, 0.8f);
+    }
+
+    @Test
+    public void movedCamera() {
+        check(AnchorPoint.CENTER, 3.0f, -1.5f, 16.0f, 9.0f, 2.0f, -1.0f, 45.0f, 2.0f, 2.0f);
+    }
+
+    @Test
+    public void bottomLeftCamera() {
+        check(AnchorPoint.BOTTOM_LEFT, 0.0f, 0.0f, 800.0f, 480.0f,
+              400.0f, 240.0f, 10.0f, 64.0f, 32.0f);
+    }
+
+    @Test
+    public void random() {
+        Random random = new Random(42l);
+        for (int i = 0; i < 1000; i++) {
+            AnchorPoint anchor = random.nextBoolean() ? AnchorPoint.CENTER
+                                                      : AnchorPoint.BOTTOM_LEFT;
+            check(anchor,
+                  random.nextFloat() * 10.0f - 5.0f,
+                  random.nextFloat() * 10.0f - 5.0f,
+                  random.nextFloat() * 9.0f + 1.0f,
+                  random.nextFloat() * 9.0f + 1.0f,
+                  random.nextFloat() * 10.0f - 5.0f,
+                  random.nextFloat() * 10.0f - 5.0f,
+                  random.nextFloat() * 720.0f - 360.0f,
+                  random.nextFloat() * 4.0f + 0.1f,
+                  random.nextFloat() * 4.0f + 0.1f);
+        }
+    }
+
+    /**
+     * Draws a camera and a renderable with the given transforms, and checks
+     * every vertex lands where the old matrices put it.
+     */
+    private void check(AnchorPoint anchor,
+                       float cameraX, float cameraY,
+                       float cameraWidth, float cameraHeight,
+                       float x, float y, float angle,
+                       float scaleX, float scaleY) {
+        LayerCameraRenderable camera = new LayerCameraRenderable();
+        camera.setAnchorPoint(anchor);
+        camera.setWidth(cameraWidth);
+        camera.setHeight(cameraHeight);
+        camera.translate(cameraX, cameraY);
+        camera.draw(mState);
+        TransformRenderable renderable = new TransformRenderable();
+        renderable.translate(x, y);
+        renderable.rotate(angle);
+        renderable.scale(scaleX, scaleY);
+        renderable.draw(mState);
+        float[] mvp = mGL.mMVP;
+
+        float[] old = OldMVP(anchor, cameraX, cameraY, cameraWidth, cameraHeight,
+                             x, y, angle, scaleX, scaleY);
+        for (int i = 0; i < VERTICES.length; i += 2) {
+            float vx = VERTICES[i];
+            float vy = VERTICES[i + 1];
+            /* The old shader negated x */
+            float[] clip = MultiplyMV(old, -vx, vy);
+            String where = "vertex " + vx + "," + vy;
+            assertEquals(where, clip[0], mvp[0] * vx + mvp[1] * vy + mvp[2], EPSILON);
+            assertEquals(where, clip[1], mvp[3] * vx + mvp[4] * vy + mvp[5], EPSILON);
+        }
+    }
+
+    /*
+     * The old path
+     */
+
+    private static float[] OldMVP(AnchorPoint anchor,
+                                  float cameraX, float cameraY,
+                                  float width, float height,
+                                  float x, float y, float angle,
+                                  float scaleX, float scaleY) {
+        float left = cameraX;
+        float bottom = cameraY;
+        if (anchor == AnchorPoint.CENTER) {
+            left = cameraX - width / 2.0f;
+            bottom = cameraY - height / 2.0f;
+        }
+        float[] projection = OrthoM(0.0f, width, 0.0f, height, NEAR, FAR);
+        float[] view = LookAtM(-left, bottom, EYE_Z, -left, bottom, 0.0f, 0.0f, 1.0f, 0.0f);
+        float[] model = Identity();
+        TranslateM(model, -x, y, 0.0f);
+        RotateZM(model, angle);
+        ScaleM(model, scaleX, scaleY, 1.0f);
+        return MultiplyMM(projection, MultiplyMM(view, model));
+    }
+
+    private static float[] Identity() {
+        float[] m = new float[16];
+        m[0] = m[5] = m[10] = m[15] = 1.0f;
+        return m;
+    }
+
+    private static float[] OrthoM(float left, float right, float bottom, float top,
+                                  float near, float far) {
+        float[] m = new float[16];
+        m[0] = 2.0f / (right - left);
+        m[5] = 2.0f / (top - bottom);
+        m[10] = -2.0f / (far - near);
+        m[12] = -(right + left) / (right - left);
+        m[13] = -(top + bottom) / (top - bottom);
+        m[14] = -(far + near) / (far - near);
+        m[15] = 1.0f;
+        return m;
+    }
+
+    private static float[] LookAtM(float eyeX, float eyeY, float eyeZ,
+                                   float centerX, float centerY, float centerZ,
+                                   float upX, float upY, float upZ) {
+        float[] f = Normalize(centerX - eyeX, centerY - eyeY, centerZ - eyeZ);
+        float[] s = Normalize(f[1] * upZ - f[2] * upY,
+                              f[2] * upX - f[0] * upZ,
+                              f[0] * upY - f[1] * upX);
+        float[] u = new float[]{s[1] * f[2] - s[2] * f[1],
+                                s[2] * f[0] - s[0] * f[2],
+                                s[0] * f[1] - s[1] * f[0]};
+        float[] m = new float[16];
+        for (int i = 0; i < 3; i++) {
+            m[4 * i] = s[i];
+            m[4 * i + 1] = u[i];
+            m[4 * i + 2] = -f[i];
+        }
+        m[15] = 1.0f;
+        TranslateM(m, -eyeX, -eyeY, -eyeZ);
+        return m;
+    }
+
+    private static float[] Normalize(float x, float y, float z) {
+        float length = (float) Math.sqrt(x * x + y * y + z * z);
+        return new float[]{x / length, y / length, z / length};
+    }
+
+    private static void TranslateM(float[] m, float x, float y, float z) {
+        for (int i = 0; i < 4; i++)
+            m[12 + i] += m[i] * x + m[4 + i] * y + m[8 + i] * z;
+    }
+
+    private static void RotateZM(float[] m, float degrees) {
+        double radians = Math.toRadians(degrees);
+        float[] r = Identity();
+        r[0] = r[5] = (float) Math.cos(radians);
+        r[1] = (float) Math.sin(radians);
+        r[4] = -r[1];
+        System.arraycopy(MultiplyMM(m, r), 0, m, 0, 16);
+    }
+
+    private static void ScaleM(float[] m, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            m[i] *= x;
+            m[4 + i] *= y;
+            m[8 + i] *= z;
+        }
+    }
+
+    private static float[] MultiplyMM(float[] lhs, float[] rhs) {
+        float[] m = new float[16];
+        for (int col = 0; col < 4; col++)
+            for (int row = 0; row < 4; row++) {
+                float sum = 0.0f;
+                for (int k = 0; k < 4; k++) sum += lhs[4 * k + row] * rhs[4 * col + k];
+                m[4 * col + row] = sum;
+            }
+        return m;
+    }
+
+    /**
+     * Returns the clip x and y of the point (x, y, 0, 1). w stays 1.
+     */
+    private static float[] MultiplyMV(float[] m, float x, float y) {
+        return new float[]{m[0] * x + m[4] * y + m[12],
+                           m[1] * x + m[5] * y + m[13]};
+    }
+}
@@ -0,0 +1,107 @@
+package com.jlreyes.libraries.android_game_engine.rendering.renderable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Group culling of {@link RenderablesWrapper}s against a camera seeing
+ * -1 to 1 on both axes, and that their union box is only recomputed when a
+ * child changes.
+ *
+ * @author jlreyes
+ */
+public class RenderablesWrapperTest {
+    /**
+     * A unit rectangle counting how often its box is asked for.
+     */
+    private static class CountingRectangle extends Rectangle {
+        private int mNumBoundsReads;
+
+        public CountingRectangle(float x, float y) {
+            super(1.0f, 1.0f);
+            translate(x, y);
+        }
+
+        @Override
+        public boolean hasBounds() {
+            mNumBoundsReads++;
+            return super.hasBounds();
+        }
+    }
+
+    private static boolean Visible(Renderable renderable) {
+        return renderable.isVisible(-1.0f, -1.0f, 1.0f, 1.0f);
+    }
+
+    @Test
+    public void offScreenGroupIsCulledWhole() {
+        RenderablesWrapper wrapper = new RenderablesWrapper(2);
+        wrapper.set(0, new CountingRectangle(5.0f, 5.0f));
+        wrapper.set(1, new CountingRectangle(6.0f, 5.0f));
+        assertFalse(Visible(wrapper));
+    }
+
+    @Test
+    public void invisibleChildrenAreDropped() {
+        RenderablesWrapper wrapper = new RenderablesWrapper(2);
+        CountingRectangle onScreen = new CountingRectangle(0.0f, 0.0f);
+        wrapper.set(0, onScreen);
+        wrapper.set(1, new CountingRectangle(5.0f, 5.0f));
+        assertTrue(Visible(wrapper));
+        assertSame(onScreen, wrapper.getRenderables()[0]);
+        assertNull(wrapper.getRenderables()[1]);
+    }
+
+    @Test
+    public void emptyGroupIsNotVisible() {
+        assertFalse(Visible(new RenderablesWrapper(3)));
+    }
+
+    @Test
+    public void movedChildMovesTheUnion() {
+        RenderablesWrapper wrapper = new RenderablesWrapper(1);
+        CountingRectangle child = new CountingRectangle(5.0f, 5.0f);
+        wrapper.set(0, child);
+        assertFalse(Visible(wrapper));
+        child.translate(0.0f, 0.0f);
+        wrapper.set(0, child);
+        assertTrue(Visible(wrapper));
+        assertEquals(0.5f, wrapper.getMaxX(), 0.0f);
+    }
+
+    @Test
+    public void unionIsOnlyReadFromChildrenWhenSet() {
+        RenderablesWrapper wrapper = new RenderablesWrapper(1);
+        CountingRectangle child = new CountingRectangle(0.0f, 0.0f);
+        wrapper.set(0, child);
+        int numReads = child.mNumBoundsReads;
+        for (int i = 0; i < 10; i++) {
+            assertTrue(wrapper.hasBounds());
+            wrapper.getMinX();
+            wrapper.getMaxY();
+        }
+        assertEquals(numReads, child.mNumBoundsReads);
+    }
+
+    @Test
+    public void nestedGroupsReadEachChildOnce() {
+        RenderablesWrapper outer = new RenderablesWrapper(2);
+        RenderablesWrapper inner = new RenderablesWrapper(1);
+        CountingRectangle nested = new CountingRectangle(5.0f, 5.0f);
+        CountingRectangle sibling = new CountingRectangle(0.0f, 0.0f);
+        inner.set(0, nested);
+        outer.set(0, inner);
+        outer.set(1, sibling);
+        assertEquals(1, nested.mNumBoundsReads);
+        /* The outer group is visible, the inner one is culled whole */
+        assertTrue(Visible(outer));
+        assertNull(outer.getRenderables()[0]);
+        assertSame(nested, inner.getRenderables()[0]);
+        assertEquals(1, nested.mNumBoundsReads);
+    }
+}
@@ -0,0 +1,215 @@
+package com.jlreyes.libraries.android_game_engine.scenes;
+
+import com.jlreyes.libraries.android_game_engine.datastructures.DFA;
+import com.jlreyes.libraries.android_game_engine.io.InputEvent;
+import com.jlreyes.libraries.android_game_engine.rendering.Geometry;
+import com.jlreyes.libraries.android_game_engine.rendering.HeadlessTarget;
+import com.jlreyes.libraries.android_game_engine.rendering.renderable.Rectangle;
+import com.jlreyes.libraries.android_game_engine.sprites.Sprite;
+import com.jlreyes.libraries.android_game_engine.sprites.SpriteWrapper;
+import com.jlreyes.libraries.android_game_engine.sprites.sprites.GameCamera;
+import com.jlreyes.libraries.android_game_engine.sprites.sprites.LayerCamera;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TexController;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.Texture;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureData;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureRegistry;
+import com.jlreyes.libraries.android_game_engine.sprites.textures.TextureState;
+import com.jlreyes.libraries.android_game_engine.threading.Scheduler;
+import com.jlreyes.libraries.android_game_engine.utils.ManualClock;
+import com.jlreyes.libraries.android_game_engine.utils.math.IntGrid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Loads a scene with a sprite wrapper whose sprites share a texture, then
+ * unloads or removes it, and checks the texture and geometry went with it.
+ * Headless, with the texture's data registered up front instead of loaded.
+ *
+ * @author jlreyes
+ */
+public class SceneUnloadTest {
+    private static final int FRAME_SIZE = 16;
+    /* Not used by other tests, so our geometry is interned on its own */
+    private static final float WIDTH = 0.37f;
+    private static final float HEIGHT = 0.73f;
+
+    private static TexController.TexInfo TEX_INFO;
+
+    public static class WrappedSprite extends Sprite {
+        public WrappedSprite(SpriteWrapper wrapper, float x) {
+            super("Wrapped", wrapper, new Rectangle(WIDTH, HEIGHT), TEX_INFO, true,
+                  x, DEFAULT_Y, DEFAULT_SCALE, DEFAULT_ANGLE);
+        }
+
+        @Override
+        public void update(long deltaTime) {}
+
+        @Override
+        public boolean isTouching(float x, float y) {
+            return false;
+        }
+
+        @Override
+        public boolean onTouchDown(InputEvent e) {
+            return false;
+        }
+
+        @Override
+        public void onTouchCancel(InputEvent e) {}
+
+        @Override
+        public boolean onTouchUp(InputEvent e) {
+            return false;
+        }
+    }
+
+    public static class Wrapper extends SpriteWrapper {
+        public Wrapper(Layer layer) {
+            super("Wrapper", layer, true);
+            addSprites(new Sprite[]{new WrappedSprite(this, 0.0f),
+                                    new WrappedSprite(this, 1.0f)});
+        }
+
+        @Override
+        public boolean isTouching(float x, float y) {
+            return false;
+        }
+
+        @Override
+        public boolean onTouchDown(InputEvent e) {
+            return false;
+        }
+
+        @Override
+        public void onTouchCancel(InputEvent e) {}
+
+        @Override
+        public boolean onTouchUp(InputEvent e) {
+            return false;
+        }
+    }
+
+    public static class WrapperLayer extends Layer {
+        private Wrapper mWrapper;
+
+        public WrapperLayer(Scene scene) {
+            super("Wrapper", scene);
+        }
+
+        @Override
+        public void load(SceneLoader.PercentDone percentDone) {
+            super.load(percentDone);
+            this.mWrapper = new Wrapper(this);
+            addSprite(mWrapper);
+        }
+
+        @Override
+        public GameCamera createCamera() {
+            return new LayerCamera("Camera", this, 2.0f);
+        }
+
+        @Override
+        public void updateOnState(long deltaTime, Scene.SceneState state) {}
+    }
+
+    public static class WrapperScene extends Scene {
+        public WrapperScene(Scheduler scheduler) {
+            super(scheduler);
+        }
+
+        @Override
+        protected Layer[] createLayers() {
+            return new Layer[]{new WrapperLayer(this)};
+        }
+
+        @Override
+        protected DFA<SceneState, SceneEvent> loadEventDFA() {
+            HashSet<SceneState> states = new HashSet<SceneState>();
+            SceneState state = new SceneState();
+            states.add(state);
+            return new DFA<SceneState, SceneEvent>(states,
+                                                   new HashSet<SceneEvent>(),
+                                                   new HashMap<SceneState, HashMap<SceneEvent, SceneState>>(),
+                                                   state,
+                                                   new HashSet<SceneState>());
+        }
+
+        @Override
+        public String getName() {
+            return "SceneUnloadTest";
+        }
+    }
+
+    private Scheduler mScheduler;
+    private TextureRegistry mRegistry;
+    private int mNumInterned;
+    private Scene mScene;
+
+    @Before
+    public void setUp() {
+        /* The scheduler asks for a start scene, though it never loads it */
+        if (SceneController.START_SCENE == null)
+            SceneController.START_SCENE = new SceneController.SceneInfo(WrapperScene.class);
+        this.mScheduler = new Scheduler("Test Scheduler", new HeadlessTarget(800, 480),
+                                        new ManualClock());
+        this.mRegistry = mScheduler.getTextureRegistry();
+        mRegistry.register(CreateTextureData());
+        this.mNumInterned = Geometry.GetNumInterned();
+        this.mScene = new WrapperScene(mScheduler);
+        mScene.load(null);
+    }
+
+    @After
+    public void tearDown() {
+        mScene.unload();
+        mScheduler.getWorkerPool().kill();
+    }
+
+    /**
+     * A one frame texture in one part, never uploaded.
+     */
+    private static TextureData CreateTextureData() {
+        int[] resolution = new int[]{FRAME_SIZE, FRAME_SIZE};
+        TexController.TexStateInfo stateInfo =
+                new TexController.TexStateInfo("state", new int[]{100}, 0, 0, 0);
+        TEX_INFO = new TexController.TexInfo("SceneUnloadTest", 1l,
+                                             resolution, resolution, resolution,
+                                             new TexController.TexStateInfo[]{stateInfo});
+        TextureState[] states = new TextureState[]{
+                new TextureState(stateInfo, FRAME_SIZE, FRAME_SIZE)};
+        IntGrid grid = new IntGrid(1, 1);
+        grid.set(0, 0, 0);
+        Texture.TexturePart part = new Texture.TexturePart(grid,
+                                                           TextureState.AllFrames(states),
+                                                           FRAME_SIZE, FRAME_SIZE);
+        return new TextureData(TEX_INFO, new Texture.TexturePart[]{part},
+                               states, states[0], FRAME_SIZE, FRAME_SIZE);
+    }
+
+    @Test
+    public void unloadReleasesWrappedSprites() {
+        assertEquals(1, mRegistry.getNumTextures());
+        assertEquals(mNumInterned + 1, Geometry.GetNumInterned());
+        mScene.unload();
+        assertEquals(0, mRegistry.getNumTextures());
+        assertEquals(mNumInterned, Geometry.GetNumInterned());
+    }
+
+    @Test
+    public void removalReleasesWrappedSprites() {
+        WrapperLayer layer = (WrapperLayer) mScene.getLayers()[0];
+        layer.removeSprite(layer.mWrapper);
+        /* Let go of two steps after the removal */
+        layer.onUpdateStart();
+        assertEquals(1, mRegistry.getNumTextures());
+        layer.onUpdateStart();
+        assertEquals(0, mRegistry.getNumTextures());
+        assertEquals(mNumInterned, Geometry.GetNumInterned());
+    }
+}
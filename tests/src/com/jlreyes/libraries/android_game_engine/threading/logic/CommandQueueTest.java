@@ -0,0 +1,140 @@
+package com.jlreyes.libraries.android_game_engine.threading.logic;
+
+import com.jlreyes.libraries.android_game_engine.utils.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Offers and polls EVENT commands through a small {@link CommandQueue}.
+ * A command's event id is the producer that offered it and its payload its
+ * place in that producer's order.
+ *
+ * @author jlreyes
+ */
+public class CommandQueueTest {
+    private static final int CAPACITY = 4;
+
+    private int mNumWarnings;
+
+    @Before
+    public void setUp() {
+        /* Counts the queue's full warnings instead of printing them */
+        Logger.SetSink(new Logger.Sink() {
+            public void log(int priority, String tag, String message) {
+                if (priority == Logger.WARN) mNumWarnings++;
+            }
+        });
+        this.mNumWarnings = 0;
+    }
+
+    @After
+    public void tearDown() {
+        Logger.SetSink(null);
+    }
+
+    private static void Offer(CommandQueue queue, int producer, int order) {
+        queue.offer(GameCommand.Command.EVENT, null, null, producer, order,
+                    GameCommand.PRIORITY_NORMAL);
+    }
+
+    private static void AssertPolled(CommandQueue queue, int producer, int order) {
+        GameCommand command = new GameCommand();
+        assertTrue(queue.poll(command));
+        assertEquals(GameCommand.Command.EVENT, command.getCommand());
+        assertEquals(producer, command.getEventId());
+        assertEquals(order, command.getPayload());
+    }
+
+    @Test
+    public void commandsWrapAroundInOrder() {
+        CommandQueue queue = new CommandQueue(CAPACITY);
+        assertEquals(CAPACITY, queue.getCapacity());
+        int order = 0;
+        for (int round = 0; round < 50; round++) {
+            int numCommands = 1 + round % CAPACITY;
+            for (int i = 0; i < numCommands; i++) Offer(queue, 0, order + i);
+            for (int i = 0; i < numCommands; i++) AssertPolled(queue, 0, order + i);
+            assertFalse(queue.poll(new GameCommand()));
+            order += numCommands;
+        }
+        assertEquals(0, queue.getNumOverflowed());
+    }
+
+    @Test
+    public void fullQueueOverflowsInOrder() {
+        CommandQueue queue = new CommandQueue(CAPACITY);
+        for (int i = 0; i < CAPACITY + 3; i++) Offer(queue, 0, i);
+        assertEquals(3, queue.getNumOverflowed());
+        assertEquals(1, mNumWarnings);
+        for (int i = 0; i < CAPACITY + 3; i++) AssertPolled(queue, 0, i);
+        assertFalse(queue.poll(new GameCommand()));
+        /* Everything was taken, so the ring is used again */
+        for (int i = 0; i < CAPACITY; i++) Offer(queue, 0, i);
+        assertEquals(3, queue.getNumOverflowed());
+    }
+
+    /**
+     * Once overflowing, commands keep going to the overflow list even after
+     * the ring has room, or they would be polled before the ones already
+     * there.
+     */
+    @Test
+    public void overflowHandsBackToTheRingOnceDrained() {
+        CommandQueue queue = new CommandQueue(CAPACITY);
+        for (int i = 0; i < CAPACITY + 1; i++) Offer(queue, 0, i);
+        AssertPolled(queue, 0, 0);
+        Offer(queue, 0, CAPACITY + 1);
+        assertEquals(2, queue.getNumOverflowed());
+        for (int i = 1; i < CAPACITY + 2; i++) AssertPolled(queue, 0, i);
+        assertFalse(queue.poll(new GameCommand()));
+        /* Drained, so this one goes to the ring */
+        Offer(queue, 0, CAPACITY + 2);
+        assertEquals(2, queue.getNumOverflowed());
+        AssertPolled(queue, 0, CAPACITY + 2);
+        assertEquals(1, mNumWarnings);
+    }
+
+    /**
+     * Producers offering while the logic thread polls, with a ring small
+     * enough that they overflow and hand back to the ring over and over.
+     * Every command arrives once, and each producer's in order.
+     */
+    @Test
+    public void producersKeepTheirOrder() throws InterruptedException {
+        final CommandQueue queue = new CommandQueue(CAPACITY);
+        final int numProducers = 4;
+        final int numCommands = 50000;
+        Thread[] producers = new Thread[numProducers];
+        for (int p = 0; p < numProducers; p++) {
+            final int producer = p;
+            producers[p] = new Thread("CommandQueueTest Producer " + p) {
+                @Override
+                public void run() {
+                    for (int i = 0; i < numCommands; i++) Offer(queue, producer, i);
+                }
+            };
+            producers[p].start();
+        }
+        int[] next = new int[numProducers];
+        int numPolled = 0;
+        GameCommand command = new GameCommand();
+        while (numPolled < numProducers * numCommands) {
+            if (queue.poll(command) == false) {
+                Thread.yield();
+                continue;
+            }
+            int producer = command.getEventId();
+            assertEquals(next[producer], command.getPayload());
+            next[producer]++;
+            numPolled++;
+        }
+        for (Thread producer : producers) producer.join();
+        assertFalse(queue.poll(command));
+        assertTrue(queue.getNumOverflowed() > 0);
+    }
+}
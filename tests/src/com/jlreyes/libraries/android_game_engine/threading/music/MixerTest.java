@@ -0,0 +1,73 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Mixes mono samples of a few frames, so every output frame can be worked
+ * out by hand. Gains are 1, so samples come out as they went in.
+ *
+ * @author jlreyes
+ */
+public class MixerTest {
+    private static final int RATE = 44100;
+    private static final int BUFFER_FRAMES = 16;
+
+    private SampleBank mBank;
+    private Mixer mMixer;
+    private short[] mOut;
+
+    @Before
+    public void setUp() {
+        this.mBank = new SampleBank();
+        this.mMixer = new Mixer(RATE, BUFFER_FRAMES, mBank, null);
+        this.mOut = new short[BUFFER_FRAMES * Mixer.CHANNELS];
+    }
+
+    private int addSample(short[] data) {
+        return mBank.add(new Sample(data, data.length, 1, RATE));
+    }
+
+    @Test
+    public void loopWrapsAtNormalPitch() {
+        int id = addSample(new short[]{100, 200, 300});
+        mMixer.play(id, 1.0f, 0.0f, 1.0f, 0, true);
+        mMixer.mix(mOut);
+        for (int i = 0; i < BUFFER_FRAMES; i++) {
+            assertEquals(100 * (1 + i % 3), mOut[2 * i]);
+            assertEquals(100 * (1 + i % 3), mOut[2 * i + 1]);
+        }
+        assertEquals(1, mMixer.getNumActive());
+    }
+
+    /**
+     * Each output frame steps 8 frames through a 3 frame sample, past its
+     * end more than once: frames 0, 8 % 3 = 2, 10 % 3 = 1, 9 % 3 = 0, ...
+     */
+    @Test
+    public void loopWrapsWhenSteppingPastTheWholeSample() {
+        int id = addSample(new short[]{100, 200, 300});
+        mMixer.play(id, 1.0f, 0.0f, 8.0f, 0, true);
+        short[] expected = new short[]{100, 300, 200};
+        for (int buffer = 0; buffer < 4; buffer++) {
+            mMixer.mix(mOut);
+            for (int i = 0; i < BUFFER_FRAMES; i++) {
+                int frame = buffer * BUFFER_FRAMES + i;
+                assertEquals(expected[frame % 3], mOut[2 * i]);
+            }
+        }
+        assertEquals(1, mMixer.getNumActive());
+    }
+
+    @Test
+    public void unloopedSoundEnds() {
+        int id = addSample(new short[]{100, 200, 300});
+        mMixer.play(id, 1.0f, 0.0f, 8.0f, 0, false);
+        mMixer.mix(mOut);
+        assertEquals(100, mOut[0]);
+        for (int i = 1; i < BUFFER_FRAMES; i++) assertEquals(0, mOut[2 * i]);
+        assertEquals(0, mMixer.getNumActive());
+    }
+}
@@ -0,0 +1,112 @@
+package com.jlreyes.libraries.android_game_engine.threading.music;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Offers and polls requests through a small {@link PlayQueue}. A request's
+ * sample id is the producer that offered it and its handle its place in
+ * that producer's order.
+ *
+ * @author jlreyes
+ */
+public class PlayQueueTest {
+    private static final int CAPACITY = 4;
+
+    private static long Offer(PlayQueue queue, int producer, long order) {
+        return queue.offer(PlayQueue.COMMAND_PLAY, producer, 0.5f, -0.25f,
+                           1.0f + order, producer + 1, order % 2 == 0, order);
+    }
+
+    private static void AssertPolled(PlayQueue queue, int producer, long order) {
+        assertTrue(queue.poll());
+        AssertRequest(queue, producer, order);
+    }
+
+    /**
+     * Checks the request last polled.
+     */
+    private static void AssertRequest(PlayQueue queue, int producer, long order) {
+        assertEquals(PlayQueue.COMMAND_PLAY, queue.getCommand());
+        assertEquals(producer, queue.getSampleId());
+        assertEquals(0.5f, queue.getVolume(), 0.0f);
+        assertEquals(-0.25f, queue.getPan(), 0.0f);
+        assertEquals(1.0f + order, queue.getPitch(), 0.0f);
+        assertEquals(producer + 1, queue.getPriority());
+        assertEquals(order % 2 == 0, queue.isLoop());
+        assertEquals(order, queue.getHandle());
+    }
+
+    @Test
+    public void requestsWrapAroundInOrder() {
+        PlayQueue queue = new PlayQueue(CAPACITY - 1);
+        assertEquals(CAPACITY, queue.getCapacity());
+        long ticket = 0;
+        for (int round = 0; round < 50; round++) {
+            int numRequests = 1 + round % CAPACITY;
+            for (int i = 0; i < numRequests; i++)
+                assertEquals(ticket + i, Offer(queue, 0, ticket + i));
+            for (int i = 0; i < numRequests; i++) {
+                AssertPolled(queue, 0, ticket + i);
+                assertEquals(ticket + i, queue.getTicket());
+            }
+            assertFalse(queue.poll());
+            ticket += numRequests;
+        }
+    }
+
+    @Test
+    public void fullQueueRefusesUntilPolled() {
+        PlayQueue queue = new PlayQueue(CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) assertEquals(i, Offer(queue, 0, i));
+        assertEquals(-1, Offer(queue, 0, CAPACITY));
+        AssertPolled(queue, 0, 0);
+        /* The refused request took no ticket */
+        assertEquals(CAPACITY, Offer(queue, 0, CAPACITY));
+        assertEquals(-1, Offer(queue, 0, CAPACITY + 1));
+        for (int i = 1; i <= CAPACITY; i++) AssertPolled(queue, 0, i);
+        assertFalse(queue.poll());
+    }
+
+    /**
+     * Producers offering while the mixer polls, offering again when the
+     * queue is full. Every request arrives once, each producer's in order,
+     * and tickets come out in the order they were handed out.
+     */
+    @Test
+    public void producersKeepTheirOrder() throws InterruptedException {
+        final PlayQueue queue = new PlayQueue(CAPACITY);
+        final int numProducers = 4;
+        final int numRequests = 50000;
+        Thread[] producers = new Thread[numProducers];
+        for (int p = 0; p < numProducers; p++) {
+            final int producer = p;
+            producers[p] = new Thread("PlayQueueTest Producer " + p) {
+                @Override
+                public void run() {
+                    for (long i = 0; i < numRequests; i++)
+                        while (Offer(queue, producer, i) == -1) Thread.yield();
+                }
+            };
+            producers[p].start();
+        }
+        long[] next = new long[numProducers];
+        long numPolled = 0;
+        while (numPolled < numProducers * numRequests) {
+            if (queue.poll() == false) {
+                Thread.yield();
+                continue;
+            }
+            int producer = queue.getSampleId();
+            AssertRequest(queue, producer, next[producer]);
+            assertEquals(numPolled, queue.getTicket());
+            next[producer]++;
+            numPolled++;
+        }
+        for (Thread producer : producers) producer.join();
+        assertFalse(queue.poll());
+    }
+}
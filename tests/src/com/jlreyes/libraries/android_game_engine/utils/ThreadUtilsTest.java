@@ -0,0 +1,39 @@
+package com.jlreyes.libraries.android_game_engine.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jlreyes
+ */
+public class ThreadUtilsTest {
+    @After
+    public void tearDown() {
+        /* Don't leave the flag set for the next test */
+        Thread.interrupted();
+    }
+
+    @Test
+    public void awaitReturnsOnceCountedDown() {
+        CountDownLatch latch = new CountDownLatch(1);
+        latch.countDown();
+        ThreadUtils.Await(latch);
+    }
+
+    @Test
+    public void awaitThrowsAndKeepsTheInterrupt() {
+        Thread.currentThread().interrupt();
+        try {
+            ThreadUtils.Await(new CountDownLatch(1));
+            fail("Await returned without the latch counting down.");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+        assertTrue(Thread.currentThread().isInterrupted());
+    }
+}